@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.systems.CurrentSystemProperties;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the initialization of {@link CurrentSystemProperties}.
+ *
+ * <p>The enum is initialized only once per class loader, so every invocation loads it through a
+ * fresh, isolated class loader.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 50)
+@Fork(3)
+public class CurrentSystemPropertiesBenchmark {
+
+    private static final String CLASS_NAME = CurrentSystemProperties.class.getName();
+
+    private URL[] classpath;
+
+    private URLClassLoader isolatedClassLoader;
+
+    @Setup(Level.Trial)
+    public void setUpClasspath() {
+        this.classpath = new URL[] {CurrentSystemProperties.class.getProtectionDomain().getCodeSource().getLocation()};
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpClassLoader() {
+        this.isolatedClassLoader = new URLClassLoader(this.classpath, null);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownClassLoader() throws IOException {
+        this.isolatedClassLoader.close();
+    }
+
+    @Benchmark
+    public Object initialize() throws ClassNotFoundException {
+        return Class.forName(CLASS_NAME, true, this.isolatedClassLoader).getEnumConstants()[0];
+    }
+}
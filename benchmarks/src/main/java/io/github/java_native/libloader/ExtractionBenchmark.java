@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link NativeLibLoader#loadLibrary(String)} end to end for synthetic payloads.
+ *
+ * <p>The payload is random data, so the final {@link System#load(String)} fails quickly. Everything
+ * before (detection, path formatting, resource lookup and extraction) is measured.</p>
+ *
+ * <ul>
+ *     <li>{@code cold}: the extraction directory is emptied before each invocation.</li>
+ *     <li>{@code cached}: the library was extracted before and is reused.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    private static final String LIBRARY_NAME = "libloaderbench";
+
+    /**
+     * 100 KB, 10 MB and 100 MB.
+     */
+    @Param({"102400", "10485760", "104857600"})
+    public int payloadSize;
+
+    @Param({"STORED", "DEFLATED"})
+    public String compression;
+
+    private File workDirectory;
+
+    private File extractionDirectory;
+
+    private ClassLoader previousContextClassLoader;
+
+    private URLClassLoader jarClassLoader;
+
+    private NativeLibLoader libLoader;
+
+    @Setup(Level.Trial)
+    public void setUpJar() throws IOException {
+        this.workDirectory = File.createTempFile("libloader-bench", "");
+        delete(this.workDirectory);
+        this.workDirectory.mkdirs();
+        this.extractionDirectory = new File(this.workDirectory, "extracted");
+
+        final File extractionDirectory = this.extractionDirectory;
+        final ExtensibleNativeLibLoader loader = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig() {
+            @Override
+            public File getExtractionDirectory() {
+                return extractionDirectory;
+            }
+        });
+        this.libLoader = loader;
+
+        final String entryName = loader.getLibraryPackagePath(LIBRARY_NAME).get(0);
+        final File jarFile = new File(this.workDirectory, "natives.jar");
+        writeJar(jarFile, entryName, createPayload(this.payloadSize), "STORED".equals(this.compression));
+
+        this.jarClassLoader = new URLClassLoader(new URL[] {jarFile.toURI().toURL()}, null);
+        this.previousContextClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(this.jarClassLoader);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownJar() throws IOException {
+        Thread.currentThread().setContextClassLoader(this.previousContextClassLoader);
+        this.jarClassLoader.close();
+        delete(this.workDirectory);
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        @Setup(Level.Invocation)
+        public void emptyCache(final ExtractionBenchmark benchmark) {
+            delete(benchmark.extractionDirectory);
+        }
+    }
+
+    @Benchmark
+    public LibLoaderResult cold(final ColdCache coldCache) {
+        return this.libLoader.loadLibrary(LIBRARY_NAME);
+    }
+
+    @Benchmark
+    public LibLoaderResult cached() {
+        return this.libLoader.loadLibrary(LIBRARY_NAME);
+    }
+
+    private static byte[] createPayload(final int size) {
+        final byte[] payload = new byte[size];
+        new Random(size).nextBytes(payload);
+
+        return payload;
+    }
+
+    private static void writeJar(final File jarFile, final String entryName, final byte[] payload, final boolean stored)
+            throws IOException {
+        final JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jarFile));
+
+        try {
+            final JarEntry jarEntry = new JarEntry(entryName);
+
+            if (stored) {
+                final CRC32 crc32 = new CRC32();
+                crc32.update(payload);
+                jarEntry.setMethod(ZipEntry.STORED);
+                jarEntry.setSize(payload.length);
+                jarEntry.setCompressedSize(payload.length);
+                jarEntry.setCrc(crc32.getValue());
+            }
+
+            jarOutputStream.putNextEntry(jarEntry);
+            jarOutputStream.write(payload);
+            jarOutputStream.closeEntry();
+        } finally {
+            jarOutputStream.close();
+        }
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+}
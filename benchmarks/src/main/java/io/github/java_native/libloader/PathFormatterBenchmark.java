@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibraryPathFormatter;
+import io.github.java_native.libloader.config.LibraryPathFormatter;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import io.github.java_native.libloader.systems.linux.LinuxArm32HardFloat;
+import io.github.java_native.libloader.systems.linux.LinuxX8664;
+import io.github.java_native.libloader.systems.osx.MacOsxX8664;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DefaultLibraryPathFormatter#getFormattedPaths(SystemDefinition, String)} and its versioned variant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PathFormatterBenchmark {
+
+    /**
+     * One suffix without qualifier, one suffix with qualifier, two suffixes.
+     */
+    @Param({"linux-x86_64", "linux-arm_32-hf", "osx-x86_64"})
+    public String system;
+
+    private final LibraryPathFormatter formatter = new DefaultLibraryPathFormatter();
+
+    private SystemDefinition systemDefinition;
+
+    @Setup
+    public void setUp() {
+        if ("linux-arm_32-hf".equals(this.system)) {
+            this.systemDefinition = new LinuxArm32HardFloat();
+        } else if ("osx-x86_64".equals(this.system)) {
+            this.systemDefinition = new MacOsxX8664();
+        } else {
+            this.systemDefinition = new LinuxX8664();
+        }
+    }
+
+    @Benchmark
+    public List<String> unversioned() {
+        return this.formatter.getFormattedPaths(this.systemDefinition, "jssc");
+    }
+
+    @Benchmark
+    public List<String> versioned() {
+        return this.formatter.getFormattedPaths(this.systemDefinition, "jssc", "2.9.2");
+    }
+}
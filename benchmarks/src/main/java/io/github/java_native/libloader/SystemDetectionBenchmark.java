@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link AbstractExtensibleNativeLibLoader#ensureSystemDetected()}.
+ *
+ * <ul>
+ *     <li>{@code cold}: a new loader for every call, as {@link LibLoader#getLibLoader()} creates one.</li>
+ *     <li>{@code warm}: the same loader from several threads, after detection already happened.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SystemDetectionBenchmark {
+
+    private final DefaultLibLoaderConfig config = new DefaultLibLoaderConfig();
+
+    private ExtensibleNativeLibLoader warmLoader;
+
+    @Setup
+    public void setUp() {
+        this.warmLoader = new ExtensibleNativeLibLoader(this.config);
+        this.warmLoader.ensureSystemDetected();
+    }
+
+    @Benchmark
+    public SystemDefinition cold() {
+        final ExtensibleNativeLibLoader loader = new ExtensibleNativeLibLoader(this.config);
+        loader.ensureSystemDetected();
+
+        return loader.getDetectedSystem();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SystemDefinition warm() {
+        this.warmLoader.ensureSystemDetected();
+
+        return this.warmLoader.getDetectedSystem();
+    }
+}
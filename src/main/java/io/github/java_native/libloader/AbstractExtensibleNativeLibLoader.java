@@ -18,18 +18,16 @@
 package io.github.java_native.libloader;
 
 import io.github.java_native.libloader.config.LibLoaderConfig;
+import io.github.java_native.libloader.internal.CallerClassLoader;
 import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.provider.LibLoaderListener;
 import io.github.java_native.libloader.provider.SystemDefinitionProvider;
 import io.github.java_native.libloader.systems.CurrentSystemProperties;
 import io.github.java_native.libloader.systems.SystemDefinition;
+import io.github.java_native.libloader.systems.SystemMatchIndex;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import java.util.ServiceLoader;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * Provides a lazy service loader loading mechanism.
@@ -38,106 +36,272 @@ abstract class AbstractExtensibleNativeLibLoader {
 
     private final LibLoaderConfig config;
 
-    private @Nullable SystemDefinition detectedSystem;
+    private final Object detectionLock = new Object();
+
+    /**
+     * The outcome of the system detection, {@code null} until detection ran.
+     *
+     * <p>Once set, the value is never changed again (except by tests), so reading the volatile field is
+     * all it takes after the first detection.<br></p>
+     */
+    private volatile @Nullable SystemDetection systemDetection;
+
+    private volatile @Nullable MergedSystemDefinitions mergedSystemDefinitions;
+
+    private volatile @Nullable SystemMatchIndex systemMatchIndex;
+
+    private final List<LibLoaderListener> configuredListeners;
+
+    private volatile @Nullable CombinedListeners combinedListeners;
 
     public AbstractExtensibleNativeLibLoader(final LibLoaderConfig config) {
         this.config = config;
+        this.configuredListeners = Collections.unmodifiableList(new ArrayList<LibLoaderListener>(config.getLibLoaderListeners()));
     }
 
     /**
-     * A provider for system definitions which will also trigger the lazy initialzation of the
-     * ServiceLoader mechanism.
+     * A provider for system definitions which will also trigger the lazy discovery of the
+     * {@link SystemDefinitionProvider}s visible to {@link #getRegistryClassLoader()}.
+     *
+     * <p>The merged list is only created again if the configured or provided definitions changed.<br></p>
      *
      * @return a List of SystemDefinitions including those supplied by ServiceLoaders.
      */
     protected List<SystemDefinition> getSystemDefinitions() {
-        final List<SystemDefinition> providedSystems = ServiceLoaderProvidedSystems.providedSystemDefinitions;
+        final List<SystemDefinition> providedSystems = ProvidedSystemDefinitions.forClassLoader(getRegistryClassLoader());
         final List<SystemDefinition> systemDefinitions = getConfig().getSystemDefinitions();
 
-        final ArrayList<SystemDefinition> allDefinitions =
-                new ArrayList<SystemDefinition>(providedSystems.size() + systemDefinitions.size());
+        final @Nullable MergedSystemDefinitions merged = this.mergedSystemDefinitions;
+
+        if (merged != null && merged.isMergeOf(providedSystems, systemDefinitions)) {
+            return merged.getAllDefinitions();
+        }
+
+        final MergedSystemDefinitions newMerged = new MergedSystemDefinitions(providedSystems, systemDefinitions);
+        this.mergedSystemDefinitions = newMerged;
+
+        return newMerged.getAllDefinitions();
+    }
 
-        allDefinitions.addAll(providedSystems);
-        allDefinitions.addAll(systemDefinitions);
+    /**
+     * Returns the match index for the current system definitions, which is only rebuilt if the definitions changed.
+     *
+     * @return a match index for {@link #getSystemDefinitions()}.
+     */
+    protected SystemMatchIndex getSystemMatchIndex() {
+        final List<SystemDefinition> systemDefinitions = getSystemDefinitions();
+        final @Nullable SystemMatchIndex index = this.systemMatchIndex;
 
-        return Collections.unmodifiableList(allDefinitions);
+        if (index != null && index.getDefinitions() == systemDefinitions) {
+            return index;
+        }
+
+        final SystemMatchIndex newIndex = SystemMatchIndex.build(systemDefinitions);
+        this.systemMatchIndex = newIndex;
+
+        return newIndex;
     }
 
+    /**
+     * Detects the current system once per loader instance.
+     *
+     * <p>The result, including an unsupported platform, is remembered, so subsequent calls do not scan
+     * the system definitions again.<br></p>
+     */
     protected void ensureSystemDetected() {
-        if (this.detectedSystem != null) {
+        if (this.systemDetection != null) {
             return;
         }
 
-        final CurrentSystemProperties currentSystemProperties = CurrentSystemProperties.INSTANCE;
-
-        for (final SystemDefinition system : getSystemDefinitions()) {
-            if (system.matches(currentSystemProperties)) {
-                this.detectedSystem = system;
+        synchronized (this.detectionLock) {
+            if (this.systemDetection != null) {
                 return;
             }
+
+            final long detectionStart = System.nanoTime();
+            final SystemDetection detection = detectSystem();
+            this.systemDetection = detection;
+            final @Nullable LibLoaderListener listener = getListener();
+
+            if (listener != null) {
+                listener.onSystemDetected(detection.getSystem(), System.nanoTime() - detectionStart);
+            }
         }
     }
 
+    private SystemDetection detectSystem() {
+        final @Nullable SystemDefinition system = getSystemMatchIndex().findMatch(CurrentSystemProperties.INSTANCE);
+
+        if (system == null) {
+            return SystemDetection.UNSUPPORTED;
+        }
+
+        return SystemDetection.supported(system);
+    }
+
+    /**
+     * Whether system detection ran and found no matching system definition.
+     *
+     * @return {@code true} if the current platform is not supported by any system definition.
+     */
+    protected boolean isUnsupportedPlatform() {
+        final @Nullable SystemDetection detection = this.systemDetection;
+
+        return detection != null && detection.getSystem() == null;
+    }
+
+    /**
+     * The class loader loaded libraries are registered for, and system definition providers and listeners are discovered with.
+     *
+     * <p>This is the class loader resources are looked up with first.<br></p>
+     *
+     * @return the context class loader, or the caller's or the libloader's class loader if there is none.
+     */
+    protected ClassLoader getRegistryClassLoader() {
+        final @Nullable ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        if (contextClassLoader != null) {
+            return contextClassLoader;
+        }
+
+        final @Nullable ClassLoader callerClassLoader = CallerClassLoader.get();
+
+        if (callerClassLoader != null) {
+            return callerClassLoader;
+        }
+
+        final @Nullable ClassLoader classLoader = AbstractExtensibleNativeLibLoader.class.getClassLoader();
+
+        return classLoader != null ? classLoader : ClassLoader.getSystemClassLoader();
+    }
+
     protected LibLoaderConfig getConfig() {
         return this.config;
     }
 
+    /**
+     * The listeners of this loader, combined into one.
+     *
+     * <p>Configured listeners are collected when the loader is created, provided listeners are those visible to
+     * {@link #getRegistryClassLoader()}. Callers must not create any events if there are none.<br></p>
+     *
+     * <p>Looking the listeners up checks the provided listeners of the class loader, so a load looks them up once
+     * and passes the result to each event site.<br></p>
+     *
+     * @return the combined listener, or {@code null} if there are no listeners.
+     */
+    protected @Nullable LibLoaderListener getListener() {
+        final List<LibLoaderListener> providedListeners = ProvidedSystemDefinitions.listenersForClassLoader(getRegistryClassLoader());
+        final @Nullable CombinedListeners combined = this.combinedListeners;
+
+        if (combined != null && combined.providedListeners == providedListeners) {
+            return combined.listener;
+        }
+
+        final CombinedListeners newCombined = new CombinedListeners(providedListeners,
+                LibLoaderListeners.combine(providedListeners, this.configuredListeners));
+        this.combinedListeners = newCombined;
+
+        return newCombined.listener;
+    }
+
+
+    protected @Nullable SystemDefinition getDetectedSystem() {
+        final @Nullable SystemDetection detection = this.systemDetection;
 
-    protected SystemDefinition getDetectedSystem() {
-        return this.detectedSystem;
+        return detection == null ? null : detection.getSystem();
     }
 
     protected void setDetectedSystem(final SystemDefinition detectedSystem) {
-        this.detectedSystem = detectedSystem;
+        this.systemDetection = SystemDetection.supported(detectedSystem);
     }
 
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("AbstractExtensibleNativeLibLoader{");
         sb.append("config=").append(this.config);
-        sb.append(", detectedSystem=").append(this.detectedSystem);
+        sb.append(", systemDetection=").append(this.systemDetection);
         sb.append('}');
         return sb.toString();
     }
 
     /**
-     * Value holding class with lazy initialization.
+     * Immutable merge of the provided and configured system definitions.
      */
-    private static class ServiceLoaderProvidedSystems {
+    private static final class MergedSystemDefinitions {
 
-        static final List<SystemDefinition> providedSystemDefinitions = doLoadFromServiceLoaders();
+        private final List<SystemDefinition> providedSystems;
 
-        private static List<SystemDefinition> doLoadFromServiceLoaders() {
-            final String className = ServiceLoaderProvidedSystems.class.getName();
-            final Logger logger = Logger.getLogger(className);
+        private final List<SystemDefinition> configuredSystems;
 
-            logger.log(Level.INFO, "Loading additional system definitions.");
+        private final List<SystemDefinition> allDefinitions;
 
-            final ServiceLoader<SystemDefinitionProvider> providers = ServiceLoader.load(SystemDefinitionProvider.class);
-            final Iterator<SystemDefinitionProvider> providerIterator = providers.iterator();
+        MergedSystemDefinitions(final List<SystemDefinition> providedSystems, final List<SystemDefinition> configuredSystems) {
+            this.providedSystems = providedSystems;
+            this.configuredSystems = configuredSystems;
 
-            final List<SystemDefinition> collectedSystemDefinitions = new ArrayList<SystemDefinition>();
+            final ArrayList<SystemDefinition> allDefinitions =
+                    new ArrayList<SystemDefinition>(providedSystems.size() + configuredSystems.size());
 
-            while (providerIterator.hasNext()) {
-                final SystemDefinitionProvider provider = providerIterator.next();
-                final Collection<SystemDefinition> providerSystemDefinitions = provider.getSystemDefinitions();
+            allDefinitions.addAll(providedSystems);
+            allDefinitions.addAll(configuredSystems);
 
-                if (null == providerSystemDefinitions) {
+            this.allDefinitions = Collections.unmodifiableList(allDefinitions);
+        }
 
-                    logger.log(Level.WARNING,
-                            "Provider " + provider.getClass().getName() + " returned 'null' for getSystemDefinitions.");
+        boolean isMergeOf(final List<SystemDefinition> providedSystems, final List<SystemDefinition> configuredSystems) {
+            return (this.providedSystems == providedSystems || this.providedSystems.equals(providedSystems))
+                    && (this.configuredSystems == configuredSystems || this.configuredSystems.equals(configuredSystems));
+        }
 
-                    // this result must be ignored.
-                    continue;
-                }
-                collectedSystemDefinitions.addAll(providerSystemDefinitions);
-            }
+        List<SystemDefinition> getAllDefinitions() {
+            return this.allDefinitions;
+        }
+    }
 
-            if (!collectedSystemDefinitions.isEmpty()) {
-                logger.log(Level.INFO, "Loaded " + collectedSystemDefinitions.size() + " additional definitions.");
-            }
+    /**
+     * Immutable outcome of the system detection.
+     */
+    private static final class SystemDetection {
+
+        static final SystemDetection UNSUPPORTED = new SystemDetection(null);
+
+        private final @Nullable SystemDefinition system;
+
+        private SystemDetection(final @Nullable SystemDefinition system) {
+            this.system = system;
+        }
+
+        static SystemDetection supported(final SystemDefinition system) {
+            return new SystemDetection(system);
+        }
+
+        @Nullable
+        SystemDefinition getSystem() {
+            return this.system;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("SystemDetection{");
+            sb.append("system=").append(this.system);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * The provided listeners of one class loader, combined with the configured listeners.
+     */
+    private static final class CombinedListeners {
+
+        private final List<LibLoaderListener> providedListeners;
+
+        private final @Nullable LibLoaderListener listener;
 
-            return Collections.unmodifiableList(collectedSystemDefinitions);
+        CombinedListeners(final List<LibLoaderListener> providedListeners, final @Nullable LibLoaderListener listener) {
+            this.providedListeners = providedListeners;
+            this.listener = listener;
         }
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.internal.ExtractedLibrary;
+import io.github.java_native.libloader.internal.Nullable;
+import java.io.File;
+
+/**
+ * Immutable result of a load operation.
+ */
+class DefaultLibLoaderResult implements LibLoaderResult {
+
+    private final String libraryName;
+
+    private final @Nullable File libraryFile;
+
+    private final @Nullable Throwable error;
+
+    private final @Nullable String resourcePath;
+
+    private final @Nullable String variant;
+
+    private final boolean extractionCached;
+
+    private final boolean previouslyLoaded;
+
+    private final LibLoaderTimings timings;
+
+    DefaultLibLoaderResult(final String libraryName, final @Nullable File libraryFile, final @Nullable Throwable error) {
+        this(libraryName, libraryFile, error, null, null, false, false, LibLoaderTimings.NONE);
+    }
+
+    DefaultLibLoaderResult(final String libraryName,
+                           final @Nullable File libraryFile,
+                           final @Nullable Throwable error,
+                           final @Nullable String resourcePath,
+                           final @Nullable String variant,
+                           final boolean extractionCached,
+                           final boolean previouslyLoaded,
+                           final LibLoaderTimings timings) {
+        this.libraryName = libraryName;
+        this.libraryFile = libraryFile;
+        this.error = error;
+        this.resourcePath = resourcePath;
+        this.variant = variant;
+        this.extractionCached = extractionCached;
+        this.previouslyLoaded = previouslyLoaded;
+        this.timings = timings;
+    }
+
+    static LibLoaderResult success(final String libraryName, final File libraryFile) {
+        return new DefaultLibLoaderResult(libraryName, libraryFile, null);
+    }
+
+    static LibLoaderResult failure(final String libraryName, final @Nullable File libraryFile, final Throwable error) {
+        return new DefaultLibLoaderResult(libraryName, libraryFile, error);
+    }
+
+    /**
+     * Creates the result of loading (or trying to load) a resolved library.
+     *
+     * @param resolvedLibrary
+     *         the resolved library.
+     * @param error
+     *         the error of the resolution or of {@link System#load(String)}, or {@code null} if the library was loaded.
+     * @param loadNanos
+     *         the time spent in {@link System#load(String)}.
+     * @return the result.
+     */
+    static LibLoaderResult of(final ResolvedLibrary resolvedLibrary, final @Nullable Throwable error, final long loadNanos) {
+        final @Nullable ExtractedLibrary extractedLibrary = resolvedLibrary.getExtractedLibrary();
+
+        return new DefaultLibLoaderResult(
+                resolvedLibrary.getLibraryName(),
+                extractedLibrary != null ? extractedLibrary.getFile() : null,
+                error,
+                resolvedLibrary.getResourcePath(),
+                resolvedLibrary.getVariant(),
+                extractedLibrary != null && extractedLibrary.isCached(),
+                false,
+                resolvedLibrary.getTimings().withLoadNanos(loadNanos));
+    }
+
+    /**
+     * The same result, marked as remembered from an earlier call.
+     *
+     * @param result
+     *         a result returned by an earlier call.
+     * @return a result for which {@link #isPreviouslyLoaded()} is {@code true}.
+     */
+    static LibLoaderResult previouslyLoaded(final LibLoaderResult result) {
+        if (result.isPreviouslyLoaded()) {
+            return result;
+        }
+
+        return new DefaultLibLoaderResult(result.getLibraryName(), result.getLibraryFile(), result.getError(),
+                result.getResourcePath(), result.getVariant(), result.isExtractionCached(), true, result.getTimings());
+    }
+
+    @Override
+    public String getLibraryName() {
+        return this.libraryName;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return this.error == null;
+    }
+
+    @Override
+    public @Nullable File getLibraryFile() {
+        return this.libraryFile;
+    }
+
+    @Override
+    public @Nullable Throwable getError() {
+        return this.error;
+    }
+
+    @Override
+    public @Nullable String getResourcePath() {
+        return this.resourcePath;
+    }
+
+    @Override
+    public @Nullable String getVariant() {
+        return this.variant;
+    }
+
+    @Override
+    public boolean isExtractionCached() {
+        return this.extractionCached;
+    }
+
+    @Override
+    public boolean isPreviouslyLoaded() {
+        return this.previouslyLoaded;
+    }
+
+    @Override
+    public LibLoaderTimings getTimings() {
+        return this.timings;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DefaultLibLoaderResult{");
+        sb.append("libraryName='").append(this.libraryName).append('\'');
+        sb.append(", libraryFile=").append(this.libraryFile);
+        sb.append(", error=").append(this.error);
+        sb.append(", resourcePath='").append(this.resourcePath).append('\'');
+        sb.append(", variant='").append(this.variant).append('\'');
+        sb.append(", extractionCached=").append(this.extractionCached);
+        sb.append(", previouslyLoaded=").append(this.previouslyLoaded);
+        sb.append(", timings=").append(this.timings);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -17,24 +17,784 @@
 
 package io.github.java_native.libloader;
 
+import io.github.java_native.libloader.config.DefaultLibraryPathFormatter;
 import io.github.java_native.libloader.config.LibLoaderConfig;
+import io.github.java_native.libloader.config.LibraryPathFormatter;
+import io.github.java_native.libloader.internal.CallerClassLoader;
+import io.github.java_native.libloader.internal.Digests;
+import io.github.java_native.libloader.internal.ExtractedLibrary;
+import io.github.java_native.libloader.internal.ExtractionCache;
+import io.github.java_native.libloader.internal.ExtractionListener;
+import io.github.java_native.libloader.internal.NativeResource;
+import io.github.java_native.libloader.internal.NativesIndex;
+import io.github.java_native.libloader.internal.NativesIndex.IndexEntry;
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.internal.PreparedNatives;
+import io.github.java_native.libloader.internal.StaleExtractionSweeper;
+import io.github.java_native.libloader.provider.LibLoaderListener;
+import io.github.java_native.libloader.systems.CpuFeatures;
+import io.github.java_native.libloader.systems.CurrentSystemProperties;
+import io.github.java_native.libloader.systems.Libc;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Implemnentation of LibLoader which detects system configuration via ServiceLoaders.
  */
 class ExtensibleNativeLibLoader extends AbstractExtensibleNativeLibLoader implements NativeLibLoader {
 
+    private static final Logger LOG = Logger.getLogger(ExtensibleNativeLibLoader.class.getName());
+
+    /**
+     * Extraction is I/O bound, so a few more threads than CPUs are fine, but not unbounded.
+     */
+    private static final int MAX_BATCH_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final @Nullable String OVERRIDE_EXTRACTION_DIRECTORY = System.getProperty("native.libloader.tempdir", null);
+
+    private static final @Nullable String OVERRIDE_PREPARED_DIRECTORY = System.getProperty("native.libloader.prepared", null);
+
+    private static final @Nullable String OVERRIDE_VERIFY_DIGESTS = System.getProperty("native.libloader.verify", null);
+
+    private static final @Nullable String OVERRIDE_COMPRESSED_NATIVES = System.getProperty("native.libloader.compressed", null);
+
+    private static final @Nullable String OVERRIDE_MAX_CACHE_SIZE = System.getProperty("native.libloader.cachesize", null);
+
+    private static final String LINUX = "linux";
+
+    private static final String MUSL_VARIANT = "musl";
+
+    private static final boolean SWEEP_STALE_EXTRACTIONS = Boolean.parseBoolean(System.getProperty("native.libloader.sweep", "true"));
+
     public ExtensibleNativeLibLoader(final LibLoaderConfig config) {
         super(config);
     }
 
     @Override
     public LibLoaderResult loadLibrary(final String libraryName) {
+        return loadRegistered(libraryName, null);
+    }
+
+    @Override
+    public LibLoaderResult loadLibrary(final String libraryName, final String version) {
+        if (version == null) {
+            throw new NullPointerException("version");
+        }
+
+        return loadRegistered(libraryName, version);
+    }
+
+    private LibLoaderResult loadRegistered(final String libraryName, final @Nullable String version) {
+        final ClassLoader classLoader = getRegistryClassLoader();
+        final @Nullable LibLoaderResult loaded = LoadedLibraryRegistry.get(classLoader, libraryName, version);
+        // looked up once per call, each event site only checks it.
+        final @Nullable LibLoaderListener listener = getListener();
+
+        if (loaded != null) {
+            return completed(loaded, listener);
+        }
+
+        return completed(LoadedLibraryRegistry.register(classLoader, version, load(resolve(libraryName, version, listener))), listener);
+    }
+
+    private static LibLoaderResult completed(final LibLoaderResult result, final @Nullable LibLoaderListener listener) {
+        if (listener != null) {
+            listener.onLoadCompleted(result);
+        }
+
+        return result;
+    }
+
+    @Override
+    public Map<String, LibLoaderResult> loadLibraries(final String... libraryNames) {
+        return loadLibraries(Arrays.asList(libraryNames), Collections.<String, Collection<String>>emptyMap());
+    }
+
+    @Override
+    public Map<String, LibLoaderResult> loadLibraries(final Collection<String> libraryNames,
+                                                      final Map<String, ? extends Collection<String>> dependencies) {
+        final List<String> loadOrder = LibraryDependencyGraph.getLoadOrder(libraryNames, dependencies);
+
         ensureSystemDetected();
 
+        // fail early on invalid names, before anything is submitted. Without a system, each result reports that instead.
+        if (!isUnsupportedPlatform()) {
+            for (final String libraryName : loadOrder) {
+                getLibraryPackagePath(libraryName);
+            }
+        }
+
+        final ClassLoader classLoader = getRegistryClassLoader();
+        final Map<String, LibLoaderResult> loadedLibraries = new LinkedHashMap<String, LibLoaderResult>();
+
+        for (final String libraryName : loadOrder) {
+            final @Nullable LibLoaderResult loaded = LoadedLibraryRegistry.get(classLoader, libraryName, null);
+
+            if (loaded != null) {
+                loadedLibraries.put(libraryName, loaded);
+            }
+        }
+
+        if (loadedLibraries.size() == loadOrder.size()) {
+            return Collections.unmodifiableMap(loadedLibraries);
+        }
+
+        final @Nullable LibLoaderListener listener = getListener();
+        final Map<String, Future<ResolvedLibrary>> pendingLibraries = new LinkedHashMap<String, Future<ResolvedLibrary>>();
+        final ExecutorService executorService = createBatchExecutor(loadOrder.size() - loadedLibraries.size());
+
+        try {
+            for (final String libraryName : loadOrder) {
+                if (loadedLibraries.containsKey(libraryName)) {
+                    continue;
+                }
+
+                pendingLibraries.put(libraryName, executorService.submit(new Callable<ResolvedLibrary>() {
+                    @Override
+                    public ResolvedLibrary call() {
+                        return resolve(libraryName, null, listener);
+                    }
+                }));
+            }
+
+            return loadInOrder(loadOrder, dependencies, classLoader, loadedLibraries, pendingLibraries, listener);
+        } finally {
+            // not shutdownNow(): an interrupt would abort extractions which hold the cross-process lock.
+            executorService.shutdown();
+        }
+    }
+
+    @Override
+    public LibLoaderWarmUp warmUp(final String... libraryNames) {
+        final FutureTask<Map<String, LibLoaderResult>> warmUpTask = createWarmUpTask(Arrays.asList(libraryNames));
+        final Thread thread = new Thread(warmUpTask, "native-libloader-warmup");
+        thread.setDaemon(true);
+        thread.start();
+
+        return new LibLoaderWarmUp(warmUpTask);
+    }
+
+    @Override
+    public LibLoaderWarmUp warmUp(final Executor executor, final Collection<String> libraryNames) {
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+
+        final FutureTask<Map<String, LibLoaderResult>> warmUpTask = createWarmUpTask(libraryNames);
+        executor.execute(warmUpTask);
+
+        return new LibLoaderWarmUp(warmUpTask);
+    }
+
+    private FutureTask<Map<String, LibLoaderResult>> createWarmUpTask(final Collection<String> libraryNames) {
+        final List<String> warmUpLibraries = new ArrayList<String>(libraryNames);
+
+        for (final String libraryName : warmUpLibraries) {
+            if (libraryName == null) {
+                throw new NullPointerException("libraryName");
+            }
+        }
+
+        // register the libraries for the caller, not for whatever class loader the executor's thread has.
+        final ClassLoader classLoader = getRegistryClassLoader();
+
+        return new FutureTask<Map<String, LibLoaderResult>>(new Callable<Map<String, LibLoaderResult>>() {
+            @Override
+            public Map<String, LibLoaderResult> call() {
+                final Thread currentThread = Thread.currentThread();
+                final @Nullable ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+                currentThread.setContextClassLoader(classLoader);
+
+                try {
+                    return loadLibraries(warmUpLibraries, Collections.<String, Collection<String>>emptyMap());
+                } finally {
+                    currentThread.setContextClassLoader(previousClassLoader);
+                }
+            }
+        });
+    }
+
+    private Map<String, LibLoaderResult> loadInOrder(final List<String> loadOrder,
+                                                     final Map<String, ? extends Collection<String>> dependencies,
+                                                     final ClassLoader classLoader,
+                                                     final Map<String, LibLoaderResult> loadedLibraries,
+                                                     final Map<String, Future<ResolvedLibrary>> pendingLibraries,
+                                                     final @Nullable LibLoaderListener listener) {
+        final Map<String, LibLoaderResult> results = new LinkedHashMap<String, LibLoaderResult>();
+
+        for (final String libraryName : loadOrder) {
+            final @Nullable LibLoaderResult loaded = loadedLibraries.get(libraryName);
+
+            if (loaded != null) {
+                results.put(libraryName, completed(loaded, listener));
+                continue;
+            }
+
+            final @Nullable String failedDependency = findFailedDependency(libraryName, dependencies, results);
+
+            if (failedDependency != null) {
+                results.put(libraryName, completed(DefaultLibLoaderResult.failure(libraryName, null,
+                        new UnsatisfiedLinkError("Dependency [" + failedDependency + "] of library ["
+                                + libraryName + "] could not be loaded.")), listener));
+                continue;
+            }
+
+            final LibLoaderResult result = load(awaitResolved(libraryName, pendingLibraries.get(libraryName)));
+            results.put(libraryName, completed(LoadedLibraryRegistry.register(classLoader, null, result), listener));
+        }
+
+        return Collections.unmodifiableMap(results);
+    }
+
+    private static @Nullable String findFailedDependency(final String libraryName,
+                                                         final Map<String, ? extends Collection<String>> dependencies,
+                                                         final Map<String, LibLoaderResult> results) {
+        final @Nullable Collection<String> libraryDependencies = dependencies.get(libraryName);
+
+        if (libraryDependencies == null) {
+            return null;
+        }
+
+        for (final String dependency : libraryDependencies) {
+            if (!results.get(dependency).isLoaded()) {
+                return dependency;
+            }
+        }
+
+        return null;
+    }
+
+    private static ResolvedLibrary awaitResolved(final String libraryName, final Future<ResolvedLibrary> pendingLibrary) {
+        try {
+            return pendingLibrary.get();
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+
+            return ResolvedLibrary.failed(libraryName, interruptedException);
+        } catch (final ExecutionException executionException) {
+            final Throwable cause = executionException.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            return ResolvedLibrary.failed(libraryName, cause);
+        }
+    }
+
+    static ExecutorService createBatchExecutor(final int libraryCount) {
+        final int threads = Math.max(1, Math.min(libraryCount, MAX_BATCH_THREADS));
+
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "native-libloader-" + this.threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Looks up the library on the classpath and extracts it, without loading it.
+     *
+     * <p>Libraries listed in the prepared directory are returned without any lookup.
+     * Otherwise the candidate paths are tried in order: a candidate listed in a {@link NativesIndex} is found
+     * with a map lookup, any other candidate is only probed in the class path roots without an index.<br></p>
+     *
+     * @param libraryName
+     *         the library to resolve.
+     * @param version
+     *         the requested version, or {@code null} to only look up unversioned paths.
+     * @param listener
+     *         the listener of the load, see {@link #getListener()}, or {@code null} to not create any events.
+     * @return the extracted library, or the reason why it could not be extracted.
+     */
+    protected ResolvedLibrary resolve(final String libraryName,
+                                      final @Nullable String version,
+                                      final @Nullable LibLoaderListener listener) {
+        final @Nullable ResolvedLibrary preparedLibrary = resolvePrepared(libraryName, version, listener);
+
+        if (preparedLibrary != null) {
+            return preparedLibrary;
+        }
+
+        final long detectionStart = System.nanoTime();
+        ensureSystemDetected();
+        final long detectionNanos = System.nanoTime() - detectionStart;
+
+        if (isUnsupportedPlatform()) {
+            return ResolvedLibrary.failed(libraryName,
+                    new UnsatisfiedLinkError("No system definition matches the current system "
+                            + CurrentSystemProperties.INSTANCE + "."),
+                    null,
+                    new LibLoaderTimings(detectionNanos, 0L, 0L, 0L, 0L, 0L, 0L));
+        }
+
+        final SystemDefinition system = getDetectedSystem();
+
+        final long candidatesStart = System.nanoTime();
+        final List<String> libraryPackagePaths = getCandidatePaths(libraryName, version);
+        final long candidatesNanos = System.nanoTime() - candidatesStart;
+
+        final long lookupStart = System.nanoTime();
+        final NativesIndex index = NativesIndex.forClassLoader(getRegistryClassLoader());
+
+        // in order of preference, so an index never changes which library is chosen.
+        for (final String libraryPackagePath : libraryPackagePaths) {
+            final @Nullable IndexEntry indexEntry = index.find(libraryPackagePath);
+            final @Nullable URL resourceUrl = indexEntry != null ? indexEntry.getUrl() : findUnindexedResource(index, libraryPackagePath);
+
+            if (listener != null) {
+                listener.onCandidateProbed(libraryName, libraryPackagePath, resourceUrl != null);
+            }
+
+            if (resourceUrl == null) {
+                continue;
+            }
+
+            final long lookupNanos = System.nanoTime() - lookupStart;
+
+            return extract(libraryName, system, libraryPackagePath, resourceUrl, indexEntry,
+                    detectionNanos, candidatesNanos, lookupNanos, listener);
+        }
+
+        return ResolvedLibrary.failed(libraryName,
+                new UnsatisfiedLinkError("Library [" + libraryName + "] not found in " + libraryPackagePaths + "."),
+                null,
+                new LibLoaderTimings(detectionNanos, candidatesNanos, System.nanoTime() - lookupStart, 0L, 0L, 0L, 0L));
+    }
+
+    private @Nullable ResolvedLibrary resolvePrepared(final String libraryName,
+                                                      final @Nullable String version,
+                                                      final @Nullable LibLoaderListener listener) {
+        final @Nullable File preparedDirectory = getPreparedDirectory();
+
+        if (preparedDirectory == null) {
+            return null;
+        }
+
+        final long lookupStart = System.nanoTime();
+        final PreparedNatives preparedNatives = PreparedNatives.forDirectory(preparedDirectory);
+        final @Nullable String preparedPath = preparedNatives.findPath(libraryName, version);
+
+        if (preparedPath == null) {
+            LOG.log(Level.FINE, "Library [" + libraryName + "] was not prepared in [" + preparedDirectory + "].");
+
+            return null;
+        }
+
+        final long detectionStart = System.nanoTime();
+        ensureSystemDetected();
+        final long detectionNanos = System.nanoTime() - detectionStart;
+        final @Nullable SystemDefinition system = getDetectedSystem();
+
+        // e.g. a directory prepared for another architecture was copied into the image.
+        if (system == null || !ExtractionCache.getSystemIdentifier(system).equals(preparedNatives.getSystem())) {
+            LOG.log(Level.WARNING, "Library [" + libraryName + "] was prepared in [" + preparedDirectory + "] for ["
+                    + preparedNatives.getSystem() + "], not for the detected system [" + system + "], looking it up instead.");
+
+            return null;
+        }
+
+        final @Nullable String variant = preparedNatives.findVariant(libraryName, version);
+
+        // e.g. an avx512 build was prepared on the build host, but this CPU does not support it.
+        if (variant != null && !getSystemVariants().contains(variant)) {
+            LOG.log(Level.WARNING, "Library [" + libraryName + "] was prepared in [" + preparedDirectory + "] from the variant ["
+                    + variant + "], which cannot be loaded on this system, looking it up instead.");
+
+            return null;
+        }
+
+        // e.g. an image layer replaced or removed the file after the directory was prepared.
+        if (!preparedNatives.isIntact(libraryName, version)) {
+            LOG.log(Level.WARNING, "Library [" + libraryName + "] was prepared in [" + preparedDirectory
+                    + "], but its file is missing or was changed, looking it up instead.");
+
+            return null;
+        }
+
+        final File libraryFile = new File(preparedDirectory, preparedPath);
+
+        if (listener != null) {
+            listener.onCacheHit(libraryName, libraryFile);
+        }
+
+        return ResolvedLibrary.extracted(libraryName, preparedPath, variant, new ExtractedLibrary(libraryFile, true),
+                new LibLoaderTimings(detectionNanos, 0L, System.nanoTime() - lookupStart - detectionNanos, 0L, 0L, 0L, 0L));
+    }
+
+    /**
+     * The directory of libraries extracted ahead of time.
+     *
+     * @return the prepared directory, or {@code null} if there is none.
+     */
+    protected @Nullable File getPreparedDirectory() {
+        if (OVERRIDE_PREPARED_DIRECTORY != null) {
+            return new File(OVERRIDE_PREPARED_DIRECTORY);
+        }
+
+        return getConfig().getPreparedDirectory();
+    }
+
+    private ResolvedLibrary extract(final String libraryName,
+                                    final SystemDefinition system,
+                                    final String libraryPackagePath,
+                                    final URL resourceUrl,
+                                    final @Nullable IndexEntry indexEntry,
+                                    final long detectionNanos,
+                                    final long candidatesNanos,
+                                    final long lookupNanos,
+                                    final @Nullable LibLoaderListener listener) {
+        final long extractionStart = System.nanoTime();
+
+        try {
+            final NativeResource resource = withDeclaredDigest(indexEntry != null
+                    ? indexEntry.toNativeResource()
+                    : NativeResource.fromUrl(libraryPackagePath, resourceUrl), indexEntry);
+            final ExtractedLibrary extractedLibrary = getExtractionCache().extract(libraryName, system, resource,
+                    listener != null ? new ListenerExtractionAdapter(libraryName, listener) : null);
+            final long integrityCheckNanos = extractedLibrary.getIntegrityCheckNanos();
+            final long extractionNanos = System.nanoTime() - extractionStart - integrityCheckNanos;
+
+            return ResolvedLibrary.extracted(libraryName, libraryPackagePath, getSystemVariant(libraryPackagePath), extractedLibrary,
+                    new LibLoaderTimings(detectionNanos, candidatesNanos, lookupNanos,
+                            extractionNanos, extractedLibrary.getExtractedBytes(), integrityCheckNanos, 0L));
+        } catch (final IOException ioException) {
+            LOG.log(Level.WARNING, "Unable to extract [" + resourceUrl + "].", ioException);
+
+            return ResolvedLibrary.failed(libraryName, ioException, libraryPackagePath,
+                    new LibLoaderTimings(detectionNanos, candidatesNanos, lookupNanos, System.nanoTime() - extractionStart, 0L, 0L, 0L));
+        }
+    }
+
+    private NativeResource withDeclaredDigest(final NativeResource resource, final @Nullable IndexEntry indexEntry) throws IOException {
+        if (!isVerifyDigests()) {
+            // still lets the cache reuse an identical file extracted under another name.
+            return indexEntry != null && Digests.isSha256(indexEntry.getSha256())
+                    ? resource.withContentSha256(indexEntry.getSha256())
+                    : resource;
+        }
+
+        if (indexEntry != null && Digests.isSha256(indexEntry.getSha256())) {
+            return resource.withSha256(indexEntry.getSha256());
+        }
+
+        final @Nullable URL declarationUrl = findResource(resource.getPath() + Digests.SHA256_SUFFIX);
+
+        if (declarationUrl == null) {
+            throw new IOException("No SHA-256 digest declared for [" + resource.getUrl() + "].");
+        }
+
+        return resource.withSha256(Digests.readDeclaredSha256(declarationUrl));
+    }
+
+    /**
+     * Whether libraries are verified against their declared SHA-256 digest before they are loaded.
+     *
+     * @return {@code true} if verification is enabled.
+     */
+    protected boolean isVerifyDigests() {
+        if (OVERRIDE_VERIFY_DIGESTS != null) {
+            return Boolean.parseBoolean(OVERRIDE_VERIFY_DIGESTS);
+        }
+
+        return getConfig().isVerifyDigests();
+    }
+
+    /**
+     * Whether a compressed file is looked up after each candidate path, even if the natives index does not list it.
+     *
+     * @return {@code true} if compressed libraries are looked up without an index.
+     */
+    protected boolean isCompressedNatives() {
+        if (OVERRIDE_COMPRESSED_NATIVES != null) {
+            return Boolean.parseBoolean(OVERRIDE_COMPRESSED_NATIVES);
+        }
+
+        return getConfig().isCompressedNatives();
+    }
+
+    /**
+     * The disk budget of the extraction cache.
+     *
+     * @return the maximum size in bytes, or {@link ExtractionCache#UNLIMITED}.
+     */
+    protected long getMaxExtractionCacheSize() {
+        if (OVERRIDE_MAX_CACHE_SIZE != null) {
+            try {
+                return Long.parseLong(OVERRIDE_MAX_CACHE_SIZE.trim());
+            } catch (final NumberFormatException numberFormatException) {
+                LOG.log(Level.WARNING, "Ignoring invalid cache size [" + OVERRIDE_MAX_CACHE_SIZE + "].", numberFormatException);
+            }
+        }
+
+        return getConfig().getMaxExtractionCacheSize();
+    }
+
+    /**
+     * Loads a resolved library via {@link System#load(String)}.
+     *
+     * @param resolvedLibrary
+     *         the library to load.
+     * @return the load result.
+     */
+    protected LibLoaderResult load(final ResolvedLibrary resolvedLibrary) {
+        final @Nullable ExtractedLibrary extractedLibrary = resolvedLibrary.getExtractedLibrary();
+
+        if (extractedLibrary == null) {
+            return DefaultLibLoaderResult.of(resolvedLibrary, resolvedLibrary.getError(), 0L);
+        }
+
+        final long loadStart = System.nanoTime();
+
+        try {
+            System.load(extractedLibrary.getFile().getAbsolutePath());
+        } catch (final UnsatisfiedLinkError linkError) {
+            return DefaultLibLoaderResult.of(resolvedLibrary, linkError, System.nanoTime() - loadStart);
+        }
+
+        return DefaultLibLoaderResult.of(resolvedLibrary, null, System.nanoTime() - loadStart);
+    }
+
+    /**
+     * Probes a candidate which the index does not list.
+     *
+     * <p>Only the class path roots without an index are probed. If every root has an index, the candidate does
+     * not exist. Without an index, or if the class loaders cannot list their roots, {@link #findResource(String)}
+     * probes the whole class path.<br></p>
+     */
+    private @Nullable URL findUnindexedResource(final NativesIndex index, final String libraryPackagePath) {
+        if (index.isEmpty() || !index.isCoverageKnown()) {
+            return findResource(libraryPackagePath);
+        }
+
+        return index.findUnindexed(libraryPackagePath);
+    }
+
+    protected @Nullable URL findResource(final String libraryPackagePath) {
+        final @Nullable ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        if (contextClassLoader != null) {
+            final @Nullable URL resource = contextClassLoader.getResource(libraryPackagePath);
+
+            if (resource != null) {
+                return resource;
+            }
+        } else {
+            final @Nullable ClassLoader callerClassLoader = CallerClassLoader.get();
+            final @Nullable URL resource = callerClassLoader != null ? callerClassLoader.getResource(libraryPackagePath) : null;
+
+            if (resource != null) {
+                return resource;
+            }
+        }
+
+        final @Nullable ClassLoader classLoader = ExtensibleNativeLibLoader.class.getClassLoader();
+
+        if (classLoader == null) {
+            return ClassLoader.getSystemResource(libraryPackagePath);
+        }
+
+        return classLoader.getResource(libraryPackagePath);
+    }
+
+    /**
+     * The cache libraries are extracted to.
+     *
+     * <p>The first time a cache directory is used, temporary files left by processes which died while
+     * extracting are deleted on a background thread, unless {@code native.libloader.sweep} is {@code false}.<br></p>
+     *
+     * <p>The cache is kept within the {@link #getMaxExtractionCacheSize() disk budget}, if any.<br></p>
+     *
+     * @return the extraction cache.
+     */
+    protected ExtractionCache getExtractionCache() {
+        final File extractionDirectory = OVERRIDE_EXTRACTION_DIRECTORY != null
+                ? new File(OVERRIDE_EXTRACTION_DIRECTORY)
+                : getConfig().getExtractionDirectory();
+
+        if (SWEEP_STALE_EXTRACTIONS) {
+            StaleExtractionSweeper.sweepInBackground(extractionDirectory);
+        }
+
+        return new ExtractionCache(extractionDirectory, getConfig().isSyncBeforePublish(), getMaxExtractionCacheSize());
+    }
+
+    /**
+     * All paths the library is looked up at, in order of preference.
+     *
+     * <p>The paths of {@link #getSystemVariants() system variants} come before the default paths of the detected
+     * system, but after the directory set by {@code native.libloader.systempath}.
+     * Every glibc version from the detected one down to 2.17 would add candidates, each a class path scan if it
+     * is missing, so glibc variants are only used if the {@link NativesIndex} lists them. If there is an index,
+     * the same holds for all other variants, so a missing CPU tier costs no lookup either.<br></p>
+     *
+     * @param libraryName
+     *         the library name.
+     * @param version
+     *         the version, or {@code null}.
+     * @return the formatted paths, each followed by its compressed variant if that is indexed or
+     *         {@link #isCompressedNatives() enabled}.
+     */
+    protected List<String> getCandidatePaths(final String libraryName, final @Nullable String version) {
+        final List<String> variants = getSystemVariants();
+        final NativesIndex index = NativesIndex.forClassLoader(getRegistryClassLoader());
+
+        if (variants.isEmpty() || !(getConfig().getLibraryPathFormatter() instanceof DefaultLibraryPathFormatter)) {
+            final List<String> formattedPaths = version != null
+                    ? getLibraryPackagePath(libraryName, version)
+                    : getLibraryPackagePath(libraryName);
+
+            return withCompressedPaths(formattedPaths, index);
+        }
+
+        final SystemDefinition system = getDetectedSystem();
+        final LibraryPathFormatter formatter = getConfig().getLibraryPathFormatter();
+        final List<String> paths = new ArrayList<String>();
+
+        // each variant is preferred over the baseline, but not over a more specific version.
+        if (version != null && !version.trim().isEmpty()) {
+            paths.addAll(getAvailableVariantPaths(system, libraryName, version, variants, index));
+            paths.addAll(formatter.getFormattedPaths(system, libraryName, version));
+        }
+
+        // the override directory is searched first, variants only precede the default folders.
+        final List<String> overriddenPaths = ((DefaultLibraryPathFormatter) formatter).getOverriddenPaths(system, libraryName);
+        paths.addAll(overriddenPaths);
+        paths.addAll(getAvailableVariantPaths(system, libraryName, null, variants, index));
+
+        for (final String formattedPath : formatter.getFormattedPaths(system, libraryName)) {
+            if (!overriddenPaths.contains(formattedPath)) {
+                paths.add(formattedPath);
+            }
+        }
+
+        return withCompressedPaths(paths, index);
+    }
+
+    private List<String> withCompressedPaths(final List<String> paths, final NativesIndex index) {
+        if (isCompressedNatives()) {
+            return DefaultLibraryPathFormatter.withCompressedPaths(paths);
+        }
+
+        // otherwise every candidate would cost a second lookup, although few projects compress their libraries.
+        final List<String> candidates = new ArrayList<String>(paths.size());
+
+        for (final String path : paths) {
+            candidates.add(path);
+
+            if (index.find(path + DefaultLibraryPathFormatter.COMPRESSED_SUFFIX) != null) {
+                candidates.add(path + DefaultLibraryPathFormatter.COMPRESSED_SUFFIX);
+            }
+        }
+
+        return candidates;
+    }
+
+    private static List<String> getAvailableVariantPaths(final SystemDefinition system,
+                                                         final String libraryName,
+                                                         final @Nullable String version,
+                                                         final List<String> variants,
+                                                         final NativesIndex index) {
+        final List<String> paths = new ArrayList<String>();
+
+        for (final String variant : variants) {
+            final List<String> variantPaths =
+                    DefaultLibraryPathFormatter.getVariantPaths(system, libraryName, version, Collections.singletonList(variant));
+
+            // without any index, the few CPU tier and musl folders are probed, but not the glibc ladder.
+            if (index.isEmpty() && !Libc.isVersionQualifier(variant)) {
+                paths.addAll(variantPaths);
+                continue;
+            }
+
+            for (final String variantPath : variantPaths) {
+                if (index.find(variantPath) != null || index.find(variantPath + DefaultLibraryPathFormatter.COMPRESSED_SUFFIX) != null) {
+                    paths.add(variantPath);
+                }
+            }
+        }
+
+        return paths;
+    }
+
+    /**
+     * Qualifiers of system variants which are looked up before the detected system's own paths.
+     *
+     * <p>On Linux these are the builds for the CPU's instruction set extensions, see {@link CpuFeatures#getTiers()},
+     * followed by the builds for the JVM's C library, see {@link Libc#getQualifiers()}. Variants are only used
+     * with the {@link DefaultLibraryPathFormatter} and if the detected system is the current one. Glibc versions,
+     * and all variants if there is a natives index, only become candidates if the index lists them, see
+     * {@link #getCandidatePaths(String, String)}.<br></p>
+     *
+     * @return the variant qualifiers, most specific first.
+     */
+    protected List<String> getSystemVariants() {
+        ensureSystemDetected();
+        final @Nullable SystemDefinition system = getDetectedSystem();
+
+        if (system == null || !LINUX.equals(system.getNormalizedOsName()) || !system.matches(CurrentSystemProperties.INSTANCE)) {
+            return Collections.emptyList();
+        }
+
+        final @Nullable Libc libc = CurrentSystemProperties.INSTANCE.getLibc();
+        final List<String> variants = new ArrayList<String>();
+
+        for (final String tier : CurrentSystemProperties.INSTANCE.getCpuFeatures().getTiers()) {
+            // glibc builds run on any glibc, but not on musl.
+            variants.add(libc != null && libc.getFlavour() == Libc.Flavour.MUSL ? MUSL_VARIANT + "-" + tier : tier);
+        }
+
+        if (libc != null) {
+            variants.addAll(libc.getQualifiers());
+        }
+
+        return variants;
+    }
+
+    /**
+     * Finds the system variant a candidate path belongs to.
+     *
+     * @param resourcePath
+     *         the candidate path, e.g. {@code natives/linux-x86_64-64-avx2/libfoo.so}.
+     * @return the variant, e.g. {@code avx2}, or {@code null} for the baseline.
+     */
+    protected @Nullable String getSystemVariant(final String resourcePath) {
+        for (final String variant : getSystemVariants()) {
+            if (resourcePath.contains("-" + variant + "/")) {
+                return variant;
+            }
+        }
+
         return null;
     }
 
@@ -64,4 +824,34 @@ class ExtensibleNativeLibLoader extends AbstractExtensibleNativeLibLoader implem
         sb.append('}');
         return sb.toString();
     }
+
+    /**
+     * Forwards the events of the extraction cache to the lib loader listener.
+     */
+    private static final class ListenerExtractionAdapter implements ExtractionListener {
+
+        private final String libraryName;
+
+        private final LibLoaderListener listener;
+
+        ListenerExtractionAdapter(final String libraryName, final LibLoaderListener listener) {
+            this.libraryName = libraryName;
+            this.listener = listener;
+        }
+
+        @Override
+        public void cacheHit(final File file) {
+            this.listener.onCacheHit(this.libraryName, file);
+        }
+
+        @Override
+        public void cacheMiss(final NativeResource resource) {
+            this.listener.onCacheMiss(this.libraryName, resource.getPath());
+        }
+
+        @Override
+        public void progress(final long copiedBytes, final long totalBytes) {
+            this.listener.onExtractionProgress(this.libraryName, copiedBytes, totalBytes);
+        }
+    }
 }
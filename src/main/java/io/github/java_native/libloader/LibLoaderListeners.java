@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.provider.LibLoaderListener;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Forwards events to several listeners, isolating them from each other's exceptions.
+ */
+final class LibLoaderListeners implements LibLoaderListener {
+
+    private static final Logger LOG = Logger.getLogger(LibLoaderListeners.class.getName());
+
+    private final LibLoaderListener[] listeners;
+
+    private LibLoaderListeners(final LibLoaderListener[] listeners) {
+        this.listeners = listeners;
+    }
+
+    /**
+     * Combines the given listeners.
+     *
+     * @param providedListeners
+     *         listeners found by the service loader.
+     * @param configuredListeners
+     *         listeners from the config.
+     * @return a listener forwarding to all given listeners, or {@code null} if there are none, so callers can
+     *         skip creating events altogether.
+     */
+    static @Nullable LibLoaderListener combine(final List<LibLoaderListener> providedListeners,
+                                               final List<LibLoaderListener> configuredListeners) {
+        final List<LibLoaderListener> allListeners =
+                new ArrayList<LibLoaderListener>(providedListeners.size() + configuredListeners.size());
+        allListeners.addAll(providedListeners);
+        allListeners.addAll(configuredListeners);
+
+        if (allListeners.isEmpty()) {
+            return null;
+        }
+
+        return new LibLoaderListeners(allListeners.toArray(new LibLoaderListener[allListeners.size()]));
+    }
+
+    @Override
+    public void onSystemDetected(final @Nullable SystemDefinition system, final long durationNanos) {
+        for (final LibLoaderListener listener : this.listeners) {
+            try {
+                listener.onSystemDetected(system, durationNanos);
+            } catch (final RuntimeException runtimeException) {
+                logFailure(listener, runtimeException);
+            }
+        }
+    }
+
+    @Override
+    public void onCandidateProbed(final String libraryName, final String candidatePath, final boolean found) {
+        for (final LibLoaderListener listener : this.listeners) {
+            try {
+                listener.onCandidateProbed(libraryName, candidatePath, found);
+            } catch (final RuntimeException runtimeException) {
+                logFailure(listener, runtimeException);
+            }
+        }
+    }
+
+    @Override
+    public void onCacheHit(final String libraryName, final File libraryFile) {
+        for (final LibLoaderListener listener : this.listeners) {
+            try {
+                listener.onCacheHit(libraryName, libraryFile);
+            } catch (final RuntimeException runtimeException) {
+                logFailure(listener, runtimeException);
+            }
+        }
+    }
+
+    @Override
+    public void onCacheMiss(final String libraryName, final String resourcePath) {
+        for (final LibLoaderListener listener : this.listeners) {
+            try {
+                listener.onCacheMiss(libraryName, resourcePath);
+            } catch (final RuntimeException runtimeException) {
+                logFailure(listener, runtimeException);
+            }
+        }
+    }
+
+    @Override
+    public void onExtractionProgress(final String libraryName, final long extractedBytes, final long totalBytes) {
+        for (final LibLoaderListener listener : this.listeners) {
+            try {
+                listener.onExtractionProgress(libraryName, extractedBytes, totalBytes);
+            } catch (final RuntimeException runtimeException) {
+                logFailure(listener, runtimeException);
+            }
+        }
+    }
+
+    @Override
+    public void onLoadCompleted(final LibLoaderResult result) {
+        for (final LibLoaderListener listener : this.listeners) {
+            try {
+                listener.onLoadCompleted(result);
+            } catch (final RuntimeException runtimeException) {
+                logFailure(listener, runtimeException);
+            }
+        }
+    }
+
+    private static void logFailure(final LibLoaderListener listener, final RuntimeException runtimeException) {
+        LOG.log(Level.WARNING, "Listener " + listener.getClass().getName() + " failed.", runtimeException);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LibLoaderListeners{");
+        sb.append("listeners=").append(this.listeners.length);
+        sb.append('}');
+        return sb.toString();
+    }
+}
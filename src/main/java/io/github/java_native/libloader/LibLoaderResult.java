@@ -17,6 +17,84 @@
 
 package io.github.java_native.libloader;
 
+import io.github.java_native.libloader.internal.Nullable;
+import java.io.File;
+
+/**
+ * The outcome of a {@link NativeLibLoader#loadLibrary(String)} call.
+ */
 public interface LibLoaderResult {
 
+    /**
+     * The library name as it was requested.
+     *
+     * @return the library name without prefix or suffix.
+     */
+    String getLibraryName();
+
+    /**
+     * Whether the library was loaded via {@link System#load(String)}.
+     *
+     * @return {@code true} if the library was loaded, {@code false} otherwise.
+     */
+    boolean isLoaded();
+
+    /**
+     * The extracted file which was (or was tried to be) loaded.
+     *
+     * @return the extracted library file, or {@code null} if no library was found.
+     */
+    @Nullable
+    File getLibraryFile();
+
+    /**
+     * The error which prevented the library from being loaded.
+     *
+     * @return the error, or {@code null} if the library was loaded.
+     */
+    @Nullable
+    Throwable getError();
+
+    /**
+     * The candidate path inside the class path the library was found at.
+     *
+     * @return the resource path, e.g. {@code natives/linux-x86_64-64/libfoo.so}, or {@code null} if the library was not found.
+     */
+    @Nullable
+    String getResourcePath();
+
+    /**
+     * The system variant the library was found for, e.g. the CPU feature tier.
+     *
+     * <p>Variants are looked up before the detected system's own paths, see the CPU feature and C library
+     * variants in the documentation.<br></p>
+     *
+     * @return the qualifier the detected system was extended by, e.g. {@code avx2}, {@code glibc2.28} or
+     *         {@code musl-avx2}, or {@code null} if the baseline build was found.
+     */
+    @Nullable
+    String getVariant();
+
+    /**
+     * Whether an already extracted file was reused instead of extracting the library again.
+     *
+     * @return {@code true} if the library file was taken from the extraction directory.
+     */
+    boolean isExtractionCached();
+
+    /**
+     * Whether the library had already been loaded by an earlier call, so this call did no work at all.
+     *
+     * <p>In this case, {@link #getTimings()} are the timings of the earlier call.<br></p>
+     *
+     * @return {@code true} if this is the remembered result of an earlier call.
+     */
+    boolean isPreviouslyLoaded();
+
+    /**
+     * The time spent in each phase of loading the library.
+     *
+     * @return the timings, never {@code null}.
+     */
+    LibLoaderTimings getTimings();
 }
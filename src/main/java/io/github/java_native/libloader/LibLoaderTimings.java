@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+/**
+ * Immutable breakdown of the time spent in each phase of loading a library, in nanoseconds.
+ *
+ * <p>Phases which did not run (e.g. extraction when the library could not be found) are reported as {@code 0}.
+ * The phases do not overlap, so {@link #getTotalNanos()} is their sum.<br></p>
+ */
+public final class LibLoaderTimings {
+
+    /**
+     * Timings of a result for which no work was done.
+     */
+    public static final LibLoaderTimings NONE = new LibLoaderTimings(0L, 0L, 0L, 0L, 0L, 0L, 0L);
+
+    private final long detectionNanos;
+
+    private final long candidateGenerationNanos;
+
+    private final long resourceLookupNanos;
+
+    private final long extractionNanos;
+
+    private final long extractedBytes;
+
+    private final long integrityCheckNanos;
+
+    private final long loadNanos;
+
+    LibLoaderTimings(final long detectionNanos,
+                     final long candidateGenerationNanos,
+                     final long resourceLookupNanos,
+                     final long extractionNanos,
+                     final long extractedBytes,
+                     final long integrityCheckNanos,
+                     final long loadNanos) {
+        this.detectionNanos = detectionNanos;
+        this.candidateGenerationNanos = candidateGenerationNanos;
+        this.resourceLookupNanos = resourceLookupNanos;
+        this.extractionNanos = extractionNanos;
+        this.extractedBytes = extractedBytes;
+        this.integrityCheckNanos = integrityCheckNanos;
+        this.loadNanos = loadNanos;
+    }
+
+    LibLoaderTimings withLoadNanos(final long nanos) {
+        return new LibLoaderTimings(this.detectionNanos, this.candidateGenerationNanos, this.resourceLookupNanos,
+                this.extractionNanos, this.extractedBytes, this.integrityCheckNanos, nanos);
+    }
+
+    /**
+     * Time spent detecting the current system. Close to zero if the loader already detected it before.
+     *
+     * @return the detection time in nanoseconds.
+     */
+    public long getDetectionNanos() {
+        return this.detectionNanos;
+    }
+
+    /**
+     * Time spent creating the list of candidate paths.
+     *
+     * @return the candidate generation time in nanoseconds.
+     */
+    public long getCandidateGenerationNanos() {
+        return this.candidateGenerationNanos;
+    }
+
+    /**
+     * Time spent probing the class loaders for the candidate paths.
+     *
+     * @return the resource lookup time in nanoseconds.
+     */
+    public long getResourceLookupNanos() {
+        return this.resourceLookupNanos;
+    }
+
+    /**
+     * Time spent copying the library into the extraction directory, or finding it there, excluding the integrity check.
+     *
+     * @return the extraction time in nanoseconds.
+     */
+    public long getExtractionNanos() {
+        return this.extractionNanos;
+    }
+
+    /**
+     * Number of bytes written to the extraction directory.
+     *
+     * @return the extracted bytes, {@code 0} if an already extracted file was reused.
+     */
+    public long getExtractedBytes() {
+        return this.extractedBytes;
+    }
+
+    /**
+     * Time spent verifying an extracted or reused file.
+     *
+     * @return the integrity check time in nanoseconds.
+     */
+    public long getIntegrityCheckNanos() {
+        return this.integrityCheckNanos;
+    }
+
+    /**
+     * Time spent in {@link System#load(String)}.
+     *
+     * @return the load time in nanoseconds.
+     */
+    public long getLoadNanos() {
+        return this.loadNanos;
+    }
+
+    /**
+     * Sum of all phases.
+     *
+     * @return the total time in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return this.detectionNanos
+                + this.candidateGenerationNanos
+                + this.resourceLookupNanos
+                + this.extractionNanos
+                + this.integrityCheckNanos
+                + this.loadNanos;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LibLoaderTimings{");
+        sb.append("detectionNanos=").append(this.detectionNanos);
+        sb.append(", candidateGenerationNanos=").append(this.candidateGenerationNanos);
+        sb.append(", resourceLookupNanos=").append(this.resourceLookupNanos);
+        sb.append(", extractionNanos=").append(this.extractionNanos);
+        sb.append(", extractedBytes=").append(this.extractedBytes);
+        sb.append(", integrityCheckNanos=").append(this.integrityCheckNanos);
+        sb.append(", loadNanos=").append(this.loadNanos);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Handle of libraries being loaded in the background, see {@link NativeLibLoader#warmUp(String...)}.
+ *
+ * <p>Loaded libraries are registered as soon as they are loaded, so a later
+ * {@link NativeLibLoader#loadLibrary(String)} returns immediately if the warm-up already got to it.
+ * Waiting for the handle is only needed to wait for the remaining work or to inspect the results.<br></p>
+ */
+public final class LibLoaderWarmUp {
+
+    private final Future<Map<String, LibLoaderResult>> results;
+
+    LibLoaderWarmUp(final Future<Map<String, LibLoaderResult>> results) {
+        this.results = results;
+    }
+
+    /**
+     * Whether all libraries were processed, successfully or not.
+     *
+     * @return {@code true} if {@link #getResults()} will not block.
+     */
+    public boolean isDone() {
+        return this.results.isDone();
+    }
+
+    /**
+     * Waits at most the given time for the warm-up to finish.
+     *
+     * @param timeout
+     *         the maximum time to wait.
+     * @param unit
+     *         the unit of the timeout.
+     * @return {@code true} if the warm-up finished, {@code false} if the timeout elapsed before.
+     * @throws InterruptedException
+     *         if the current thread was interrupted while waiting.
+     */
+    public boolean await(final long timeout, final TimeUnit unit) throws InterruptedException {
+        try {
+            this.results.get(timeout, unit);
+        } catch (final TimeoutException timeoutException) {
+            return false;
+        } catch (final ExecutionException executionException) {
+            // finished, the failure is reported by getResults().
+            return true;
+        }
+
+        return true;
+    }
+
+    /**
+     * Waits for the warm-up to finish and returns the results.
+     *
+     * @return a result for each library, see {@link NativeLibLoader#loadLibraries(String...)}.
+     * @throws InterruptedException
+     *         if the current thread was interrupted while waiting.
+     * @throws IllegalArgumentException
+     *         if any library name was empty or contained a path separator char.
+     */
+    public Map<String, LibLoaderResult> getResults() throws InterruptedException {
+        try {
+            return this.results.get();
+        } catch (final ExecutionException executionException) {
+            final Throwable cause = executionException.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LibLoaderWarmUp{");
+        sb.append("done=").append(this.results.isDone());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Orders libraries so that each library comes after all of its dependencies.
+ */
+final class LibraryDependencyGraph {
+
+    private LibraryDependencyGraph() {
+        // util class.
+    }
+
+    /**
+     * Returns the order in which the libraries need to be loaded.
+     *
+     * <p>Libraries which do not depend on each other keep the order in which they were given.
+     * Dependencies which were not listed in {@code libraryNames} are added.<br></p>
+     *
+     * @param libraryNames
+     *         the libraries to load.
+     * @param dependencies
+     *         maps a library to the libraries it depends on. A {@code null} value means no dependencies.
+     * @return all libraries, each one after its dependencies.
+     * @throws IllegalArgumentException
+     *         if the dependencies contain a cycle or a {@code null} library name.
+     */
+    static List<String> getLoadOrder(final Collection<String> libraryNames,
+                                     final Map<String, ? extends Collection<String>> dependencies) {
+        final Set<String> allLibraries = new LinkedHashSet<String>();
+
+        for (final String libraryName : libraryNames) {
+            if (libraryName == null) {
+                throw new NullPointerException("library name must not be null.");
+            }
+
+            allLibraries.add(libraryName);
+        }
+
+        for (final Map.Entry<String, ? extends Collection<String>> dependency : dependencies.entrySet()) {
+            if (dependency.getKey() == null) {
+                throw new IllegalArgumentException("Dependencies must not be declared for a null library name.");
+            }
+
+            allLibraries.add(dependency.getKey());
+
+            if (dependency.getValue() == null) {
+                continue;
+            }
+
+            for (final String libraryDependency : dependency.getValue()) {
+                if (libraryDependency == null) {
+                    throw new IllegalArgumentException("Library [" + dependency.getKey() + "] has a null dependency.");
+                }
+
+                allLibraries.add(libraryDependency);
+            }
+        }
+
+        final List<String> loadOrder = new ArrayList<String>(allLibraries.size());
+        final Map<String, Boolean> visited = new HashMap<String, Boolean>();
+
+        for (final String libraryName : allLibraries) {
+            visit(libraryName, dependencies, visited, loadOrder);
+        }
+
+        return Collections.unmodifiableList(loadOrder);
+    }
+
+    private static void visit(final String libraryName,
+                              final Map<String, ? extends Collection<String>> dependencies,
+                              final Map<String, Boolean> visited,
+                              final List<String> loadOrder) {
+        final Boolean done = visited.get(libraryName);
+
+        if (Boolean.TRUE.equals(done)) {
+            return;
+        }
+
+        if (Boolean.FALSE.equals(done)) {
+            throw new IllegalArgumentException("Dependency cycle detected at library [" + libraryName + "].");
+        }
+
+        // in progress.
+        visited.put(libraryName, Boolean.FALSE);
+
+        final Collection<String> libraryDependencies = dependencies.get(libraryName);
+
+        if (libraryDependencies != null) {
+            for (final String dependency : libraryDependencies) {
+                visit(dependency, dependencies, visited, loadOrder);
+            }
+        }
+
+        visited.put(libraryName, Boolean.TRUE);
+        loadOrder.add(libraryName);
+    }
+}
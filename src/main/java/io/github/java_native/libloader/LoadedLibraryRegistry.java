@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.internal.Nullable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JVM wide registry of successfully loaded libraries.
+ *
+ * <p>A library can only be loaded once per class loader, so the first successful result is kept and returned
+ * for all later requests of the same library name and version from the same class loader, no matter which
+ * {@link NativeLibLoader} instance is used. Lookups do not lock. Registered results are marked as
+ * {@link LibLoaderResult#isPreviouslyLoaded() previously loaded}.<br></p>
+ *
+ * <p>The key deliberately does not include the config which resolved the path, e.g. the path formatter or
+ * the prepared directory: a library loaded from one file is never loaded from another file into the same
+ * class loader.<br></p>
+ *
+ * <p>Class loaders are referenced weakly, entries of collected class loaders are removed on the next
+ * registration.<br></p>
+ */
+final class LoadedLibraryRegistry {
+
+    private static final ConcurrentMap<Key, LibLoaderResult> LOADED_LIBRARIES = new ConcurrentHashMap<Key, LibLoaderResult>();
+
+    private static final ReferenceQueue<ClassLoader> COLLECTED_CLASS_LOADERS = new ReferenceQueue<ClassLoader>();
+
+    private LoadedLibraryRegistry() {
+        // util class.
+    }
+
+    static @Nullable LibLoaderResult get(final ClassLoader classLoader, final String libraryName, final @Nullable String version) {
+        return LOADED_LIBRARIES.get(new Key(classLoader, libraryName, version, null));
+    }
+
+    /**
+     * Registers the result if the library was loaded.
+     *
+     * @param classLoader
+     *         the class loader the library was looked up with.
+     * @param version
+     *         the requested version, or {@code null}.
+     * @param result
+     *         the result of loading the library.
+     * @return the given result, or a previously registered result if another thread was faster.
+     *         Failed results are returned as is and not registered.
+     */
+    static LibLoaderResult register(final ClassLoader classLoader, final @Nullable String version, final LibLoaderResult result) {
+        if (!result.isLoaded()) {
+            return result;
+        }
+
+        removeCollected();
+
+        final Key key = new Key(classLoader, result.getLibraryName(), version, COLLECTED_CLASS_LOADERS);
+        final @Nullable LibLoaderResult existing = LOADED_LIBRARIES.putIfAbsent(key, DefaultLibLoaderResult.previouslyLoaded(result));
+
+        return existing != null ? existing : result;
+    }
+
+    static void clear() {
+        LOADED_LIBRARIES.clear();
+    }
+
+    private static void removeCollected() {
+        Reference<? extends ClassLoader> collected;
+
+        while ((collected = COLLECTED_CLASS_LOADERS.poll()) != null) {
+            LOADED_LIBRARIES.remove(collected);
+        }
+    }
+
+    /**
+     * Weakly references the class loader, compares it by identity.
+     */
+    private static final class Key extends WeakReference<ClassLoader> {
+
+        private final String libraryName;
+
+        private final @Nullable String version;
+
+        private final int hashCode;
+
+        Key(final ClassLoader classLoader, final String libraryName, final @Nullable String version,
+                final @Nullable ReferenceQueue<ClassLoader> queue) {
+            super(classLoader, queue);
+            this.libraryName = libraryName;
+            this.version = version;
+            this.hashCode = 31 * (31 * System.identityHashCode(classLoader) + libraryName.hashCode())
+                    + (version != null ? version.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+
+            if (!(other instanceof Key)) {
+                return false;
+            }
+
+            final Key key = (Key) other;
+            final @Nullable ClassLoader classLoader = get();
+
+            return classLoader != null
+                    && classLoader == key.get()
+                    && this.libraryName.equals(key.libraryName)
+                    && (this.version != null ? this.version.equals(key.version) : key.version == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Key{");
+            sb.append("classLoader=").append(get());
+            sb.append(", libraryName='").append(this.libraryName).append('\'');
+            sb.append(", version='").append(this.version).append('\'');
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
@@ -17,11 +17,24 @@
 
 package io.github.java_native.libloader;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
 public interface NativeLibLoader {
 
     /**
      * Will try to load a library with the given name.
      *
+     * <p>Libraries which were loaded successfully are remembered for the rest of the JVM's lifetime, per
+     * context class loader. Loading the same library again returns the first result without any lookup,
+     * also from other {@link NativeLibLoader} instances.<br></p>
+     *
+     * <p>This holds regardless of the config of those instances: their path formatter, system definitions,
+     * {@code native.libloader.systempath} override and prepared directory are not consulted again, so the
+     * first successful load decides the file for the whole class loader. The JVM would otherwise map a second
+     * copy of the library from another path, with its own global state.<br></p>
+     *
      * @param libraryName
      *         the library name without '{@code lib} prefix on posix systems and without a file suffix like {@code .so} or similar.
      * @return the result containing information about loading errors and the temporary path.
@@ -31,4 +44,89 @@ public interface NativeLibLoader {
      *         if libraryName is empty or contains a path separator char.
      */
     LibLoaderResult loadLibrary(final String libraryName);
+
+    /**
+     * Will try to load a library with the given name and version.
+     *
+     * <p>Versioned paths are looked up first, then the same paths as {@link #loadLibrary(String)}.<br></p>
+     *
+     * @param libraryName
+     *         the library name without '{@code lib} prefix on posix systems and without a file suffix like {@code .so} or similar.
+     * @param version
+     *         the version of the library, e.g. {@code 2.9.2}.
+     * @return the result containing information about loading errors and the temporary path.
+     * @throws NullPointerException
+     *         if libraryName or version is {@code null}.
+     * @throws IllegalArgumentException
+     *         if libraryName is empty or contains a path separator char.
+     */
+    LibLoaderResult loadLibrary(final String libraryName, final String version);
+
+    /**
+     * Will try to load all given libraries, which do not depend on each other.
+     *
+     * <p>Equal to calling {@link #loadLibraries(Collection, Map)} without dependencies.<br></p>
+     *
+     * @param libraryNames
+     *         the library names, see {@link #loadLibrary(String)}.
+     * @return a result for each library, in the order the libraries were loaded.
+     * @throws NullPointerException
+     *         if any library name is {@code null}.
+     * @throws IllegalArgumentException
+     *         if any library name is empty or contains a path separator char.
+     */
+    Map<String, LibLoaderResult> loadLibraries(final String... libraryNames);
+
+    /**
+     * Will try to load all given libraries.
+     *
+     * <p>The libraries are looked up and extracted concurrently. They are then loaded one after another,
+     * each one after all of its dependencies. If a dependency could not be loaded, the libraries
+     * depending on it will not be loaded either.<br></p>
+     *
+     * @param libraryNames
+     *         the library names, see {@link #loadLibrary(String)}.
+     * @param dependencies
+     *         maps a library name to the names of the libraries it depends on. Dependencies which are
+     *         not contained in {@code libraryNames} will be loaded as well.
+     * @return a result for each library, in the order the libraries were loaded.
+     * @throws NullPointerException
+     *         if any library name is {@code null}.
+     * @throws IllegalArgumentException
+     *         if any library name is empty or contains a path separator char, or if the dependencies contain a cycle.
+     */
+    Map<String, LibLoaderResult> loadLibraries(final Collection<String> libraryNames,
+                                               final Map<String, ? extends Collection<String>> dependencies);
+
+    /**
+     * Starts loading the given libraries on a background daemon thread and returns immediately.
+     *
+     * <p>Detection, lookup, extraction and loading then overlap with whatever the caller does next.
+     * Libraries are registered for the calling thread's context class loader, so a later
+     * {@link #loadLibrary(String)} returns the warmed up result without any lookup.<br></p>
+     *
+     * @param libraryNames
+     *         the library names, see {@link #loadLibraries(String...)}.
+     * @return a handle to wait for the libraries.
+     * @throws NullPointerException
+     *         if any library name is {@code null}.
+     */
+    LibLoaderWarmUp warmUp(final String... libraryNames);
+
+    /**
+     * Starts loading the given libraries using the given executor and returns immediately.
+     *
+     * <p>See {@link #warmUp(String...)}. Invalid library names are reported by {@link LibLoaderWarmUp#getResults()}.<br></p>
+     *
+     * @param executor
+     *         the executor to run the warm-up on, e.g. the application's bootstrap executor.
+     * @param libraryNames
+     *         the library names, see {@link #loadLibraries(String...)}.
+     * @return a handle to wait for the libraries.
+     * @throws NullPointerException
+     *         if the executor or any library name is {@code null}.
+     * @throws java.util.concurrent.RejectedExecutionException
+     *         if the executor does not accept the warm-up.
+     */
+    LibLoaderWarmUp warmUp(final Executor executor, final Collection<String> libraryNames);
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import io.github.java_native.libloader.internal.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.Instrumentation;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Java agent which extracts native libraries while the JVM and the application start up.
+ *
+ * <p>The libraries are taken from the agent arguments, and from the {@value #PRELOAD_ATTRIBUTE} attribute of
+ * every {@code META-INF/MANIFEST.MF} on the class path. Both are lists of {@code name} or {@code name@version},
+ * separated by commas or whitespace:<br></p>
+ *
+ * <pre>
+ * java -javaagent:native-libloader.jar=jssc,foo@1.2.3 -jar app.jar
+ * </pre>
+ *
+ * <p>The libraries are looked up and extracted in parallel on daemon threads, and {@code premain} returns
+ * immediately. They are not loaded, as the agent cannot know the class loader the application will load them
+ * with. The application's own {@code loadLibrary} call then finds them in the extraction cache.<br></p>
+ *
+ * <p>{@code premain} only starts a daemon thread, which reads the manifests and uses {@code java.util.logging}.
+ * That thread runs concurrently with the application's {@code main} method and usually initializes the
+ * {@link java.util.logging.LogManager} first, so {@code java.util.logging.manager} and
+ * {@code java.util.logging.config.file} must be passed as {@code -D} options on the command line, where they
+ * are set before {@code premain} runs. Setting them in {@code main} has no effect when the agent is used.<br></p>
+ */
+public final class NativesAgent {
+
+    /**
+     * Manifest attribute listing libraries to extract.
+     */
+    public static final String PRELOAD_ATTRIBUTE = "Native-Libloader-Preload";
+
+    private static final String MANIFEST_PATH = "META-INF/MANIFEST.MF";
+
+    private NativesAgent() {
+        // main class.
+    }
+
+    /**
+     * Agent entry point, called before the application's {@code main} method.
+     *
+     * @param agentArgs
+     *         the libraries to extract, may be {@code null}.
+     * @param instrumentation
+     *         not used.
+     */
+    public static void premain(final @Nullable String agentArgs, final Instrumentation instrumentation) {
+        premain(agentArgs);
+    }
+
+    /**
+     * Agent entry point used if the JVM does not pass an {@link Instrumentation} instance.
+     *
+     * @param agentArgs
+     *         the libraries to extract, may be {@code null}.
+     */
+    public static void premain(final @Nullable String agentArgs) {
+        startPreload(agentArgs, ClassLoader.getSystemClassLoader());
+    }
+
+    /**
+     * Collects and preloads the libraries on a new daemon thread.
+     *
+     * @param agentArgs
+     *         the libraries to extract, may be {@code null}.
+     * @param classLoader
+     *         the class loader to find manifests with.
+     * @return the started thread.
+     */
+    static Thread startPreload(final @Nullable String agentArgs, final ClassLoader classLoader) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final Set<String> libraries = new LinkedHashSet<String>(parseLibraries(agentArgs));
+                libraries.addAll(getManifestLibraries(classLoader));
+
+                if (libraries.isEmpty()) {
+                    getLogger().log(Level.FINE, "No native libraries to preload.");
+
+                    return;
+                }
+
+                preload(new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig()), new ArrayList<String>(libraries));
+            }
+        }, "native-libloader-agent");
+        thread.setDaemon(true);
+        thread.start();
+
+        return thread;
+    }
+
+    /**
+     * Starts looking up and extracting the libraries in parallel and returns immediately.
+     *
+     * @param libLoader
+     *         the loader to resolve the libraries with.
+     * @param libraries
+     *         the libraries as {@code name} or {@code name@version}.
+     * @return the executor running the extraction, already shut down, so it terminates once all libraries are done.
+     */
+    static ExecutorService preload(final ExtensibleNativeLibLoader libLoader, final List<String> libraries) {
+        final ExecutorService executorService = ExtensibleNativeLibLoader.createBatchExecutor(libraries.size());
+
+        try {
+            for (final String library : libraries) {
+                executorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        preload(libLoader, library);
+                    }
+                });
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        return executorService;
+    }
+
+    private static void preload(final ExtensibleNativeLibLoader libLoader, final String library) {
+        final int versionSeparator = library.indexOf('@');
+        final String libraryName = versionSeparator == -1 ? library : library.substring(0, versionSeparator);
+        final @Nullable String version = versionSeparator == -1 ? null : library.substring(versionSeparator + 1);
+
+        try {
+            final ResolvedLibrary resolvedLibrary = libLoader.resolve(libraryName, version, libLoader.getListener());
+
+            if (resolvedLibrary.getExtractedLibrary() == null) {
+                getLogger().log(Level.WARNING, "Unable to preload library [" + library + "].", resolvedLibrary.getError());
+
+                return;
+            }
+
+            getLogger().log(Level.FINE, "Preloaded library [" + library + "]: " + resolvedLibrary.getExtractedLibrary() + ".");
+        } catch (final RuntimeException runtimeException) {
+            // e.g. an invalid library name, must not affect the application.
+            getLogger().log(Level.WARNING, "Unable to preload library [" + library + "].", runtimeException);
+        }
+    }
+
+    /**
+     * Splits a list of libraries separated by commas or whitespace.
+     *
+     * @param libraries
+     *         the list, may be {@code null}.
+     * @return the libraries, without empty entries.
+     */
+    static List<String> parseLibraries(final @Nullable String libraries) {
+        if (libraries == null) {
+            return Collections.emptyList();
+        }
+
+        final List<String> parsedLibraries = new ArrayList<String>();
+
+        for (final String library : libraries.split("[,\\s]+")) {
+            if (library.length() != 0) {
+                parsedLibraries.add(library);
+            }
+        }
+
+        return parsedLibraries;
+    }
+
+    /**
+     * Collects the libraries listed in the {@value #PRELOAD_ATTRIBUTE} attribute of all manifests.
+     *
+     * @param classLoader
+     *         the class loader to find manifests with.
+     * @return the listed libraries, possibly empty.
+     */
+    static List<String> getManifestLibraries(final ClassLoader classLoader) {
+        final List<String> libraries = new ArrayList<String>();
+
+        try {
+            final Enumeration<URL> manifestUrls = classLoader.getResources(MANIFEST_PATH);
+
+            while (manifestUrls.hasMoreElements()) {
+                final URL manifestUrl = manifestUrls.nextElement();
+                libraries.addAll(parseLibraries(readPreloadAttribute(manifestUrl)));
+            }
+        } catch (final IOException ioException) {
+            getLogger().log(Level.WARNING, "Unable to read manifests.", ioException);
+        }
+
+        return libraries;
+    }
+
+    /**
+     * Not a constant, so loading this class in {@code premain} does not initialize the log manager on the main thread.
+     */
+    private static Logger getLogger() {
+        return Logger.getLogger(NativesAgent.class.getName());
+    }
+
+    private static @Nullable String readPreloadAttribute(final URL manifestUrl) throws IOException {
+        final InputStream inputStream = manifestUrl.openStream();
+
+        try {
+            return new Manifest(inputStream).getMainAttributes().getValue(PRELOAD_ATTRIBUTE);
+        } finally {
+            inputStream.close();
+        }
+    }
+}
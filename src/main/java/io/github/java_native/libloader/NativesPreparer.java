@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import io.github.java_native.libloader.config.DefaultLibraryPathFormatter;
+import io.github.java_native.libloader.internal.ExtractedLibrary;
+import io.github.java_native.libloader.internal.ExtractionCache;
+import io.github.java_native.libloader.internal.NativesIndex;
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.internal.PreparedNatives;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Extracts native libraries into a prepared directory ahead of time, e.g. while building a container image.
+ *
+ * <p>The libraries are looked up exactly like at runtime, using the same system detection and path formatting,
+ * and the class path of this process. Start the application with {@code -Dnative.libloader.prepared=<directory>}
+ * to load them from there without looking them up or extracting them. The variant of a library taken from a
+ * variant folder, e.g. a build for a CPU feature, is written to the manifest, and the library is only loaded from
+ * the directory where that variant can be loaded.<br></p>
+ *
+ * <pre>
+ * java -cp app.jar:natives.jar:native-libloader.jar io.github.java_native.libloader.NativesPreparer /opt/natives jssc foo@1.2.3
+ * </pre>
+ *
+ * <p>Without a list of libraries, all libraries the {@link NativesIndex natives index} lists for the detected system
+ * are prepared. A file name like {@code libfoo-1.2.so} is taken as version {@code 1.2} of {@code foo}, as a version
+ * starts with a digit. Preparing a directory again adds the libraries to its manifest.<br></p>
+ */
+public final class NativesPreparer {
+
+    private NativesPreparer() {
+        // main class.
+    }
+
+    /**
+     * Command line entry point.
+     *
+     * @param args
+     *         the prepared directory, followed by the libraries as {@code name} or {@code name@version}.
+     * @throws IOException
+     *         if a library could not be found or extracted.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: " + NativesPreparer.class.getName() + " <directory> [library[@version]...]");
+            System.exit(1);
+
+            return;
+        }
+
+        final File directory = new File(args[0]);
+        final Map<String, File> libraries = prepare(directory, Arrays.asList(args).subList(1, args.length));
+
+        for (final Map.Entry<String, File> library : libraries.entrySet()) {
+            System.out.println(library.getKey() + " -> " + library.getValue());
+        }
+    }
+
+    /**
+     * Extracts the given libraries into the directory and adds them to the manifest.
+     *
+     * @param directory
+     *         the prepared directory, which will be created if needed.
+     * @param libraries
+     *         the libraries as {@code name} or {@code name@version}, or an empty list for all indexed libraries.
+     * @return the extracted files by manifest key.
+     * @throws IOException
+     *         if a library could not be found or extracted, or no library was given and none is indexed.
+     */
+    public static Map<String, File> prepare(final File directory, final List<String> libraries) throws IOException {
+        final PreparingLibLoader libLoader = new PreparingLibLoader(directory);
+        libLoader.ensureSystemDetected();
+
+        final @Nullable SystemDefinition system = libLoader.getDetectedSystem();
+
+        if (system == null) {
+            throw new IOException("The current system is not supported by any system definition.");
+        }
+
+        final List<String> preparedNames = libraries.isEmpty() ? getIndexedLibraries(libLoader, system) : libraries;
+
+        if (preparedNames.isEmpty()) {
+            throw new IOException("No libraries given, and the natives index lists none for [" + system + "].");
+        }
+
+        final Map<String, File> preparedLibraries = new LinkedHashMap<String, File>();
+        final Map<String, String> variants = new LinkedHashMap<String, String>();
+
+        for (final String library : preparedNames) {
+            final int versionSeparator = library.indexOf('@');
+            final String libraryName = versionSeparator == -1 ? library : library.substring(0, versionSeparator);
+            final @Nullable String version = versionSeparator == -1 ? null : library.substring(versionSeparator + 1);
+
+            final ResolvedLibrary resolvedLibrary = libLoader.resolve(libraryName, version, libLoader.getListener());
+            final @Nullable ExtractedLibrary extractedLibrary = resolvedLibrary.getExtractedLibrary();
+
+            if (extractedLibrary == null) {
+                throw new IOException("Unable to prepare library [" + library + "].", resolvedLibrary.getError());
+            }
+
+            final String key = PreparedNatives.getKey(libraryName, version);
+            preparedLibraries.put(key, extractedLibrary.getFile());
+
+            // e.g. an avx512 build, which is only used where the CPU supports it.
+            if (resolvedLibrary.getVariant() != null) {
+                variants.put(key, resolvedLibrary.getVariant());
+            }
+        }
+
+        PreparedNatives.writeManifest(directory, ExtractionCache.getSystemIdentifier(system), preparedLibraries, variants);
+
+        return preparedLibraries;
+    }
+
+    /**
+     * The libraries listed in the natives index which the loader would find for the system.
+     *
+     * @return the libraries as {@code name} or {@code name@version}, sorted.
+     */
+    static List<String> getIndexedLibraries(final ExtensibleNativeLibLoader libLoader, final SystemDefinition system) {
+        final Set<String> libraries = new TreeSet<String>();
+
+        for (final String path : NativesIndex.forClassLoader(libLoader.getRegistryClassLoader()).getPaths()) {
+            final @Nullable String library = getIndexedLibrary(libLoader, system, path);
+
+            if (library != null) {
+                libraries.add(library);
+            }
+        }
+
+        return new ArrayList<String>(libraries);
+    }
+
+    private static @Nullable String getIndexedLibrary(final ExtensibleNativeLibLoader libLoader,
+                                                      final SystemDefinition system,
+                                                      final String path) {
+        final String uncompressedPath = path.endsWith(DefaultLibraryPathFormatter.COMPRESSED_SUFFIX)
+                ? path.substring(0, path.length() - DefaultLibraryPathFormatter.COMPRESSED_SUFFIX.length())
+                : path;
+        final String fileName = uncompressedPath.substring(uncompressedPath.lastIndexOf('/') + 1);
+
+        if (!fileName.startsWith(system.getLibraryPrefix())) {
+            return null;
+        }
+
+        for (final String suffix : system.getLibrarySuffixes()) {
+            if (!fileName.endsWith(suffix) || fileName.length() <= system.getLibraryPrefix().length() + suffix.length()) {
+                continue;
+            }
+
+            final String stem = fileName.substring(system.getLibraryPrefix().length(), fileName.length() - suffix.length());
+
+            for (int separator = stem.indexOf('-'); separator > 0; separator = stem.indexOf('-', separator + 1)) {
+                if (separator + 1 < stem.length() && Character.isDigit(stem.charAt(separator + 1))) {
+                    final String libraryName = stem.substring(0, separator);
+                    final String version = stem.substring(separator + 1);
+
+                    if (isCandidate(libLoader, libraryName, version, path)) {
+                        return PreparedNatives.getKey(libraryName, version);
+                    }
+                }
+            }
+
+            if (isCandidate(libLoader, stem, null, path)) {
+                return stem;
+            }
+        }
+
+        // another system, or a path the loader would not look at.
+        return null;
+    }
+
+    private static boolean isCandidate(final ExtensibleNativeLibLoader libLoader,
+                                       final String libraryName,
+                                       final @Nullable String version,
+                                       final String path) {
+        try {
+            return libLoader.getCandidatePaths(libraryName, version).contains(path);
+        } catch (final IllegalArgumentException illegalArgumentException) {
+            // not a valid library name.
+            return false;
+        }
+    }
+
+    /**
+     * Extracts into the prepared directory, and never loads from an existing one.
+     */
+    private static final class PreparingLibLoader extends ExtensibleNativeLibLoader {
+
+        private final File directory;
+
+        PreparingLibLoader(final File directory) {
+            super(new DefaultLibLoaderConfig());
+            this.directory = directory;
+        }
+
+        @Override
+        protected ExtractionCache getExtractionCache() {
+            return new ExtractionCache(this.directory, true);
+        }
+
+        @Override
+        protected @Nullable File getPreparedDirectory() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.provider.LibLoaderListener;
+import io.github.java_native.libloader.provider.SystemDefinitionProvider;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * System definitions found via the {@link SystemDefinitionProvider} SPI and listeners found via the
+ * {@link LibLoaderListener} SPI, discovered once per class loader.
+ *
+ * <p>Each class loader sees the providers visible to it, e.g. those deployed with a web application.
+ * Discovery runs lazily on the first request of a class loader, without holding any lock, so several
+ * class loaders can be scanned concurrently. Lookups do not lock.<br></p>
+ *
+ * <p>Class loaders are referenced weakly, entries of collected class loaders are removed on the next
+ * discovery. Definitions or listeners loaded by the class loader itself would keep it reachable, so these
+ * are only referenced softly. Once the garbage collector cleared them under memory pressure, the next request
+ * discovers them again and returns new instances.<br></p>
+ */
+final class ProvidedSystemDefinitions {
+
+    private static final Logger LOG = Logger.getLogger(ProvidedSystemDefinitions.class.getName());
+
+    private static final ConcurrentMap<Key, Entry> PROVIDED = new ConcurrentHashMap<Key, Entry>();
+
+    private static final ReferenceQueue<ClassLoader> COLLECTED_CLASS_LOADERS = new ReferenceQueue<ClassLoader>();
+
+    private ProvidedSystemDefinitions() {
+        // util class.
+    }
+
+    /**
+     * Returns the definitions of all providers visible to the class loader.
+     *
+     * <p>The same list instance is usually returned until the class loader is collected, so callers can cheaply
+     * detect that nothing changed. If a provider was loaded by the class loader itself, the definitions may be
+     * discovered again after a garbage collection, so a new instance does not mean that anything changed.<br></p>
+     *
+     * @param classLoader
+     *         the class loader to look up providers with.
+     * @return an unmodifiable list of provided definitions.
+     */
+    static List<SystemDefinition> forClassLoader(final ClassLoader classLoader) {
+        return getProvided(classLoader).definitions;
+    }
+
+    /**
+     * Returns all listeners visible to the class loader.
+     *
+     * <p>Like {@link #forClassLoader(ClassLoader)}, a new list instance may be returned after listeners loaded
+     * by the class loader itself were discovered again.<br></p>
+     *
+     * @param classLoader
+     *         the class loader to look up listeners with.
+     * @return an unmodifiable list of provided listeners.
+     */
+    static List<LibLoaderListener> listenersForClassLoader(final ClassLoader classLoader) {
+        return getProvided(classLoader).listeners;
+    }
+
+    private static Provided getProvided(final ClassLoader classLoader) {
+        final @Nullable Entry cached = PROVIDED.get(new Key(classLoader, null));
+        final @Nullable Provided cachedProvided = cached != null ? cached.get() : null;
+
+        if (cachedProvided != null) {
+            return cachedProvided;
+        }
+
+        removeCollected();
+
+        final Provided loaded = new Provided(load(classLoader), loadListeners(classLoader));
+        final Key key = new Key(classLoader, COLLECTED_CLASS_LOADERS);
+        final Entry entry = new Entry(classLoader, loaded);
+
+        while (true) {
+            final @Nullable Entry existing = PROVIDED.putIfAbsent(key, entry);
+
+            if (existing == null) {
+                return loaded;
+            }
+
+            // another thread was faster, use its result.
+            final @Nullable Provided existingProvided = existing.get();
+
+            if (existingProvided != null) {
+                return existingProvided;
+            }
+
+            if (PROVIDED.replace(key, existing, entry)) {
+                return loaded;
+            }
+        }
+    }
+
+    static void clear() {
+        PROVIDED.clear();
+    }
+
+    /**
+     * Drops all softly referenced definitions and listeners, as the garbage collector may under memory pressure.
+     */
+    static void clearSoftReferences() {
+        for (final Entry entry : PROVIDED.values()) {
+            entry.clearSoftReference();
+        }
+    }
+
+    private static List<SystemDefinition> load(final ClassLoader classLoader) {
+        LOG.log(Level.FINE, "Loading additional system definitions for [" + classLoader + "].");
+
+        final ServiceLoader<SystemDefinitionProvider> providers = ServiceLoader.load(SystemDefinitionProvider.class, classLoader);
+        final List<SystemDefinition> collectedSystemDefinitions = new ArrayList<SystemDefinition>();
+
+        for (final SystemDefinitionProvider provider : providers) {
+            final Collection<SystemDefinition> providerSystemDefinitions = provider.getSystemDefinitions();
+
+            if (null == providerSystemDefinitions) {
+                LOG.log(Level.WARNING,
+                        "Provider " + provider.getClass().getName() + " returned 'null' for getSystemDefinitions.");
+
+                // this result must be ignored.
+                continue;
+            }
+
+            collectedSystemDefinitions.addAll(providerSystemDefinitions);
+        }
+
+        if (!collectedSystemDefinitions.isEmpty()) {
+            LOG.log(Level.INFO, "Loaded " + collectedSystemDefinitions.size() + " additional definitions.");
+        }
+
+        return Collections.unmodifiableList(collectedSystemDefinitions);
+    }
+
+    private static List<LibLoaderListener> loadListeners(final ClassLoader classLoader) {
+        final ServiceLoader<LibLoaderListener> listeners = ServiceLoader.load(LibLoaderListener.class, classLoader);
+        final List<LibLoaderListener> collectedListeners = new ArrayList<LibLoaderListener>();
+
+        for (final LibLoaderListener listener : listeners) {
+            collectedListeners.add(listener);
+        }
+
+        if (!collectedListeners.isEmpty()) {
+            LOG.log(Level.INFO, "Loaded " + collectedListeners.size() + " lib loader listeners.");
+        }
+
+        return Collections.unmodifiableList(collectedListeners);
+    }
+
+    private static void removeCollected() {
+        Reference<? extends ClassLoader> collected;
+
+        while ((collected = COLLECTED_CLASS_LOADERS.poll()) != null) {
+            PROVIDED.remove(collected);
+        }
+    }
+
+    /**
+     * Weakly references the class loader, compares it by identity.
+     */
+    private static final class Key extends WeakReference<ClassLoader> {
+
+        private final int hashCode;
+
+        Key(final ClassLoader classLoader, final @Nullable ReferenceQueue<ClassLoader> queue) {
+            super(classLoader, queue);
+            this.hashCode = System.identityHashCode(classLoader);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+
+            if (!(other instanceof Key)) {
+                return false;
+            }
+
+            final @Nullable ClassLoader classLoader = get();
+
+            return classLoader != null && classLoader == ((Key) other).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Key{");
+            sb.append("classLoader=").append(get());
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * The definitions and listeners of one class loader.
+     */
+    private static final class Provided {
+
+        private final List<SystemDefinition> definitions;
+
+        private final List<LibLoaderListener> listeners;
+
+        Provided(final List<SystemDefinition> definitions, final List<LibLoaderListener> listeners) {
+            this.definitions = definitions;
+            this.listeners = listeners;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Provided{");
+            sb.append("definitions=").append(this.definitions);
+            sb.append(", listeners=").append(this.listeners);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * The cache entry of one class loader.
+     *
+     * <p>Definitions and listeners of classes from a parent class loader are held strongly, they cannot keep the
+     * class loader alive. Classes loaded by the class loader or a child are held softly, so the class loader
+     * can still be collected.<br></p>
+     */
+    private static final class Entry {
+
+        private final @Nullable Provided provided;
+
+        private final @Nullable SoftReference<Provided> softProvided;
+
+        Entry(final ClassLoader classLoader, final Provided provided) {
+            if (referencesClassLoader(provided.definitions, classLoader) || referencesClassLoader(provided.listeners, classLoader)) {
+                this.provided = null;
+                this.softProvided = new SoftReference<Provided>(provided);
+            } else {
+                this.provided = provided;
+                this.softProvided = null;
+            }
+        }
+
+        private static boolean referencesClassLoader(final List<?> instances, final ClassLoader classLoader) {
+            for (final Object instance : instances) {
+                @Nullable ClassLoader instanceClassLoader = instance.getClass().getClassLoader();
+
+                while (instanceClassLoader != null) {
+                    if (instanceClassLoader == classLoader) {
+                        return true;
+                    }
+
+                    instanceClassLoader = instanceClassLoader.getParent();
+                }
+            }
+
+            return false;
+        }
+
+        @Nullable
+        Provided get() {
+            if (this.provided != null) {
+                return this.provided;
+            }
+
+            return this.softProvided != null ? this.softProvided.get() : null;
+        }
+
+        void clearSoftReference() {
+            if (this.softProvided != null) {
+                this.softProvided.clear();
+            }
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Entry{");
+            sb.append("provided=").append(get());
+            sb.append(", soft=").append(this.softProvided != null);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
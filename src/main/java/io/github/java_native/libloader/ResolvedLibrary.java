@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.internal.ExtractedLibrary;
+import io.github.java_native.libloader.internal.Nullable;
+
+/**
+ * A library which was looked up and extracted, but not yet loaded.
+ *
+ * <p>Either the extracted library or the error is set.<br></p>
+ */
+class ResolvedLibrary {
+
+    private final String libraryName;
+
+    private final @Nullable ExtractedLibrary extractedLibrary;
+
+    private final @Nullable Throwable error;
+
+    private final @Nullable String resourcePath;
+
+    private final @Nullable String variant;
+
+    private final LibLoaderTimings timings;
+
+    private ResolvedLibrary(final String libraryName,
+                            final @Nullable ExtractedLibrary extractedLibrary,
+                            final @Nullable Throwable error,
+                            final @Nullable String resourcePath,
+                            final @Nullable String variant,
+                            final LibLoaderTimings timings) {
+        this.libraryName = libraryName;
+        this.extractedLibrary = extractedLibrary;
+        this.error = error;
+        this.resourcePath = resourcePath;
+        this.variant = variant;
+        this.timings = timings;
+    }
+
+    static ResolvedLibrary extracted(final String libraryName,
+                                     final String resourcePath,
+                                     final @Nullable String variant,
+                                     final ExtractedLibrary extractedLibrary,
+                                     final LibLoaderTimings timings) {
+        return new ResolvedLibrary(libraryName, extractedLibrary, null, resourcePath, variant, timings);
+    }
+
+    static ResolvedLibrary failed(final String libraryName, final Throwable error) {
+        return failed(libraryName, error, null, LibLoaderTimings.NONE);
+    }
+
+    static ResolvedLibrary failed(final String libraryName,
+                                  final Throwable error,
+                                  final @Nullable String resourcePath,
+                                  final LibLoaderTimings timings) {
+        return new ResolvedLibrary(libraryName, null, error, resourcePath, null, timings);
+    }
+
+    String getLibraryName() {
+        return this.libraryName;
+    }
+
+    @Nullable
+    ExtractedLibrary getExtractedLibrary() {
+        return this.extractedLibrary;
+    }
+
+    @Nullable
+    Throwable getError() {
+        return this.error;
+    }
+
+    /**
+     * The candidate path the library was found at.
+     *
+     * @return the path, or {@code null} if the library was not found.
+     */
+    @Nullable
+    String getResourcePath() {
+        return this.resourcePath;
+    }
+
+    /**
+     * The system variant of the candidate path, see {@link LibLoaderResult#getVariant()}.
+     *
+     * @return the variant, or {@code null} for the baseline.
+     */
+    @Nullable
+    String getVariant() {
+        return this.variant;
+    }
+
+    /**
+     * Timings of all phases up to and including extraction.
+     *
+     * @return the timings, with a load time of {@code 0}.
+     */
+    LibLoaderTimings getTimings() {
+        return this.timings;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ResolvedLibrary{");
+        sb.append("libraryName='").append(this.libraryName).append('\'');
+        sb.append(", extractedLibrary=").append(this.extractedLibrary);
+        sb.append(", error=").append(this.error);
+        sb.append(", resourcePath='").append(this.resourcePath).append('\'');
+        sb.append(", variant='").append(this.variant).append('\'');
+        sb.append(", timings=").append(this.timings);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -17,6 +17,8 @@
 
 package io.github.java_native.libloader.config;
 
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.provider.LibLoaderListener;
 import io.github.java_native.libloader.systems.SystemDefinition;
 import io.github.java_native.libloader.systems.linux.LinuxArm32HardFloat;
 import io.github.java_native.libloader.systems.linux.LinuxArm32SoftFloat;
@@ -25,10 +27,12 @@ import io.github.java_native.libloader.systems.linux.LinuxX8664;
 import io.github.java_native.libloader.systems.osx.MacOsxX8664;
 import io.github.java_native.libloader.systems.windows.WindowsX8632;
 import io.github.java_native.libloader.systems.windows.WindowsX8664;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The default config used when no other config was provided.
@@ -49,8 +53,21 @@ public class DefaultLibLoaderConfig implements LibLoaderConfig {
             new WindowsX8664()
     );
 
+    private static final ExtractionDirectoryStrategy DEFAULT_EXTRACTION_DIRECTORY_STRATEGY =
+            ProbingExtractionDirectoryStrategy.createDefault();
+
     private final List<SystemDefinition> systems;
 
+    private final List<LibLoaderListener> libLoaderListeners = new CopyOnWriteArrayList<LibLoaderListener>();
+
+    private volatile boolean verifyDigests;
+
+    private volatile boolean compressedNatives;
+
+    private volatile long maxExtractionCacheSize;
+
+    private volatile ExtractionDirectoryStrategy extractionDirectoryStrategy = DEFAULT_EXTRACTION_DIRECTORY_STRATEGY;
+
     /**
      * Generates a default config.
      */
@@ -77,6 +94,113 @@ public class DefaultLibLoaderConfig implements LibLoaderConfig {
 
     @Override
     public List<SystemDefinition> getSystemDefinitions() {
-        return Collections.unmodifiableList(this.systems);
+        // already unmodifiable, returning the same instance lets callers detect that nothing changed.
+        return this.systems;
+    }
+
+    @Override
+    public File getExtractionDirectory() {
+        return this.extractionDirectoryStrategy.getExtractionDirectory();
+    }
+
+    /**
+     * Replaces the strategy choosing the extraction directory, see {@link ProbingExtractionDirectoryStrategy}.
+     *
+     * @param extractionDirectoryStrategy
+     *         the strategy to use.
+     * @throws NullPointerException
+     *         if the strategy is {@code null}.
+     */
+    public void setExtractionDirectoryStrategy(final ExtractionDirectoryStrategy extractionDirectoryStrategy) {
+        if (extractionDirectoryStrategy == null) {
+            throw new NullPointerException("extractionDirectoryStrategy");
+        }
+
+        this.extractionDirectoryStrategy = extractionDirectoryStrategy;
+    }
+
+    @Override
+    public boolean isSyncBeforePublish() {
+        return true;
+    }
+
+    @Override
+    public boolean isVerifyDigests() {
+        return this.verifyDigests;
+    }
+
+    /**
+     * Enables or disables SHA-256 verification for all lib loaders created with this config afterwards.
+     *
+     * @param verifyDigests
+     *         {@code true} to only load libraries matching their declared digest.
+     * @see LibLoaderConfig#isVerifyDigests()
+     */
+    public void setVerifyDigests(final boolean verifyDigests) {
+        this.verifyDigests = verifyDigests;
+    }
+
+    @Override
+    public boolean isCompressedNatives() {
+        return this.compressedNatives;
+    }
+
+    /**
+     * Enables or disables the lookup of unindexed compressed libraries for all lib loaders created with this config afterwards.
+     *
+     * @param compressedNatives
+     *         {@code true} to look up a compressed file after each candidate path.
+     * @see LibLoaderConfig#isCompressedNatives()
+     */
+    public void setCompressedNatives(final boolean compressedNatives) {
+        this.compressedNatives = compressedNatives;
+    }
+
+    @Override
+    public long getMaxExtractionCacheSize() {
+        return this.maxExtractionCacheSize;
+    }
+
+    /**
+     * Sets the disk budget of the extraction directory for all lib loaders created with this config afterwards.
+     *
+     * @param maxExtractionCacheSize
+     *         the maximum size in bytes, or {@code 0} for no limit.
+     * @throws IllegalArgumentException
+     *         if the size is negative.
+     * @see LibLoaderConfig#getMaxExtractionCacheSize()
+     */
+    public void setMaxExtractionCacheSize(final long maxExtractionCacheSize) {
+        if (maxExtractionCacheSize < 0L) {
+            throw new IllegalArgumentException("Negative cache size: [" + maxExtractionCacheSize + "].");
+        }
+
+        this.maxExtractionCacheSize = maxExtractionCacheSize;
+    }
+
+    @Override
+    public List<LibLoaderListener> getLibLoaderListeners() {
+        return Collections.unmodifiableList(this.libLoaderListeners);
+    }
+
+    @Override
+    public @Nullable File getPreparedDirectory() {
+        return null;
+    }
+
+    /**
+     * Registers a listener for all lib loaders created with this config afterwards.
+     *
+     * @param listener
+     *         the listener to add.
+     * @throws NullPointerException
+     *         if listener is {@code null}.
+     */
+    public void addLibLoaderListener(final LibLoaderListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener");
+        }
+
+        this.libLoaderListeners.add(listener);
     }
 }
@@ -18,16 +18,25 @@
 package io.github.java_native.libloader.config;
 
 import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.systems.Bitness;
+import io.github.java_native.libloader.systems.Endianess;
 import io.github.java_native.libloader.systems.SystemDefinition;
+import io.github.java_native.libloader.systems.SystemProperties;
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultLibraryPathFormatter implements LibraryPathFormatter {
 
+    /**
+     * Suffix of gzip compressed libraries, e.g. {@code natives/linux-x86_64-64/libfoo.so.gz}.
+     */
+    public static final String COMPRESSED_SUFFIX = ".gz";
+
     private static final String NATIVES_ROOT_FOLDER = "natives";
     private static final String SEPARATOR = "-";
     private static final String OS_NAME = "%1$s";
@@ -59,62 +68,219 @@ public class DefaultLibraryPathFormatter implements LibraryPathFormatter {
 
     private static final @Nullable String OVERRIDE_PATH = System.getProperty("native.libloader.systempath", null);
 
-    private static List<String> getPathTemplate(final SystemDefinition systemDefinition) {
-        final ArrayList<String> templates = new ArrayList<String>();
-        if (null != OVERRIDE_PATH) {
-            templates.add(getOverriddenPathTemplate(OVERRIDE_PATH));
+    private static final PathTemplate TEMPLATE_WITH_QUALIFIER = PathTemplate.compile(FORMATTED_PATH_WITH_QUALIFIER);
+    private static final PathTemplate TEMPLATE_WITHOUT_QUALIFIER = PathTemplate.compile(FORMATTED_PATH_WITHOUT_QUALIFIER);
+    private static final PathTemplate TEMPLATE_WITH_VERSION_QUALIFIER = PathTemplate.compile(FORMATTED_PATH_WITH_VERSION_QUALIFIER);
+    private static final PathTemplate TEMPLATE_WITH_VERSION_WITHOUT_QUALIFIER =
+            PathTemplate.compile(FORMATTED_PATH_WITH_VERSION_WITHOUT_QUALIFIER);
+    private static final @Nullable PathTemplate OVERRIDE_TEMPLATE =
+            OVERRIDE_PATH == null ? null : PathTemplate.compile(getOverriddenPathTemplate(OVERRIDE_PATH));
+
+    /**
+     * Templates bound to a system definition and a variant qualifier, shared by all formatters.
+     */
+    private static final Map<SystemDefinition, Map<String, SystemTemplates>> VARIANT_TEMPLATES =
+            Collections.synchronizedMap(new WeakHashMap<SystemDefinition, Map<String, SystemTemplates>>());
+
+    /**
+     * Templates bound to a system definition. Weak keys, as system definitions might come from other class loaders.
+     */
+    private final Map<SystemDefinition, SystemTemplates> boundTemplates =
+            Collections.synchronizedMap(new WeakHashMap<SystemDefinition, SystemTemplates>());
+
+    private final @Nullable PathTemplate overrideTemplate;
+
+    /**
+     * Creates a formatter which looks in the directory set by {@code native.libloader.systempath} first, if any.
+     */
+    public DefaultLibraryPathFormatter() {
+        this.overrideTemplate = OVERRIDE_TEMPLATE;
+    }
+
+    /**
+     * Creates a formatter which looks in the given directory first, instead of the one set by
+     * {@code native.libloader.systempath}.
+     *
+     * @param overridePath
+     *         the directory, e.g. {@code natives/custom}, or {@code null} for none.
+     */
+    protected DefaultLibraryPathFormatter(final @Nullable String overridePath) {
+        this.overrideTemplate = overridePath == null ? null : PathTemplate.compile(getOverriddenPathTemplate(overridePath));
+    }
+
+    private SystemTemplates getSystemTemplates(final SystemDefinition systemDefinition) {
+        final SystemTemplates cached = this.boundTemplates.get(systemDefinition);
+
+        if (cached != null) {
+            return cached;
         }
 
-        templates.addAll(getDefaultPathTemplates(systemDefinition));
-        return Collections.unmodifiableList(templates);
+        final SystemTemplates systemTemplates = new SystemTemplates(
+                getPathTemplate(systemDefinition),
+                getPathTemplatesVersioned(systemDefinition),
+                this.overrideTemplate == null
+                        ? new PathTemplate.Bound[0]
+                        : bind(Collections.singletonList(this.overrideTemplate), systemDefinition));
+        this.boundTemplates.put(systemDefinition, systemTemplates);
+
+        return systemTemplates;
     }
 
-    private static List<String> getDefaultPathTemplates(final SystemDefinition systemDefinition) {
-        final ArrayList<String> templates = new ArrayList<String>();
+    private PathTemplate.Bound[] getPathTemplate(final SystemDefinition systemDefinition) {
+        final List<PathTemplate> templates = new ArrayList<PathTemplate>();
+        if (null != this.overrideTemplate) {
+            templates.add(this.overrideTemplate);
+        }
 
         if (systemDefinition.getQualifier() != null) {
-            templates.add(FORMATTED_PATH_WITH_QUALIFIER);
+            templates.add(TEMPLATE_WITH_QUALIFIER);
         }
 
-        templates.add(FORMATTED_PATH_WITHOUT_QUALIFIER);
-        return Collections.unmodifiableList(templates);
+        templates.add(TEMPLATE_WITHOUT_QUALIFIER);
+
+        return bind(templates, systemDefinition);
     }
 
-    private Collection<String> getPathTemplatesVersioned(final SystemDefinition systemDefinition) {
-        final ArrayList<String> templates = new ArrayList<String>();
+    private static PathTemplate.Bound[] getPathTemplatesVersioned(final SystemDefinition systemDefinition) {
+        final List<PathTemplate> templates = new ArrayList<PathTemplate>();
 
         if (systemDefinition.getQualifier() != null) {
-            templates.add(FORMATTED_PATH_WITH_VERSION_QUALIFIER);
+            templates.add(TEMPLATE_WITH_VERSION_QUALIFIER);
         }
 
-        templates.add(FORMATTED_PATH_WITH_VERSION_WITHOUT_QUALIFIER);
-        return Collections.unmodifiableList(templates);
+        templates.add(TEMPLATE_WITH_VERSION_WITHOUT_QUALIFIER);
+
+        return bind(templates, systemDefinition);
+    }
+
+    private static PathTemplate.Bound[] bind(final List<PathTemplate> templates, final SystemDefinition systemDefinition) {
+        final PathTemplate.Bound[] boundTemplates = new PathTemplate.Bound[templates.size()];
+
+        for (int i = 0; i < boundTemplates.length; i++) {
+            boundTemplates[i] = templates.get(i).bind(systemDefinition);
+        }
+
+        return boundTemplates;
     }
 
     @Override
     public List<String> getFormattedPaths(final SystemDefinition systemDefinition, final String libName) {
-        if (libName.isEmpty()) {
-            throw new IllegalArgumentException("Empty library name provided");
+        checkLibName(libName);
+
+        return doCreatePathsForSystem(systemDefinition, libName, null, getSystemTemplates(systemDefinition).unversioned);
+    }
+
+    @Override
+    public List<String> getFormattedPaths(final SystemDefinition systemDefinition, final String libName, final String version) {
+        checkLibName(libName);
+
+        if (version.trim().isEmpty()) {
+            // no version supplied.
+            return getFormattedPaths(systemDefinition, libName);
         }
 
-        if (libName.contains(File.separator) || libName.contains(File.pathSeparator)) {
-            throw new IllegalArgumentException(
-                    "library name contains illegal characters: [" + libName + "]. "
-                            + "Do not use '" + File.separator + "' or '" + File.pathSeparator + "'.");
+        return doCreatePathsForSystem(systemDefinition, libName, version, getSystemTemplates(systemDefinition).versioned);
+    }
+
+    /**
+     * The paths in the override directory, which come first in {@link #getFormattedPaths(SystemDefinition, String)}.
+     *
+     * <p>Callers which add {@link #getVariantPaths(SystemDefinition, String, String, List) variant paths} put them
+     * after these, so the override always wins.<br></p>
+     *
+     * @param systemDefinition
+     *         the system to create paths for.
+     * @param libName
+     *         the library name.
+     * @return the paths, empty if no override directory is set.
+     */
+    public List<String> getOverriddenPaths(final SystemDefinition systemDefinition, final String libName) {
+        checkLibName(libName);
+
+        return doCreatePathsForSystem(systemDefinition, libName, null, getSystemTemplates(systemDefinition).overridden);
+    }
+
+    /**
+     * Adds a gzip compressed candidate after each path.
+     *
+     * <p>Each uncompressed path is preferred over its compressed variant, but a compressed variant is
+     * preferred over the next, less specific path (e.g. a compressed versioned library over an
+     * uncompressed unversioned one).<br></p>
+     *
+     * @param paths
+     *         formatted paths as returned by {@link #getFormattedPaths(SystemDefinition, String)}.
+     * @return an unmodifiable list of twice the size, e.g. {@code [libfoo.so, libfoo.so.gz]}.
+     */
+    public static List<String> withCompressedPaths(final List<String> paths) {
+        final List<String> candidates = new ArrayList<String>(paths.size() * 2);
+
+        for (final String path : paths) {
+            candidates.add(path);
+            candidates.add(path + COMPRESSED_SUFFIX);
         }
 
-        final List<String> pathTemplates = getPathTemplate(systemDefinition);
-        final List<String> formattedPaths = new ArrayList<String>();
+        return Collections.unmodifiableList(candidates);
+    }
 
-        for (final String pathTemplate : pathTemplates) {
-            formattedPaths.addAll(doCreatePathForSystem(systemDefinition, libName, null, pathTemplate));
+    /**
+     * Paths of system variants, e.g. builds for a specific C library, in the order of the given variants.
+     *
+     * <p>A variant is appended to the system's qualifier, e.g. {@code natives/linux-x86_64-64-musl/libfoo.so}
+     * or {@code natives/linux-arm_32-32-hf-glibc2.28/libfoo.so}. The paths of the system itself are not included,
+     * callers add them after the variants as the baseline.<br></p>
+     *
+     * @param systemDefinition
+     *         the system to create paths for.
+     * @param libName
+     *         the library name.
+     * @param version
+     *         the library version, or {@code null} for unversioned paths.
+     * @param variants
+     *         the variant qualifiers, most specific first.
+     * @return an unmodifiable list of paths.
+     */
+    public static List<String> getVariantPaths(final SystemDefinition systemDefinition,
+                                               final String libName,
+                                               final @Nullable String version,
+                                               final List<String> variants) {
+        checkLibName(libName);
+
+        final List<String> paths = new ArrayList<String>();
+
+        for (final String variant : variants) {
+            final SystemTemplates templates = getVariantTemplates(systemDefinition, variant);
+            final PathTemplate.Bound[] pathTemplates = version != null ? templates.versioned : templates.unversioned;
+            paths.addAll(doCreatePathsForSystem(systemDefinition, libName, version, pathTemplates));
         }
 
-        return Collections.unmodifiableList(formattedPaths);
+        return Collections.unmodifiableList(paths);
     }
 
-    @Override
-    public List<String> getFormattedPaths(final SystemDefinition systemDefinition, final String libName, final String version) {
+    private static SystemTemplates getVariantTemplates(final SystemDefinition systemDefinition, final String variant) {
+        Map<String, SystemTemplates> variantTemplates = VARIANT_TEMPLATES.get(systemDefinition);
+
+        if (variantTemplates == null) {
+            variantTemplates = new ConcurrentHashMap<String, SystemTemplates>();
+            VARIANT_TEMPLATES.put(systemDefinition, variantTemplates);
+        }
+
+        final SystemTemplates cached = variantTemplates.get(variant);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final SystemDefinition variantSystem = new VariantSystemDefinition(systemDefinition, variant);
+        final SystemTemplates systemTemplates = new SystemTemplates(
+                bind(Collections.singletonList(TEMPLATE_WITH_QUALIFIER), variantSystem),
+                bind(Collections.singletonList(TEMPLATE_WITH_VERSION_QUALIFIER), variantSystem),
+                new PathTemplate.Bound[0]);
+        variantTemplates.put(variant, systemTemplates);
+
+        return systemTemplates;
+    }
+
+    private static void checkLibName(final String libName) {
         if (libName.isEmpty()) {
             throw new IllegalArgumentException("Empty library name provided");
         }
@@ -124,39 +290,19 @@ public class DefaultLibraryPathFormatter implements LibraryPathFormatter {
                     "library name contains illegal characters: [" + libName + "]. "
                             + "Do not use '" + File.separator + "' or '" + File.pathSeparator + "'.");
         }
-
-        if (version.trim().isEmpty()) {
-            // no version supplied.
-            return getFormattedPaths(systemDefinition, libName);
-        }
-
-        final ArrayList<String> formattedPaths = new ArrayList<String>();
-        for (final String pathTemplate : getPathTemplatesVersioned(systemDefinition)) {
-            formattedPaths.addAll(doCreatePathForSystem(systemDefinition, libName, version, pathTemplate));
-        }
-
-        return Collections.unmodifiableList(formattedPaths);
     }
 
-    private List<String> doCreatePathForSystem(final SystemDefinition systemDefinition,
-                                               final String libName,
-                                               final @Nullable String version,
-                                               final String pathTemplate) {
-        final List<String> formattedPaths = new ArrayList<String>();
-
-        for (final String suffix : systemDefinition.getLibrarySuffixes()) {
-            final String formattedPath = String.format(Locale.ENGLISH,
-                    pathTemplate,
-                    systemDefinition.getNormalizedOsName(),
-                    systemDefinition.getArchitecture(),
-                    systemDefinition.getBitness().getBitness(),
-                    systemDefinition.getQualifier(),
-                    systemDefinition.getLibraryPrefix(),
-                    libName,
-                    suffix,
-                    version
-            );
-            formattedPaths.add(formattedPath);
+    private static List<String> doCreatePathsForSystem(final SystemDefinition systemDefinition,
+                                                       final String libName,
+                                                       final @Nullable String version,
+                                                       final PathTemplate.Bound[] pathTemplates) {
+        final List<String> suffixes = systemDefinition.getLibrarySuffixes();
+        final List<String> formattedPaths = new ArrayList<String>(pathTemplates.length * suffixes.size());
+
+        for (final PathTemplate.Bound pathTemplate : pathTemplates) {
+            for (final String suffix : suffixes) {
+                formattedPaths.add(pathTemplate.format(libName, suffix, version));
+            }
         }
 
         return Collections.unmodifiableList(formattedPaths);
@@ -167,4 +313,83 @@ public class DefaultLibraryPathFormatter implements LibraryPathFormatter {
         return overridePath + "/" + PREFIX_LIBNAME_SUFFIX;
     }
 
+    /**
+     * A system definition whose qualifier is extended by a variant, only used to bind templates.
+     */
+    private static final class VariantSystemDefinition implements SystemDefinition {
+
+        private final SystemDefinition systemDefinition;
+
+        private final String qualifier;
+
+        VariantSystemDefinition(final SystemDefinition systemDefinition, final String variant) {
+            this.systemDefinition = systemDefinition;
+            this.qualifier = systemDefinition.getQualifier() != null ? systemDefinition.getQualifier() + SEPARATOR + variant : variant;
+        }
+
+        @Override
+        public List<String> getMatchingArchitectures() {
+            return this.systemDefinition.getMatchingArchitectures();
+        }
+
+        @Override
+        public String getLibraryPrefix() {
+            return this.systemDefinition.getLibraryPrefix();
+        }
+
+        @Override
+        public List<String> getLibrarySuffixes() {
+            return this.systemDefinition.getLibrarySuffixes();
+        }
+
+        @Override
+        public boolean matches(final SystemProperties currentSystemProperties) {
+            return this.systemDefinition.matches(currentSystemProperties);
+        }
+
+        @Override
+        public String getNormalizedOsName() {
+            return this.systemDefinition.getNormalizedOsName();
+        }
+
+        @Override
+        public String getArchitecture() {
+            return this.systemDefinition.getArchitecture();
+        }
+
+        @Override
+        public Bitness getBitness() {
+            return this.systemDefinition.getBitness();
+        }
+
+        @Override
+        public Endianess getEndianess() {
+            return this.systemDefinition.getEndianess();
+        }
+
+        @Override
+        public String getQualifier() {
+            return this.qualifier;
+        }
+    }
+
+    /**
+     * Path templates bound to a single system definition.
+     */
+    private static final class SystemTemplates {
+
+        private final PathTemplate.Bound[] unversioned;
+
+        private final PathTemplate.Bound[] versioned;
+
+        private final PathTemplate.Bound[] overridden;
+
+        SystemTemplates(final PathTemplate.Bound[] unversioned,
+                        final PathTemplate.Bound[] versioned,
+                        final PathTemplate.Bound[] overridden) {
+            this.unversioned = unversioned;
+            this.versioned = versioned;
+            this.overridden = overridden;
+        }
+    }
 }
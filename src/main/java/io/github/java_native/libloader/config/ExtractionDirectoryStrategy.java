@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.config;
+
+import java.io.File;
+
+/**
+ * Chooses the directory native libraries are extracted to, see {@link LibLoaderConfig#getExtractionDirectory()}.
+ *
+ * <p>The default is {@link ProbingExtractionDirectoryStrategy}. Supply a different strategy with
+ * {@link DefaultLibLoaderConfig#setExtractionDirectoryStrategy(ExtractionDirectoryStrategy)}.<br></p>
+ */
+public interface ExtractionDirectoryStrategy {
+
+    /**
+     * Returns the extraction directory.
+     *
+     * <p>Called whenever a library is extracted, implementations should remember their choice.<br></p>
+     *
+     * @return the extraction directory, which will be created if it does not exist yet.
+     */
+    File getExtractionDirectory();
+}
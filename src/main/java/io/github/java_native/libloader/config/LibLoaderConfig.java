@@ -17,7 +17,10 @@
 
 package io.github.java_native.libloader.config;
 
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.provider.LibLoaderListener;
 import io.github.java_native.libloader.systems.SystemDefinition;
+import java.io.File;
 import java.util.List;
 
 /**
@@ -48,5 +51,88 @@ public interface LibLoaderConfig {
      */
     List<SystemDefinition> getSystemDefinitions();
 
+    /**
+     * The root directory into which native libraries are extracted.
+     *
+     * <p>Extracted libraries are kept in this directory across JVM starts. They are stored by
+     * library name, system and a content digest, so an unchanged library will be reused instead
+     * of being extracted again.<br></p>
+     *
+     * <p>The system property {@code native.libloader.tempdir} takes precedence over this value.<br></p>
+     *
+     * @return the extraction directory, which will be created if it does not exist yet.
+     */
+    File getExtractionDirectory();
+
+    /**
+     * Whether extracted libraries are flushed to the storage device before they are published.
+     *
+     * <p>Libraries are always written to a temporary file and renamed once complete. Flushing
+     * before the rename makes sure a crash of the host cannot leave a published file with
+     * incomplete content behind, at the cost of a slower first extraction.<br></p>
+     *
+     * @return {@code true} to call fsync on every extracted file before it is renamed.
+     */
+    boolean isSyncBeforePublish();
+
+    /**
+     * Whether extracted libraries are verified against the SHA-256 digests declared for them.
+     *
+     * <p>The digest is taken from the natives index, or from a resource next to the library with the
+     * suffix {@code .sha256}, e.g. {@code natives/linux-x86_64-64/libfoo.so.sha256}. A library without
+     * a declared digest is not loaded. The digest is computed while the library is extracted, and a
+     * cached library is only reused if it was verified against the same digest.<br></p>
+     *
+     * <p>The system property {@code native.libloader.verify} takes precedence over this value.<br></p>
+     *
+     * @return {@code true} to verify every library before it is loaded.
+     */
+    boolean isVerifyDigests();
+
+    /**
+     * Whether every library may also be shipped gzip compressed, with the suffix {@code .gz}.
+     *
+     * <p>If disabled, a compressed library is only looked up if the natives index lists it, so jars without
+     * an index do not pay a second class path lookup per candidate path. The system property
+     * {@code native.libloader.compressed} takes precedence over this value.<br></p>
+     *
+     * @return {@code true} to look up a compressed file after each candidate path.
+     */
+    boolean isCompressedNatives();
+
+    /**
+     * The disk budget of the extraction directory in bytes.
+     *
+     * <p>After a library was extracted, the least recently used library versions are deleted until the
+     * directory fits the budget again. Versions which are being extracted, were used recently or are still
+     * mapped by a running process are kept, so the budget may be exceeded for a while.<br></p>
+     *
+     * <p>The system property {@code native.libloader.cachesize} takes precedence over this value.<br></p>
+     *
+     * @return the maximum size in bytes, or {@code 0} for no limit.
+     */
+    long getMaxExtractionCacheSize();
+
+    /**
+     * Listeners to notify in addition to those found via {@link java.util.ServiceLoader}.
+     *
+     * <p>The list is read when a lib loader is created.<br></p>
+     *
+     * @return the listeners, never {@code null}.
+     */
+    List<LibLoaderListener> getLibLoaderListeners();
+
+    /**
+     * A directory into which the libraries were extracted ahead of time, see {@code NativesPreparer}.
+     *
+     * <p>Libraries listed in the directory's manifest are loaded from there without looking them up
+     * on the class path or extracting them. Other libraries are loaded as usual.<br></p>
+     *
+     * <p>The system property {@code native.libloader.prepared} takes precedence over this value.<br></p>
+     *
+     * @return the prepared directory, or {@code null} to not use one.
+     */
+    @Nullable
+    File getPreparedDirectory();
 
 }
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.config;
+
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A path template compiled from a {@link String#format(String, Object...)} pattern.
+ *
+ * <p>Only positional string arguments ({@code %1$s} to {@code %8$s}) and {@code %%} are compiled.
+ * Templates using any other format specifier are kept as they are and formatted using
+ * {@link String#format(Locale, String, Object...)}, so they behave exactly as before.<br></p>
+ *
+ * <p>The arguments are:</p>
+ * <ol>
+ *     <li>normalized os name</li>
+ *     <li>architecture</li>
+ *     <li>bitness</li>
+ *     <li>qualifier</li>
+ *     <li>library prefix</li>
+ *     <li>library name</li>
+ *     <li>library suffix</li>
+ *     <li>version</li>
+ * </ol>
+ */
+final class PathTemplate {
+
+    static final int ARG_LIBRARY_NAME = 6;
+    static final int ARG_SUFFIX = 7;
+    static final int ARG_VERSION = 8;
+
+    private static final int MAX_ARG = 8;
+
+    private final String pattern;
+
+    /**
+     * Literal segments, one more than {@link #arguments}. {@code null} if the pattern could not be compiled.
+     */
+    private final @Nullable String[] literals;
+
+    private final @Nullable int[] arguments;
+
+    private PathTemplate(final String pattern, final @Nullable String[] literals, final @Nullable int[] arguments) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.arguments = arguments;
+    }
+
+    static PathTemplate compile(final String pattern) {
+        final List<String> literals = new ArrayList<String>();
+        final List<Integer> arguments = new ArrayList<Integer>();
+        final StringBuilder literal = new StringBuilder();
+        int position = 0;
+
+        while (position < pattern.length()) {
+            final char character = pattern.charAt(position);
+
+            if (character != '%') {
+                literal.append(character);
+                position++;
+                continue;
+            }
+
+            if (position + 1 < pattern.length() && pattern.charAt(position + 1) == '%') {
+                literal.append('%');
+                position += 2;
+                continue;
+            }
+
+            final int argument = parseArgument(pattern, position + 1);
+
+            if (argument == -1) {
+                // not a simple positional string argument, keep the format semantics.
+                return new PathTemplate(pattern, null, null);
+            }
+
+            literals.add(literal.toString());
+            literal.setLength(0);
+            arguments.add(argument);
+            // '%', one digit, '$', 's'.
+            position += 4;
+        }
+
+        literals.add(literal.toString());
+
+        final int[] argumentArray = new int[arguments.size()];
+        for (int i = 0; i < argumentArray.length; i++) {
+            argumentArray[i] = arguments.get(i);
+        }
+
+        return new PathTemplate(pattern, literals.toArray(new String[0]), argumentArray);
+    }
+
+    private static int parseArgument(final String pattern, final int position) {
+        if (position + 2 >= pattern.length()) {
+            return -1;
+        }
+
+        final int argument = pattern.charAt(position) - '0';
+
+        if (argument < 1 || argument > MAX_ARG
+                || pattern.charAt(position + 1) != '$'
+                || pattern.charAt(position + 2) != 's') {
+            return -1;
+        }
+
+        return argument;
+    }
+
+    /**
+     * Replaces all system specific arguments with the values of the given system.
+     *
+     * @param system
+     *         the system to bind this template to.
+     * @return a template which only needs the library name, suffix and version.
+     */
+    Bound bind(final SystemDefinition system) {
+        // same argument types as used with String.format, so fallback patterns behave the same.
+        final Object[] systemValues = {
+                null,
+                system.getNormalizedOsName(),
+                system.getArchitecture(),
+                system.getBitness().getBitness(),
+                system.getQualifier(),
+                system.getLibraryPrefix()
+        };
+
+        if (this.literals == null || this.arguments == null) {
+            return new Bound(this.pattern, systemValues);
+        }
+
+        final List<String> boundLiterals = new ArrayList<String>();
+        final List<Integer> boundArguments = new ArrayList<Integer>();
+        final StringBuilder literal = new StringBuilder(this.literals[0]);
+
+        for (int i = 0; i < this.arguments.length; i++) {
+            final int argument = this.arguments[i];
+
+            if (argument < ARG_LIBRARY_NAME) {
+                literal.append(systemValues[argument]);
+            } else {
+                boundLiterals.add(literal.toString());
+                literal.setLength(0);
+                boundArguments.add(argument);
+            }
+
+            literal.append(this.literals[i + 1]);
+        }
+
+        boundLiterals.add(literal.toString());
+
+        final int[] argumentArray = new int[boundArguments.size()];
+        for (int i = 0; i < argumentArray.length; i++) {
+            argumentArray[i] = boundArguments.get(i);
+        }
+
+        return new Bound(boundLiterals.toArray(new String[0]), argumentArray);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PathTemplate{");
+        sb.append("pattern='").append(this.pattern).append('\'');
+        sb.append(", compiled=").append(this.literals != null);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * A template bound to a system definition.
+     *
+     * <p>The system specific values are merged into the literals, so the first literal is the constant
+     * prefix of all paths created by this template, e.g. {@code natives/linux-x86_64-64/lib}.<br></p>
+     */
+    static final class Bound {
+
+        private final @Nullable String[] literals;
+
+        private final @Nullable int[] arguments;
+
+        private final int literalLength;
+
+        private final @Nullable String pattern;
+
+        private final @Nullable Object[] systemValues;
+
+        Bound(final String[] literals, final int[] arguments) {
+            this.literals = literals;
+            this.arguments = arguments;
+            this.pattern = null;
+            this.systemValues = null;
+
+            int length = 0;
+            for (final String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        Bound(final String pattern, final Object[] systemValues) {
+            this.literals = null;
+            this.arguments = null;
+            this.literalLength = 0;
+            this.pattern = pattern;
+            this.systemValues = systemValues.clone();
+        }
+
+        String format(final String libName, final String suffix, final @Nullable String version) {
+            if (this.literals == null || this.arguments == null) {
+                return formatPattern(libName, suffix, version);
+            }
+
+            final StringBuilder sb = new StringBuilder(this.literalLength + libName.length() + suffix.length()
+                    + (version == null ? 4 : version.length()));
+            sb.append(this.literals[0]);
+
+            for (int i = 0; i < this.arguments.length; i++) {
+                switch (this.arguments[i]) {
+                    case ARG_LIBRARY_NAME:
+                        sb.append(libName);
+                        break;
+                    case ARG_SUFFIX:
+                        sb.append(suffix);
+                        break;
+                    default:
+                        sb.append(version);
+                        break;
+                }
+
+                sb.append(this.literals[i + 1]);
+            }
+
+            return sb.toString();
+        }
+
+        private String formatPattern(final String libName, final String suffix, final @Nullable String version) {
+            final Object[] values = this.systemValues;
+
+            return String.format(Locale.ENGLISH, this.pattern,
+                    values[1],
+                    values[2],
+                    values[3],
+                    values[4],
+                    values[5],
+                    libName,
+                    suffix,
+                    version);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.config;
+
+import io.github.java_native.libloader.internal.MountTable;
+import io.github.java_native.libloader.internal.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Uses the first of a list of candidate directories which is writable and allows executing files.
+ *
+ * <p>A candidate is skipped if it cannot be created or written to, or if it is on a file system mounted
+ * {@code noexec}, where libraries could be extracted but not loaded. If no candidate qualifies, the last
+ * one is used anyway.<br></p>
+ *
+ * <p>The choice is remembered in a small record file, so later JVM starts only check that the recorded
+ * directory is still writable instead of probing all candidates again. The record is ignored if the
+ * candidates changed.<br></p>
+ *
+ * <p>{@link #createDefault()} prefers memory backed directories ({@code /dev/shm}, {@code $XDG_RUNTIME_DIR}),
+ * so extraction does not cause any block device I/O, and falls back to {@code java.io.tmpdir}.<br></p>
+ */
+public class ProbingExtractionDirectoryStrategy implements ExtractionDirectoryStrategy {
+
+    private static final Logger LOG = Logger.getLogger(ProbingExtractionDirectoryStrategy.class.getName());
+
+    private static final String DIRECTORY_KEY = "directory";
+
+    private static final String CANDIDATES_KEY = "candidates";
+
+    private final List<File> candidates;
+
+    private final @Nullable File recordFile;
+
+    private volatile @Nullable File extractionDirectory;
+
+    /**
+     * Creates a strategy for the given candidates.
+     *
+     * @param candidates
+     *         the directories to try, in order of preference. Must not be empty.
+     * @param recordFile
+     *         the file to remember the choice in, or {@code null} to probe on every JVM start.
+     * @throws IllegalArgumentException
+     *         if there are no candidates.
+     */
+    public ProbingExtractionDirectoryStrategy(final List<File> candidates, final @Nullable File recordFile) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("At least one candidate directory is required.");
+        }
+
+        this.candidates = Collections.unmodifiableList(new ArrayList<File>(candidates));
+        this.recordFile = recordFile;
+    }
+
+    /**
+     * Creates the default strategy.
+     *
+     * <p>The candidates are {@code /dev/shm/native-libloader-<user>}, {@code $XDG_RUNTIME_DIR/native-libloader}
+     * (both only if the parent exists) and {@code <java.io.tmpdir>/native-libloader-<user>}. The choice is
+     * recorded in {@code <java.io.tmpdir>/native-libloader-<user>.properties}.<br></p>
+     *
+     * @return the default strategy.
+     */
+    public static ProbingExtractionDirectoryStrategy createDefault() {
+        final String directoryName = "native-libloader-" + System.getProperty("user.name", "default");
+        final List<File> candidates = new ArrayList<File>();
+
+        final File sharedMemory = new File("/dev/shm");
+
+        if (sharedMemory.isDirectory()) {
+            candidates.add(new File(sharedMemory, directoryName));
+        }
+
+        final @Nullable String runtimeDirectory = System.getenv("XDG_RUNTIME_DIR");
+
+        if (runtimeDirectory != null && new File(runtimeDirectory).isDirectory()) {
+            // already private to the user.
+            candidates.add(new File(runtimeDirectory, "native-libloader"));
+        }
+
+        final File temporaryDirectory = new File(System.getProperty("java.io.tmpdir"));
+        candidates.add(new File(temporaryDirectory, directoryName));
+
+        return new ProbingExtractionDirectoryStrategy(candidates, new File(temporaryDirectory, directoryName + ".properties"));
+    }
+
+    @Override
+    public File getExtractionDirectory() {
+        final @Nullable File directory = this.extractionDirectory;
+
+        if (directory != null) {
+            return directory;
+        }
+
+        synchronized (this) {
+            if (this.extractionDirectory == null) {
+                this.extractionDirectory = selectDirectory();
+            }
+
+            return this.extractionDirectory;
+        }
+    }
+
+    public List<File> getCandidates() {
+        return this.candidates;
+    }
+
+    private File selectDirectory() {
+        final @Nullable File recordedDirectory = readRecord();
+
+        if (recordedDirectory != null && isUsable(recordedDirectory)) {
+            return recordedDirectory;
+        }
+
+        for (final File candidate : this.candidates) {
+            if (!MountTable.isNoExec(candidate) && isUsable(candidate)) {
+                writeRecord(candidate);
+
+                return candidate;
+            }
+
+            LOG.log(Level.FINE, "Extraction directory candidate [" + candidate + "] is not usable.");
+        }
+
+        final File fallback = this.candidates.get(this.candidates.size() - 1);
+        LOG.log(Level.WARNING, "No usable extraction directory in " + this.candidates + ", using [" + fallback + "].");
+
+        return fallback;
+    }
+
+    private static boolean isUsable(final File directory) {
+        return (directory.isDirectory() || directory.mkdirs()) && directory.canWrite();
+    }
+
+    private @Nullable File readRecord() {
+        if (this.recordFile == null || !this.recordFile.isFile()) {
+            return null;
+        }
+
+        final Properties record = new Properties();
+
+        try {
+            final InputStream inputStream = new FileInputStream(this.recordFile);
+
+            try {
+                record.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to read [" + this.recordFile + "].", ioException);
+
+            return null;
+        }
+
+        final @Nullable String directory = record.getProperty(DIRECTORY_KEY);
+
+        if (directory == null || !getCandidatesValue().equals(record.getProperty(CANDIDATES_KEY))) {
+            return null;
+        }
+
+        return new File(directory);
+    }
+
+    private void writeRecord(final File directory) {
+        if (this.recordFile == null) {
+            return;
+        }
+
+        final Properties record = new Properties();
+        record.setProperty(DIRECTORY_KEY, directory.getPath());
+        record.setProperty(CANDIDATES_KEY, getCandidatesValue());
+
+        try {
+            final File tempFile = File.createTempFile(this.recordFile.getName(), ".tmp", this.recordFile.getAbsoluteFile().getParentFile());
+            final OutputStream outputStream = new FileOutputStream(tempFile);
+
+            try {
+                record.store(outputStream, "native-libloader extraction directory");
+            } finally {
+                outputStream.close();
+            }
+
+            if (!tempFile.renameTo(this.recordFile)) {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
+        } catch (final IOException ioException) {
+            // only costs probing again on the next start.
+            LOG.log(Level.FINE, "Unable to write [" + this.recordFile + "].", ioException);
+        }
+    }
+
+    private String getCandidatesValue() {
+        final StringBuilder sb = new StringBuilder();
+
+        for (final File candidate : this.candidates) {
+            if (sb.length() != 0) {
+                sb.append(File.pathSeparatorChar);
+            }
+
+            sb.append(candidate.getPath());
+        }
+
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ProbingExtractionDirectoryStrategy{");
+        sb.append("candidates=").append(this.candidates);
+        sb.append(", recordFile=").append(this.recordFile);
+        sb.append(", extractionDirectory=").append(this.extractionDirectory);
+        sb.append('}');
+        return sb.toString();
+    }
+}
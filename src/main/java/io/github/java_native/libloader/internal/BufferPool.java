@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small, bounded pool of copy buffers.
+ *
+ * <p>Extraction happens rarely but in bursts (e.g. at startup), so a few buffers are kept
+ * instead of allocating a new one for every extracted library.<br></p>
+ */
+public final class BufferPool {
+
+    /**
+     * The size of each pooled buffer.
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int MAX_POOLED_BUFFERS = 4;
+
+    private static final Queue<byte[]> BUFFERS = new ConcurrentLinkedQueue<byte[]>();
+
+    private static final AtomicInteger POOLED_BUFFERS = new AtomicInteger();
+
+    private BufferPool() {
+        // util class.
+    }
+
+    /**
+     * Takes a buffer from the pool, or allocates a new one if the pool is empty.
+     *
+     * @return a buffer of {@link #BUFFER_SIZE} bytes. Its content is undefined.
+     */
+    public static byte[] acquire() {
+        final byte[] buffer = BUFFERS.poll();
+
+        if (buffer == null) {
+            return new byte[BUFFER_SIZE];
+        }
+
+        POOLED_BUFFERS.decrementAndGet();
+
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer must not be used afterwards.
+     *
+     * @param buffer
+     *         a buffer obtained from {@link #acquire()}.
+     */
+    public static void release(final byte[] buffer) {
+        if (buffer.length != BUFFER_SIZE) {
+            return;
+        }
+
+        if (POOLED_BUFFERS.incrementAndGet() > MAX_POOLED_BUFFERS) {
+            POOLED_BUFFERS.decrementAndGet();
+
+            return;
+        }
+
+        BUFFERS.offer(buffer);
+    }
+}
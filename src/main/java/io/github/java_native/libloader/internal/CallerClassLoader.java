@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+/**
+ * Finds the class loader of the code calling into the lib loader.
+ *
+ * <p>This is the Java 6 implementation, which reads the class context of a {@link SecurityManager}
+ * without installing it. The multi-release jar contains a {@code StackWalker} based replacement for
+ * Java 9 and later in {@code META-INF/versions/9}, which must keep the same methods.<br></p>
+ */
+public final class CallerClassLoader {
+
+    private static final String LIBLOADER_PACKAGE = "io.github.java_native.libloader.";
+
+    private CallerClassLoader() {
+        // util class.
+    }
+
+    /**
+     * Returns the class loader of the first class on the call stack which is not part of the lib loader.
+     *
+     * @return the caller's class loader, or {@code null} if it is the bootstrap class loader or could not be determined.
+     */
+    public static @Nullable ClassLoader get() {
+        final Class<?>[] classContext;
+
+        try {
+            classContext = new ClassContext().getCallers();
+        } catch (final SecurityException securityException) {
+            return null;
+        }
+
+        for (final Class<?> caller : classContext) {
+            if (!caller.getName().startsWith(LIBLOADER_PACKAGE)) {
+                return caller.getClassLoader();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Exposes the protected class context.
+     */
+    private static final class ClassContext extends SecurityManager {
+
+        Class<?>[] getCallers() {
+            return getClassContext();
+        }
+    }
+}
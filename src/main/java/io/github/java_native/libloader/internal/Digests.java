@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * SHA-256 helpers shared by the index writer and the extraction cache.
+ *
+ * <p>Digests are exchanged as lower case hex strings, as printed by {@code sha256sum}.<br></p>
+ */
+public final class Digests {
+
+    /**
+     * Suffix of a resource declaring the SHA-256 digest of the resource next to it,
+     * e.g. {@code natives/linux-x86_64-64/libfoo.so.sha256}.
+     */
+    public static final String SHA256_SUFFIX = ".sha256";
+
+    private static final int SHA256_HEX_LENGTH = 64;
+
+    /**
+     * Enough for the digest, two spaces and a file name as written by {@code sha256sum}.
+     */
+    private static final int MAX_DECLARATION_SIZE = 4 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Digests() {
+        // util class.
+    }
+
+    /**
+     * Creates a new SHA-256 message digest.
+     *
+     * @return a new message digest instance.
+     */
+    public static MessageDigest createSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException noSuchAlgorithmException) {
+            // every java platform is required to support SHA-256.
+            throw new IllegalStateException(noSuchAlgorithmException);
+        }
+    }
+
+    /**
+     * Formats the digest as lower case hex string.
+     *
+     * @param bytes
+     *         the digest.
+     * @return the hex string, two characters per byte.
+     */
+    public static String toHex(final byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0x0F];
+            chars[2 * i + 1] = HEX[bytes[i] & 0x0F];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Whether the string is a SHA-256 digest in hex notation.
+     *
+     * @param digest
+     *         the string to check, may be {@code null}.
+     * @return {@code true} for 64 hex characters of either case.
+     */
+    public static boolean isSha256(final @Nullable String digest) {
+        if (digest == null || digest.length() != SHA256_HEX_LENGTH) {
+            return false;
+        }
+
+        for (int i = 0; i < digest.length(); i++) {
+            if (Character.digit(digest.charAt(i), 16) == -1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads a declared digest, i.e. the first word of a {@code .sha256} file.
+     *
+     * <p>Both a plain digest and the output of {@code sha256sum} are accepted.<br></p>
+     *
+     * @param declarationUrl
+     *         the URL of the {@code .sha256} resource.
+     * @return the digest in lower case.
+     * @throws IOException
+     *         if the resource could not be read or does not start with a SHA-256 digest.
+     */
+    public static String readDeclaredSha256(final URL declarationUrl) throws IOException {
+        final InputStream inputStream = declarationUrl.openStream();
+
+        try {
+            return parseDeclaredSha256(inputStream, declarationUrl.toString());
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    static String parseDeclaredSha256(final InputStream inputStream, final String source) throws IOException {
+        final byte[] buffer = new byte[MAX_DECLARATION_SIZE];
+        int length = 0;
+        int read;
+
+        while (length < buffer.length && (read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+        }
+
+        final String content = new String(buffer, 0, length, "US-ASCII").trim();
+        final String[] words = content.split("\\s+", 2);
+
+        if (!isSha256(words[0])) {
+            throw new IOException("No SHA-256 digest declared in [" + source + "].");
+        }
+
+        return words[0].toLowerCase(Locale.ROOT);
+    }
+}
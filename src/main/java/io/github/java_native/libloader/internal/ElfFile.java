@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The parts of an ELF file which describe how it is linked: the program interpreter ({@code PT_INTERP})
+ * and the symbol versions it defines and needs ({@code DT_VERDEF}, {@code DT_VERNEED}).
+ *
+ * <p>Only the program headers and the dynamic segment are read, section headers are not needed. The
+ * file is mapped instead of read, so only the few pages holding these structures are ever loaded,
+ * even for a large shared library.<br></p>
+ */
+public final class ElfFile {
+
+    private static final int ELF_MAGIC = 0x7F454C46;
+
+    private static final int ELF_CLASS_64 = 2;
+    private static final int ELF_DATA_BIG_ENDIAN = 2;
+
+    private static final int PT_LOAD = 1;
+    private static final int PT_DYNAMIC = 2;
+    private static final int PT_INTERP = 3;
+
+    private static final long DT_NULL = 0L;
+    private static final long DT_STRTAB = 5L;
+    private static final long DT_VERDEF = 0x6ffffffcL;
+    private static final long DT_VERDEFNUM = 0x6ffffffdL;
+    private static final long DT_VERNEED = 0x6ffffffeL;
+    private static final long DT_VERNEEDNUM = 0x6fffffffL;
+
+    /**
+     * Larger files are not mapped, no shared library or launcher comes close.
+     */
+    private static final long MAX_FILE_SIZE = 512L * 1024L * 1024L;
+
+    private final @Nullable String interpreter;
+
+    private final List<String> definedVersions;
+
+    private final List<String> neededVersions;
+
+    ElfFile(final ByteBuffer buffer) throws IOException {
+        try {
+            final Parser parser = new Parser(buffer);
+            this.interpreter = parser.interpreter;
+            this.definedVersions = Collections.unmodifiableList(parser.definedVersions);
+            this.neededVersions = Collections.unmodifiableList(parser.neededVersions);
+        } catch (final BufferUnderflowException bufferUnderflowException) {
+            throw new IOException("Truncated ELF file.", bufferUnderflowException);
+        } catch (final IndexOutOfBoundsException indexOutOfBoundsException) {
+            throw new IOException("Malformed ELF file.", indexOutOfBoundsException);
+        } catch (final IllegalArgumentException illegalArgumentException) {
+            throw new IOException("Malformed ELF file.", illegalArgumentException);
+        }
+    }
+
+    /**
+     * Reads the linking information of the given ELF file.
+     *
+     * @param file
+     *         the file to read, e.g. {@code /proc/self/exe}.
+     * @return the parsed file.
+     * @throws IOException
+     *         if the file could not be read or is not an ELF file.
+     */
+    public static ElfFile read(final File file) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            final long size = channel.size();
+
+            if (size > MAX_FILE_SIZE) {
+                throw new IOException("Not mapping [" + file + "] of " + size + " bytes.");
+            }
+
+            return new ElfFile(channel.map(FileChannel.MapMode.READ_ONLY, 0L, size));
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * The program interpreter, i.e. the dynamic linker which loads the file.
+     *
+     * @return the interpreter path, e.g. {@code /lib64/ld-linux-x86-64.so.2}, or {@code null} for static files
+     *         and shared libraries.
+     */
+    public @Nullable String getInterpreter() {
+        return this.interpreter;
+    }
+
+    /**
+     * The symbol versions defined by this file.
+     *
+     * @return the version names, e.g. {@code libc.so.6, GLIBC_2.2.5, GLIBC_2.3}.
+     */
+    public List<String> getDefinedVersions() {
+        return this.definedVersions;
+    }
+
+    /**
+     * The symbol versions this file needs from its dependencies.
+     *
+     * @return the version names, e.g. {@code GLIBC_2.2.5, GLIBC_2.34}.
+     */
+    public List<String> getNeededVersions() {
+        return this.neededVersions;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ElfFile{");
+        sb.append("interpreter='").append(this.interpreter).append('\'');
+        sb.append(", definedVersions=").append(this.definedVersions);
+        sb.append(", neededVersions=").append(this.neededVersions);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Reads the structures of a 32 or 64 bit ELF file in either byte order.
+     */
+    private static final class Parser {
+
+        private final ByteBuffer buffer;
+
+        private final boolean is64Bit;
+
+        private final List<long[]> loadSegments = new ArrayList<long[]>();
+
+        private @Nullable String interpreter;
+
+        private final List<String> definedVersions = new ArrayList<String>();
+
+        private final List<String> neededVersions = new ArrayList<String>();
+
+        Parser(final ByteBuffer buffer) throws IOException {
+            if (buffer.limit() < 52 || buffer.order(ByteOrder.BIG_ENDIAN).getInt(0) != ELF_MAGIC) {
+                throw new IOException("Not an ELF file.");
+            }
+
+            this.is64Bit = buffer.get(4) == ELF_CLASS_64;
+            this.buffer = buffer.order(buffer.get(5) == ELF_DATA_BIG_ENDIAN ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+
+            final long programHeaderOffset = this.is64Bit ? buffer.getLong(32) : buffer.getInt(28) & 0xFFFFFFFFL;
+            final int programHeaderSize = buffer.getShort(this.is64Bit ? 54 : 42) & 0xFFFF;
+            final int programHeaderCount = buffer.getShort(this.is64Bit ? 56 : 44) & 0xFFFF;
+            long dynamicOffset = -1L;
+            long dynamicSize = 0L;
+
+            for (int index = 0; index < programHeaderCount; index++) {
+                final int header = toPosition(programHeaderOffset + (long) index * programHeaderSize);
+                final int type = buffer.getInt(header);
+                final long offset = this.is64Bit ? buffer.getLong(header + 8) : buffer.getInt(header + 4) & 0xFFFFFFFFL;
+                final long address = this.is64Bit ? buffer.getLong(header + 16) : buffer.getInt(header + 8) & 0xFFFFFFFFL;
+                final long fileSize = this.is64Bit ? buffer.getLong(header + 32) : buffer.getInt(header + 16) & 0xFFFFFFFFL;
+
+                if (type == PT_LOAD) {
+                    this.loadSegments.add(new long[] {address, offset, fileSize});
+                } else if (type == PT_DYNAMIC) {
+                    dynamicOffset = offset;
+                    dynamicSize = fileSize;
+                } else if (type == PT_INTERP) {
+                    this.interpreter = readString(offset);
+                }
+            }
+
+            if (dynamicOffset != -1L) {
+                readDynamicSegment(dynamicOffset, dynamicSize);
+            }
+        }
+
+        private void readDynamicSegment(final long dynamicOffset, final long dynamicSize) throws IOException {
+            final int entrySize = this.is64Bit ? 16 : 8;
+            long stringTable = -1L;
+            long verdef = -1L;
+            long verdefCount = 0L;
+            long verneed = -1L;
+            long verneedCount = 0L;
+
+            for (long entry = dynamicOffset; entry + entrySize <= dynamicOffset + dynamicSize; entry += entrySize) {
+                final long tag = readWord(entry);
+                final long value = readWord(entry + entrySize / 2);
+
+                if (tag == DT_NULL) {
+                    break;
+                } else if (tag == DT_STRTAB) {
+                    stringTable = value;
+                } else if (tag == DT_VERDEF) {
+                    verdef = value;
+                } else if (tag == DT_VERDEFNUM) {
+                    verdefCount = value;
+                } else if (tag == DT_VERNEED) {
+                    verneed = value;
+                } else if (tag == DT_VERNEEDNUM) {
+                    verneedCount = value;
+                }
+            }
+
+            if (stringTable == -1L) {
+                return;
+            }
+
+            final long stringTableOffset = toFileOffset(stringTable);
+
+            if (verdef != -1L) {
+                readVersionDefinitions(toFileOffset(verdef), verdefCount, stringTableOffset);
+            }
+
+            if (verneed != -1L) {
+                readVersionNeeds(toFileOffset(verneed), verneedCount, stringTableOffset);
+            }
+        }
+
+        private void readVersionDefinitions(final long offset, final long count, final long stringTableOffset) throws IOException {
+            long definition = offset;
+
+            for (long index = 0; index < count; index++) {
+                final int position = toPosition(definition);
+                final long auxiliary = this.buffer.getInt(position + 12) & 0xFFFFFFFFL;
+                final long next = this.buffer.getInt(position + 16) & 0xFFFFFFFFL;
+                // the first auxiliary entry names the version itself, the others its parents.
+                final long name = this.buffer.getInt(toPosition(definition + auxiliary)) & 0xFFFFFFFFL;
+                this.definedVersions.add(readString(stringTableOffset + name));
+
+                if (next == 0L) {
+                    break;
+                }
+
+                definition += next;
+            }
+        }
+
+        private void readVersionNeeds(final long offset, final long count, final long stringTableOffset) throws IOException {
+            long need = offset;
+
+            for (long index = 0; index < count; index++) {
+                final int position = toPosition(need);
+                final int auxiliaryCount = this.buffer.getShort(position + 2) & 0xFFFF;
+                final long auxiliary = this.buffer.getInt(position + 8) & 0xFFFFFFFFL;
+                final long next = this.buffer.getInt(position + 12) & 0xFFFFFFFFL;
+                long version = need + auxiliary;
+
+                for (int auxiliaryIndex = 0; auxiliaryIndex < auxiliaryCount; auxiliaryIndex++) {
+                    final int versionPosition = toPosition(version);
+                    final long name = this.buffer.getInt(versionPosition + 8) & 0xFFFFFFFFL;
+                    final long nextVersion = this.buffer.getInt(versionPosition + 12) & 0xFFFFFFFFL;
+                    this.neededVersions.add(readString(stringTableOffset + name));
+
+                    if (nextVersion == 0L) {
+                        break;
+                    }
+
+                    version += nextVersion;
+                }
+
+                if (next == 0L) {
+                    break;
+                }
+
+                need += next;
+            }
+        }
+
+        /**
+         * Dynamic entries hold virtual addresses, which are mapped to the file by the loadable segments.
+         */
+        private long toFileOffset(final long address) throws IOException {
+            for (final long[] segment : this.loadSegments) {
+                if (address >= segment[0] && address < segment[0] + segment[2]) {
+                    return address - segment[0] + segment[1];
+                }
+            }
+
+            throw new IOException("Address 0x" + Long.toHexString(address) + " is not in a loadable segment.");
+        }
+
+        private long readWord(final long offset) throws IOException {
+            final int position = toPosition(offset);
+
+            return this.is64Bit ? this.buffer.getLong(position) : this.buffer.getInt(position) & 0xFFFFFFFFL;
+        }
+
+        private String readString(final long offset) throws IOException {
+            final int start = toPosition(offset);
+            int end = start;
+
+            while (this.buffer.get(end) != 0) {
+                end++;
+            }
+
+            final byte[] bytes = new byte[end - start];
+            final ByteBuffer duplicate = this.buffer.duplicate();
+            duplicate.position(start);
+            duplicate.get(bytes);
+
+            try {
+                return new String(bytes, "UTF-8");
+            } catch (final UnsupportedEncodingException unsupportedEncodingException) {
+                // UTF-8 is always supported.
+                throw new IllegalStateException(unsupportedEncodingException);
+            }
+        }
+
+        private int toPosition(final long offset) throws IOException {
+            if (offset < 0L || offset >= this.buffer.limit()) {
+                throw new IOException("Offset " + offset + " is outside of the file.");
+            }
+
+            return (int) offset;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+
+/**
+ * A library file as returned by the {@link ExtractionCache}.
+ */
+public final class ExtractedLibrary {
+
+    private final File file;
+
+    private final boolean cached;
+
+    private final long extractedBytes;
+
+    private final long integrityCheckNanos;
+
+    public ExtractedLibrary(final File file, final boolean cached) {
+        this(file, cached, 0L, 0L);
+    }
+
+    /**
+     * Creates a library file description including extraction statistics.
+     *
+     * @param file
+     *         the library file.
+     * @param cached
+     *         whether the file was already present.
+     * @param extractedBytes
+     *         the number of bytes written.
+     * @param integrityCheckNanos
+     *         the time spent verifying the file.
+     */
+    public ExtractedLibrary(final File file, final boolean cached, final long extractedBytes, final long integrityCheckNanos) {
+        this.file = file;
+        this.cached = cached;
+        this.extractedBytes = extractedBytes;
+        this.integrityCheckNanos = integrityCheckNanos;
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Whether the file was already present and did not need to be extracted.
+     *
+     * @return {@code true} on a cache hit.
+     */
+    public boolean isCached() {
+        return this.cached;
+    }
+
+    public long getExtractedBytes() {
+        return this.extractedBytes;
+    }
+
+    public long getIntegrityCheckNanos() {
+        return this.integrityCheckNanos;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ExtractedLibrary{");
+        sb.append("file=").append(this.file);
+        sb.append(", cached=").append(this.cached);
+        sb.append(", extractedBytes=").append(this.extractedBytes);
+        sb.append(", integrityCheckNanos=").append(this.integrityCheckNanos);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,725 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent, content-addressed store for extracted native libraries.
+ *
+ * <p>Libraries are stored as
+ * {@code <root>/<library name>/<os>-<arch>-<bitness>[-<qualifier>]/<crc32>-<size>/<file name>}.
+ * As the directory name is derived from the content, a file which exists and has the expected
+ * size can be reused by later JVM starts without being extracted again.<br></p>
+ *
+ * <p>For jar entries, size and CRC32 are taken from the central directory, so a cache hit does
+ * not read the jar entry at all. Uncompressed entries of local jar files are copied without
+ * passing through the java heap. Other resources are copied to a temporary file first, and
+ * the checksum is computed while copying. Gzip compressed resources ({@code .gz}) are
+ * decompressed while they are copied. They are stored by the checksum of the compressed data,
+ * in a directory with the suffix {@code -gz}.<br></p>
+ *
+ * <p>If a SHA-256 digest is declared for a resource, the digest is computed while the resource is
+ * copied and compared before the file is published. A verification record ({@code <file name>.sha256})
+ * is stored next to the file, so a cache hit only compares the record instead of reading the file
+ * again. Files without a matching record are extracted again.<br></p>
+ *
+ * <p>Several processes may share the same root directory. Extraction of a library is serialized
+ * using a file lock on {@code <root>/<library name>/<system>.lock}, so only one process extracts it
+ * while the others wait and then reuse the result. Files are always written under a temporary name
+ * and renamed once complete, so a library file is never visible half-written.<br></p>
+ *
+ * <p>The same library is often shipped in several jars, or found under several names and version paths.
+ * Each file published for a resource with a {@link NativeResource#getContentSha256() known SHA-256 digest}
+ * is listed by that digest in {@code <root>/.content/<system>/<sha256>}. Before a resource with known size,
+ * checksum and digest is extracted, the cache looks up a file with the same digest, size and checksum which
+ * was extracted for the same system under any library or file name. If there is one, the new name becomes a
+ * hard link to it, or a local copy where hard links are not supported, and the resource itself is not read.
+ * A resource which must be verified only reuses a file whose verification record matches. Resources without
+ * a digest are never shared, as the checksum alone does not prove that the content is the same.<br></p>
+ *
+ * <p>Every extraction and cache hit marks the library version as accessed. If the cache has a size limit,
+ * the least recently used versions are evicted in the background after a library was extracted, see
+ * {@link ExtractionCacheEvictor}.<br></p>
+ */
+public final class ExtractionCache {
+
+    /**
+     * Size limit which disables eviction.
+     */
+    public static final long UNLIMITED = 0L;
+
+    static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    static final String LOCK_FILE_SUFFIX = ".lock";
+
+    static final String CONTENT_DIRECTORY = ".content";
+
+    private static final Logger LOG = Logger.getLogger(ExtractionCache.class.getName());
+
+    private static final String COMPRESSED_DIRECTORY_SUFFIX = "-gz";
+
+    private static final int MAX_RECORD_SIZE = 128;
+
+    private static final int MAX_CONTENT_RECORD_SIZE = 4096;
+
+    private final File rootDirectory;
+
+    private final boolean syncBeforePublish;
+
+    private final long maxSize;
+
+    public ExtractionCache(final File rootDirectory) {
+        this(rootDirectory, true);
+    }
+
+    /**
+     * Creates a cache in the given directory.
+     *
+     * @param rootDirectory
+     *         the root directory of the cache.
+     * @param syncBeforePublish
+     *         whether extracted files are flushed to the storage device before they are renamed
+     *         to their final name.
+     */
+    public ExtractionCache(final File rootDirectory, final boolean syncBeforePublish) {
+        this(rootDirectory, syncBeforePublish, UNLIMITED);
+    }
+
+    /**
+     * Creates a cache in the given directory which is kept within a disk budget.
+     *
+     * @param rootDirectory
+     *         the root directory of the cache.
+     * @param syncBeforePublish
+     *         whether extracted files are flushed to the storage device before they are renamed
+     *         to their final name.
+     * @param maxSize
+     *         the disk budget in bytes, or {@link #UNLIMITED} (or any other value below one) to never evict libraries.
+     */
+    public ExtractionCache(final File rootDirectory, final boolean syncBeforePublish, final long maxSize) {
+        this.rootDirectory = rootDirectory;
+        this.syncBeforePublish = syncBeforePublish;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the directory name used for the given system, e.g. {@code linux-x86_64-64}.
+     *
+     * @param system
+     *         the system to create an identifier for.
+     * @return the system identifier, following the same conventions as the natives folders.
+     */
+    public static String getSystemIdentifier(final SystemDefinition system) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(system.getNormalizedOsName())
+                .append('-').append(system.getArchitecture())
+                .append('-').append(system.getBitness().getBitness());
+
+        if (system.getQualifier() != null) {
+            sb.append('-').append(system.getQualifier());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the extracted file for the given resource, extracting it only if it is not
+     * already present in the cache.
+     *
+     * @param libraryName
+     *         the requested library name.
+     * @param system
+     *         the system the resource was resolved for.
+     * @param resource
+     *         the resource to extract.
+     * @return the extracted library.
+     * @throws IOException
+     *         if the resource could not be extracted.
+     */
+    public ExtractedLibrary extract(final String libraryName,
+                                    final SystemDefinition system,
+                                    final NativeResource resource) throws IOException {
+        return extract(libraryName, system, resource, null);
+    }
+
+    /**
+     * Returns the extracted file for the given resource, extracting it only if it is not
+     * already present in the cache.
+     *
+     * @param libraryName
+     *         the requested library name.
+     * @param system
+     *         the system the resource was resolved for.
+     * @param resource
+     *         the resource to extract.
+     * @param listener
+     *         notified about cache hits, misses and extraction progress, may be {@code null}.
+     * @return the extracted library.
+     * @throws IOException
+     *         if the resource could not be extracted.
+     */
+    public ExtractedLibrary extract(final String libraryName,
+                                    final SystemDefinition system,
+                                    final NativeResource resource,
+                                    final @Nullable ExtractionListener listener) throws IOException {
+        final File libraryDirectory = new File(this.rootDirectory, libraryName);
+        final String systemIdentifier = getSystemIdentifier(system);
+        final File systemDirectory = new File(libraryDirectory, systemIdentifier);
+
+        if (resource.hasMetadata()) {
+            final File target = getTargetFile(systemDirectory, resource);
+
+            // fast path without locking: published files are complete.
+            final long checkStart = System.nanoTime();
+
+            if (isValid(target, getExpectedSize(resource)) && isVerified(target, resource.getSha256())) {
+                final long checkNanos = System.nanoTime() - checkStart;
+                notifyCacheHit(listener, target);
+                ExtractionCacheEvictor.markAccessed(target.getParentFile());
+
+                return new ExtractedLibrary(target, true, 0L, checkNanos);
+            }
+        }
+
+        mkdirs(systemDirectory);
+        final ExtractionLock lock = ExtractionLock.acquire(new File(libraryDirectory, systemIdentifier + LOCK_FILE_SUFFIX));
+
+        final ExtractedLibrary extractedLibrary;
+
+        try {
+            extractedLibrary = extractLocked(systemDirectory, resource, listener);
+            // while locked, so an evicting process cannot see the new file as unused.
+            ExtractionCacheEvictor.markAccessed(extractedLibrary.getFile().getParentFile());
+        } finally {
+            lock.release();
+        }
+
+        if (!extractedLibrary.isCached() && this.maxSize > 0L) {
+            new ExtractionCacheEvictor(this.rootDirectory, this.maxSize, ExtractionCacheEvictor.DEFAULT_MIN_IDLE_MILLIS)
+                    .evictInBackground(extractedLibrary.getFile().getParentFile(), extractedLibrary.getFile().length());
+        }
+
+        return extractedLibrary;
+    }
+
+    private ExtractedLibrary extractLocked(final File systemDirectory,
+                                           final NativeResource resource,
+                                           final @Nullable ExtractionListener listener) throws IOException {
+        if (resource.hasMetadata()) {
+            final File target = getTargetFile(systemDirectory, resource);
+            final long expectedSize = getExpectedSize(resource);
+
+            // another process might have extracted it while we were waiting for the lock.
+            final long checkStart = System.nanoTime();
+            final boolean valid = isValid(target, expectedSize) && isVerified(target, resource.getSha256());
+            final long checkNanos = System.nanoTime() - checkStart;
+
+            if (valid) {
+                notifyCacheHit(listener, target);
+
+                return new ExtractedLibrary(target, true, 0L, checkNanos);
+            }
+
+            if (listener != null) {
+                listener.cacheMiss(resource);
+            }
+
+            final @Nullable File identicalFile = findIdenticalFile(target, expectedSize, resource);
+
+            if (identicalFile != null) {
+                final long copiedBytes = publishIdentical(identicalFile, target, expectedSize, resource, listener);
+
+                if (copiedBytes != NativeResource.UNKNOWN) {
+                    return new ExtractedLibrary(target, false, copiedBytes, checkNanos);
+                }
+            }
+
+            final @Nullable MessageDigest digest = createDigest(resource);
+            final File tempFile = resource.isCompressed()
+                    // the checksum describes the compressed data, the gzip trailer verifies the uncompressed data.
+                    ? copyToTempFile(resource, systemDirectory, new CRC32(), digest, listener)
+                    : copyToTempFile(resource, systemDirectory, resource.getCrc(), digest, listener);
+            final long extractedBytes = tempFile.length();
+            verifyDigest(resource, digest, tempFile);
+
+            return new ExtractedLibrary(publishVerified(tempFile, target, expectedSize, resource),
+                    false, extractedBytes, checkNanos);
+        }
+
+        final CRC32 crc32 = new CRC32();
+        final @Nullable MessageDigest digest = createDigest(resource);
+        final File tempFile = copyToTempFile(resource, systemDirectory, crc32, digest, listener);
+        verifyDigest(resource, digest, tempFile);
+        final long size = tempFile.length();
+        final File target = getTargetFile(systemDirectory, crc32.getValue(), size, resource.getFileName());
+
+        final long checkStart = System.nanoTime();
+        final boolean valid = isValid(target, size) && isVerified(target, resource.getSha256());
+        final long checkNanos = System.nanoTime() - checkStart;
+
+        if (valid) {
+            deleteQuietly(tempFile);
+            notifyCacheHit(listener, target);
+
+            // the content had to be read to find the existing file, but nothing was kept.
+            return new ExtractedLibrary(target, true, 0L, checkNanos);
+        }
+
+        return new ExtractedLibrary(publishVerified(tempFile, target, size, resource), false, size, checkNanos);
+    }
+
+    public boolean isSyncBeforePublish() {
+        return this.syncBeforePublish;
+    }
+
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    public File getRootDirectory() {
+        return this.rootDirectory;
+    }
+
+    private static File getTargetFile(final File systemDirectory, final long crc, final long size, final String fileName) {
+        final String digest = Long.toHexString(crc) + '-' + Long.toHexString(size);
+
+        return new File(new File(systemDirectory, digest), fileName);
+    }
+
+    private static File getTargetFile(final File systemDirectory, final NativeResource resource) {
+        final String digest = Long.toHexString(resource.getCrc()) + '-' + Long.toHexString(resource.getSize())
+                + (resource.isCompressed() ? COMPRESSED_DIRECTORY_SUFFIX : "");
+
+        return new File(new File(systemDirectory, digest), resource.getFileName());
+    }
+
+    /**
+     * The size of the extracted file, which is unknown for compressed resources until they are decompressed.
+     */
+    private static long getExpectedSize(final NativeResource resource) {
+        return resource.isCompressed() ? NativeResource.UNKNOWN : resource.getSize();
+    }
+
+    private static boolean isValid(final File file, final long expectedSize) {
+        // files are published atomically, so an existing file is complete even if its size is not known up front.
+        return file.isFile() && (expectedSize == NativeResource.UNKNOWN || file.length() == expectedSize);
+    }
+
+    private static File getRecordFile(final File target) {
+        return new File(target.getParentFile(), target.getName() + Digests.SHA256_SUFFIX);
+    }
+
+    /**
+     * Whether the file was verified against the given digest when it was extracted.
+     */
+    private static boolean isVerified(final File target, final @Nullable String sha256) throws IOException {
+        if (sha256 == null) {
+            return true;
+        }
+
+        final File recordFile = getRecordFile(target);
+
+        if (!recordFile.isFile()) {
+            return false;
+        }
+
+        return sha256.equals(readRecord(recordFile, MAX_RECORD_SIZE));
+    }
+
+    private static String readRecord(final File recordFile, final int maxSize) throws IOException {
+        final InputStream inputStream = new FileInputStream(recordFile);
+
+        try {
+            final byte[] record = new byte[maxSize];
+            int length = 0;
+            int read;
+
+            while (length < record.length && (read = inputStream.read(record, length, record.length - length)) != -1) {
+                length += read;
+            }
+
+            return new String(record, 0, length, "UTF-8").trim();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Finds a published file with the same content digest as the resource, for the same system and in a digest
+     * directory of the same name, i.e. with the same checksum and size, under any library and file name.
+     */
+    private @Nullable File findIdenticalFile(final File target, final long expectedSize, final NativeResource resource) throws IOException {
+        final @Nullable String contentSha256 = resource.getContentSha256();
+
+        if (contentSha256 == null || !isHexDigest(contentSha256)) {
+            return null;
+        }
+
+        final File contentFile = getContentFile(target, contentSha256);
+
+        if (!contentFile.isFile()) {
+            return null;
+        }
+
+        // the content record is not written atomically, so anything it points to is checked.
+        final String path = readRecord(contentFile, MAX_CONTENT_RECORD_SIZE);
+        final File candidate = new File(this.rootDirectory, path.replace('/', File.separatorChar));
+        final File candidateDirectory = candidate.getParentFile();
+
+        if (candidateDirectory == null
+                || !candidateDirectory.getName().equals(target.getParentFile().getName())
+                || candidate.equals(target)
+                || !isLibraryFile(candidate)
+                || !isValid(candidate, expectedSize)
+                || !isVerified(candidate, resource.getSha256())) {
+            return null;
+        }
+
+        return candidate;
+    }
+
+    /**
+     * Records the target as the file with the given content, for {@link #findIdenticalFile(File, long, NativeResource)}.
+     */
+    private void writeContentRecord(final File target, final String sha256) {
+        if (!isHexDigest(sha256)) {
+            return;
+        }
+
+        final File digestDirectory = target.getParentFile();
+        final File systemDirectory = digestDirectory.getParentFile();
+        final String path = systemDirectory.getParentFile().getName() + '/' + systemDirectory.getName() + '/'
+                + digestDirectory.getName() + '/' + target.getName();
+        final File contentFile = getContentFile(target, sha256);
+
+        try {
+            mkdirs(contentFile.getParentFile());
+            final OutputStream outputStream = new FileOutputStream(contentFile);
+
+            try {
+                outputStream.write(path.getBytes("UTF-8"));
+            } finally {
+                outputStream.close();
+            }
+        } catch (final IOException ioException) {
+            // the file is still published, it is just not shared with other library names.
+            LOG.log(Level.FINE, "Unable to write the content record [" + contentFile + "].", ioException);
+        }
+    }
+
+    private File getContentFile(final File target, final String sha256) {
+        final String systemIdentifier = target.getParentFile().getParentFile().getName();
+
+        return new File(new File(new File(this.rootDirectory, CONTENT_DIRECTORY), systemIdentifier), sha256);
+    }
+
+    private static boolean isHexDigest(final String sha256) {
+        if (sha256.length() == 0) {
+            return false;
+        }
+
+        for (int index = 0; index < sha256.length(); index++) {
+            if (Character.digit(sha256.charAt(index), 16) == -1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isLibraryFile(final File file) {
+        final String name = file.getName();
+
+        return !name.endsWith(TEMP_FILE_SUFFIX)
+                && !name.endsWith(Digests.SHA256_SUFFIX)
+                && !ExtractionCacheEvictor.ACCESS_MARKER.equals(name)
+                && file.isFile();
+    }
+
+    /**
+     * Publishes the target as a hard link to, or a copy of, a file with the same content.
+     *
+     * @return the number of bytes copied, {@code 0} for a link, or {@link NativeResource#UNKNOWN} if the file could not be used.
+     */
+    private long publishIdentical(final File identicalFile,
+                                  final File target,
+                                  final long expectedSize,
+                                  final NativeResource resource,
+                                  final @Nullable ExtractionListener listener) throws IOException {
+        final File systemDirectory = target.getParentFile().getParentFile();
+        mkdirs(systemDirectory);
+        final File tempFile = File.createTempFile(target.getName(), TEMP_FILE_SUFFIX, systemDirectory);
+        long copiedBytes = 0L;
+
+        try {
+            deleteQuietly(tempFile);
+
+            if (!FileSupport.createLink(tempFile, identicalFile)) {
+                copiedBytes = ResourceCopier.transferFile(identicalFile, tempFile, listener);
+            }
+        } catch (final IOException ioException) {
+            // e.g. evicted in the meantime, the resource is extracted instead.
+            deleteQuietly(tempFile);
+
+            return NativeResource.UNKNOWN;
+        }
+
+        if (!isValid(tempFile, expectedSize)) {
+            deleteQuietly(tempFile);
+
+            return NativeResource.UNKNOWN;
+        }
+
+        publishVerified(tempFile, target, expectedSize, resource);
+
+        return copiedBytes;
+    }
+
+    private static @Nullable MessageDigest createDigest(final NativeResource resource) {
+        return resource.getSha256() != null ? Digests.createSha256() : null;
+    }
+
+    private static void verifyDigest(final NativeResource resource,
+                                     final @Nullable MessageDigest digest,
+                                     final File tempFile) throws IOException {
+        final @Nullable String expected = resource.getSha256();
+
+        if (digest == null || expected == null) {
+            return;
+        }
+
+        final String actual = Digests.toHex(digest.digest());
+
+        if (!expected.equals(actual)) {
+            deleteQuietly(tempFile);
+
+            throw new IOException("SHA-256 mismatch for [" + resource.getUrl() + "]: expected " + expected + ", got " + actual + ".");
+        }
+    }
+
+    private static void notifyCacheHit(final @Nullable ExtractionListener listener, final File target) {
+        if (listener != null) {
+            listener.cacheHit(target);
+        }
+    }
+
+    private static File copyToTempFile(final NativeResource resource,
+                                       final File systemDirectory,
+                                       final long expectedCrc,
+                                       final @Nullable MessageDigest digest,
+                                       final @Nullable ExtractionListener listener) throws IOException {
+        // the transfer does not pass the data through the heap, so it cannot be digested on the way.
+        if (digest == null && resource.isStoredInLocalJar()) {
+            final File tempFile = createTempFile(resource, systemDirectory);
+            boolean transferred = false;
+
+            try {
+                transferred = ResourceCopier.transferStoredEntry(resource, tempFile, listener);
+            } finally {
+                if (!transferred) {
+                    deleteQuietly(tempFile);
+                }
+            }
+
+            if (transferred) {
+                return tempFile;
+            }
+        }
+
+        final CRC32 crc32 = new CRC32();
+        final File tempFile = copyToTempFile(resource, systemDirectory, crc32, digest, listener);
+
+        if (crc32.getValue() != expectedCrc) {
+            deleteQuietly(tempFile);
+
+            throw new IOException("Checksum mismatch for [" + resource.getUrl() + "]: "
+                    + "expected " + Long.toHexString(expectedCrc) + ", got " + Long.toHexString(crc32.getValue()) + ".");
+        }
+
+        return tempFile;
+    }
+
+    private static File copyToTempFile(final NativeResource resource,
+                                       final File systemDirectory,
+                                       final CRC32 crc32,
+                                       final @Nullable MessageDigest digest,
+                                       final @Nullable ExtractionListener listener) throws IOException {
+        final File tempFile = createTempFile(resource, systemDirectory);
+
+        boolean success = false;
+        final InputStream inputStream = resource.openContentStream(digest);
+
+        try {
+            final OutputStream outputStream = new FileOutputStream(tempFile);
+
+            try {
+                ResourceCopier.copy(inputStream, outputStream, crc32, listener, getExpectedSize(resource));
+            } finally {
+                outputStream.close();
+            }
+
+            success = true;
+        } finally {
+            inputStream.close();
+
+            if (!success) {
+                deleteQuietly(tempFile);
+            }
+        }
+
+        return tempFile;
+    }
+
+    private static File createTempFile(final NativeResource resource, final File systemDirectory) throws IOException {
+        mkdirs(systemDirectory);
+
+        return File.createTempFile(resource.getFileName(), TEMP_FILE_SUFFIX, systemDirectory);
+    }
+
+    private File publishVerified(final File tempFile,
+                                 final File target,
+                                 final long expectedSize,
+                                 final NativeResource resource) throws IOException {
+        final @Nullable String sha256 = resource.getSha256();
+
+        if (sha256 == null) {
+            final File published = publish(tempFile, target, expectedSize);
+            final @Nullable String contentSha256 = resource.getContentSha256();
+
+            if (contentSha256 != null) {
+                // not verified, so only resources with the same checksum and size may reuse it.
+                writeContentRecord(published, contentSha256);
+            }
+
+            return published;
+        }
+
+        // an existing file was not verified, it must not be mistaken for the verified one.
+        deleteQuietly(getRecordFile(target));
+        deleteQuietly(target);
+
+        if (target.exists()) {
+            // e.g. a library which is in use on windows.
+            throw new IOException("Unable to replace the unverified file [" + target + "].");
+        }
+
+        final File published = publish(tempFile, target, expectedSize);
+        writeRecord(published, sha256);
+        writeContentRecord(published, sha256);
+
+        return published;
+    }
+
+    private void writeRecord(final File target, final String sha256) throws IOException {
+        final File recordFile = getRecordFile(target);
+        final File tempFile = File.createTempFile(recordFile.getName(), TEMP_FILE_SUFFIX, target.getParentFile());
+        boolean success = false;
+
+        try {
+            final OutputStream outputStream = new FileOutputStream(tempFile);
+
+            try {
+                outputStream.write(sha256.getBytes("US-ASCII"));
+            } finally {
+                outputStream.close();
+            }
+
+            if (this.syncBeforePublish) {
+                sync(tempFile);
+            }
+
+            success = FileSupport.moveAtomically(tempFile, recordFile);
+        } finally {
+            if (!success) {
+                deleteQuietly(tempFile);
+            }
+        }
+
+        if (!success && !isVerified(target, sha256)) {
+            throw new IOException("Unable to move [" + tempFile + "] to [" + recordFile + "].");
+        }
+    }
+
+    private File publish(final File tempFile, final File target, final long expectedSize) throws IOException {
+        if (this.syncBeforePublish) {
+            sync(tempFile);
+        }
+
+        mkdirs(target.getParentFile());
+
+        // not all platforms require this, but some do (e.g. HP-UX).
+        FileSupport.setExecutable(tempFile);
+
+        // other processes see either no file or the complete file.
+        if (FileSupport.moveAtomically(tempFile, target)) {
+            return target;
+        }
+
+        deleteQuietly(tempFile);
+
+        // another process might have published the same content in the meantime.
+        if (isValid(target, expectedSize)) {
+            return target;
+        }
+
+        throw new IOException("Unable to move [" + tempFile + "] to [" + target + "].");
+    }
+
+    private static void sync(final File file) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+
+        try {
+            randomAccessFile.getChannel().force(true);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static void mkdirs(final File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Unable to create directory [" + directory + "].");
+        }
+    }
+
+    private static void deleteQuietly(final File file) {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ExtractionCache{");
+        sb.append("rootDirectory=").append(this.rootDirectory);
+        sb.append(", syncBeforePublish=").append(this.syncBeforePublish);
+        sb.append(", maxSize=").append(this.maxSize);
+        sb.append('}');
+        return sb.toString();
+    }
+}
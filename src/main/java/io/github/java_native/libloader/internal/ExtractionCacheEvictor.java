@@ -0,0 +1,536 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps an {@link ExtractionCache} within a disk budget by deleting the least recently used library versions.
+ *
+ * <p>The last access of a library version is the modification time of a marker file in its digest directory,
+ * which the cache updates when the library is extracted or found, see {@link #markAccessed(File)}. The marker
+ * is only written again once it is older than {@link #ACCESS_RESOLUTION_MILLIS}, so a cache hit usually costs
+ * a single {@code stat}.<br></p>
+ *
+ * <p>A library version is never evicted while</p>
+ *
+ * <ul>
+ *     <li>its system directory is locked, i.e. a process is extracting right now,</li>
+ *     <li>it was accessed recently, as a process which found it might be about to load it,</li>
+ *     <li>it is mapped by a live process, as listed in {@code /proc/<pid>/maps} (Linux only).</li>
+ * </ul>
+ *
+ * <p>Where {@code /proc} is not available, the file system protects loaded libraries: Windows refuses to
+ * delete them, and on other systems a deleted file stays available to the processes which mapped it. If
+ * all remaining versions are protected, the cache stays above its budget until the next eviction.<br></p>
+ *
+ * <p>Files which are hard links to the same content, see {@link ExtractionCache}, are counted once, and
+ * evicting one of them only frees space once the last link is gone.<br></p>
+ *
+ * <p>After an extraction, the cache is only listed if it might exceed its budget: each JVM keeps the size found
+ * by its last eviction and adds the extracted files to it. An eviction frees space down to
+ * {@value #TARGET_PERCENT}% of the budget, so the next extractions do not exceed it right away, and runs on
+ * a low priority daemon thread, see {@link #evictInBackground(File, long)}.<br></p>
+ */
+public final class ExtractionCacheEvictor {
+
+    /**
+     * Name of the marker file whose modification time is the last access of a library version.
+     */
+    public static final String ACCESS_MARKER = ".last-access";
+
+    /**
+     * Markers are not updated more often than this.
+     */
+    public static final long ACCESS_RESOLUTION_MILLIS = 60L * 1000L;
+
+    /**
+     * Library versions accessed more recently than this are kept, even if the cache exceeds its budget.
+     */
+    public static final long DEFAULT_MIN_IDLE_MILLIS = 10L * 60L * 1000L;
+
+    /**
+     * An eviction frees space until the cache uses this share of its budget.
+     */
+    public static final int TARGET_PERCENT = 90;
+
+    private static final Logger LOG = Logger.getLogger(ExtractionCacheEvictor.class.getName());
+
+    private static final File PROC_DIRECTORY = new File("/proc");
+
+    private static final Set<String> EVICTING_DIRECTORIES = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * The size of each cache as of its last eviction in this JVM, plus the files extracted since.
+     */
+    private static final ConcurrentMap<String, AtomicLong> SIZE_ESTIMATES = new ConcurrentHashMap<String, AtomicLong>();
+
+    private final File rootDirectory;
+
+    private final long maxSize;
+
+    private final long targetSize;
+
+    private final long minIdleMillis;
+
+    private final File procDirectory;
+
+    /**
+     * Creates an evictor for the given cache directory.
+     *
+     * @param rootDirectory
+     *         the root directory of the extraction cache.
+     * @param maxSize
+     *         the disk budget of the cache in bytes.
+     * @param minIdleMillis
+     *         the minimum time since a library version was accessed before it is evicted.
+     */
+    public ExtractionCacheEvictor(final File rootDirectory, final long maxSize, final long minIdleMillis) {
+        this(rootDirectory, maxSize, minIdleMillis, PROC_DIRECTORY);
+    }
+
+    ExtractionCacheEvictor(final File rootDirectory, final long maxSize, final long minIdleMillis, final File procDirectory) {
+        this.rootDirectory = rootDirectory;
+        this.maxSize = maxSize;
+        this.targetSize = maxSize - maxSize / 100L * (100 - TARGET_PERCENT);
+        this.minIdleMillis = minIdleMillis;
+        this.procDirectory = procDirectory;
+    }
+
+    /**
+     * Records an access of the library version stored in the given digest directory.
+     *
+     * @param digestDirectory
+     *         the directory containing the library file.
+     */
+    public static void markAccessed(final File digestDirectory) {
+        final File marker = new File(digestDirectory, ACCESS_MARKER);
+        final long now = System.currentTimeMillis();
+
+        if (now - marker.lastModified() < ACCESS_RESOLUTION_MILLIS) {
+            return;
+        }
+
+        try {
+            if (!marker.setLastModified(now) && !marker.createNewFile()) {
+                marker.setLastModified(now);
+            }
+        } catch (final IOException ioException) {
+            // the version then looks older than it is, which is not worth failing a load for.
+            LOG.log(Level.FINEST, "Unable to mark [" + digestDirectory + "] as accessed.", ioException);
+        }
+    }
+
+    /**
+     * Evicts library versions if the cache exceeds its budget, until it uses {@value #TARGET_PERCENT}% of it.
+     *
+     * <p>If another thread of this JVM is evicting from the same cache, nothing is done.<br></p>
+     *
+     * @param keep
+     *         a digest directory which must not be evicted, e.g. the one just extracted. May be {@code null}.
+     * @return the number of bytes freed.
+     */
+    public long evict(final @Nullable File keep) {
+        final String key = this.rootDirectory.getAbsolutePath();
+
+        if (!EVICTING_DIRECTORIES.add(key)) {
+            return 0L;
+        }
+
+        try {
+            return evictUnguarded(keep);
+        } finally {
+            EVICTING_DIRECTORIES.remove(key);
+        }
+    }
+
+    /**
+     * Evicts library versions on a daemon thread if the cache might exceed its budget after an extraction.
+     *
+     * <p>The cache is not listed while the size known to this JVM, including the extracted bytes, is within
+     * the budget. The first extraction of a JVM always starts an eviction, which lists the cache.<br></p>
+     *
+     * @param keep
+     *         a digest directory which must not be evicted, e.g. the one just extracted. May be {@code null}.
+     * @param extractedSize
+     *         the number of bytes just added to the cache.
+     * @return {@code true} if an eviction was started.
+     */
+    public boolean evictInBackground(final @Nullable File keep, final long extractedSize) {
+        final String key = this.rootDirectory.getAbsolutePath();
+        final @Nullable AtomicLong estimate = SIZE_ESTIMATES.get(key);
+
+        if (estimate != null && estimate.addAndGet(extractedSize) <= this.maxSize) {
+            return false;
+        }
+
+        if (!EVICTING_DIRECTORIES.add(key)) {
+            return false;
+        }
+
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    evictUnguarded(keep);
+                } catch (final RuntimeException runtimeException) {
+                    LOG.log(Level.FINE, "Unable to evict from [" + ExtractionCacheEvictor.this.rootDirectory + "].", runtimeException);
+                } finally {
+                    EVICTING_DIRECTORIES.remove(key);
+                }
+            }
+        }, "native-libloader-evictor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+
+        return true;
+    }
+
+    static boolean isEvicting(final File rootDirectory) {
+        return EVICTING_DIRECTORIES.contains(rootDirectory.getAbsolutePath());
+    }
+
+    private long evictUnguarded(final @Nullable File keep) {
+        final List<CacheEntry> entries = listEntries();
+        // hard links to identical content, see ExtractionCache, take up the space once.
+        final Map<Object, Integer> links = new HashMap<Object, Integer>();
+        long size = 0L;
+
+        for (final CacheEntry entry : entries) {
+            for (final Map.Entry<Object, Long> file : entry.getFiles().entrySet()) {
+                final @Nullable Integer count = links.put(file.getKey(), count(links.get(file.getKey())) + 1);
+
+                if (count == null) {
+                    size += file.getValue();
+                }
+            }
+        }
+
+        if (size <= this.maxSize) {
+            setSizeEstimate(size);
+
+            return 0L;
+        }
+
+        Collections.sort(entries, new Comparator<CacheEntry>() {
+            @Override
+            public int compare(final CacheEntry first, final CacheEntry second) {
+                return first.getLastAccess() < second.getLastAccess() ? -1 : first.getLastAccess() == second.getLastAccess() ? 0 : 1;
+            }
+        });
+
+        final Set<String> mappedFiles = readMappedFiles(this.procDirectory, getCanonicalPath(this.rootDirectory));
+        final long idleBefore = System.currentTimeMillis() - this.minIdleMillis;
+        long freed = 0L;
+
+        for (final CacheEntry entry : entries) {
+            if (size - freed <= this.targetSize) {
+                break;
+            }
+
+            if (entry.getLastAccess() > idleBefore || isSameDirectory(entry.getDirectory(), keep) || isMapped(entry, mappedFiles)) {
+                continue;
+            }
+
+            if (delete(entry)) {
+                freed += release(entry, links);
+            }
+        }
+
+        setSizeEstimate(size - freed);
+        LOG.log(Level.FINE, "Evicted " + freed + " bytes from [" + this.rootDirectory + "], " + (size - freed) + " bytes remain.");
+
+        return freed;
+    }
+
+    private static int count(final @Nullable Integer count) {
+        return count != null ? count : 0;
+    }
+
+    /**
+     * The bytes freed by deleting the entry, i.e. of the files which have no other link in the cache.
+     */
+    private static long release(final CacheEntry entry, final Map<Object, Integer> links) {
+        long freed = 0L;
+
+        for (final Map.Entry<Object, Long> file : entry.getFiles().entrySet()) {
+            final int remaining = count(links.get(file.getKey())) - 1;
+            links.put(file.getKey(), remaining);
+
+            if (remaining == 0) {
+                freed += file.getValue();
+            }
+        }
+
+        return freed;
+    }
+
+    private void setSizeEstimate(final long size) {
+        final String key = this.rootDirectory.getAbsolutePath();
+        final @Nullable AtomicLong estimate = SIZE_ESTIMATES.putIfAbsent(key, new AtomicLong(size));
+
+        if (estimate != null) {
+            estimate.set(size);
+        }
+    }
+
+    private List<CacheEntry> listEntries() {
+        final List<CacheEntry> entries = new ArrayList<CacheEntry>();
+
+        for (final File libraryDirectory : listFiles(this.rootDirectory)) {
+            for (final File systemDirectory : listFiles(libraryDirectory)) {
+                if (!systemDirectory.isDirectory()) {
+                    continue;
+                }
+
+                final File lockFile = new File(libraryDirectory, systemDirectory.getName() + ExtractionCache.LOCK_FILE_SUFFIX);
+
+                for (final File digestDirectory : listFiles(systemDirectory)) {
+                    if (digestDirectory.isDirectory()) {
+                        entries.add(createEntry(digestDirectory, lockFile));
+                    }
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    private static CacheEntry createEntry(final File digestDirectory, final File lockFile) {
+        final Map<Object, Long> files = new HashMap<Object, Long>();
+        long lastAccess = 0L;
+
+        for (final File file : listFiles(digestDirectory)) {
+            final @Nullable Object fileKey = FileSupport.getFileKey(file);
+            files.put(fileKey != null ? fileKey : file.getAbsoluteFile(), file.length());
+
+            if (ACCESS_MARKER.equals(file.getName())) {
+                lastAccess = file.lastModified();
+            }
+        }
+
+        if (lastAccess == 0L) {
+            // extracted before access markers were written.
+            lastAccess = digestDirectory.lastModified();
+        }
+
+        return new CacheEntry(digestDirectory, lockFile, files, lastAccess);
+    }
+
+    private boolean delete(final CacheEntry entry) {
+        final @Nullable ExtractionLock lock = ExtractionLock.tryAcquire(entry.getLockFile());
+
+        if (lock == null) {
+            // a process is extracting right now, or the file system cannot tell.
+            return false;
+        }
+
+        try {
+            final File marker = new File(entry.getDirectory(), ACCESS_MARKER);
+
+            if (marker.exists() && marker.lastModified() != entry.getLastAccess()) {
+                // accessed since the cache was listed.
+                return false;
+            }
+
+            boolean deleted = true;
+
+            for (final File file : listFiles(entry.getDirectory())) {
+                // the marker goes last, so a partly deleted version is still evicted first next time.
+                if (!ACCESS_MARKER.equals(file.getName())) {
+                    deleted &= file.delete();
+                }
+            }
+
+            if (!deleted) {
+                // e.g. a library in use on Windows.
+                return false;
+            }
+
+            marker.delete();
+
+            return entry.getDirectory().delete() || !entry.getDirectory().exists();
+        } finally {
+            lock.release();
+        }
+    }
+
+    private static boolean isMapped(final CacheEntry entry, final Set<String> mappedFiles) {
+        if (mappedFiles.isEmpty()) {
+            return false;
+        }
+
+        final String directoryPrefix = getCanonicalPath(entry.getDirectory()) + File.separator;
+
+        for (final String mappedFile : mappedFiles) {
+            if (mappedFile.startsWith(directoryPrefix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isSameDirectory(final File directory, final @Nullable File keep) {
+        return keep != null && directory.getAbsoluteFile().equals(keep.getAbsoluteFile());
+    }
+
+    /**
+     * Reads the files below the given directory which are mapped by any process this process can inspect.
+     *
+     * @param procDirectory
+     *         the {@code /proc} directory.
+     * @param pathPrefix
+     *         the canonical path of the cache directory.
+     * @return the paths of mapped files, empty if {@code /proc} is not available.
+     */
+    static Set<String> readMappedFiles(final File procDirectory, final String pathPrefix) {
+        final Set<String> mappedFiles = new HashSet<String>();
+
+        for (final File processDirectory : listFiles(procDirectory)) {
+            if (!isProcessId(processDirectory.getName())) {
+                continue;
+            }
+
+            try {
+                readMappedFiles(new File(processDirectory, "maps"), pathPrefix, mappedFiles);
+            } catch (final IOException ioException) {
+                // the process ended, or belongs to another user who cannot use this cache.
+                LOG.log(Level.FINEST, "Unable to read mappings of process [" + processDirectory.getName() + "].", ioException);
+            }
+        }
+
+        return mappedFiles;
+    }
+
+    private static void readMappedFiles(final File maps, final String pathPrefix, final Set<String> mappedFiles) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(maps), "UTF-8"));
+
+        try {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                // address, permissions, offset, device, inode and an optional path, which may contain blanks.
+                final String[] fields = line.trim().split("\\s+", 6);
+
+                if (fields.length == 6 && fields[5].startsWith(pathPrefix)) {
+                    mappedFiles.add(fields[5]);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static boolean isProcessId(final String name) {
+        if (name.length() == 0) {
+            return false;
+        }
+
+        for (int index = 0; index < name.length(); index++) {
+            if (!Character.isDigit(name.charAt(index))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String getCanonicalPath(final File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (final IOException ioException) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    private static File[] listFiles(final File directory) {
+        final @Nullable File[] files = directory.listFiles();
+
+        if (files == null) {
+            return new File[0];
+        }
+
+        return files;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ExtractionCacheEvictor{");
+        sb.append("rootDirectory=").append(this.rootDirectory);
+        sb.append(", maxSize=").append(this.maxSize);
+        sb.append(", minIdleMillis=").append(this.minIdleMillis);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static final class CacheEntry {
+
+        private final File directory;
+
+        private final File lockFile;
+
+        /**
+         * The size of each file, by its {@link FileSupport#getFileKey(File) identity} or path.
+         */
+        private final Map<Object, Long> files;
+
+        private final long lastAccess;
+
+        CacheEntry(final File directory, final File lockFile, final Map<Object, Long> files, final long lastAccess) {
+            this.directory = directory;
+            this.lockFile = lockFile;
+            this.files = files;
+            this.lastAccess = lastAccess;
+        }
+
+        File getDirectory() {
+            return this.directory;
+        }
+
+        File getLockFile() {
+            return this.lockFile;
+        }
+
+        Map<Object, Long> getFiles() {
+            return this.files;
+        }
+
+        long getLastAccess() {
+            return this.lastAccess;
+        }
+    }
+}
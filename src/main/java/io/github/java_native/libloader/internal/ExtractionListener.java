@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+
+/**
+ * Callback of the {@link ExtractionCache}.
+ */
+public interface ExtractionListener {
+
+    /**
+     * An already extracted file is reused.
+     *
+     * @param file
+     *         the reused file.
+     */
+    void cacheHit(File file);
+
+    /**
+     * The resource is not present and will be extracted.
+     *
+     * <p>For resources without metadata, the content has to be copied before it is known whether it
+     * was present. In this case neither this method nor {@link #cacheHit(File)} is called before the copy.<br></p>
+     *
+     * @param resource
+     *         the resource which will be extracted.
+     */
+    void cacheMiss(NativeResource resource);
+
+    /**
+     * A chunk was copied.
+     *
+     * @param copiedBytes
+     *         the number of bytes copied so far.
+     * @param totalBytes
+     *         the total size, or {@link NativeResource#UNKNOWN}.
+     */
+    void progress(long copiedBytes, long totalBytes);
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.FileLockInterruptionException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An exclusive lock on a lock file, held by at most one thread of all processes on this host.
+ *
+ * <p>File locks are held on behalf of the whole JVM, and {@link FileChannel#lock()} throws if the
+ * same JVM tries to lock a file twice. Threads of the same JVM are therefore serialized with a
+ * {@link ReentrantLock} per lock file before the file lock is acquired. It is only kept while a thread holds
+ * or waits for it, so a long running JVM does not keep one for every lock file it ever used.<br></p>
+ *
+ * <p>Some file systems (e.g. some network file systems) do not support file locks. In this case
+ * only the threads of this JVM are serialized. Callers must still publish files atomically.<br></p>
+ */
+public final class ExtractionLock {
+
+    private static final Logger LOG = Logger.getLogger(ExtractionLock.class.getName());
+
+    private static final Map<String, LocalLock> LOCAL_LOCKS = new HashMap<String, LocalLock>();
+
+    private final File lockFile;
+
+    private final LocalLock localLock;
+
+    private final @Nullable RandomAccessFile lockFileAccess;
+
+    private final @Nullable FileLock fileLock;
+
+    private ExtractionLock(final File lockFile,
+                           final LocalLock localLock,
+                           final @Nullable RandomAccessFile lockFileAccess,
+                           final @Nullable FileLock fileLock) {
+        this.lockFile = lockFile;
+        this.localLock = localLock;
+        this.lockFileAccess = lockFileAccess;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Blocks until the lock is acquired.
+     *
+     * <p>If the file system does not support file locks, only the threads of this JVM are excluded. An interrupt
+     * while waiting for the file lock is not such a case, the lock is not acquired at all.<br></p>
+     *
+     * @param lockFile
+     *         the lock file, which will be created if it does not exist. Its parent directory must exist.
+     * @return the acquired lock, which must be released using {@link #release()}.
+     * @throws InterruptedIOException
+     *         if the thread was interrupted while waiting for the file lock. The interrupt flag stays set.
+     */
+    public static ExtractionLock acquire(final File lockFile) throws InterruptedIOException {
+        final LocalLock localLock = referenceLocalLock(lockFile);
+        localLock.lock();
+
+        RandomAccessFile lockFileAccess = null;
+
+        try {
+            lockFileAccess = new RandomAccessFile(lockFile, "rw");
+            final FileLock fileLock = lockFileAccess.getChannel().lock();
+
+            return new ExtractionLock(lockFile, localLock, lockFileAccess, fileLock);
+        } catch (final FileLockInterruptionException interruptionException) {
+            throw interrupted(lockFile, localLock, lockFileAccess, interruptionException);
+        } catch (final ClosedByInterruptException interruptionException) {
+            throw interrupted(lockFile, localLock, lockFileAccess, interruptionException);
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to lock [" + lockFile + "], continuing without a file lock.", ioException);
+            closeQuietly(lockFileAccess);
+
+            return new ExtractionLock(lockFile, localLock, null, null);
+        } catch (final RuntimeException runtimeException) {
+            closeQuietly(lockFileAccess);
+            unlock(localLock);
+
+            throw runtimeException;
+        }
+    }
+
+    private static InterruptedIOException interrupted(final File lockFile,
+                                                      final LocalLock localLock,
+                                                      final @Nullable RandomAccessFile lockFileAccess,
+                                                      final IOException interruptionException) {
+        closeQuietly(lockFileAccess);
+        unlock(localLock);
+        // the channel already restored it, but callers rely on the flag.
+        Thread.currentThread().interrupt();
+
+        final InterruptedIOException interruptedIoException = new InterruptedIOException("Interrupted while locking [" + lockFile + "].");
+        interruptedIoException.initCause(interruptionException);
+
+        return interruptedIoException;
+    }
+
+    /**
+     * Acquires the lock only if neither a thread of this JVM nor another process holds it.
+     *
+     * @param lockFile
+     *         the lock file, which will be created if it does not exist. Its parent directory must exist.
+     * @return the acquired lock, which must be released using {@link #release()}, or {@code null} if the lock
+     *         is held or the file system does not support file locks.
+     */
+    public static @Nullable ExtractionLock tryAcquire(final File lockFile) {
+        final LocalLock localLock = referenceLocalLock(lockFile);
+
+        if (!localLock.tryLock()) {
+            dereference(localLock);
+
+            return null;
+        }
+
+        if (localLock.getHoldCount() > 1) {
+            // held by the current thread, the file lock would overlap.
+            unlock(localLock);
+
+            return null;
+        }
+
+        RandomAccessFile lockFileAccess = null;
+        boolean acquired = false;
+
+        try {
+            lockFileAccess = new RandomAccessFile(lockFile, "rw");
+            final @Nullable FileLock fileLock = lockFileAccess.getChannel().tryLock();
+
+            if (fileLock == null) {
+                return null;
+            }
+
+            acquired = true;
+
+            return new ExtractionLock(lockFile, localLock, lockFileAccess, fileLock);
+        } catch (final IOException ioException) {
+            // without file locks, other processes cannot be excluded.
+            LOG.log(Level.FINE, "Unable to lock [" + lockFile + "].", ioException);
+
+            return null;
+        } finally {
+            if (!acquired) {
+                closeQuietly(lockFileAccess);
+                unlock(localLock);
+            }
+        }
+    }
+
+    private static LocalLock referenceLocalLock(final File lockFile) {
+        final String key = lockFile.getAbsolutePath();
+
+        // counted before locking, so the lock is not removed while a thread waits for it.
+        synchronized (LOCAL_LOCKS) {
+            @Nullable LocalLock localLock = LOCAL_LOCKS.get(key);
+
+            if (localLock == null) {
+                localLock = new LocalLock(key);
+                LOCAL_LOCKS.put(key, localLock);
+            }
+
+            localLock.references++;
+
+            return localLock;
+        }
+    }
+
+    private static void unlock(final LocalLock localLock) {
+        localLock.unlock();
+        dereference(localLock);
+    }
+
+    private static void dereference(final LocalLock localLock) {
+        synchronized (LOCAL_LOCKS) {
+            localLock.references--;
+
+            if (localLock.references == 0) {
+                LOCAL_LOCKS.remove(localLock.key);
+            }
+        }
+    }
+
+    static int getLocalLockCount() {
+        synchronized (LOCAL_LOCKS) {
+            return LOCAL_LOCKS.size();
+        }
+    }
+
+    /**
+     * Whether other processes are excluded as well, i.e. a file lock could be acquired.
+     *
+     * @return {@code false} if only threads of this JVM are excluded.
+     */
+    public boolean isFileLocked() {
+        return this.fileLock != null;
+    }
+
+    /**
+     * Releases the file lock and the JVM local lock. The lock file is kept.
+     */
+    public void release() {
+        try {
+            if (this.fileLock != null) {
+                this.fileLock.release();
+            }
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to release lock on [" + this.lockFile + "].", ioException);
+        } finally {
+            closeQuietly(this.lockFileAccess);
+            unlock(this.localLock);
+        }
+    }
+
+    private static void closeQuietly(final @Nullable RandomAccessFile randomAccessFile) {
+        if (randomAccessFile == null) {
+            return;
+        }
+
+        try {
+            randomAccessFile.close();
+        } catch (final IOException expected) {
+            // nothing to do, the lock is released when the file is closed.
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ExtractionLock{");
+        sb.append("lockFile=").append(this.lockFile);
+        sb.append(", fileLocked=").append(this.fileLock != null);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * The lock of the threads of this JVM, with the number of threads holding or waiting for it.
+     */
+    private static final class LocalLock extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String key;
+
+        /**
+         * Guarded by {@link #LOCAL_LOCKS}.
+         */
+        private int references;
+
+        LocalLock(final String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+
+/**
+ * File operations which have a faster or more reliable implementation on newer java versions.
+ *
+ * <p>This is the Java 6 implementation. The multi-release jar contains a replacement for Java 9
+ * and later in {@code META-INF/versions/9}, which must keep the same methods.<br></p>
+ */
+final class FileSupport {
+
+    private FileSupport() {
+        // util class.
+    }
+
+    /**
+     * Renames the file, replacing the target if the platform allows it.
+     *
+     * @param source
+     *         the file to rename.
+     * @param target
+     *         the new name, in the same directory or at least on the same file system.
+     * @return {@code true} if the file was renamed.
+     */
+    static boolean moveAtomically(final File source, final File target) {
+        // rename(2) replaces the name atomically, other processes see either no file or the complete file.
+        return source.renameTo(target);
+    }
+
+    /**
+     * Creates a hard link to an existing file.
+     *
+     * @param link
+     *         the name of the new link, which must not exist.
+     * @param existing
+     *         the file to link to, on the same file system.
+     * @return {@code true} if the link was created, {@code false} if the platform or file system does not support hard links.
+     */
+    static boolean createLink(final File link, final File existing) {
+        // java 6 has no API for hard links, callers fall back to copying.
+        return false;
+    }
+
+    /**
+     * An object identifying the file itself rather than its path, shared by all hard links to it.
+     *
+     * @param file
+     *         the file.
+     * @return the identity, or {@code null} if it is not known.
+     */
+    static @Nullable Object getFileKey(final File file) {
+        // java 6 cannot tell, and does not create hard links either.
+        return null;
+    }
+
+    /**
+     * Makes the file executable for everyone who can read it.
+     *
+     * @param file
+     *         the file to change.
+     */
+    static void setExecutable(final File file) {
+        //noinspection ResultOfMethodCallIgnored
+        file.setExecutable(true, false);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads mount options from {@code /proc/mounts}, to find file systems which do not allow executing files.
+ *
+ * <p>Native libraries on a file system mounted {@code noexec} cannot be loaded, but this only shows up as an
+ * {@link UnsatisfiedLinkError} after the library was extracted. On systems without {@code /proc/mounts}
+ * nothing is known and every directory is assumed to allow executing files.<br></p>
+ */
+public final class MountTable {
+
+    private static final File PROC_MOUNTS = new File("/proc/mounts");
+
+    private static final String NO_EXEC = "noexec";
+
+    private MountTable() {
+        // util class.
+    }
+
+    /**
+     * Whether the directory is on a file system mounted {@code noexec}.
+     *
+     * @param directory
+     *         the directory to check, which does not need to exist yet.
+     * @return {@code true} if libraries in the directory cannot be loaded.
+     */
+    public static boolean isNoExec(final File directory) {
+        if (!PROC_MOUNTS.isFile()) {
+            return false;
+        }
+
+        try {
+            final @Nullable List<String> options = findMountOptions(readLines(PROC_MOUNTS), getCanonicalPath(directory));
+
+            return options != null && options.contains(NO_EXEC);
+        } catch (final IOException ioException) {
+            return false;
+        }
+    }
+
+    /**
+     * Finds the options of the mount the path is on, i.e. the last mount with the longest matching mount point.
+     *
+     * @param mounts
+     *         the lines of {@code /proc/mounts}.
+     * @param path
+     *         an absolute, canonical path.
+     * @return the mount options, or {@code null} if no mount point matches.
+     */
+    static @Nullable List<String> findMountOptions(final List<String> mounts, final String path) {
+        @Nullable List<String> options = null;
+        int mountPointLength = -1;
+
+        for (final String mount : mounts) {
+            // device, mount point, type, options, dump, pass.
+            final String[] fields = mount.trim().split("\\s+");
+
+            if (fields.length < 4) {
+                continue;
+            }
+
+            final String mountPoint = unescape(fields[1]);
+
+            // later mounts on the same mount point hide earlier ones.
+            if (isOnMountPoint(path, mountPoint) && mountPoint.length() >= mountPointLength) {
+                options = Arrays.asList(fields[3].split(","));
+                mountPointLength = mountPoint.length();
+            }
+        }
+
+        return options;
+    }
+
+    private static boolean isOnMountPoint(final String path, final String mountPoint) {
+        if ("/".equals(mountPoint)) {
+            return path.startsWith("/");
+        }
+
+        return path.equals(mountPoint) || path.startsWith(mountPoint + '/');
+    }
+
+    /**
+     * Mount points escape space, tab, newline and backslash as octal, e.g. {@code \040}.
+     */
+    private static String unescape(final String mountPoint) {
+        if (mountPoint.indexOf('\\') == -1) {
+            return mountPoint;
+        }
+
+        final StringBuilder sb = new StringBuilder(mountPoint.length());
+
+        for (int i = 0; i < mountPoint.length(); i++) {
+            final char c = mountPoint.charAt(i);
+
+            if (c == '\\' && i + 3 < mountPoint.length() && isOctal(mountPoint, i + 1)) {
+                sb.append((char) Integer.parseInt(mountPoint.substring(i + 1, i + 4), 8));
+                i += 3;
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static boolean isOctal(final String value, final int start) {
+        for (int i = start; i < start + 3; i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '7') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Canonical path of the directory, or of its nearest existing parent if it does not exist yet.
+     */
+    private static String getCanonicalPath(final File directory) throws IOException {
+        final File absoluteDirectory = directory.getAbsoluteFile();
+        @Nullable File existing = absoluteDirectory;
+
+        while (existing != null && !existing.exists()) {
+            existing = existing.getParentFile();
+        }
+
+        if (existing == null) {
+            return absoluteDirectory.getPath();
+        }
+
+        final String missingPath = absoluteDirectory.getPath().substring(existing.getPath().length());
+
+        return existing.getCanonicalPath() + missingPath;
+    }
+
+    private static List<String> readLines(final File file) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+
+        try {
+            final List<String> lines = new ArrayList<String>();
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+
+            return lines;
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.jar.JarEntry;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * A native library resource found on the classpath, together with the metadata which is
+ * available without reading its content.
+ *
+ * <p>For entries of a jar file, size, CRC32 and compression method are taken from the central
+ * directory of the jar file. For any other resource, these are unknown.<br></p>
+ *
+ * <p>A SHA-256 digest can be declared for the resource, see {@link #withSha256(String)}. It describes
+ * the resource as it is shipped, i.e. the compressed data for {@link #isCompressed() compressed} resources.
+ * A digest which is only known, e.g. from the natives index, but not verified, can be attached with
+ * {@link #withContentSha256(String)}. It lets the cache find identical content without reading it.<br></p>
+ */
+public final class NativeResource {
+
+    /**
+     * Marker for an unknown size or checksum.
+     */
+    public static final long UNKNOWN = -1L;
+
+    private static final String COMPRESSED_SUFFIX = ".gz";
+
+    /**
+     * Compressed input read ahead by the inflater. The decompressed output goes through the pooled copy buffer.
+     */
+    private static final int GZIP_INPUT_BUFFER_SIZE = 8 * 1024;
+
+    private final String path;
+
+    private final URL url;
+
+    private final long size;
+
+    private final long crc;
+
+    private final int method;
+
+    private final @Nullable File jarFile;
+
+    private final @Nullable String entryName;
+
+    private final @Nullable String sha256;
+
+    private final @Nullable String contentSha256;
+
+    NativeResource(final String path, final URL url, final long size, final long crc) {
+        this(path, url, size, crc, (int) UNKNOWN, null, null);
+    }
+
+    NativeResource(final String path,
+                   final URL url,
+                   final long size,
+                   final long crc,
+                   final int method,
+                   final @Nullable File jarFile,
+                   final @Nullable String entryName) {
+        this(path, url, size, crc, method, jarFile, entryName, null, null);
+    }
+
+    NativeResource(final String path,
+                   final URL url,
+                   final long size,
+                   final long crc,
+                   final int method,
+                   final @Nullable File jarFile,
+                   final @Nullable String entryName,
+                   final @Nullable String sha256,
+                   final @Nullable String contentSha256) {
+        this.path = path;
+        this.url = url;
+        this.size = size;
+        this.crc = crc;
+        this.method = method;
+        this.jarFile = jarFile;
+        this.entryName = entryName;
+        this.sha256 = sha256;
+        this.contentSha256 = contentSha256;
+    }
+
+    /**
+     * Creates a resource description for the given URL.
+     *
+     * <p>If the URL points into a jar file, the jar entry's size and CRC32 are read from
+     * the central directory. The entry content is not read.<br></p>
+     *
+     * @param path
+     *         the path of the resource as it was looked up, e.g. {@code natives/linux-x86_64-64/libfoo.so}.
+     * @param url
+     *         the URL the resource was found at.
+     * @return a resource description.
+     * @throws IOException
+     *         if the jar file could not be opened.
+     */
+    public static NativeResource fromUrl(final String path, final URL url) throws IOException {
+        final URLConnection urlConnection = url.openConnection();
+
+        if (urlConnection instanceof JarURLConnection) {
+            final JarURLConnection jarUrlConnection = (JarURLConnection) urlConnection;
+            final JarEntry jarEntry = jarUrlConnection.getJarEntry();
+
+            if (jarEntry != null) {
+                return new NativeResource(path, url, jarEntry.getSize(), jarEntry.getCrc(), jarEntry.getMethod(),
+                        toLocalFile(jarUrlConnection.getJarFileURL()), jarEntry.getName());
+            }
+        }
+
+        return new NativeResource(path, url, UNKNOWN, UNKNOWN);
+    }
+
+    private static @Nullable File toLocalFile(final URL jarFileUrl) {
+        if (!"file".equals(jarFileUrl.getProtocol())) {
+            // e.g. nested jars.
+            return null;
+        }
+
+        try {
+            return new File(jarFileUrl.toURI());
+        } catch (final URISyntaxException uriSyntaxException) {
+            return null;
+        } catch (final IllegalArgumentException illegalArgumentException) {
+            return null;
+        }
+    }
+
+    public String getPath() {
+        return this.path;
+    }
+
+    public URL getUrl() {
+        return this.url;
+    }
+
+    /**
+     * The file name of the library, i.e. the last path segment without the {@code .gz} suffix of compressed resources.
+     *
+     * @return the file name, e.g. {@code libfoo.so}.
+     */
+    public String getFileName() {
+        final String fileName = this.path.substring(this.path.lastIndexOf('/') + 1);
+
+        if (isCompressed()) {
+            return fileName.substring(0, fileName.length() - COMPRESSED_SUFFIX.length());
+        }
+
+        return fileName;
+    }
+
+    /**
+     * Whether the resource is gzip compressed, i.e. its path ends with {@code .gz}.
+     *
+     * <p>Size and checksum of compressed resources describe the compressed data.<br></p>
+     *
+     * @return {@code true} if the content needs to be decompressed.
+     */
+    public boolean isCompressed() {
+        return this.path.endsWith(COMPRESSED_SUFFIX) && this.path.length() > COMPRESSED_SUFFIX.length();
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    public long getCrc() {
+        return this.crc;
+    }
+
+    /**
+     * Whether size and checksum are known without reading the content.
+     *
+     * @return {@code true} if both size and CRC32 are known.
+     */
+    public boolean hasMetadata() {
+        return this.size != UNKNOWN && this.crc != UNKNOWN;
+    }
+
+    /**
+     * Whether this resource is an uncompressed entry of a jar file on the local file system.
+     *
+     * <p>The data of such entries can be copied directly from the jar file.<br></p>
+     *
+     * @return {@code true} if the entry is {@code STORED} in a local jar file and not {@link #isCompressed() compressed}.
+     */
+    public boolean isStoredInLocalJar() {
+        return !isCompressed() && this.method == ZipEntry.STORED && this.jarFile != null && this.entryName != null && hasMetadata();
+    }
+
+    public @Nullable File getJarFile() {
+        return this.jarFile;
+    }
+
+    public @Nullable String getEntryName() {
+        return this.entryName;
+    }
+
+    /**
+     * The declared SHA-256 digest the content must match, if any.
+     *
+     * @return the digest in lower case hex, or {@code null} if the resource is not verified.
+     */
+    public @Nullable String getSha256() {
+        return this.sha256;
+    }
+
+    /**
+     * Returns a copy of this resource which must match the given digest when it is extracted.
+     *
+     * @param declaredSha256
+     *         the SHA-256 digest of the resource in hex notation.
+     * @return a resource with the same metadata and the given digest.
+     * @throws IllegalArgumentException
+     *         if the digest is not a SHA-256 digest in hex notation.
+     */
+    public NativeResource withSha256(final String declaredSha256) {
+        if (!Digests.isSha256(declaredSha256)) {
+            throw new IllegalArgumentException("Not a SHA-256 digest: [" + declaredSha256 + "].");
+        }
+
+        final String sha256 = declaredSha256.toLowerCase(Locale.ROOT);
+
+        return new NativeResource(this.path, this.url, this.size, this.crc, this.method, this.jarFile, this.entryName, sha256, sha256);
+    }
+
+    /**
+     * The SHA-256 digest identifying the content, verified or not.
+     *
+     * @return the digest in lower case hex, or {@code null} if none is known.
+     */
+    public @Nullable String getContentSha256() {
+        return this.contentSha256;
+    }
+
+    /**
+     * Returns a copy of this resource which is identified by the given digest, without verifying it.
+     *
+     * <p>The cache may then reuse a file with the same digest, size and checksum instead of reading the
+     * resource, see {@link ExtractionCache}.<br></p>
+     *
+     * @param knownSha256
+     *         the SHA-256 digest of the resource in hex notation, e.g. from the natives index.
+     * @return a resource with the same metadata and digest to verify, identified by the given digest.
+     * @throws IllegalArgumentException
+     *         if the digest is not a SHA-256 digest in hex notation.
+     */
+    public NativeResource withContentSha256(final String knownSha256) {
+        if (!Digests.isSha256(knownSha256)) {
+            throw new IllegalArgumentException("Not a SHA-256 digest: [" + knownSha256 + "].");
+        }
+
+        return new NativeResource(this.path, this.url, this.size, this.crc, this.method, this.jarFile, this.entryName,
+                this.sha256, knownSha256.toLowerCase(Locale.ROOT));
+    }
+
+    public InputStream openStream() throws IOException {
+        return this.url.openStream();
+    }
+
+    /**
+     * Opens the library content, decompressing it while it is read if the resource is compressed.
+     *
+     * @return a stream of the uncompressed library.
+     * @throws IOException
+     *         if the resource could not be opened.
+     */
+    public InputStream openContentStream() throws IOException {
+        return openContentStream(null);
+    }
+
+    /**
+     * Opens the library content like {@link #openContentStream()}, updating the digest with the resource as it is shipped.
+     *
+     * @param digest
+     *         updated with every byte read from the resource before it is decompressed, may be {@code null}.
+     * @return a stream of the uncompressed library.
+     * @throws IOException
+     *         if the resource could not be opened.
+     */
+    public InputStream openContentStream(final @Nullable MessageDigest digest) throws IOException {
+        final InputStream inputStream = digest != null ? new DigestInputStream(openStream(), digest) : openStream();
+
+        if (!isCompressed()) {
+            return inputStream;
+        }
+
+        try {
+            return new GZIPInputStream(inputStream, GZIP_INPUT_BUFFER_SIZE);
+        } catch (final IOException ioException) {
+            inputStream.close();
+
+            throw ioException;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("NativeResource{");
+        sb.append("path='").append(this.path).append('\'');
+        sb.append(", url=").append(this.url);
+        sb.append(", size=").append(this.size);
+        sb.append(", crc=").append(this.crc);
+        sb.append(", method=").append(this.method);
+        sb.append(", jarFile=").append(this.jarFile);
+        sb.append(", sha256='").append(this.sha256).append('\'');
+        sb.append(", contentSha256='").append(this.contentSha256).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The merged content of all natives index files visible to a class loader.
+ *
+ * <p>An index file is stored at {@value #INDEX_PATH} in a natives jar (or class path directory) and
+ * lists all native libraries of that jar, one per line:<br></p>
+ *
+ * <pre>
+ * # native-libloader index 1
+ * natives/linux-x86_64-64/libfoo.so 12345 1a2b3c4d 0f1e...
+ * </pre>
+ *
+ * <p>The columns are the resource path, the size in bytes, the CRC32 and the SHA-256 digest in hex.
+ * Lines starting with {@code #} are ignored. Index files are generated at build time, see
+ * {@link NativesIndexWriter}.<br></p>
+ *
+ * <p>The index files are read once per class loader. Afterwards, a library is resolved with a map
+ * lookup instead of one {@link ClassLoader#getResource(String)} call per candidate path.<br></p>
+ *
+ * <p>The index also knows which class path roots have no index, if the roots of the class loader can be
+ * listed ({@link URLClassLoader}s and the system class loader). Only those roots can contain a library the
+ * index does not list, see {@link #findUnindexed(String)}. If every root has an index, a path which is not
+ * indexed does not exist.<br></p>
+ */
+public final class NativesIndex {
+
+    /**
+     * The location of the index file inside a natives jar.
+     */
+    public static final String INDEX_PATH = "META-INF/native-libloader/index";
+
+    /**
+     * The first line of index files.
+     */
+    static final String HEADER = "# native-libloader index 1";
+
+    private static final Logger LOG = Logger.getLogger(NativesIndex.class.getName());
+
+    private static final NativesIndex EMPTY = new NativesIndex(Collections.<String, IndexEntry>emptyMap(), null);
+
+    /**
+     * Indices per class loader. Values only reference URLs, so the class loaders can be collected.
+     */
+    private static final Map<ClassLoader, NativesIndex> INDICES = new WeakHashMap<ClassLoader, NativesIndex>();
+
+    private final Map<String, IndexEntry> entries;
+
+    /**
+     * The class path roots without an index, or {@code null} if the roots are not known.
+     */
+    private final @Nullable List<URL> unindexedRoots;
+
+    private @Nullable ClassLoader unindexedClassLoader;
+
+    private NativesIndex(final Map<String, IndexEntry> entries, final @Nullable List<URL> unindexedRoots) {
+        this.entries = entries;
+        this.unindexedRoots = unindexedRoots;
+    }
+
+    /**
+     * Returns the merged index of all index files visible to the given class loader.
+     *
+     * @param classLoader
+     *         the class loader to look up index files with.
+     * @return the index, which is empty if there are no index files.
+     */
+    public static NativesIndex forClassLoader(final ClassLoader classLoader) {
+        synchronized (INDICES) {
+            final NativesIndex existing = INDICES.get(classLoader);
+
+            if (existing != null) {
+                return existing;
+            }
+        }
+
+        // read outside of the lock, class loaders may take their time. Reading twice is harmless.
+        final NativesIndex index = load(classLoader);
+
+        synchronized (INDICES) {
+            final NativesIndex raced = INDICES.get(classLoader);
+
+            if (raced != null) {
+                return raced;
+            }
+
+            INDICES.put(classLoader, index);
+
+            return index;
+        }
+    }
+
+    static NativesIndex load(final ClassLoader classLoader) {
+        final Map<String, IndexEntry> entries = new HashMap<String, IndexEntry>();
+        final Set<String> indexedLocations = new HashSet<String>();
+
+        try {
+            final Enumeration<URL> indexUrls = classLoader.getResources(INDEX_PATH);
+
+            while (indexUrls.hasMoreElements()) {
+                readIndex(indexUrls.nextElement(), entries, indexedLocations);
+            }
+        } catch (final IOException ioException) {
+            LOG.log(Level.WARNING, "Unable to read natives indices, falling back to probing.", ioException);
+
+            return EMPTY;
+        }
+
+        if (entries.isEmpty()) {
+            return EMPTY;
+        }
+
+        final @Nullable List<URL> roots = getRoots(classLoader);
+        @Nullable List<URL> unindexedRoots = null;
+
+        if (roots != null) {
+            unindexedRoots = new ArrayList<URL>();
+
+            for (final URL root : roots) {
+                if (!indexedLocations.contains(getBaseLocation(root))) {
+                    unindexedRoots.add(root);
+                }
+            }
+        }
+
+        return new NativesIndex(Collections.unmodifiableMap(entries), unindexedRoots);
+    }
+
+    /**
+     * Lists the class path roots of a class loader and its parents, parents first.
+     *
+     * @return the roots, or {@code null} if a class loader cannot list them.
+     */
+    static @Nullable List<URL> getRoots(final ClassLoader classLoader) {
+        final ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+        final Set<ClassLoader> platformClassLoaders = new HashSet<ClassLoader>();
+
+        // the parents of the system class loader only load the JDK.
+        for (ClassLoader parent = systemClassLoader.getParent(); parent != null; parent = parent.getParent()) {
+            platformClassLoaders.add(parent);
+        }
+
+        final List<URL> roots = new ArrayList<URL>();
+
+        for (ClassLoader current = classLoader; current != null && !platformClassLoaders.contains(current); current = current.getParent()) {
+            if (current instanceof URLClassLoader) {
+                roots.addAll(0, Arrays.asList(((URLClassLoader) current).getURLs()));
+            } else if (current == systemClassLoader) {
+                final @Nullable List<URL> classPathRoots = getClassPathRoots();
+
+                if (classPathRoots == null) {
+                    return null;
+                }
+
+                roots.addAll(0, classPathRoots);
+            } else {
+                return null;
+            }
+        }
+
+        return roots;
+    }
+
+    private static @Nullable List<URL> getClassPathRoots() {
+        final List<URL> roots = new ArrayList<URL>();
+
+        for (final String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (entry.length() == 0) {
+                continue;
+            }
+
+            try {
+                roots.add(new File(entry).toURI().toURL());
+            } catch (final MalformedURLException malformedUrlException) {
+                LOG.log(Level.FINE, "Unable to convert class path entry [" + entry + "].", malformedUrlException);
+
+                return null;
+            }
+        }
+
+        return roots;
+    }
+
+    /**
+     * The location index entries of a root are resolved against, e.g. {@code jar:file:/natives.jar!/}.
+     */
+    private static String getBaseLocation(final URL root) {
+        final String location = root.toExternalForm();
+
+        return location.endsWith("/") ? location : "jar:" + location + "!/";
+    }
+
+    private static void readIndex(final URL indexUrl, final Map<String, IndexEntry> entries, final Set<String> indexedLocations) {
+        final String indexLocation = indexUrl.toExternalForm();
+
+        if (!indexLocation.endsWith(INDEX_PATH)) {
+            return;
+        }
+
+        final String baseLocation = indexLocation.substring(0, indexLocation.length() - INDEX_PATH.length());
+        indexedLocations.add(baseLocation);
+
+        try {
+            final InputStream inputStream = indexUrl.openStream();
+
+            try {
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    final IndexEntry entry = parseLine(baseLocation, line.trim());
+
+                    // like the class path, the first index listing a path wins.
+                    if (entry != null && !entries.containsKey(entry.getPath())) {
+                        entries.put(entry.getPath(), entry);
+                    }
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (final IOException ioException) {
+            LOG.log(Level.WARNING, "Unable to read natives index [" + indexUrl + "].", ioException);
+        }
+    }
+
+    private static @Nullable IndexEntry parseLine(final String baseLocation, final String line) throws MalformedURLException {
+        if (line.length() == 0 || line.charAt(0) == '#') {
+            return null;
+        }
+
+        final String[] columns = line.split("\\s+");
+
+        if (columns.length < 4) {
+            LOG.log(Level.FINE, "Ignoring invalid natives index line [" + line + "].");
+
+            return null;
+        }
+
+        try {
+            return new IndexEntry(columns[0], new URL(baseLocation + columns[0]),
+                    Long.parseLong(columns[1]), Long.parseLong(columns[2], 16), columns[3]);
+        } catch (final NumberFormatException numberFormatException) {
+            LOG.log(Level.FINE, "Ignoring invalid natives index line [" + line + "].", numberFormatException);
+
+            return null;
+        }
+    }
+
+    /**
+     * Looks up a resource path.
+     *
+     * @param path
+     *         the resource path, e.g. {@code natives/linux-x86_64-64/libfoo.so}.
+     * @return the index entry, or {@code null} if no index lists this path.
+     */
+    public @Nullable IndexEntry find(final String path) {
+        return this.entries.get(path);
+    }
+
+    /**
+     * Whether the class path roots without an index are known, so {@link #findUnindexed(String)} can be used.
+     *
+     * @return {@code false} if there is no index, or a class loader cannot list its roots.
+     */
+    public boolean isCoverageKnown() {
+        return this.unindexedRoots != null;
+    }
+
+    /**
+     * Whether every class path root has an index, so a path which is not indexed does not exist.
+     *
+     * @return {@code true} if the coverage is known and there are no roots without an index.
+     */
+    public boolean isComplete() {
+        return this.unindexedRoots != null && this.unindexedRoots.isEmpty();
+    }
+
+    /**
+     * Probes the class path roots which have no index.
+     *
+     * @param path
+     *         the resource path.
+     * @return the resource, or {@code null} if none of these roots contains it, or all roots have an index.
+     * @throws IllegalStateException
+     *         if the coverage is not known.
+     */
+    public @Nullable URL findUnindexed(final String path) {
+        if (this.unindexedRoots == null) {
+            throw new IllegalStateException("The class path roots are not known.");
+        }
+
+        if (this.unindexedRoots.isEmpty()) {
+            return null;
+        }
+
+        return getUnindexedClassLoader().getResource(path);
+    }
+
+    private synchronized ClassLoader getUnindexedClassLoader() {
+        if (this.unindexedClassLoader == null) {
+            // no parent, the JDK does not ship natives.
+            this.unindexedClassLoader = new URLClassLoader(this.unindexedRoots.toArray(new URL[0]), null);
+        }
+
+        return this.unindexedClassLoader;
+    }
+
+    /**
+     * All indexed resource paths.
+     *
+     * @return the paths, in no particular order.
+     */
+    public Set<String> getPaths() {
+        return this.entries.keySet();
+    }
+
+    public boolean isEmpty() {
+        return this.entries.isEmpty();
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("NativesIndex{");
+        sb.append("entries=").append(this.entries.size());
+        sb.append(", unindexedRoots=").append(this.unindexedRoots);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * A native library listed in an index file.
+     */
+    public static final class IndexEntry {
+
+        private final String path;
+
+        private final URL url;
+
+        private final long size;
+
+        private final long crc;
+
+        private final String sha256;
+
+        IndexEntry(final String path, final URL url, final long size, final long crc, final String sha256) {
+            this.path = path;
+            this.url = url;
+            this.size = size;
+            this.crc = crc;
+            this.sha256 = sha256;
+        }
+
+        public String getPath() {
+            return this.path;
+        }
+
+        public URL getUrl() {
+            return this.url;
+        }
+
+        public long getSize() {
+            return this.size;
+        }
+
+        public long getCrc() {
+            return this.crc;
+        }
+
+        public String getSha256() {
+            return this.sha256;
+        }
+
+        /**
+         * Creates the resource description, using the metadata of the index if the resource does not provide any.
+         *
+         * @return the resource.
+         * @throws IOException
+         *         if the jar file could not be opened.
+         */
+        public NativeResource toNativeResource() throws IOException {
+            final NativeResource resource = NativeResource.fromUrl(this.path, this.url);
+
+            if (resource.hasMetadata()) {
+                return resource;
+            }
+
+            return new NativeResource(this.path, this.url, this.size, this.crc);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("IndexEntry{");
+            sb.append("path='").append(this.path).append('\'');
+            sb.append(", url=").append(this.url);
+            sb.append(", size=").append(this.size);
+            sb.append(", crc=").append(Long.toHexString(this.crc));
+            sb.append(", sha256='").append(this.sha256).append('\'');
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Generates a {@link NativesIndex} file at build time.
+ *
+ * <p>Run it on the directory which is packaged into the natives jar, after the native libraries were
+ * copied there and before the jar is created, e.g. using the exec-maven-plugin in the
+ * {@code prepare-package} phase:<br></p>
+ *
+ * <pre>
+ * java -cp native-libloader.jar io.github.java_native.libloader.internal.NativesIndexWriter target/classes [natives/]
+ * </pre>
+ *
+ * <p>All files below the given prefix (default {@code natives/}) are listed.<br></p>
+ */
+public final class NativesIndexWriter {
+
+    /**
+     * The default directory of native libraries inside a jar.
+     */
+    public static final String DEFAULT_PREFIX = "natives/";
+
+    private NativesIndexWriter() {
+        // util class.
+    }
+
+    /**
+     * Command line entry point.
+     *
+     * @param args
+     *         the root directory and optionally the prefix of the native libraries.
+     * @throws IOException
+     *         if the index could not be written.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: " + NativesIndexWriter.class.getName()
+                    + " <root directory> [prefix, default " + DEFAULT_PREFIX + "]");
+            System.exit(1);
+
+            return;
+        }
+
+        final File rootDirectory = new File(args[0]);
+        final int entries = writeIndex(rootDirectory, args.length > 1 ? args[1] : DEFAULT_PREFIX);
+
+        System.out.println("Wrote " + entries + " entries to " + new File(rootDirectory, NativesIndex.INDEX_PATH) + ".");
+    }
+
+    /**
+     * Writes {@value NativesIndex#INDEX_PATH} into the given directory.
+     *
+     * @param rootDirectory
+     *         the directory which will become the root of the jar file.
+     * @param prefix
+     *         the path of the native libraries below the root directory, e.g. {@code natives/}.
+     * @return the number of listed libraries.
+     * @throws IOException
+     *         if a library could not be read or the index could not be written.
+     */
+    public static int writeIndex(final File rootDirectory, final String prefix) throws IOException {
+        final String normalizedPrefix = prefix.endsWith("/") ? prefix : prefix + '/';
+        final List<String> paths = new ArrayList<String>();
+        collectPaths(new File(rootDirectory, normalizedPrefix), normalizedPrefix, paths);
+
+        final String[] sortedPaths = paths.toArray(new String[paths.size()]);
+        Arrays.sort(sortedPaths);
+
+        final File indexFile = new File(rootDirectory, NativesIndex.INDEX_PATH);
+        final File indexDirectory = indexFile.getParentFile();
+
+        if (!indexDirectory.isDirectory() && !indexDirectory.mkdirs()) {
+            throw new IOException("Unable to create directory [" + indexDirectory + "].");
+        }
+
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(indexFile), "UTF-8");
+
+        try {
+            writer.write(NativesIndex.HEADER);
+            writer.write('\n');
+
+            for (final String path : sortedPaths) {
+                writer.write(describe(new File(rootDirectory, path), path));
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+
+        return sortedPaths.length;
+    }
+
+    private static void collectPaths(final File directory, final String path, final List<String> paths) {
+        final File[] children = directory.listFiles();
+
+        if (children == null) {
+            return;
+        }
+
+        for (final File child : children) {
+            if (child.isDirectory()) {
+                collectPaths(child, path + child.getName() + '/', paths);
+            } else if (child.isFile()) {
+                paths.add(path + child.getName());
+            }
+        }
+    }
+
+    private static String describe(final File file, final String path) throws IOException {
+        final MessageDigest sha256 = Digests.createSha256();
+        final CRC32 crc32 = new CRC32();
+        final InputStream inputStream = new DigestInputStream(new FileInputStream(file), sha256);
+        final long size;
+
+        try {
+            size = ResourceCopier.copy(inputStream, NullOutputStream.INSTANCE, crc32, null, NativeResource.UNKNOWN);
+        } finally {
+            inputStream.close();
+        }
+
+        return path + ' ' + size + ' ' + Long.toHexString(crc32.getValue()) + ' ' + Digests.toHex(sha256.digest());
+    }
+
+    /**
+     * Discards all data.
+     */
+    private static final class NullOutputStream extends OutputStream {
+
+        static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(final int b) {
+            // discarded.
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            // discarded.
+        }
+    }
+}
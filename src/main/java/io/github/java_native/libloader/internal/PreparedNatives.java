@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A directory into which native libraries were extracted ahead of time, e.g. while building a container image.
+ *
+ * <p>The directory contains a manifest ({@value #MANIFEST_FILE_NAME}) which maps library names to files
+ * relative to the directory, with their size and CRC32:<br></p>
+ *
+ * <pre>
+ * system=linux-x86_64-64
+ * library.foo=foo/linux-x86_64-64/1a2b3c4d-3039/libfoo.so
+ * size.foo=12345
+ * crc.foo=1a2b3c4d
+ * library.foo@1.2.3=foo/linux-x86_64-64/5e6f7a8b-3039/libfoo.so
+ * size.foo@1.2.3=12345
+ * crc.foo@1.2.3=5e6f7a8b
+ * variant.foo@1.2.3=avx2
+ * </pre>
+ *
+ * <p>A library which was prepared from a system variant, e.g. a build for a CPU feature or a glibc version,
+ * records it, so it is only used where that variant can be loaded. A library whose file was removed or
+ * changed since it was prepared is not used either, see {@link #isIntact(String, String)}.<br></p>
+ *
+ * <p>Writing a manifest keeps the libraries of an existing manifest for the same system, so a directory
+ * can be prepared in several steps.<br></p>
+ *
+ * <p>Manifests are read once per directory and JVM.<br></p>
+ */
+public final class PreparedNatives {
+
+    /**
+     * The name of the manifest file inside the prepared directory.
+     */
+    public static final String MANIFEST_FILE_NAME = "native-libloader-manifest.properties";
+
+    private static final String SYSTEM_KEY = "system";
+
+    private static final String LIBRARY_KEY_PREFIX = "library.";
+
+    private static final String VARIANT_KEY_PREFIX = "variant.";
+
+    private static final String SIZE_KEY_PREFIX = "size.";
+
+    private static final String CRC_KEY_PREFIX = "crc.";
+
+    private static final Logger LOG = Logger.getLogger(PreparedNatives.class.getName());
+
+    private static final ConcurrentMap<String, PreparedNatives> PREPARED_DIRECTORIES = new ConcurrentHashMap<String, PreparedNatives>();
+
+    private final File directory;
+
+    private final @Nullable String system;
+
+    private final Map<String, String> libraries;
+
+    private final Map<String, String> variants;
+
+    /**
+     * The size and CRC32 of each library, e.g. {@code 12345/1a2b3c4d}, if recorded.
+     */
+    private final Map<String, String> checksums;
+
+    PreparedNatives(final File directory,
+                    final @Nullable String system,
+                    final Map<String, String> libraries,
+                    final Map<String, String> variants,
+                    final Map<String, String> checksums) {
+        this.directory = directory;
+        this.system = system;
+        this.libraries = libraries;
+        this.variants = variants;
+        this.checksums = checksums;
+    }
+
+    /**
+     * Returns the prepared libraries of the given directory.
+     *
+     * @param directory
+     *         the prepared directory.
+     * @return the prepared libraries, which are empty if the manifest is missing or unreadable.
+     */
+    public static PreparedNatives forDirectory(final File directory) {
+        final String key = directory.getAbsolutePath();
+        final PreparedNatives existing = PREPARED_DIRECTORIES.get(key);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        final PreparedNatives loaded = load(directory);
+        final PreparedNatives raced = PREPARED_DIRECTORIES.putIfAbsent(key, loaded);
+
+        return raced != null ? raced : loaded;
+    }
+
+    static PreparedNatives load(final File directory) {
+        final File manifestFile = new File(directory, MANIFEST_FILE_NAME);
+        final Properties manifest;
+
+        try {
+            manifest = readManifest(manifestFile);
+        } catch (final IOException ioException) {
+            LOG.log(Level.WARNING, "Unable to read [" + manifestFile + "], ignoring the prepared directory.", ioException);
+
+            return new PreparedNatives(directory, null, Collections.<String, String>emptyMap(), Collections.<String, String>emptyMap(),
+                    Collections.<String, String>emptyMap());
+        }
+
+        final Map<String, String> libraries = new HashMap<String, String>();
+        final Map<String, String> variants = new HashMap<String, String>();
+        final Map<String, String> checksums = new HashMap<String, String>();
+
+        for (final String name : manifest.stringPropertyNames()) {
+            if (name.startsWith(LIBRARY_KEY_PREFIX)) {
+                final String key = name.substring(LIBRARY_KEY_PREFIX.length());
+                libraries.put(key, manifest.getProperty(name));
+
+                final @Nullable String size = manifest.getProperty(SIZE_KEY_PREFIX + key);
+                final @Nullable String crc = manifest.getProperty(CRC_KEY_PREFIX + key);
+
+                if (size != null && crc != null) {
+                    checksums.put(key, size.trim() + '/' + crc.trim());
+                }
+            } else if (name.startsWith(VARIANT_KEY_PREFIX)) {
+                variants.put(name.substring(VARIANT_KEY_PREFIX.length()), manifest.getProperty(name));
+            }
+        }
+
+        return new PreparedNatives(directory, manifest.getProperty(SYSTEM_KEY),
+                Collections.unmodifiableMap(libraries), Collections.unmodifiableMap(variants), Collections.unmodifiableMap(checksums));
+    }
+
+    private static Properties readManifest(final File manifestFile) throws IOException {
+        final Properties manifest = new Properties();
+        final InputStream inputStream = new FileInputStream(manifestFile);
+
+        try {
+            manifest.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Writes a manifest into the given directory.
+     *
+     * @param directory
+     *         the prepared directory.
+     * @param system
+     *         the system identifier the libraries were prepared for.
+     * @param libraries
+     *         maps {@link #getKey(String, String)} to the library files, which must be inside the directory.
+     * @throws IOException
+     *         if the manifest could not be written.
+     */
+    public static void writeManifest(final File directory, final String system, final Map<String, File> libraries) throws IOException {
+        writeManifest(directory, system, libraries, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Writes a manifest into the given directory, with the system variants the libraries were taken from.
+     *
+     * <p>The libraries of an existing manifest for the same system are kept, unless they are given again.
+     * A manifest for another system is replaced. The size and CRC32 of each given file are recorded.<br></p>
+     *
+     * @param directory
+     *         the prepared directory.
+     * @param system
+     *         the system identifier the libraries were prepared for.
+     * @param libraries
+     *         maps {@link #getKey(String, String)} to the library files, which must be inside the directory.
+     * @param variants
+     *         maps {@link #getKey(String, String)} to the variant of the library, e.g. {@code avx2}. Libraries of the
+     *         baseline are not listed.
+     * @throws IOException
+     *         if the manifest could not be written.
+     */
+    public static void writeManifest(final File directory,
+                                     final String system,
+                                     final Map<String, File> libraries,
+                                     final Map<String, String> variants) throws IOException {
+        final File manifestFile = new File(directory, MANIFEST_FILE_NAME);
+        final Properties manifest = manifestFile.isFile() ? readManifest(manifestFile) : new Properties();
+
+        if (!system.equals(manifest.getProperty(SYSTEM_KEY))) {
+            // the libraries of another system are of no use here.
+            manifest.clear();
+            manifest.setProperty(SYSTEM_KEY, system);
+        }
+
+        final String directoryPath = directory.getAbsolutePath() + File.separatorChar;
+
+        for (final Map.Entry<String, File> library : libraries.entrySet()) {
+            final File libraryFile = library.getValue();
+            final String libraryPath = libraryFile.getAbsolutePath();
+
+            if (!libraryPath.startsWith(directoryPath)) {
+                throw new IllegalArgumentException("Library [" + libraryPath + "] is not inside [" + directory + "].");
+            }
+
+            final String key = library.getKey();
+            manifest.setProperty(LIBRARY_KEY_PREFIX + key, libraryPath.substring(directoryPath.length()).replace(File.separatorChar, '/'));
+            manifest.setProperty(SIZE_KEY_PREFIX + key, Long.toString(libraryFile.length()));
+            manifest.setProperty(CRC_KEY_PREFIX + key, Long.toHexString(computeCrc(libraryFile)));
+            // a baseline build replaces a variant build prepared before.
+            manifest.remove(VARIANT_KEY_PREFIX + key);
+        }
+
+        for (final Map.Entry<String, String> variant : variants.entrySet()) {
+            manifest.setProperty(VARIANT_KEY_PREFIX + variant.getKey(), variant.getValue());
+        }
+
+        final OutputStream outputStream = new FileOutputStream(manifestFile);
+
+        try {
+            manifest.store(outputStream, "native-libloader prepared libraries");
+        } finally {
+            outputStream.close();
+        }
+
+        PREPARED_DIRECTORIES.remove(directory.getAbsolutePath());
+    }
+
+    private static long computeCrc(final File file) throws IOException {
+        final CRC32 crc32 = new CRC32();
+        final InputStream inputStream = new FileInputStream(file);
+
+        try {
+            final byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1) {
+                crc32.update(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+
+        return crc32.getValue();
+    }
+
+    /**
+     * The manifest key of a library.
+     *
+     * @param libraryName
+     *         the library name.
+     * @param version
+     *         the version, or {@code null}.
+     * @return {@code name} or {@code name@version}.
+     */
+    public static String getKey(final String libraryName, final @Nullable String version) {
+        return version == null ? libraryName : libraryName + '@' + version;
+    }
+
+    /**
+     * Looks up a prepared library.
+     *
+     * @param libraryName
+     *         the library name.
+     * @param version
+     *         the version, or {@code null}.
+     * @return the path relative to the prepared directory, or {@code null} if the library was not prepared.
+     */
+    public @Nullable String findPath(final String libraryName, final @Nullable String version) {
+        return this.libraries.get(getKey(libraryName, version));
+    }
+
+    /**
+     * The system variant a prepared library was taken from.
+     *
+     * @param libraryName
+     *         the library name.
+     * @param version
+     *         the version, or {@code null}.
+     * @return the variant, e.g. {@code avx2}, or {@code null} for the baseline.
+     */
+    public @Nullable String findVariant(final String libraryName, final @Nullable String version) {
+        return this.variants.get(getKey(libraryName, version));
+    }
+
+    /**
+     * Whether the file of a prepared library still exists and matches the size and CRC32 recorded for it.
+     *
+     * <p>The file is read to compute its checksum. Manifests without a recorded checksum only require the
+     * file to exist.<br></p>
+     *
+     * @param libraryName
+     *         the library name.
+     * @param version
+     *         the version, or {@code null}.
+     * @return {@code false} if the library was not prepared, or its file was removed or changed.
+     */
+    public boolean isIntact(final String libraryName, final @Nullable String version) {
+        final String key = getKey(libraryName, version);
+        final @Nullable String path = this.libraries.get(key);
+
+        if (path == null) {
+            return false;
+        }
+
+        final File libraryFile = new File(this.directory, path);
+
+        if (!libraryFile.isFile()) {
+            return false;
+        }
+
+        final @Nullable String checksum = this.checksums.get(key);
+
+        if (checksum == null) {
+            return true;
+        }
+
+        final int separator = checksum.indexOf('/');
+
+        try {
+            return Long.parseLong(checksum.substring(0, separator)) == libraryFile.length()
+                    && Long.parseLong(checksum.substring(separator + 1), 16) == computeCrc(libraryFile);
+        } catch (final NumberFormatException numberFormatException) {
+            LOG.log(Level.FINE, "Invalid checksum [" + checksum + "] of library [" + key + "].", numberFormatException);
+
+            return false;
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to read [" + libraryFile + "].", ioException);
+
+            return false;
+        }
+    }
+
+    public File getDirectory() {
+        return this.directory;
+    }
+
+    public @Nullable String getSystem() {
+        return this.system;
+    }
+
+    public boolean isEmpty() {
+        return this.libraries.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PreparedNatives{");
+        sb.append("directory=").append(this.directory);
+        sb.append(", system='").append(this.system).append('\'');
+        sb.append(", libraries=").append(this.libraries.keySet());
+        sb.append(", variants=").append(this.variants);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.zip.Checksum;
+
+/**
+ * Copies native resources into files.
+ *
+ * <p>Uncompressed entries of local jar files are copied with {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)}, which lets the kernel copy the data without passing it
+ * through the java heap. Everything else is streamed through a pooled buffer.<br></p>
+ */
+public final class ResourceCopier {
+
+    private ResourceCopier() {
+        // util class.
+    }
+
+    /**
+     * Copies the data of a {@code STORED} jar entry directly from the jar file into the target file.
+     *
+     * @param resource
+     *         a resource for which {@link NativeResource#isStoredInLocalJar()} is {@code true}.
+     * @param target
+     *         the file to write to. Will be overwritten.
+     * @param listener
+     *         notified after each transferred chunk, may be {@code null}.
+     * @return {@code true} if the data was copied, {@code false} if the entry data could not be
+     *         located and the caller needs to fall back to {@link #copy(InputStream, OutputStream, Checksum, ExtractionListener, long)}.
+     * @throws IOException
+     *         if reading or writing failed.
+     */
+    public static boolean transferStoredEntry(final NativeResource resource,
+                                              final File target,
+                                              final @Nullable ExtractionListener listener) throws IOException {
+        final File jarFile = resource.getJarFile();
+        final String entryName = resource.getEntryName();
+
+        if (!resource.isStoredInLocalJar() || jarFile == null || entryName == null) {
+            return false;
+        }
+
+        final FileInputStream jarInputStream = new FileInputStream(jarFile);
+
+        try {
+            final FileChannel jarChannel = jarInputStream.getChannel();
+            final long dataOffset = ZipEntryDataLocator.findDataOffset(jarChannel, entryName);
+
+            if (dataOffset == ZipEntryDataLocator.NOT_FOUND || dataOffset + resource.getSize() > jarChannel.size()) {
+                return false;
+            }
+
+            final FileOutputStream targetOutputStream = new FileOutputStream(target);
+
+            try {
+                transfer(jarChannel, dataOffset, resource.getSize(), targetOutputStream.getChannel(), listener);
+            } finally {
+                targetOutputStream.close();
+            }
+        } finally {
+            jarInputStream.close();
+        }
+
+        return true;
+    }
+
+    /**
+     * Copies a local file with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+     *
+     * @param source
+     *         the file to copy.
+     * @param target
+     *         the file to write, which is created or truncated.
+     * @param listener
+     *         notified after each transferred chunk, may be {@code null}.
+     * @return the number of bytes copied.
+     * @throws IOException
+     *         if reading or writing failed.
+     */
+    public static long transferFile(final File source, final File target, final @Nullable ExtractionListener listener) throws IOException {
+        final FileInputStream sourceInputStream = new FileInputStream(source);
+
+        try {
+            final FileChannel sourceChannel = sourceInputStream.getChannel();
+            final long size = sourceChannel.size();
+            final FileOutputStream targetOutputStream = new FileOutputStream(target);
+
+            try {
+                transfer(sourceChannel, 0L, size, targetOutputStream.getChannel(), listener);
+            } finally {
+                targetOutputStream.close();
+            }
+
+            return size;
+        } finally {
+            sourceInputStream.close();
+        }
+    }
+
+    private static void transfer(final FileChannel source,
+                                 final long offset,
+                                 final long size,
+                                 final FileChannel target,
+                                 final @Nullable ExtractionListener listener) throws IOException {
+        long transferred = 0L;
+
+        while (transferred < size) {
+            final long count = source.transferTo(offset + transferred, size - transferred, target);
+
+            if (count <= 0L) {
+                throw new IOException("Transfer stalled after " + transferred + " of " + size + " bytes.");
+            }
+
+            transferred += count;
+
+            if (listener != null) {
+                listener.progress(transferred, size);
+            }
+        }
+    }
+
+    /**
+     * Copies the stream into the output stream using a pooled buffer and updates the checksum.
+     *
+     * <p>Neither stream is closed by this method.<br></p>
+     *
+     * @param inputStream
+     *         the stream to read from.
+     * @param outputStream
+     *         the stream to write to.
+     * @param checksum
+     *         a checksum which will be updated with every byte copied.
+     * @param listener
+     *         notified after each copied chunk, may be {@code null}.
+     * @param totalBytes
+     *         the expected number of bytes, or {@link NativeResource#UNKNOWN}. Only passed on to the listener.
+     * @return the number of bytes copied.
+     * @throws IOException
+     *         if reading or writing failed.
+     */
+    public static long copy(final InputStream inputStream,
+                            final OutputStream outputStream,
+                            final Checksum checksum,
+                            final @Nullable ExtractionListener listener,
+                            final long totalBytes) throws IOException {
+        final byte[] buffer = BufferPool.acquire();
+
+        try {
+            long copied = 0L;
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1) {
+                checksum.update(buffer, 0, read);
+                outputStream.write(buffer, 0, read);
+                copied += read;
+
+                if (listener != null) {
+                    listener.progress(copied, totalBytes);
+                }
+            }
+
+            return copied;
+        } finally {
+            BufferPool.release(buffer);
+        }
+    }
+}
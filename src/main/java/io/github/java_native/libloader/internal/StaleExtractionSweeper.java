@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Deletes temporary files left in an {@link ExtractionCache} by processes which died while extracting.
+ *
+ * <p>Libraries are extracted to a temporary file while holding the lock of their system directory, so a
+ * temporary file found while the lock can be acquired belongs to a process which no longer runs. Directories
+ * whose lock is held are skipped. As a safety margin for file systems without file locks, only files which
+ * were not modified for a while are deleted.<br></p>
+ *
+ * <p>A sweep stops when its time budget is used up or after visiting a maximum number of directory entries,
+ * so it never takes long even on a large cache. The library directory at which a sweep stopped is saved in
+ * {@value #CURSOR_FILE_NAME} in the cache root, and the next sweep, e.g. of the next JVM, starts there and
+ * wraps around. So all library directories are swept over time.<br></p>
+ */
+public final class StaleExtractionSweeper {
+
+    /**
+     * Default maximum duration of a sweep.
+     */
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 200L;
+
+    /**
+     * Default maximum number of directory entries visited by a sweep.
+     */
+    public static final int DEFAULT_ENTRY_BUDGET = 10000;
+
+    /**
+     * Temporary files younger than this might still be written by a process which could not lock them.
+     */
+    public static final long DEFAULT_MIN_AGE_MILLIS = 10L * 60L * 1000L;
+
+    /**
+     * The file in the cache root which holds the library directory where the next sweep starts.
+     */
+    public static final String CURSOR_FILE_NAME = ".sweep-cursor";
+
+    private static final Logger LOG = Logger.getLogger(StaleExtractionSweeper.class.getName());
+
+    private static final Set<String> SWEPT_DIRECTORIES = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final File rootDirectory;
+
+    private final long timeBudgetNanos;
+
+    private final int entryBudget;
+
+    private final long minAgeMillis;
+
+    private long deadline;
+
+    private int remainingEntries;
+
+    private int deletedFiles;
+
+    /**
+     * Creates a sweeper for the given cache directory.
+     *
+     * @param rootDirectory
+     *         the root directory of the extraction cache.
+     * @param timeBudgetMillis
+     *         the maximum duration of a sweep.
+     * @param entryBudget
+     *         the maximum number of directory entries a sweep visits.
+     * @param minAgeMillis
+     *         the minimum time since a temporary file was modified before it is deleted.
+     */
+    public StaleExtractionSweeper(final File rootDirectory, final long timeBudgetMillis, final int entryBudget, final long minAgeMillis) {
+        this.rootDirectory = rootDirectory;
+        this.timeBudgetNanos = timeBudgetMillis * 1000L * 1000L;
+        this.entryBudget = entryBudget;
+        this.minAgeMillis = minAgeMillis;
+    }
+
+    /**
+     * Sweeps the cache directory on a daemon thread, once per directory and JVM.
+     *
+     * @param rootDirectory
+     *         the root directory of the extraction cache.
+     * @return {@code true} if a sweep was started, {@code false} if the directory was already swept.
+     */
+    public static boolean sweepInBackground(final File rootDirectory) {
+        if (!SWEPT_DIRECTORIES.add(rootDirectory.getAbsolutePath())) {
+            return false;
+        }
+
+        final StaleExtractionSweeper sweeper =
+                new StaleExtractionSweeper(rootDirectory, DEFAULT_TIME_BUDGET_MILLIS, DEFAULT_ENTRY_BUDGET, DEFAULT_MIN_AGE_MILLIS);
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sweeper.sweep();
+                } catch (final RuntimeException runtimeException) {
+                    LOG.log(Level.FINE, "Unable to sweep [" + rootDirectory + "].", runtimeException);
+                }
+            }
+        }, "native-libloader-sweeper");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+
+        return true;
+    }
+
+    /**
+     * Deletes stale temporary files until all were found or the budget is used up.
+     *
+     * @return the number of deleted files.
+     */
+    public synchronized int sweep() {
+        this.deadline = System.nanoTime() + this.timeBudgetNanos;
+        this.remainingEntries = this.entryBudget;
+        this.deletedFiles = 0;
+
+        // the root is not charged to the entry budget, so a sweep gets past it however many libraries are cached.
+        final @Nullable File[] libraryDirectories = this.rootDirectory.listFiles();
+
+        if (libraryDirectories == null || libraryDirectories.length == 0) {
+            return 0;
+        }
+
+        Arrays.sort(libraryDirectories);
+
+        final int start = findStart(libraryDirectories, readCursor());
+        @Nullable String stoppedAt = null;
+
+        for (int ii = 0; ii < libraryDirectories.length; ii++) {
+            final File libraryDirectory = libraryDirectories[(start + ii) % libraryDirectories.length];
+
+            if (ii != 0 && isBudgetExhausted()) {
+                stoppedAt = libraryDirectory.getName();
+                break;
+            }
+
+            if (!libraryDirectory.isDirectory() || ExtractionCache.CONTENT_DIRECTORY.equals(libraryDirectory.getName())) {
+                continue;
+            }
+
+            sweepLibraryDirectory(libraryDirectory);
+
+            if (isBudgetExhausted()) {
+                // the library directory might not be done, unless no other one would be reached.
+                stoppedAt = ii == 0
+                        ? libraryDirectories[(start + 1) % libraryDirectories.length].getName()
+                        : libraryDirectory.getName();
+                break;
+            }
+        }
+
+        writeCursor(stoppedAt);
+
+        if (this.deletedFiles != 0) {
+            LOG.log(Level.FINE, "Deleted " + this.deletedFiles + " stale files from [" + this.rootDirectory + "].");
+        }
+
+        return this.deletedFiles;
+    }
+
+    private static int findStart(final File[] libraryDirectories, final @Nullable String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+
+        for (int ii = 0; ii < libraryDirectories.length; ii++) {
+            if (libraryDirectories[ii].getName().compareTo(cursor) >= 0) {
+                return ii;
+            }
+        }
+
+        return 0;
+    }
+
+    private @Nullable String readCursor() {
+        final File cursorFile = new File(this.rootDirectory, CURSOR_FILE_NAME);
+
+        if (!cursorFile.isFile()) {
+            return null;
+        }
+
+        try {
+            final InputStream inputStream = new FileInputStream(cursorFile);
+
+            try {
+                final byte[] buffer = new byte[1024];
+                int length = 0;
+                int read;
+
+                while (length < buffer.length && (read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+                    length += read;
+                }
+
+                final String cursor = new String(buffer, 0, length, "UTF-8").trim();
+
+                return cursor.length() == 0 ? null : cursor;
+            } finally {
+                inputStream.close();
+            }
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to read the sweep cursor [" + cursorFile + "].", ioException);
+
+            return null;
+        }
+    }
+
+    private void writeCursor(final @Nullable String cursor) {
+        final File cursorFile = new File(this.rootDirectory, CURSOR_FILE_NAME);
+
+        if (cursor == null) {
+            // a full pass, the next sweep starts at the beginning.
+            if (cursorFile.exists() && !cursorFile.delete()) {
+                LOG.log(Level.FINE, "Unable to delete the sweep cursor [" + cursorFile + "].");
+            }
+
+            return;
+        }
+
+        try {
+            final OutputStream outputStream = new FileOutputStream(cursorFile);
+
+            try {
+                outputStream.write(cursor.getBytes("UTF-8"));
+            } finally {
+                outputStream.close();
+            }
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to write the sweep cursor [" + cursorFile + "].", ioException);
+        }
+    }
+
+    private void sweepLibraryDirectory(final File libraryDirectory) {
+        for (final File systemDirectory : listFiles(libraryDirectory)) {
+            if (isBudgetExhausted()) {
+                return;
+            }
+
+            if (!systemDirectory.isDirectory()) {
+                continue;
+            }
+
+            final File lockFile = new File(libraryDirectory, systemDirectory.getName() + ExtractionCache.LOCK_FILE_SUFFIX);
+            final @Nullable ExtractionLock lock = ExtractionLock.tryAcquire(lockFile);
+
+            if (lock == null) {
+                // a process is extracting right now, or the file system cannot tell.
+                continue;
+            }
+
+            try {
+                sweepSystemDirectory(systemDirectory);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private void sweepSystemDirectory(final File systemDirectory) {
+        for (final File entry : listFiles(systemDirectory)) {
+            if (isBudgetExhausted()) {
+                return;
+            }
+
+            if (entry.isDirectory()) {
+                // verification records are written to the digest directory.
+                for (final File digestEntry : listFiles(entry)) {
+                    deleteIfStale(digestEntry);
+                }
+
+                continue;
+            }
+
+            deleteIfStale(entry);
+        }
+    }
+
+    private void deleteIfStale(final File file) {
+        if (!file.getName().endsWith(ExtractionCache.TEMP_FILE_SUFFIX)) {
+            return;
+        }
+
+        if (System.currentTimeMillis() - file.lastModified() < this.minAgeMillis) {
+            return;
+        }
+
+        if (file.delete()) {
+            this.deletedFiles++;
+        }
+    }
+
+    private File[] listFiles(final File directory) {
+        final @Nullable File[] files = directory.listFiles();
+
+        if (files == null) {
+            return new File[0];
+        }
+
+        this.remainingEntries -= files.length;
+
+        return files;
+    }
+
+    private boolean isBudgetExhausted() {
+        return this.remainingEntries <= 0 || System.nanoTime() - this.deadline > 0L;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("StaleExtractionSweeper{");
+        sb.append("rootDirectory=").append(this.rootDirectory);
+        sb.append(", timeBudgetNanos=").append(this.timeBudgetNanos);
+        sb.append(", entryBudget=").append(this.entryBudget);
+        sb.append(", minAgeMillis=").append(this.minAgeMillis);
+        sb.append('}');
+        return sb.toString();
+    }
+}
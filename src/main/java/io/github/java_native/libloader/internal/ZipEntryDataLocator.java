@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Locates the raw data of a zip entry inside a zip (or jar) file.
+ *
+ * <p>{@link java.util.zip.ZipFile} does not expose the position of an entry's data. This class
+ * reads the central directory and the entry's local file header to find it, so uncompressed
+ * ({@code STORED}) entries can be copied with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+ * <br></p>
+ *
+ * <p>Zip64 archives and archives with a comment longer than the maximum size are not supported.
+ * In these cases no offset is returned and callers must fall back to streaming.<br></p>
+ */
+public final class ZipEntryDataLocator {
+
+    /**
+     * Returned if the entry data could not be located.
+     */
+    public static final long NOT_FOUND = -1L;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+    private ZipEntryDataLocator() {
+        // util class.
+    }
+
+    /**
+     * Finds the absolute position of the first byte of the given entry's data.
+     *
+     * @param zipChannel
+     *         an open channel of the zip file.
+     * @param entryName
+     *         the name of the entry, e.g. {@code natives/linux-x86_64-64/libfoo.so}.
+     * @return the position of the data, or {@link #NOT_FOUND}.
+     * @throws IOException
+     *         if the zip file could not be read.
+     */
+    public static long findDataOffset(final FileChannel zipChannel, final String entryName) throws IOException {
+        final @Nullable ByteBuffer endOfCentralDirectory = findEndOfCentralDirectory(zipChannel);
+
+        if (endOfCentralDirectory == null) {
+            return NOT_FOUND;
+        }
+
+        final long centralDirectorySize = endOfCentralDirectory.getInt(12) & ZIP64_MARKER;
+        final long centralDirectoryOffset = endOfCentralDirectory.getInt(16) & ZIP64_MARKER;
+
+        if (centralDirectorySize == ZIP64_MARKER || centralDirectoryOffset == ZIP64_MARKER) {
+            return NOT_FOUND;
+        }
+
+        final ByteBuffer centralDirectory = read(zipChannel, centralDirectoryOffset, (int) centralDirectorySize);
+        final long localHeaderOffset = findLocalHeaderOffset(centralDirectory, toBytes(entryName));
+
+        if (localHeaderOffset == NOT_FOUND || localHeaderOffset == ZIP64_MARKER) {
+            return NOT_FOUND;
+        }
+
+        final ByteBuffer localHeader = read(zipChannel, localHeaderOffset, LOCAL_FILE_HEADER_SIZE);
+
+        if (localHeader.getInt(0) != LOCAL_FILE_HEADER_SIGNATURE) {
+            return NOT_FOUND;
+        }
+
+        final int nameLength = localHeader.getShort(26) & 0xFFFF;
+        final int extraLength = localHeader.getShort(28) & 0xFFFF;
+
+        return localHeaderOffset + LOCAL_FILE_HEADER_SIZE + nameLength + extraLength;
+    }
+
+    private static @Nullable ByteBuffer findEndOfCentralDirectory(final FileChannel zipChannel) throws IOException {
+        final long fileSize = zipChannel.size();
+
+        if (fileSize < END_OF_CENTRAL_DIRECTORY_SIZE) {
+            return null;
+        }
+
+        // the record is at the very end, followed only by an optional comment.
+        final int tailSize = (int) Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        final ByteBuffer tail = read(zipChannel, fileSize - tailSize, tailSize);
+
+        for (int position = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; position >= 0; position--) {
+            if (tail.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                tail.position(position);
+
+                return tail.slice().order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        return null;
+    }
+
+    private static long findLocalHeaderOffset(final ByteBuffer centralDirectory, final byte[] entryName) {
+        int position = 0;
+
+        while (position + CENTRAL_DIRECTORY_HEADER_SIZE <= centralDirectory.limit()) {
+            if (centralDirectory.getInt(position) != CENTRAL_DIRECTORY_SIGNATURE) {
+                return NOT_FOUND;
+            }
+
+            final int nameLength = centralDirectory.getShort(position + 28) & 0xFFFF;
+            final int extraLength = centralDirectory.getShort(position + 30) & 0xFFFF;
+            final int commentLength = centralDirectory.getShort(position + 32) & 0xFFFF;
+
+            if (nameLength == entryName.length && nameEquals(centralDirectory, position + CENTRAL_DIRECTORY_HEADER_SIZE, entryName)) {
+                return centralDirectory.getInt(position + 42) & ZIP64_MARKER;
+            }
+
+            position += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+
+        return NOT_FOUND;
+    }
+
+    private static boolean nameEquals(final ByteBuffer centralDirectory, final int offset, final byte[] entryName) {
+        if (offset + entryName.length > centralDirectory.limit()) {
+            return false;
+        }
+
+        final byte[] name = new byte[entryName.length];
+        final ByteBuffer duplicate = centralDirectory.duplicate();
+        duplicate.position(offset);
+        duplicate.get(name);
+
+        return Arrays.equals(name, entryName);
+    }
+
+    private static ByteBuffer read(final FileChannel channel, final long position, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) == -1) {
+                throw new IOException("Unexpected end of zip file at position " + (position + buffer.position()) + ".");
+            }
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+    private static byte[] toBytes(final String entryName) {
+        try {
+            return entryName.getBytes("UTF-8");
+        } catch (final UnsupportedEncodingException unsupportedEncodingException) {
+            // UTF-8 is always supported.
+            throw new IllegalStateException(unsupportedEncodingException);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.provider;
+
+import io.github.java_native.libloader.LibLoaderResult;
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.io.File;
+
+/**
+ * A {@link LibLoaderListener} which ignores all events.
+ *
+ * <p>Subclasses override the methods of the events they are interested in.<br></p>
+ */
+public abstract class AbstractLibLoaderListener implements LibLoaderListener {
+
+    @Override
+    public void onSystemDetected(final @Nullable SystemDefinition system, final long durationNanos) {
+        // ignored.
+    }
+
+    @Override
+    public void onCandidateProbed(final String libraryName, final String candidatePath, final boolean found) {
+        // ignored.
+    }
+
+    @Override
+    public void onCacheHit(final String libraryName, final File libraryFile) {
+        // ignored.
+    }
+
+    @Override
+    public void onCacheMiss(final String libraryName, final String resourcePath) {
+        // ignored.
+    }
+
+    @Override
+    public void onExtractionProgress(final String libraryName, final long extractedBytes, final long totalBytes) {
+        // ignored.
+    }
+
+    @Override
+    public void onLoadCompleted(final LibLoaderResult result) {
+        // ignored.
+    }
+}
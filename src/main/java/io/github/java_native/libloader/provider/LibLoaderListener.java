@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.provider;
+
+import io.github.java_native.libloader.LibLoaderResult;
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.io.File;
+
+/**
+ * SPI for observing the loading of native libraries, e.g. to record metrics.
+ *
+ * <p>Listeners are discovered using the {@link java.util.ServiceLoader} mechanism, just like
+ * {@link SystemDefinitionProvider}s, and can also be supplied by the
+ * {@link io.github.java_native.libloader.config.LibLoaderConfig}.<br></p>
+ *
+ * <p>Events are fired synchronously on the thread doing the work, which is not necessarily the thread
+ * which called the lib loader. Implementations must be thread safe and should return quickly.
+ * Exceptions thrown by a listener are logged and otherwise ignored.<br></p>
+ *
+ * <p>Extend {@link AbstractLibLoaderListener} to only handle some of the events.<br></p>
+ */
+public interface LibLoaderListener {
+
+    /**
+     * The current system was detected. Fired once per lib loader instance.
+     *
+     * @param system
+     *         the matching system definition, or {@code null} if the platform is not supported.
+     * @param durationNanos
+     *         the time the detection took.
+     */
+    void onSystemDetected(@Nullable SystemDefinition system, long durationNanos);
+
+    /**
+     * A candidate path was looked up on the class path.
+     *
+     * @param libraryName
+     *         the requested library.
+     * @param candidatePath
+     *         the probed path, e.g. {@code natives/linux-x86_64-64/libfoo.so}.
+     * @param found
+     *         whether a resource exists at this path. No further candidates are probed after a hit.
+     */
+    void onCandidateProbed(String libraryName, String candidatePath, boolean found);
+
+    /**
+     * An already extracted library file is reused.
+     *
+     * @param libraryName
+     *         the requested library.
+     * @param libraryFile
+     *         the reused file.
+     */
+    void onCacheHit(String libraryName, File libraryFile);
+
+    /**
+     * The library is not present in the extraction directory and will be extracted.
+     *
+     * @param libraryName
+     *         the requested library.
+     * @param resourcePath
+     *         the path of the resource which will be extracted.
+     */
+    void onCacheMiss(String libraryName, String resourcePath);
+
+    /**
+     * A chunk of the library was extracted.
+     *
+     * @param libraryName
+     *         the requested library.
+     * @param extractedBytes
+     *         the number of bytes extracted so far.
+     * @param totalBytes
+     *         the size of the library, or {@code -1} if unknown.
+     */
+    void onExtractionProgress(String libraryName, long extractedBytes, long totalBytes);
+
+    /**
+     * Loading the library finished, successfully or not.
+     *
+     * <p>Also fired for results remembered from an earlier call, see {@link LibLoaderResult#isPreviouslyLoaded()}.<br></p>
+     *
+     * @param result
+     *         the result which will be returned to the caller.
+     */
+    void onLoadCompleted(LibLoaderResult result);
+}
@@ -17,6 +17,7 @@
 
 package io.github.java_native.libloader.systems;
 
+import io.github.java_native.libloader.internal.Nullable;
 import java.util.List;
 
 public abstract class AbstractArm32System extends AbstractOsNameArchBitnessMatchingSystem {
@@ -38,8 +39,10 @@ public abstract class AbstractArm32System extends AbstractOsNameArchBitnessMatch
 
     @Override
     public boolean matches(final SystemProperties otherSystem) {
+        final @Nullable String qualifier = getQualifier();
+
         return super.matches(otherSystem)
                 // on arm32, the qualifier could be null or hf.
-                && getQualifier().equals(otherSystem.getQualifier());
+                && (qualifier == null ? otherSystem.getQualifier() == null : qualifier.equals(otherSystem.getQualifier()));
     }
 }
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.systems;
+
+import io.github.java_native.libloader.internal.Nullable;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The instruction set extensions of the CPU, as reported by the Linux kernel.
+ *
+ * <p>The flags are read from {@code /proc/cpuinfo} ({@code flags} on x86, {@code Features} on ARM). If it has no
+ * such line, the hardware capabilities in {@code /proc/self/auxv} are used on ARM. The names of the kernel are kept,
+ * and {@link #SSE4_2} and {@link #NEON} are added for their kernel aliases {@code sse4_2} and {@code asimd}.<br></p>
+ *
+ * <p>Builds for these extensions are looked up as tiers, see {@link #getTiers()}.<br></p>
+ */
+public final class CpuFeatures {
+
+    public static final String AVX2 = "avx2";
+
+    public static final String AVX512F = "avx512f";
+
+    public static final String SSE4_2 = "sse4.2";
+
+    public static final String NEON = "neon";
+
+    public static final String SVE = "sve";
+
+    /**
+     * No features known, e.g. on other operating systems.
+     */
+    public static final CpuFeatures NONE = new CpuFeatures(Collections.<String>emptySet(), Collections.<String>emptyList());
+
+    private static final Logger LOG = Logger.getLogger(CpuFeatures.class.getName());
+
+    private static final long AT_NULL = 0L;
+    private static final long AT_HWCAP = 16L;
+
+    private static final long HWCAP_ARM_NEON = 1L << 12;
+    private static final long HWCAP_AARCH64_ASIMD = 1L << 1;
+    private static final long HWCAP_AARCH64_SVE = 1L << 22;
+
+    /**
+     * Tier name and the flag it requires, most optimized first.
+     */
+    private static final String[][] TIERS = {
+            {"avx512", AVX512F},
+            {"avx2", AVX2},
+            {"sve", SVE},
+            {"neon", NEON},
+    };
+
+    private final Set<String> flags;
+
+    private final List<String> tiers;
+
+    /**
+     * Creates a feature set.
+     *
+     * @param flags
+     *         the feature flags in lower case, e.g. {@code avx2}.
+     */
+    public CpuFeatures(final Set<String> flags) {
+        this(flags, createTiers(flags));
+    }
+
+    private CpuFeatures(final Set<String> flags, final List<String> tiers) {
+        this.flags = Collections.unmodifiableSet(new HashSet<String>(flags));
+        this.tiers = Collections.unmodifiableList(tiers);
+    }
+
+    /**
+     * Detects the features of the current CPU.
+     *
+     * @param architecture
+     *         the JVM's architecture ({@code os.arch}), which decides how the auxiliary vector is read.
+     * @return the features, {@link #NONE} if they cannot be read.
+     */
+    static CpuFeatures detect(final String architecture) {
+        final File cpuInfo = new File("/proc/cpuinfo");
+
+        if (!cpuInfo.isFile()) {
+            return NONE;
+        }
+
+        try {
+            final @Nullable Set<String> flags = readCpuInfo(cpuInfo);
+
+            if (flags != null) {
+                return new CpuFeatures(flags);
+            }
+
+            return new CpuFeatures(parseAuxv(readFully(new File("/proc/self/auxv")), architecture));
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to read the CPU features.", ioException);
+
+            return NONE;
+        }
+    }
+
+    private static @Nullable Set<String> readCpuInfo(final File cpuInfo) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(cpuInfo), "UTF-8"));
+
+        try {
+            return parseCpuInfo(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the flags of the first processor, and stops reading after its {@code flags} or {@code Features} line.
+     *
+     * @param reader
+     *         the content of {@code /proc/cpuinfo}, which has a paragraph per processor.
+     * @return the flags, or {@code null} if there is no {@code flags} or {@code Features} line.
+     * @throws IOException
+     *         if the content cannot be read.
+     */
+    static @Nullable Set<String> parseCpuInfo(final BufferedReader reader) throws IOException {
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            final int separator = line.indexOf(':');
+
+            if (separator == -1) {
+                continue;
+            }
+
+            final String key = line.substring(0, separator).trim();
+
+            if (!"flags".equals(key) && !"Features".equals(key)) {
+                continue;
+            }
+
+            final Set<String> flags = new HashSet<String>();
+
+            for (final String flag : line.substring(separator + 1).trim().split("\\s+")) {
+                if (flag.length() != 0) {
+                    flags.add(flag.toLowerCase(Locale.ROOT));
+                }
+            }
+
+            addAliases(flags);
+
+            return flags;
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the hardware capabilities ({@code AT_HWCAP}) from the auxiliary vector on ARM.
+     *
+     * @param auxv
+     *         the content of {@code /proc/self/auxv}, pairs of native words in native byte order.
+     * @param architecture
+     *         the JVM's architecture.
+     * @return the flags, empty on other architectures.
+     */
+    static Set<String> parseAuxv(final byte[] auxv, final String architecture) {
+        final Set<String> flags = new HashSet<String>();
+        final boolean aarch64 = "aarch64".equals(architecture) || "arm64".equals(architecture);
+
+        if (!aarch64 && !architecture.startsWith("arm")) {
+            return flags;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(auxv).order(ByteOrder.nativeOrder());
+        final int wordSize = aarch64 ? 8 : 4;
+
+        while (buffer.remaining() >= 2 * wordSize) {
+            final long type = aarch64 ? buffer.getLong() : buffer.getInt() & 0xFFFFFFFFL;
+            final long value = aarch64 ? buffer.getLong() : buffer.getInt() & 0xFFFFFFFFL;
+
+            if (type == AT_NULL) {
+                break;
+            }
+
+            if (type != AT_HWCAP) {
+                continue;
+            }
+
+            if (aarch64 ? (value & HWCAP_AARCH64_ASIMD) != 0L : (value & HWCAP_ARM_NEON) != 0L) {
+                flags.add(NEON);
+            }
+
+            if (aarch64 && (value & HWCAP_AARCH64_SVE) != 0L) {
+                flags.add(SVE);
+            }
+        }
+
+        return flags;
+    }
+
+    private static void addAliases(final Set<String> flags) {
+        if (flags.contains("sse4_2")) {
+            flags.add(SSE4_2);
+        }
+
+        if (flags.contains("asimd")) {
+            flags.add(NEON);
+        }
+    }
+
+    private static List<String> createTiers(final Set<String> flags) {
+        final List<String> tiers = new ArrayList<String>();
+
+        for (final String[] tier : TIERS) {
+            if (flags.contains(tier[1])) {
+                tiers.add(tier[0]);
+            }
+        }
+
+        return tiers;
+    }
+
+    /**
+     * Whether the CPU supports the given feature.
+     *
+     * @param flag
+     *         the feature flag in lower case, e.g. {@link #AVX2}.
+     * @return {@code true} if the kernel reports the feature.
+     */
+    public boolean has(final String flag) {
+        return this.flags.contains(flag);
+    }
+
+    public Set<String> getFlags() {
+        return this.flags;
+    }
+
+    /**
+     * Qualifiers of the native folders which can be loaded on this CPU, most optimized first.
+     *
+     * <p>The tiers are {@code avx512} (requires {@code avx512f}), {@code avx2}, {@code sve} and {@code neon}.
+     * The baseline is not included.<br></p>
+     *
+     * @return the tiers, e.g. {@code avx512, avx2} for {@code natives/linux-x86_64-64-avx512/}.
+     */
+    public List<String> getTiers() {
+        return this.tiers;
+    }
+
+    private static byte[] readFully(final File file) throws IOException {
+        final InputStream inputStream = new FileInputStream(file);
+
+        try {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[512];
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+
+            return outputStream.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CpuFeatures{");
+        sb.append("tiers=").append(this.tiers);
+        sb.append(", flags=").append(this.flags.size());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -68,6 +68,12 @@ public enum CurrentSystemProperties implements SystemProperties {
 
     private final @Nullable String abi;
 
+    private volatile boolean libcDetected;
+
+    private volatile @Nullable Libc libc;
+
+    private volatile @Nullable CpuFeatures cpuFeatures;
+
     CurrentSystemProperties() {
         this.lowercaseOsName = System.getProperty("os.name").toLowerCase(Locale.ENGLISH).trim();
         this.osVersion = System.getProperty("os.version");
@@ -179,6 +185,38 @@ public enum CurrentSystemProperties implements SystemProperties {
         return this.abi;
     }
 
+    /**
+     * The C library the JVM is linked against, read from {@code /proc/self/exe} on first use.
+     *
+     * @return the C library, or {@code null} if not on Linux or unknown.
+     */
+    public @Nullable Libc getLibc() {
+        if (!this.libcDetected) {
+            // racing threads detect the same value, which is cheaper than locking every call.
+            this.libc = Libc.detect();
+            this.libcDetected = true;
+        }
+
+        return this.libc;
+    }
+
+    /**
+     * The instruction set extensions of the CPU, read from {@code /proc/cpuinfo} on first use.
+     *
+     * @return the CPU features, {@link CpuFeatures#NONE} if not on Linux or unknown.
+     */
+    public CpuFeatures getCpuFeatures() {
+        @Nullable CpuFeatures features = this.cpuFeatures;
+
+        if (features == null) {
+            // racing threads detect the same value, which is cheaper than locking every call.
+            features = CpuFeatures.detect(this.architecture);
+            this.cpuFeatures = features;
+        }
+
+        return features;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("CurrentSystemProperties{");
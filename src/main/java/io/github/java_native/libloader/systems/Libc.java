@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.systems;
+
+import io.github.java_native.libloader.internal.ElfFile;
+import io.github.java_native.libloader.internal.Nullable;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The C library the running JVM is linked against, on Linux.
+ *
+ * <p>Libraries built against glibc do not load on musl (e.g. Alpine Linux), and libraries built against a
+ * newer glibc than the installed one fail with missing symbol versions. The flavour is taken from the
+ * program interpreter of {@code /proc/self/exe}. The glibc version is the newest {@code GLIBC_2.x} symbol
+ * version defined by the mapped {@code libc.so.6} or needed by the JVM binary, which is a safe lower bound
+ * of the installed version.<br></p>
+ */
+public final class Libc {
+
+    /**
+     * The oldest glibc version a candidate path is generated for, the baseline of {@code manylinux2014}.
+     */
+    public static final int MIN_GLIBC_MINOR_VERSION = 17;
+
+    private static final Logger LOG = Logger.getLogger(Libc.class.getName());
+
+    private static final String GLIBC_VERSION_PREFIX = "GLIBC_2.";
+
+    private static final String GLIBC_QUALIFIER = "glibc2.";
+
+    private static final String MUSL_QUALIFIER = "musl";
+
+    /**
+     * The implementation of the C library.
+     */
+    public enum Flavour {
+        GLIBC,
+        MUSL
+    }
+
+    private final Flavour flavour;
+
+    private final int minorVersion;
+
+    private final List<String> qualifiers;
+
+    /**
+     * Creates a description of a C library.
+     *
+     * @param flavour
+     *         the implementation.
+     * @param minorVersion
+     *         the glibc minor version, e.g. {@code 28} for glibc 2.28, or {@code -1} if unknown.
+     */
+    public Libc(final Flavour flavour, final int minorVersion) {
+        this.flavour = flavour;
+        this.minorVersion = minorVersion;
+        this.qualifiers = Collections.unmodifiableList(createQualifiers(flavour, minorVersion));
+    }
+
+    /**
+     * Detects the C library of the running JVM.
+     *
+     * @return the C library, or {@code null} if not on Linux or not dynamically linked.
+     */
+    static @Nullable Libc detect() {
+        final File executable = new File("/proc/self/exe");
+
+        if (!executable.exists()) {
+            return null;
+        }
+
+        try {
+            return detect(ElfFile.read(executable), new File("/proc/self/maps"));
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to read [" + executable + "].", ioException);
+
+            return null;
+        }
+    }
+
+    static @Nullable Libc detect(final ElfFile executable, final File maps) {
+        final @Nullable String interpreter = executable.getInterpreter();
+
+        if (interpreter == null) {
+            return null;
+        }
+
+        final String interpreterName = interpreter.substring(interpreter.lastIndexOf('/') + 1);
+
+        if (interpreterName.startsWith("ld-musl")) {
+            return new Libc(Flavour.MUSL, -1);
+        }
+
+        // e.g. ld-linux-x86-64.so.2, ld-linux-aarch64.so.1, or ld64.so.1 on s390x and ppc64.
+        if (!interpreterName.startsWith("ld-linux") && !interpreterName.startsWith("ld64.so") && !interpreterName.startsWith("ld.so")) {
+            return null;
+        }
+
+        int minorVersion = getNewestGlibcMinorVersion(executable.getNeededVersions());
+        final @Nullable File libc = findMappedLibc(maps);
+
+        if (libc != null) {
+            try {
+                minorVersion = Math.max(minorVersion, getNewestGlibcMinorVersion(ElfFile.read(libc).getDefinedVersions()));
+            } catch (final IOException ioException) {
+                LOG.log(Level.FINE, "Unable to read [" + libc + "].", ioException);
+            }
+        }
+
+        return new Libc(Flavour.GLIBC, minorVersion);
+    }
+
+    private static @Nullable File findMappedLibc(final File maps) {
+        try {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(maps), "UTF-8"));
+
+            try {
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    final int pathStart = line.indexOf('/');
+
+                    if (pathStart != -1 && line.endsWith("/libc.so.6")) {
+                        return new File(line.substring(pathStart));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to read [" + maps + "].", ioException);
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds the newest glibc version in a list of symbol versions.
+     *
+     * @param versions
+     *         symbol versions, e.g. {@code GLIBC_2.2.5, GLIBC_2.28, GLIBC_PRIVATE}.
+     * @return the highest minor version, e.g. {@code 28}, or {@code -1} if there is none.
+     */
+    static int getNewestGlibcMinorVersion(final Collection<String> versions) {
+        int newest = -1;
+
+        for (final String version : versions) {
+            if (!version.startsWith(GLIBC_VERSION_PREFIX)) {
+                continue;
+            }
+
+            final int end = version.indexOf('.', GLIBC_VERSION_PREFIX.length());
+
+            try {
+                final String minor = version.substring(GLIBC_VERSION_PREFIX.length(), end == -1 ? version.length() : end);
+                newest = Math.max(newest, Integer.parseInt(minor));
+            } catch (final NumberFormatException numberFormatException) {
+                // not a release version.
+                LOG.log(Level.FINEST, "Ignoring symbol version [" + version + "].", numberFormatException);
+            }
+        }
+
+        return newest;
+    }
+
+    private static List<String> createQualifiers(final Flavour flavour, final int minorVersion) {
+        final List<String> qualifiers = new ArrayList<String>();
+
+        if (flavour == Flavour.MUSL) {
+            qualifiers.add(MUSL_QUALIFIER);
+
+            return qualifiers;
+        }
+
+        if (minorVersion == -1) {
+            return qualifiers;
+        }
+
+        // a build for an older glibc runs on a newer one, so every older version is a candidate, newest first.
+        for (int minor = minorVersion; minor >= Math.min(minorVersion, MIN_GLIBC_MINOR_VERSION); minor--) {
+            qualifiers.add(GLIBC_QUALIFIER + minor);
+        }
+
+        return qualifiers;
+    }
+
+    /**
+     * Whether the qualifier names a glibc version, e.g. {@code glibc2.28}.
+     *
+     * @param qualifier
+     *         a qualifier as returned by {@link #getQualifiers()}.
+     * @return {@code true} for glibc versions, {@code false} for {@code musl} and other qualifiers.
+     */
+    public static boolean isVersionQualifier(final String qualifier) {
+        return qualifier.startsWith(GLIBC_QUALIFIER);
+    }
+
+    public Flavour getFlavour() {
+        return this.flavour;
+    }
+
+    /**
+     * The glibc version as {@code 2.x}.
+     *
+     * @return the version, e.g. {@code 2.28}, or {@code null} for musl or if unknown.
+     */
+    public @Nullable String getVersion() {
+        return this.minorVersion == -1 ? null : "2." + this.minorVersion;
+    }
+
+    /**
+     * Qualifiers of the native folders which can be loaded with this C library, most specific first.
+     *
+     * <p>For glibc these are all versions from the detected one down to {@link #MIN_GLIBC_MINOR_VERSION},
+     * e.g. {@code glibc2.28, glibc2.27, ...}. For musl it is {@code musl}. The unqualified baseline is not
+     * included.<br></p>
+     *
+     * @return the qualifiers, e.g. for {@code natives/linux-x86_64-64-glibc2.28/}.
+     */
+    public List<String> getQualifiers() {
+        return this.qualifiers;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("Libc{");
+        sb.append("flavour=").append(this.flavour);
+        sb.append(", version='").append(getVersion()).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.systems;
+
+import io.github.java_native.libloader.internal.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index to find the first matching {@link SystemDefinition} without testing every definition.
+ *
+ * <p>Architecture aliases (see {@link SystemDefinitionConstants}) are canonicalized through a hash lookup.
+ * Definitions using the default matching of {@link AbstractOsNameArchBitnessMatchingSystem} are indexed by
+ * normalized os name, canonical architecture and bitness. Only the few definitions found in the index
+ * (plus those with custom matching logic) are then asked via {@link SystemDefinition#matches(SystemProperties)},
+ * in declaration order.<br></p>
+ */
+public final class SystemMatchIndex {
+
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final List<SystemDefinition> definitions;
+
+    /**
+     * Maps each known architecture alias to a canonical name.
+     */
+    private final Map<String, String> canonicalArchitectures;
+
+    /**
+     * Maps a key to the ascending positions of the matching candidates in {@link #definitions}.
+     */
+    private final Map<String, int[]> indexedPositions;
+
+    /**
+     * Positions of definitions with custom matching logic, which must always be tested.
+     */
+    private final int[] unindexedPositions;
+
+    private SystemMatchIndex(final List<SystemDefinition> definitions,
+                             final Map<String, String> canonicalArchitectures,
+                             final Map<String, int[]> indexedPositions,
+                             final int[] unindexedPositions) {
+        this.definitions = definitions;
+        this.canonicalArchitectures = canonicalArchitectures;
+        this.indexedPositions = indexedPositions;
+        this.unindexedPositions = unindexedPositions;
+    }
+
+    /**
+     * Builds an index for the given definitions.
+     *
+     * @param definitions
+     *         the definitions in order of priority. The list must not be modified afterwards.
+     * @return an index for the given definitions.
+     */
+    public static SystemMatchIndex build(final List<SystemDefinition> definitions) {
+        final Map<String, String> canonicalArchitectures = canonicalizeArchitectures(definitions);
+        final Map<String, List<Integer>> positions = new HashMap<String, List<Integer>>();
+        final List<Integer> unindexed = new ArrayList<Integer>();
+
+        for (int position = 0; position < definitions.size(); position++) {
+            final SystemDefinition definition = definitions.get(position);
+
+            if (!hasDefaultMatching(definition) || definition.getMatchingArchitectures().isEmpty()) {
+                unindexed.add(position);
+                continue;
+            }
+
+            final String canonicalArchitecture = canonicalArchitectures.get(definition.getMatchingArchitectures().get(0));
+            final String key = key(definition.getNormalizedOsName(), canonicalArchitecture, definition.getBitness());
+
+            List<Integer> keyPositions = positions.get(key);
+            if (keyPositions == null) {
+                keyPositions = new ArrayList<Integer>(2);
+                positions.put(key, keyPositions);
+            }
+
+            keyPositions.add(position);
+        }
+
+        final Map<String, int[]> indexedPositions = new HashMap<String, int[]>();
+        for (final Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+            indexedPositions.put(entry.getKey(), toArray(entry.getValue()));
+        }
+
+        return new SystemMatchIndex(definitions, canonicalArchitectures, indexedPositions, toArray(unindexed));
+    }
+
+    /**
+     * Returns the first definition (in declaration order) which matches the given properties.
+     *
+     * @param systemProperties
+     *         the properties to match, usually {@link CurrentSystemProperties#INSTANCE}.
+     * @return the first matching definition, or {@code null} if none matches.
+     */
+    public @Nullable SystemDefinition findMatch(final SystemProperties systemProperties) {
+        final @Nullable String canonicalArchitecture = this.canonicalArchitectures.get(systemProperties.getArchitecture());
+        int[] candidates = NO_POSITIONS;
+
+        if (canonicalArchitecture != null) {
+            final int[] indexed = this.indexedPositions.get(
+                    key(systemProperties.getNormalizedOsName(), canonicalArchitecture, systemProperties.getBitness()));
+
+            if (indexed != null) {
+                candidates = indexed;
+            }
+        }
+
+        // merge both ascending position lists, so declaration order is kept.
+        int indexedPosition = 0;
+        int unindexedPosition = 0;
+
+        while (indexedPosition < candidates.length || unindexedPosition < this.unindexedPositions.length) {
+            final int position;
+
+            if (unindexedPosition >= this.unindexedPositions.length
+                    || (indexedPosition < candidates.length && candidates[indexedPosition] < this.unindexedPositions[unindexedPosition])) {
+                position = candidates[indexedPosition++];
+            } else {
+                position = this.unindexedPositions[unindexedPosition++];
+            }
+
+            final SystemDefinition definition = this.definitions.get(position);
+
+            if (definition.matches(systemProperties)) {
+                return definition;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The definitions this index was built from.
+     *
+     * @return the definitions in order of priority.
+     */
+    public List<SystemDefinition> getDefinitions() {
+        return this.definitions;
+    }
+
+    /**
+     * Whether the definition uses one of the matching implementations which only match on
+     * os name, architecture alias and bitness (and optionally the qualifier).
+     */
+    private static boolean hasDefaultMatching(final SystemDefinition definition) {
+        try {
+            final Class<?> declaringClass = definition.getClass().getMethod("matches", SystemProperties.class).getDeclaringClass();
+
+            return declaringClass == AbstractOsNameArchBitnessMatchingSystem.class
+                    || declaringClass == AbstractArm32System.class;
+        } catch (final NoSuchMethodException noSuchMethodException) {
+            return false;
+        } catch (final SecurityException securityException) {
+            return false;
+        }
+    }
+
+    /**
+     * Maps every alias to the first alias of its group. Groups sharing an alias are merged, so the
+     * canonical name of an alias is the same for all definitions.
+     */
+    private static Map<String, String> canonicalizeArchitectures(final List<SystemDefinition> definitions) {
+        final Map<String, String> parents = new HashMap<String, String>();
+
+        for (final SystemDefinition definition : definitions) {
+            final List<String> aliases = definition.getMatchingArchitectures();
+
+            if (aliases.isEmpty()) {
+                continue;
+            }
+
+            final String first = find(parents, aliases.get(0));
+
+            for (final String alias : aliases) {
+                final String root = find(parents, alias);
+
+                if (!root.equals(first)) {
+                    parents.put(root, first);
+                }
+            }
+        }
+
+        final Map<String, String> canonical = new HashMap<String, String>();
+        for (final String alias : parents.keySet()) {
+            canonical.put(alias, find(parents, alias));
+        }
+
+        return Collections.unmodifiableMap(canonical);
+    }
+
+    private static String find(final Map<String, String> parents, final String alias) {
+        String current = alias;
+        String parent = parents.get(current);
+
+        if (parent == null) {
+            parents.put(current, current);
+
+            return current;
+        }
+
+        while (!parent.equals(current)) {
+            current = parent;
+            parent = parents.get(current);
+        }
+
+        return current;
+    }
+
+    private static String key(final String normalizedOsName, final String canonicalArchitecture, final Bitness bitness) {
+        return normalizedOsName + '/' + canonicalArchitecture + '/' + bitness.getBitness();
+    }
+
+    private static int[] toArray(final List<Integer> positions) {
+        final int[] array = new int[positions.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = positions.get(i);
+        }
+
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SystemMatchIndex{");
+        sb.append("definitions=").append(this.definitions.size());
+        sb.append(", keys=").append(this.indexedPositions.keySet());
+        sb.append(", unindexedPositions=").append(Arrays.toString(this.unindexedPositions));
+        sb.append('}');
+        return sb.toString();
+    }
+}
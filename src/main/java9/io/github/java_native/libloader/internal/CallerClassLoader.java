@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.util.Optional;
+
+/**
+ * Finds the class loader of the code calling into the lib loader using a {@link StackWalker}, for Java 9 and later.
+ *
+ * <p>The stack is walked lazily, so only the frames up to the first caller are materialized.<br></p>
+ */
+public final class CallerClassLoader {
+
+    private static final String LIBLOADER_PACKAGE = "io.github.java_native.libloader.";
+
+    private static final @Nullable StackWalker STACK_WALKER = createStackWalker();
+
+    private CallerClassLoader() {
+        // util class.
+    }
+
+    /**
+     * Returns the class loader of the first class on the call stack which is not part of the lib loader.
+     *
+     * @return the caller's class loader, or {@code null} if it is the bootstrap class loader or could not be determined.
+     */
+    public static @Nullable ClassLoader get() {
+        if (STACK_WALKER == null) {
+            return null;
+        }
+
+        final Optional<Class<?>> caller = STACK_WALKER.walk(frames -> frames
+                .<Class<?>>map(StackWalker.StackFrame::getDeclaringClass)
+                .filter(declaringClass -> !declaringClass.getName().startsWith(LIBLOADER_PACKAGE))
+                .findFirst());
+
+        return caller.isPresent() ? caller.get().getClassLoader() : null;
+    }
+
+    private static @Nullable StackWalker createStackWalker() {
+        try {
+            return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+        } catch (final SecurityException securityException) {
+            return null;
+        }
+    }
+}
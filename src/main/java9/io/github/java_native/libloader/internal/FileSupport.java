@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * File operations using NIO.2, for Java 9 and later.
+ *
+ * <p>{@link Files#move(Path, Path, java.nio.file.CopyOption...)} with {@code ATOMIC_MOVE} also replaces an
+ * existing target on Windows, where {@link File#renameTo(File)} fails, and reports why a move failed.<br></p>
+ */
+final class FileSupport {
+
+    private static final Logger LOG = Logger.getLogger(FileSupport.class.getName());
+
+    private FileSupport() {
+        // util class.
+    }
+
+    static boolean moveAtomically(final File source, final File target) {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+            return true;
+        } catch (final AtomicMoveNotSupportedException atomicMoveNotSupportedException) {
+            return source.renameTo(target);
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to move [" + source + "] to [" + target + "].", ioException);
+
+            return false;
+        }
+    }
+
+    static boolean createLink(final File link, final File existing) {
+        try {
+            Files.createLink(link.toPath(), existing.toPath());
+
+            return true;
+        } catch (final UnsupportedOperationException unsupportedOperationException) {
+            return false;
+        } catch (final IOException ioException) {
+            // e.g. FAT file systems, or the existing file was just deleted.
+            LOG.log(Level.FINE, "Unable to link [" + link + "] to [" + existing + "].", ioException);
+
+            return false;
+        }
+    }
+
+    static @Nullable Object getFileKey(final File file) {
+        try {
+            // e.g. device and inode on unix, null on windows.
+            return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+        } catch (final IOException ioException) {
+            return null;
+        }
+    }
+
+    static void setExecutable(final File file) {
+        final Path path = file.toPath();
+
+        if (Files.getFileAttributeView(path, PosixFileAttributeView.class) == null) {
+            //noinspection ResultOfMethodCallIgnored
+            file.setExecutable(true, false);
+
+            return;
+        }
+
+        try {
+            final Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path);
+            permissions.add(PosixFilePermission.OWNER_EXECUTE);
+            permissions.add(PosixFilePermission.GROUP_EXECUTE);
+            permissions.add(PosixFilePermission.OTHERS_EXECUTE);
+            Files.setPosixFilePermissions(path, permissions);
+        } catch (final IOException ioException) {
+            LOG.log(Level.FINE, "Unable to make [" + file + "] executable.", ioException);
+        }
+    }
+}
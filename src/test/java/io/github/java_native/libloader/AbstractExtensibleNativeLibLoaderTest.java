@@ -20,7 +20,9 @@ package io.github.java_native.libloader;
 import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
 import io.github.java_native.libloader.provider.BogoOs;
 import io.github.java_native.libloader.systems.SystemDefinition;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -44,4 +46,25 @@ public class AbstractExtensibleNativeLibLoaderTest {
         Assert.fail("BogoOs instance not found.");
     }
 
+    @Test
+    public void testEnsureSystemDetected_unsupportedIsRemembered() {
+        final AtomicInteger scans = new AtomicInteger();
+        final AbstractExtensibleNativeLibLoader libLoader = new AbstractExtensibleNativeLibLoader(
+                new DefaultLibLoaderConfig()) {
+            @Override
+            protected List<SystemDefinition> getSystemDefinitions() {
+                scans.incrementAndGet();
+
+                return Collections.emptyList();
+            }
+        };
+
+        libLoader.ensureSystemDetected();
+        libLoader.ensureSystemDetected();
+
+        Assert.assertTrue(libLoader.isUnsupportedPlatform());
+        Assert.assertNull(libLoader.getDetectedSystem());
+        Assert.assertEquals("definitions should only be scanned once.", 1, scans.get());
+    }
+
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.provider.AbstractLibLoaderListener;
+import io.github.java_native.libloader.provider.CountingLibLoaderListener;
+import io.github.java_native.libloader.provider.LibLoaderListener;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LibLoaderListenerTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ClassLoader previousContextClassLoader = Thread.currentThread().getContextClassLoader();
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(this.previousContextClassLoader);
+    }
+
+    @Test
+    public void testServiceLoaderListener_isNotified() {
+        final int detections = CountingLibLoaderListener.DETECTIONS.get();
+
+        new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig()).ensureSystemDetected();
+
+        Assert.assertEquals(detections + 1, CountingLibLoaderListener.DETECTIONS.get());
+    }
+
+    @Test
+    public void testConfigListener_events() throws IOException {
+        final File extractionDirectory = this.temporaryFolder.newFolder("extracted");
+        final DefaultLibLoaderConfig config = new DefaultLibLoaderConfig() {
+            @Override
+            public File getExtractionDirectory() {
+                return extractionDirectory;
+            }
+        };
+        final RecordingListener listener = new RecordingListener();
+        config.addLibLoaderListener(listener);
+        // a failing listener must not affect other listeners or the result.
+        config.addLibLoaderListener(new AbstractLibLoaderListener() {
+            @Override
+            public void onLoadCompleted(final LibLoaderResult result) {
+                throw new IllegalStateException("expected");
+            }
+        });
+
+        final ExtensibleNativeLibLoader libLoader = new ExtensibleNativeLibLoader(config);
+        final List<String> baselinePaths = libLoader.getLibraryPackagePath("listenertest");
+        final String resourcePath = baselinePaths.get(baselinePaths.size() - 1);
+        // includes the paths of system variants, e.g. for the C library, which are probed first.
+        final List<String> candidates = libLoader.getCandidatePaths("listenertest", null);
+        Thread.currentThread().setContextClassLoader(createJarClassLoader(resourcePath, new byte[128 * 1024]));
+
+        final LibLoaderResult first = libLoader.loadLibrary("listenertest");
+        libLoader.loadLibrary("listenertest");
+
+        Assert.assertFalse(first.isLoaded());
+        Assert.assertEquals("detected", listener.events.get(0));
+
+        final int misses = candidates.indexOf(resourcePath);
+        for (int i = 0; i < misses; i++) {
+            Assert.assertEquals("probe " + candidates.get(i) + " false", listener.events.get(1 + i));
+        }
+
+        Assert.assertEquals("probe " + resourcePath + " true", listener.events.get(1 + misses));
+        Assert.assertEquals("miss " + resourcePath, listener.events.get(2 + misses));
+        Assert.assertTrue(listener.events.contains("progress 131072"));
+        Assert.assertEquals("completed false", listener.events.get(listener.events.indexOf("progress 131072") + 1));
+        Assert.assertTrue(listener.events.contains("hit " + first.getLibraryFile().getName()));
+        Assert.assertEquals("completed false", listener.events.get(listener.events.size() - 1));
+    }
+
+    @Test
+    public void testListener_lookedUpOncePerCall() throws IOException {
+        final File extractionDirectory = this.temporaryFolder.newFolder("extracted");
+        final DefaultLibLoaderConfig config = new DefaultLibLoaderConfig() {
+            @Override
+            public File getExtractionDirectory() {
+                return extractionDirectory;
+            }
+        };
+        config.addLibLoaderListener(new RecordingListener());
+        final AtomicInteger lookups = new AtomicInteger();
+        final ExtensibleNativeLibLoader libLoader = new ExtensibleNativeLibLoader(config) {
+            @Override
+            protected @Nullable LibLoaderListener getListener() {
+                lookups.incrementAndGet();
+                return super.getListener();
+            }
+        };
+        final List<String> baselinePaths = libLoader.getLibraryPackagePath("listenertest");
+        Thread.currentThread().setContextClassLoader(createJarClassLoader(baselinePaths.get(baselinePaths.size() - 1), new byte[16]));
+        libLoader.ensureSystemDetected();
+        lookups.set(0);
+
+        // probes every candidate, extracts and completes.
+        libLoader.loadLibrary("listenertest");
+        Assert.assertEquals(1, lookups.get());
+
+        lookups.set(0);
+        libLoader.loadLibraries("listenertest", "listenermissing");
+        Assert.assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void testCombine_noListeners() {
+        Assert.assertNull(LibLoaderListeners.combine(Collections.<LibLoaderListener>emptyList(),
+                Collections.<LibLoaderListener>emptyList()));
+    }
+
+    private ClassLoader createJarClassLoader(final String resourcePath, final byte[] content) throws IOException {
+        final File jarFile = this.temporaryFolder.newFile("natives.jar");
+        final JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jarFile));
+
+        try {
+            jarOutputStream.putNextEntry(new JarEntry(resourcePath));
+            jarOutputStream.write(content);
+            jarOutputStream.closeEntry();
+        } finally {
+            jarOutputStream.close();
+        }
+
+        return new URLClassLoader(new URL[] {jarFile.toURI().toURL()}, null);
+    }
+
+    private static final class RecordingListener extends AbstractLibLoaderListener {
+
+        private final List<String> events = new CopyOnWriteArrayList<String>();
+
+        @Override
+        public void onSystemDetected(final @Nullable SystemDefinition system, final long durationNanos) {
+            this.events.add("detected");
+        }
+
+        @Override
+        public void onCandidateProbed(final String libraryName, final String candidatePath, final boolean found) {
+            this.events.add("probe " + candidatePath + " " + found);
+        }
+
+        @Override
+        public void onCacheHit(final String libraryName, final File libraryFile) {
+            this.events.add("hit " + libraryFile.getName());
+        }
+
+        @Override
+        public void onCacheMiss(final String libraryName, final String resourcePath) {
+            this.events.add("miss " + resourcePath);
+        }
+
+        @Override
+        public void onExtractionProgress(final String libraryName, final long extractedBytes, final long totalBytes) {
+            if (extractedBytes == totalBytes) {
+                this.events.add("progress " + extractedBytes);
+            }
+        }
+
+        @Override
+        public void onLoadCompleted(final LibLoaderResult result) {
+            this.events.add("completed " + result.isLoaded());
+        }
+    }
+}
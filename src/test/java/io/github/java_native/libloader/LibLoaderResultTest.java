@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import io.github.java_native.libloader.config.DefaultLibraryPathFormatter;
+import io.github.java_native.libloader.config.LibraryPathFormatter;
+import io.github.java_native.libloader.internal.Digests;
+import io.github.java_native.libloader.internal.NativesIndex;
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.systems.linux.LinuxX8664;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LibLoaderResultTest {
+
+    private static final String LIBRARY_NAME = "resulttest";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ClassLoader previousContextClassLoader;
+
+    private ExtensibleNativeLibLoader libLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        final File extractionDirectory = this.temporaryFolder.newFolder("extracted");
+        this.libLoader = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig() {
+            @Override
+            public File getExtractionDirectory() {
+                return extractionDirectory;
+            }
+        });
+
+        this.previousContextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(this.previousContextClassLoader);
+    }
+
+    @Test
+    public void testLoadLibrary_notFound() {
+        final LibLoaderResult result = this.libLoader.loadLibrary("nonexistent_library");
+
+        Assert.assertFalse(result.isLoaded());
+        Assert.assertNull(result.getResourcePath());
+        Assert.assertFalse(result.isExtractionCached());
+        Assert.assertEquals(0L, result.getTimings().getExtractedBytes());
+        Assert.assertEquals(0L, result.getTimings().getLoadNanos());
+        Assert.assertTrue(result.getTimings().getResourceLookupNanos() > 0L);
+    }
+
+    @Test
+    public void testLoadLibrary_extractedThenCached() throws IOException {
+        final String resourcePath = this.libLoader.getLibraryPackagePath(LIBRARY_NAME).get(0);
+        Thread.currentThread().setContextClassLoader(createJarClassLoader(resourcePath, new byte[1024]));
+
+        // not a valid library, but found and extracted.
+        final LibLoaderResult first = this.libLoader.loadLibrary(LIBRARY_NAME);
+        final LibLoaderResult second = this.libLoader.loadLibrary(LIBRARY_NAME);
+
+        Assert.assertFalse(first.isLoaded());
+        Assert.assertEquals(resourcePath, first.getResourcePath());
+        Assert.assertNull("the baseline build.", first.getVariant());
+        Assert.assertFalse(first.isExtractionCached());
+        Assert.assertEquals(1024L, first.getTimings().getExtractedBytes());
+        Assert.assertTrue(first.getTimings().getExtractionNanos() > 0L);
+        Assert.assertTrue(first.getTimings().getLoadNanos() > 0L);
+
+        Assert.assertTrue(second.isExtractionCached());
+        Assert.assertFalse(second.isPreviouslyLoaded());
+        Assert.assertEquals(0L, second.getTimings().getExtractedBytes());
+        Assert.assertEquals(first.getLibraryFile(), second.getLibraryFile());
+    }
+
+    @Test
+    public void testLoadLibrary_reportsVariant() throws IOException {
+        final File extractionDirectory = this.temporaryFolder.newFolder("variants");
+        final ExtensibleNativeLibLoader variantLibLoader = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig() {
+            @Override
+            public File getExtractionDirectory() {
+                return extractionDirectory;
+            }
+        }) {
+            @Override
+            protected List<String> getSystemVariants() {
+                return Arrays.asList("avx512", "avx2");
+            }
+        };
+        variantLibLoader.ensureSystemDetected();
+        final String resourcePath = DefaultLibraryPathFormatter.getVariantPaths(variantLibLoader.getDetectedSystem(), LIBRARY_NAME, null,
+                Collections.singletonList("avx2")).get(0);
+        Thread.currentThread().setContextClassLoader(createJarClassLoader(resourcePath, new byte[1024]));
+
+        final LibLoaderResult result = variantLibLoader.loadLibrary(LIBRARY_NAME);
+
+        Assert.assertEquals(resourcePath, result.getResourcePath());
+        Assert.assertEquals("avx2", result.getVariant());
+    }
+
+    @Test
+    public void testGetCandidatePaths_variantsOnlyFromIndex() throws IOException {
+        final List<String> variants = new ArrayList<String>(Arrays.asList("avx512", "avx2"));
+
+        for (int minor = 36; minor >= 17; minor--) {
+            variants.add("glibc2." + minor);
+        }
+
+        final ExtensibleNativeLibLoader variantLibLoader = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig()) {
+            @Override
+            protected List<String> getSystemVariants() {
+                return variants;
+            }
+        };
+        variantLibLoader.setDetectedSystem(new LinuxX8664());
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[0], null));
+
+        // two CPU tiers and the baseline, without compressed paths as nothing is indexed.
+        Assert.assertEquals(3, variantLibLoader.getCandidatePaths(LIBRARY_NAME, null).size());
+        Assert.assertEquals(6, variantLibLoader.getCandidatePaths(LIBRARY_NAME, "1.0").size());
+
+        final String glibcPath = "natives/linux-x86_64-64-glibc2.28/lib" + LIBRARY_NAME + ".so";
+        final String index = "# native-libloader index 1\n" + glibcPath + " 1 0 " + Digests.toHex(new byte[32]) + "\n";
+        final URL indexedJar = createJar("indexed.jar", glibcPath, new byte[1], index);
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {indexedJar}, null));
+
+        final List<String> candidates = variantLibLoader.getCandidatePaths(LIBRARY_NAME, null);
+        Assert.assertEquals("the CPU tiers are not indexed either.", 2, candidates.size());
+        Assert.assertEquals(glibcPath, candidates.get(0));
+    }
+
+    @Test
+    public void testGetCandidatePaths_overrideBeforeVariants() {
+        final ExtensibleNativeLibLoader variantLibLoader = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig() {
+            @Override
+            public LibraryPathFormatter getLibraryPathFormatter() {
+                return new DefaultLibraryPathFormatter("natives/custom") {
+                };
+            }
+        }) {
+            @Override
+            protected List<String> getSystemVariants() {
+                return Collections.singletonList("avx2");
+            }
+        };
+        variantLibLoader.setDetectedSystem(new LinuxX8664());
+
+        final List<String> candidates = variantLibLoader.getCandidatePaths(LIBRARY_NAME, "1.0");
+
+        Assert.assertEquals(Arrays.asList(
+                "natives/linux-x86_64-64-avx2/lib" + LIBRARY_NAME + "-1.0.so",
+                "natives/linux-x86_64-64/lib" + LIBRARY_NAME + "-1.0.so",
+                "natives/custom/lib" + LIBRARY_NAME + ".so",
+                "natives/linux-x86_64-64-avx2/lib" + LIBRARY_NAME + ".so",
+                "natives/linux-x86_64-64/lib" + LIBRARY_NAME + ".so"), withoutCompressedPaths(candidates));
+    }
+
+    @Test
+    public void testLoadLibrary_notProbedIfEveryJarIsIndexed() throws IOException {
+        final String resourcePath = this.libLoader.getLibraryPackagePath(LIBRARY_NAME).get(0);
+        final byte[] content = new byte[1024];
+        final CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        final String index = "# native-libloader index 1\n" + resourcePath + " " + content.length + " "
+                + Long.toHexString(crc32.getValue()) + " " + Digests.toHex(new byte[32]) + "\n";
+        Thread.currentThread().setContextClassLoader(
+                new URLClassLoader(new URL[] {createJar("indexed.jar", resourcePath, content, index)}, null));
+        final File extractionDirectory = this.temporaryFolder.newFolder("probes");
+        final AtomicInteger probes = new AtomicInteger();
+        final ExtensibleNativeLibLoader probingLibLoader = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig() {
+            @Override
+            public File getExtractionDirectory() {
+                return extractionDirectory;
+            }
+        }) {
+            @Override
+            protected @Nullable URL findResource(final String libraryPackagePath) {
+                probes.incrementAndGet();
+
+                return super.findResource(libraryPackagePath);
+            }
+
+            @Override
+            protected List<String> getSystemVariants() {
+                return Collections.singletonList("avx2");
+            }
+        };
+
+        final LibLoaderResult found = probingLibLoader.loadLibrary(LIBRARY_NAME);
+        final LibLoaderResult missing = probingLibLoader.loadLibrary("nonexistent_library");
+
+        Assert.assertEquals(resourcePath, found.getResourcePath());
+        Assert.assertNull(missing.getResourcePath());
+        Assert.assertEquals("an index miss is definitive if every jar is indexed.", 0, probes.get());
+    }
+
+    @Test
+    public void testLoadLibrary_compressedProbedOnlyIfIndexedOrEnabled() throws IOException {
+        final String resourcePath = this.libLoader.getLibraryPackagePath(LIBRARY_NAME).get(0);
+        final String compressedPath = resourcePath + DefaultLibraryPathFormatter.COMPRESSED_SUFFIX;
+        Thread.currentThread().setContextClassLoader(createJarClassLoader("natives/other/libother.so", new byte[1]));
+        final DefaultLibLoaderConfig config = new DefaultLibLoaderConfig();
+        final AtomicInteger probes = new AtomicInteger();
+        final ExtensibleNativeLibLoader probingLibLoader = new ExtensibleNativeLibLoader(config) {
+            @Override
+            protected @Nullable URL findResource(final String libraryPackagePath) {
+                probes.incrementAndGet();
+
+                return super.findResource(libraryPackagePath);
+            }
+
+            @Override
+            protected List<String> getSystemVariants() {
+                return Collections.emptyList();
+            }
+        };
+        final int plainCandidates = this.libLoader.getLibraryPackagePath(LIBRARY_NAME).size();
+
+        Assert.assertFalse(probingLibLoader.loadLibrary(LIBRARY_NAME).isLoaded());
+        Assert.assertEquals("one lookup per candidate without an index.", plainCandidates, probes.get());
+
+        config.setCompressedNatives(true);
+        probes.set(0);
+        Assert.assertFalse(probingLibLoader.loadLibrary(LIBRARY_NAME).isLoaded());
+        Assert.assertEquals(2 * plainCandidates, probes.get());
+
+        config.setCompressedNatives(false);
+        final String index = "# native-libloader index 1\n" + compressedPath + " 1 0 " + Digests.toHex(new byte[32]) + "\n";
+        Thread.currentThread().setContextClassLoader(
+                new URLClassLoader(new URL[] {createJar("indexed.jar", compressedPath, new byte[1], index)}, null));
+
+        final List<String> candidates = probingLibLoader.getCandidatePaths(LIBRARY_NAME, null);
+
+        Assert.assertEquals(plainCandidates + 1, candidates.size());
+        Assert.assertEquals(compressedPath, candidates.get(candidates.indexOf(resourcePath) + 1));
+    }
+
+    @Test
+    public void testLoadLibrary_indexDoesNotOverrideMoreSpecificCandidate() throws IOException {
+        final String versionedPath = this.libLoader.getLibraryPackagePath(LIBRARY_NAME, "1.0").get(0);
+        final String unversionedPath = this.libLoader.getLibraryPackagePath(LIBRARY_NAME).get(0);
+        final byte[] content = new byte[1024];
+        final CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        final String index = "# native-libloader index 1\n" + unversionedPath + " " + content.length + " "
+                + Long.toHexString(crc32.getValue()) + " " + Digests.toHex(new byte[32]) + "\n";
+
+        final URL indexedJar = createJar("indexed.jar", unversionedPath, content, index);
+        final URL plainJar = createJar("plain.jar", versionedPath, content, null);
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[] {indexedJar, plainJar}, null));
+
+        final LibLoaderResult result = this.libLoader.loadLibrary(LIBRARY_NAME, "1.0");
+
+        Assert.assertEquals("the versioned candidate is preferred, even if it is not indexed.", versionedPath, result.getResourcePath());
+    }
+
+    private static List<String> withoutCompressedPaths(final List<String> candidates) {
+        final List<String> paths = new ArrayList<String>();
+
+        for (final String candidate : candidates) {
+            if (!candidate.endsWith(DefaultLibraryPathFormatter.COMPRESSED_SUFFIX)) {
+                paths.add(candidate);
+            }
+        }
+
+        return paths;
+    }
+
+    private ClassLoader createJarClassLoader(final String resourcePath, final byte[] content) throws IOException {
+        return new URLClassLoader(new URL[] {createJar("natives.jar", resourcePath, content, null)}, null);
+    }
+
+    private URL createJar(final String name, final String resourcePath, final byte[] content, final @Nullable String index) throws IOException {
+        final File jarFile = this.temporaryFolder.newFile(name);
+        final JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jarFile));
+
+        try {
+            jarOutputStream.putNextEntry(new JarEntry(resourcePath));
+            jarOutputStream.write(content);
+            jarOutputStream.closeEntry();
+
+            if (index != null) {
+                jarOutputStream.putNextEntry(new JarEntry(NativesIndex.INDEX_PATH));
+                jarOutputStream.write(index.getBytes("UTF-8"));
+                jarOutputStream.closeEntry();
+            }
+        } finally {
+            jarOutputStream.close();
+        }
+
+        return jarFile.toURI().toURL();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.provider.LibLoaderListener;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LibLoaderWarmUpTest {
+
+    @After
+    public void tearDown() {
+        LoadedLibraryRegistry.clear();
+    }
+
+    @Test
+    public void testWarmUp_awaitTimesOutUntilResolved() throws InterruptedException {
+        final BlockingLibLoader libLoader = new BlockingLibLoader();
+
+        final LibLoaderWarmUp warmUp = libLoader.warmUp("foo", "bar");
+
+        Assert.assertFalse("resolution is still blocked.", warmUp.await(10L, TimeUnit.MILLISECONDS));
+        Assert.assertFalse(warmUp.isDone());
+
+        libLoader.release.countDown();
+
+        Assert.assertTrue(warmUp.await(10L, TimeUnit.SECONDS));
+        final Map<String, LibLoaderResult> results = warmUp.getResults();
+        Assert.assertEquals(2, results.size());
+        Assert.assertTrue(results.get("foo").isLoaded());
+
+        // the warmed up library is not resolved again.
+        Assert.assertTrue(libLoader.loadLibrary("foo").isPreviouslyLoaded());
+        Assert.assertEquals(2, libLoader.resolved.get());
+    }
+
+    @Test
+    public void testWarmUp_executorRegistersForCallerClassLoader() throws InterruptedException {
+        final BlockingLibLoader libLoader = new BlockingLibLoader();
+        libLoader.release.countDown();
+
+        final ClassLoader callerClassLoader = Thread.currentThread().getContextClassLoader();
+        final ClassLoader executorClassLoader = new URLClassLoader(new URL[0], callerClassLoader);
+
+        final LibLoaderWarmUp warmUp = libLoader.warmUp(new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                final Thread thread = new Thread(command);
+                thread.setContextClassLoader(executorClassLoader);
+                thread.start();
+            }
+        }, Collections.singletonList("foo"));
+
+        Assert.assertTrue(warmUp.getResults().get("foo").isLoaded());
+        Assert.assertNotNull(LoadedLibraryRegistry.get(callerClassLoader, "foo", null));
+        Assert.assertNull(LoadedLibraryRegistry.get(executorClassLoader, "foo", null));
+    }
+
+    @Test
+    public void testWarmUp_invalidNameIsReportedByResults() throws InterruptedException {
+        final LibLoaderWarmUp warmUp = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig()).warmUp("foo/bar");
+
+        try {
+            warmUp.getResults();
+            Assert.fail("the library name contains a path separator.");
+        } catch (final IllegalArgumentException expected) {
+            Assert.assertTrue(warmUp.isDone());
+        }
+    }
+
+    @Test
+    public void testWarmUp_unsupportedSystemFailsEachLibrary() throws InterruptedException {
+        final ExtensibleNativeLibLoader libLoader = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig()) {
+            @Override
+            protected List<SystemDefinition> getSystemDefinitions() {
+                return Collections.emptyList();
+            }
+        };
+
+        final Map<String, LibLoaderResult> results = libLoader.warmUp("foo", "bar").getResults();
+
+        Assert.assertEquals(2, results.size());
+
+        for (final LibLoaderResult result : results.values()) {
+            Assert.assertFalse(result.isLoaded());
+            Assert.assertTrue(String.valueOf(result.getError()), result.getError() instanceof UnsatisfiedLinkError);
+        }
+    }
+
+    private static final class BlockingLibLoader extends ExtensibleNativeLibLoader {
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private final AtomicInteger resolved = new AtomicInteger();
+
+        BlockingLibLoader() {
+            super(new DefaultLibLoaderConfig());
+        }
+
+        @Override
+        protected ResolvedLibrary resolve(final String libraryName,
+                                          final @Nullable String version,
+                                          final @Nullable LibLoaderListener listener) {
+            this.resolved.incrementAndGet();
+
+            try {
+                this.release.await();
+            } catch (final InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            return ResolvedLibrary.failed(libraryName, new UnsatisfiedLinkError());
+        }
+
+        @Override
+        protected LibLoaderResult load(final ResolvedLibrary resolvedLibrary) {
+            // pretend System.load succeeded.
+            return DefaultLibLoaderResult.success(resolvedLibrary.getLibraryName(), new File("lib" + resolvedLibrary.getLibraryName() + ".so"));
+        }
+    }
+}
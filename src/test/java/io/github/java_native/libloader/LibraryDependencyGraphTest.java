@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class LibraryDependencyGraphTest {
+
+    @Rule
+    public final ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void testLoadOrder_noDependencies() {
+        final List<String> loadOrder = LibraryDependencyGraph.getLoadOrder(Arrays.asList("c", "a", "b"),
+                Collections.<String, Collection<String>>emptyMap());
+
+        Assert.assertEquals(Arrays.asList("c", "a", "b"), loadOrder);
+    }
+
+    @Test
+    public void testLoadOrder_dependenciesFirst() {
+        final Map<String, Collection<String>> dependencies = new HashMap<String, Collection<String>>();
+        dependencies.put("app", Arrays.asList("ssl", "z"));
+        dependencies.put("ssl", Collections.singletonList("crypto"));
+
+        final List<String> loadOrder = LibraryDependencyGraph.getLoadOrder(Arrays.asList("app", "other"), dependencies);
+
+        Assert.assertEquals(Arrays.asList("crypto", "ssl", "z", "app", "other"), loadOrder);
+    }
+
+    @Test
+    public void testLoadOrder_cycle() {
+        final Map<String, Collection<String>> dependencies = new HashMap<String, Collection<String>>();
+        dependencies.put("a", Collections.singletonList("b"));
+        dependencies.put("b", Collections.singletonList("a"));
+
+        this.expectedException.expect(IllegalArgumentException.class);
+        LibraryDependencyGraph.getLoadOrder(Collections.singletonList("a"), dependencies);
+    }
+
+    @Test
+    public void testLoadOrder_nullMeansNoDependencies() {
+        final Map<String, Collection<String>> dependencies = new HashMap<String, Collection<String>>();
+        dependencies.put("a", null);
+
+        Assert.assertEquals(Arrays.asList("a", "b"), LibraryDependencyGraph.getLoadOrder(Arrays.asList("a", "b"), dependencies));
+    }
+
+    @Test
+    public void testLoadOrder_nullDependency() {
+        final Map<String, Collection<String>> dependencies = new HashMap<String, Collection<String>>();
+        dependencies.put("a", Collections.<String>singletonList(null));
+
+        this.expectedException.expect(IllegalArgumentException.class);
+        this.expectedException.expectMessage("[a]");
+        LibraryDependencyGraph.getLoadOrder(Collections.singletonList("a"), dependencies);
+    }
+
+    @Test
+    public void testLoadLibraries_failedDependency() {
+        final NativeLibLoader libLoader = LibLoader.getLibLoader();
+        final Map<String, Collection<String>> dependencies = new HashMap<String, Collection<String>>();
+        dependencies.put("nonexistent_app", Collections.singletonList("nonexistent_dependency"));
+
+        final Map<String, LibLoaderResult> results = libLoader.loadLibraries(
+                Collections.singletonList("nonexistent_app"), dependencies);
+
+        Assert.assertEquals(Arrays.asList("nonexistent_dependency", "nonexistent_app"),
+                Arrays.asList(results.keySet().toArray()));
+        Assert.assertFalse(results.get("nonexistent_dependency").isLoaded());
+        Assert.assertFalse(results.get("nonexistent_app").isLoaded());
+        Assert.assertTrue(results.get("nonexistent_app").getError().getMessage().contains("nonexistent_dependency"));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import io.github.java_native.libloader.config.DefaultLibraryPathFormatter;
+import io.github.java_native.libloader.config.LibLoaderConfig;
+import io.github.java_native.libloader.config.LibraryPathFormatter;
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.provider.LibLoaderListener;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LoadedLibraryRegistryTest {
+
+    @After
+    public void tearDown() {
+        LoadedLibraryRegistry.clear();
+    }
+
+    @Test
+    public void testLoadLibrary_secondCallIsNotResolvedAgain() {
+        final CountingLibLoader first = new CountingLibLoader();
+        final CountingLibLoader second = new CountingLibLoader();
+
+        final LibLoaderResult firstResult = first.loadLibrary("foo");
+        final LibLoaderResult secondResult = second.loadLibrary("foo");
+
+        Assert.assertTrue(firstResult.isLoaded());
+        Assert.assertFalse(firstResult.isPreviouslyLoaded());
+        Assert.assertTrue(secondResult.isPreviouslyLoaded());
+        Assert.assertEquals(firstResult.getLibraryFile(), secondResult.getLibraryFile());
+        Assert.assertSame(secondResult, first.loadLibrary("foo"));
+        Assert.assertEquals(1, first.resolved.get());
+        Assert.assertEquals(0, second.resolved.get());
+    }
+
+    @Test
+    public void testLoadLibrary_sharedAcrossConfigs() {
+        final CountingLibLoader first = new CountingLibLoader();
+        final File preparedDirectory = new File("prepared");
+        final CountingLibLoader second = new CountingLibLoader(new DefaultLibLoaderConfig() {
+            @Override
+            public LibraryPathFormatter getLibraryPathFormatter() {
+                return new DefaultLibraryPathFormatter("natives/custom") {
+                };
+            }
+
+            @Override
+            public File getPreparedDirectory() {
+                return preparedDirectory;
+            }
+        });
+
+        final LibLoaderResult firstResult = first.loadLibrary("foo");
+        final LibLoaderResult secondResult = second.loadLibrary("foo");
+
+        Assert.assertTrue(secondResult.isPreviouslyLoaded());
+        Assert.assertEquals("the first load decides the file for the class loader.", firstResult.getLibraryFile(), secondResult.getLibraryFile());
+        Assert.assertEquals(0, second.resolved.get());
+    }
+
+    @Test
+    public void testLoadLibrary_versionIsPartOfTheKey() {
+        final CountingLibLoader libLoader = new CountingLibLoader();
+
+        libLoader.loadLibrary("foo");
+        libLoader.loadLibrary("foo", "1.0.0");
+        libLoader.loadLibrary("foo", "1.0.0");
+
+        Assert.assertEquals(2, libLoader.resolved.get());
+    }
+
+    @Test
+    public void testRegister_failuresAreNotRegistered() {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final LibLoaderResult failure = DefaultLibLoaderResult.failure("foo", null, new UnsatisfiedLinkError());
+
+        Assert.assertSame(failure, LoadedLibraryRegistry.register(classLoader, null, failure));
+        Assert.assertNull(LoadedLibraryRegistry.get(classLoader, "foo", null));
+    }
+
+    @Test
+    public void testRegister_perClassLoader() {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final ClassLoader otherClassLoader = new URLClassLoader(new URL[0], classLoader);
+        final LibLoaderResult success = DefaultLibLoaderResult.success("foo", new File("libfoo.so"));
+
+        LoadedLibraryRegistry.register(classLoader, null, success);
+
+        Assert.assertEquals(success.getLibraryFile(), LoadedLibraryRegistry.get(classLoader, "foo", null).getLibraryFile());
+        Assert.assertNull(LoadedLibraryRegistry.get(otherClassLoader, "foo", null));
+    }
+
+    @Test
+    public void testRegister_firstResultWins() {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final LibLoaderResult first = DefaultLibLoaderResult.success("foo", new File("first/libfoo.so"));
+        final LibLoaderResult second = DefaultLibLoaderResult.success("foo", new File("second/libfoo.so"));
+
+        Assert.assertSame(first, LoadedLibraryRegistry.register(classLoader, null, first));
+        Assert.assertEquals(first.getLibraryFile(), LoadedLibraryRegistry.register(classLoader, null, second).getLibraryFile());
+    }
+
+    private static final class CountingLibLoader extends ExtensibleNativeLibLoader {
+
+        private final AtomicInteger resolved = new AtomicInteger();
+
+        CountingLibLoader() {
+            this(new DefaultLibLoaderConfig());
+        }
+
+        CountingLibLoader(final LibLoaderConfig config) {
+            super(config);
+        }
+
+        @Override
+        protected ResolvedLibrary resolve(final String libraryName,
+                                          final @Nullable String version,
+                                          final @Nullable LibLoaderListener listener) {
+            this.resolved.incrementAndGet();
+
+            return ResolvedLibrary.failed(libraryName, new UnsatisfiedLinkError());
+        }
+
+        @Override
+        protected LibLoaderResult load(final ResolvedLibrary resolvedLibrary) {
+            // pretend System.load succeeded.
+            return DefaultLibLoaderResult.success(resolvedLibrary.getLibraryName(), new File("libfoo.so"));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.provider.LibLoaderListener;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NativesAgentTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testParseLibraries() {
+        Assert.assertEquals(Arrays.asList("foo", "bar@1.2.3", "baz"), NativesAgent.parseLibraries(" foo,bar@1.2.3 ,, baz "));
+        Assert.assertEquals(Collections.<String>emptyList(), NativesAgent.parseLibraries(null));
+    }
+
+    @Test
+    public void testGetManifestLibraries() throws IOException {
+        final File manifestDirectory = this.temporaryFolder.newFolder("META-INF");
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(NativesAgent.PRELOAD_ATTRIBUTE, "foo bar@2");
+
+        final FileOutputStream outputStream = new FileOutputStream(new File(manifestDirectory, "MANIFEST.MF"));
+
+        try {
+            manifest.write(outputStream);
+        } finally {
+            outputStream.close();
+        }
+
+        final ClassLoader classLoader = new URLClassLoader(new URL[] {this.temporaryFolder.getRoot().toURI().toURL()}, null);
+
+        Assert.assertEquals(Arrays.asList("foo", "bar@2"), NativesAgent.getManifestLibraries(classLoader));
+    }
+
+    @Test
+    public void testStartPreload_runsOnDaemonThread() throws InterruptedException {
+        final Thread thread = NativesAgent.startPreload(null, new URLClassLoader(new URL[0], null));
+
+        Assert.assertTrue(thread.isDaemon());
+        thread.join(10000L);
+        Assert.assertFalse("nothing to preload.", thread.isAlive());
+    }
+
+    @Test
+    public void testPreload_resolvesWithoutLoading() throws InterruptedException {
+        final RecordingLibLoader libLoader = new RecordingLibLoader();
+
+        final ExecutorService executorService = NativesAgent.preload(libLoader, Arrays.asList("foo", "bar@1.2.3", "in/valid"));
+
+        Assert.assertTrue(executorService.awaitTermination(10L, TimeUnit.SECONDS));
+        Assert.assertEquals(2, libLoader.resolved.size());
+        Assert.assertTrue(libLoader.resolved.contains("foo@null"));
+        Assert.assertTrue(libLoader.resolved.contains("bar@1.2.3"));
+    }
+
+    private static final class RecordingLibLoader extends ExtensibleNativeLibLoader {
+
+        private final Set<String> resolved = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        RecordingLibLoader() {
+            super(new DefaultLibLoaderConfig());
+        }
+
+        @Override
+        protected ResolvedLibrary resolve(final String libraryName,
+                                          final @Nullable String version,
+                                          final @Nullable LibLoaderListener listener) {
+            if (libraryName.contains("/")) {
+                throw new IllegalArgumentException("path separator");
+            }
+
+            this.resolved.add(libraryName + "@" + version);
+
+            return ResolvedLibrary.failed(libraryName, new UnsatisfiedLinkError());
+        }
+
+        @Override
+        protected LibLoaderResult load(final ResolvedLibrary resolvedLibrary) {
+            throw new AssertionError("the agent must not load libraries.");
+        }
+    }
+}
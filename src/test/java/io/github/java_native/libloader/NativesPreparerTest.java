@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import io.github.java_native.libloader.internal.Digests;
+import io.github.java_native.libloader.internal.ExtractionCache;
+import io.github.java_native.libloader.internal.NativesIndex;
+import io.github.java_native.libloader.internal.PreparedNatives;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NativesPreparerTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ClassLoader previousContextClassLoader = Thread.currentThread().getContextClassLoader();
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(this.previousContextClassLoader);
+    }
+
+    @Test
+    public void testPrepare_thenLoadFromPreparedDirectory() throws IOException {
+        final ExtensibleNativeLibLoader probe = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig());
+        final String unversionedPath = probe.getLibraryPackagePath("preparertest").get(0);
+        final String versionedPath = probe.getLibraryPackagePath("preparertest", "1.0").get(0);
+        Thread.currentThread().setContextClassLoader(createJarClassLoader(unversionedPath, versionedPath));
+
+        final File preparedDirectory = this.temporaryFolder.newFolder("prepared");
+        final Map<String, File> prepared = NativesPreparer.prepare(preparedDirectory,
+                Arrays.asList("preparertest", "preparertest@1.0"));
+
+        Assert.assertEquals(2, prepared.size());
+        Assert.assertTrue(new File(preparedDirectory, PreparedNatives.MANIFEST_FILE_NAME).isFile());
+        Assert.assertFalse(prepared.get("preparertest").equals(prepared.get("preparertest@1.0")));
+
+        // the natives jar is no longer needed.
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[0], null));
+        final ExtensibleNativeLibLoader libLoader = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig() {
+            @Override
+            public File getPreparedDirectory() {
+                return preparedDirectory;
+            }
+        });
+
+        final LibLoaderResult result = libLoader.loadLibrary("preparertest", "1.0");
+
+        Assert.assertEquals(prepared.get("preparertest@1.0"), result.getLibraryFile());
+        Assert.assertTrue(result.isExtractionCached());
+        Assert.assertEquals("no candidates are generated.", 0L, result.getTimings().getCandidateGenerationNanos());
+        Assert.assertFalse("not prepared, so it is looked up as usual.", libLoader.loadLibrary("unprepared").isLoaded());
+    }
+
+    @Test
+    public void testPrepare_allIndexedLibrariesByDefault() throws IOException {
+        final ExtensibleNativeLibLoader probe = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig());
+        final String unversionedPath = probe.getLibraryPackagePath("preparertest").get(0);
+        final String versionedPath = probe.getLibraryPackagePath("preparertest", "1.0").get(0);
+        final String foreignPath = "natives/bogo-os-x86_64-64/preparertest.dll";
+        Thread.currentThread().setContextClassLoader(createIndexedJarClassLoader(unversionedPath, versionedPath, foreignPath));
+
+        final File preparedDirectory = this.temporaryFolder.newFolder("indexed");
+        final Map<String, File> prepared = NativesPreparer.prepare(preparedDirectory, Collections.<String>emptyList());
+
+        Assert.assertEquals(new TreeSet<String>(Arrays.asList("preparertest", "preparertest@1.0")), prepared.keySet());
+    }
+
+    @Test
+    public void testPrepare_addsToExistingManifest() throws IOException {
+        final ExtensibleNativeLibLoader probe = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig());
+        final String unversionedPath = probe.getLibraryPackagePath("preparertest").get(0);
+        final String versionedPath = probe.getLibraryPackagePath("preparertest", "1.0").get(0);
+        Thread.currentThread().setContextClassLoader(createJarClassLoader(unversionedPath, versionedPath));
+
+        final File preparedDirectory = this.temporaryFolder.newFolder("merged");
+        final File first = NativesPreparer.prepare(preparedDirectory, Collections.singletonList("preparertest")).get("preparertest");
+        NativesPreparer.prepare(preparedDirectory, Collections.singletonList("preparertest@1.0"));
+
+        final PreparedNatives preparedNatives = PreparedNatives.forDirectory(preparedDirectory);
+        Assert.assertEquals(first, new File(preparedDirectory, preparedNatives.findPath("preparertest", null)));
+        Assert.assertNotNull(preparedNatives.findPath("preparertest", "1.0"));
+    }
+
+    @Test
+    public void testLoad_changedPreparedFileIsLookedUp() throws IOException {
+        final String resourcePath = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig()).getLibraryPackagePath("preparertest").get(0);
+        Thread.currentThread().setContextClassLoader(createJarClassLoader(resourcePath));
+        final File preparedDirectory = this.temporaryFolder.newFolder("changed");
+        final File libraryFile = NativesPreparer.prepare(preparedDirectory, Collections.singletonList("preparertest")).get("preparertest");
+        Assert.assertTrue(PreparedNatives.forDirectory(preparedDirectory).isIntact("preparertest", null));
+
+        // same size, other content.
+        final FileOutputStream outputStream = new FileOutputStream(libraryFile);
+        try {
+            outputStream.write(new byte[] {9, 9, 9, 9});
+        } finally {
+            outputStream.close();
+        }
+
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[0], null));
+        final ExtensibleNativeLibLoader libLoader = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig() {
+            @Override
+            public File getPreparedDirectory() {
+                return preparedDirectory;
+            }
+        });
+
+        final LibLoaderResult result = libLoader.loadLibrary("preparertest");
+
+        Assert.assertFalse(PreparedNatives.forDirectory(preparedDirectory).isIntact("preparertest", null));
+        Assert.assertNull("the changed file must not be loaded.", result.getLibraryFile());
+    }
+
+    @Test
+    public void testLoad_preparedForOtherSystemIsLookedUp() throws IOException {
+        final File preparedDirectory = this.temporaryFolder.newFolder("foreign");
+        final File libraryFile = new File(preparedDirectory, "preparertest.dll");
+        Assert.assertTrue(libraryFile.createNewFile());
+        PreparedNatives.writeManifest(preparedDirectory, "bogo-os-x86_64-64",
+                Collections.singletonMap(PreparedNatives.getKey("preparertest", null), libraryFile));
+
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[0], null));
+        final ExtensibleNativeLibLoader libLoader = new ExtensibleNativeLibLoader(new DefaultLibLoaderConfig() {
+            @Override
+            public File getPreparedDirectory() {
+                return preparedDirectory;
+            }
+        });
+
+        final LibLoaderResult result = libLoader.loadLibrary("preparertest");
+
+        Assert.assertFalse(result.isLoaded());
+        Assert.assertNull("the binary of the other system must not be loaded.", result.getLibraryFile());
+    }
+
+    @Test
+    public void testLoad_preparedVariantIsChecked() throws IOException {
+        final File preparedDirectory = this.temporaryFolder.newFolder("variant");
+        final File libraryFile = new File(preparedDirectory, "preparertest.so");
+        Assert.assertTrue(libraryFile.createNewFile());
+        final DefaultLibLoaderConfig config = new DefaultLibLoaderConfig() {
+            @Override
+            public File getPreparedDirectory() {
+                return preparedDirectory;
+            }
+        };
+        final ExtensibleNativeLibLoader libLoader = new ExtensibleNativeLibLoader(config) {
+            @Override
+            protected List<String> getSystemVariants() {
+                return Collections.singletonList("avx2");
+            }
+        };
+        libLoader.ensureSystemDetected();
+        final String system = ExtractionCache.getSystemIdentifier(libLoader.getDetectedSystem());
+        PreparedNatives.writeManifest(preparedDirectory, system,
+                Collections.singletonMap(PreparedNatives.getKey("preparertest", null), libraryFile),
+                Collections.singletonMap(PreparedNatives.getKey("preparertest", null), "avx2"));
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(new URL[0], null));
+
+        final LibLoaderResult supported = libLoader.loadLibrary("preparertest");
+
+        Assert.assertEquals(libraryFile, supported.getLibraryFile());
+        Assert.assertEquals("avx2", supported.getVariant());
+
+        final ExtensibleNativeLibLoader baselineLibLoader = new ExtensibleNativeLibLoader(config) {
+            @Override
+            protected List<String> getSystemVariants() {
+                return Collections.emptyList();
+            }
+        };
+
+        final LibLoaderResult unsupported = baselineLibLoader.loadLibrary("preparertest");
+
+        Assert.assertNull("the avx2 build must not be loaded.", unsupported.getLibraryFile());
+    }
+
+    private ClassLoader createJarClassLoader(final String... paths) throws IOException {
+        return createJarClassLoader(false, paths);
+    }
+
+    private ClassLoader createIndexedJarClassLoader(final String... paths) throws IOException {
+        return createJarClassLoader(true, paths);
+    }
+
+    private ClassLoader createJarClassLoader(final boolean indexed, final String... paths) throws IOException {
+        final File jarFile = this.temporaryFolder.newFile("natives.jar");
+        final JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jarFile));
+        final StringBuilder index = new StringBuilder("# native-libloader index 1\n");
+
+        try {
+            for (int i = 0; i < paths.length; i++) {
+                final byte[] content = new byte[] {(byte) i, 1, 2, 3};
+                final CRC32 crc32 = new CRC32();
+                crc32.update(content);
+                index.append(paths[i]).append(' ').append(content.length).append(' ').append(Long.toHexString(crc32.getValue()))
+                        .append(' ').append(Digests.toHex(new byte[32])).append('\n');
+
+                jarOutputStream.putNextEntry(new JarEntry(paths[i]));
+                jarOutputStream.write(content);
+                jarOutputStream.closeEntry();
+            }
+
+            if (indexed) {
+                jarOutputStream.putNextEntry(new JarEntry(NativesIndex.INDEX_PATH));
+                jarOutputStream.write(index.toString().getBytes("UTF-8"));
+                jarOutputStream.closeEntry();
+            }
+        } finally {
+            jarOutputStream.close();
+        }
+
+        return new URLClassLoader(new URL[] {jarFile.toURI().toURL()}, null);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader;
+
+import io.github.java_native.libloader.provider.AbstractLibLoaderListener;
+import io.github.java_native.libloader.provider.BogoOs;
+import io.github.java_native.libloader.provider.CountingLibLoaderListener;
+import io.github.java_native.libloader.provider.LibLoaderListener;
+import io.github.java_native.libloader.provider.SystemDefinitionProvider;
+import io.github.java_native.libloader.systems.SystemDefinition;
+import io.github.java_native.libloader.systems.linux.LinuxX8664;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProvidedSystemDefinitionsTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        ProvidedSystemDefinitions.clear();
+    }
+
+    @Test
+    public void testForClassLoader_cachedPerClassLoader() {
+        final ClassLoader classLoader = getClass().getClassLoader();
+
+        final List<SystemDefinition> definitions = ProvidedSystemDefinitions.forClassLoader(classLoader);
+
+        Assert.assertTrue(containsInstanceOf(definitions, BogoOs.class));
+        Assert.assertSame(definitions, ProvidedSystemDefinitions.forClassLoader(classLoader));
+    }
+
+    @Test
+    public void testForClassLoader_providersOfChildClassLoader() throws IOException {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final ClassLoader childClassLoader = new URLClassLoader(new URL[] {createServicesDirectory(SystemDefinitionProvider.class, ChildProvider.class)}, classLoader);
+
+        final List<SystemDefinition> definitions = ProvidedSystemDefinitions.forClassLoader(classLoader);
+        final List<SystemDefinition> childDefinitions = ProvidedSystemDefinitions.forClassLoader(childClassLoader);
+
+        Assert.assertFalse(containsInstanceOf(definitions, ChildDefinition.class));
+        Assert.assertTrue(containsInstanceOf(childDefinitions, ChildDefinition.class));
+        Assert.assertTrue("providers of the parent are visible as well.", containsInstanceOf(childDefinitions, BogoOs.class));
+    }
+
+    @Test
+    public void testListenersForClassLoader_listenersOfChildClassLoader() throws IOException {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final ClassLoader childClassLoader = new URLClassLoader(
+                new URL[] {createServicesDirectory(LibLoaderListener.class, ChildListener.class)}, classLoader);
+
+        final List<LibLoaderListener> listeners = ProvidedSystemDefinitions.listenersForClassLoader(classLoader);
+        final List<LibLoaderListener> childListeners = ProvidedSystemDefinitions.listenersForClassLoader(childClassLoader);
+
+        Assert.assertTrue(containsInstanceOf(listeners, CountingLibLoaderListener.class));
+        Assert.assertFalse(containsInstanceOf(listeners, ChildListener.class));
+        Assert.assertTrue(containsInstanceOf(childListeners, ChildListener.class));
+        Assert.assertSame(childListeners, ProvidedSystemDefinitions.listenersForClassLoader(childClassLoader));
+    }
+
+    @Test
+    public void testListenersForClassLoader_rediscoveredAfterSoftReferenceIsCleared() throws IOException {
+        final ClassLoader classLoader = getClass().getClassLoader();
+        // hides the listener from the parent, so the child loads it itself and it is only referenced softly.
+        final ClassLoader hidingClassLoader = new ClassLoader(classLoader) {
+            @Override
+            protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+                if (ChildListener.class.getName().equals(name)) {
+                    throw new ClassNotFoundException(name);
+                }
+
+                return super.loadClass(name, resolve);
+            }
+        };
+        final URL testClasses = ChildListener.class.getProtectionDomain().getCodeSource().getLocation();
+        final ClassLoader childClassLoader = new URLClassLoader(
+                new URL[] {createServicesDirectory(LibLoaderListener.class, ChildListener.class), testClasses}, hidingClassLoader);
+
+        final List<LibLoaderListener> listeners = ProvidedSystemDefinitions.listenersForClassLoader(childClassLoader);
+        Assert.assertSame(listeners, ProvidedSystemDefinitions.listenersForClassLoader(childClassLoader));
+        Assert.assertSame(childClassLoader, findByName(listeners, ChildListener.class).getClass().getClassLoader());
+
+        ProvidedSystemDefinitions.clearSoftReferences();
+        final List<LibLoaderListener> rediscovered = ProvidedSystemDefinitions.listenersForClassLoader(childClassLoader);
+
+        Assert.assertNotSame(listeners, rediscovered);
+        Assert.assertNotNull(findByName(rediscovered, ChildListener.class));
+        Assert.assertSame(rediscovered, ProvidedSystemDefinitions.listenersForClassLoader(childClassLoader));
+    }
+
+    @Test
+    public void testForClassLoader_classLoaderIsNotPinned() throws InterruptedException {
+        ClassLoader childClassLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        final WeakReference<ClassLoader> childReference = new WeakReference<ClassLoader>(childClassLoader);
+
+        Assert.assertFalse(ProvidedSystemDefinitions.forClassLoader(childClassLoader).isEmpty());
+
+        //noinspection UnusedAssignment
+        childClassLoader = null;
+
+        for (int i = 0; i < 50 && childReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10L);
+        }
+
+        Assert.assertNull("the cache must not keep the class loader reachable.", childReference.get());
+    }
+
+    private URL createServicesDirectory(final Class<?> service, final Class<?> implementation) throws IOException {
+        final File servicesDirectory = this.temporaryFolder.newFolder("META-INF", "services");
+        final FileOutputStream outputStream = new FileOutputStream(new File(servicesDirectory, service.getName()));
+
+        try {
+            outputStream.write(implementation.getName().getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+
+        return this.temporaryFolder.getRoot().toURI().toURL();
+    }
+
+    private static Object findByName(final List<?> instances, final Class<?> type) {
+        for (final Object instance : instances) {
+            if (type.getName().equals(instance.getClass().getName())) {
+                return instance;
+            }
+        }
+
+        throw new AssertionError("No instance of " + type.getName() + " in " + instances + ".");
+    }
+
+    private static boolean containsInstanceOf(final List<?> instances, final Class<?> type) {
+        for (final Object instance : instances) {
+            if (type.isInstance(instance)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Only listed in the services file of the child class loader.
+     */
+    public static final class ChildProvider implements SystemDefinitionProvider {
+
+        @Override
+        public Collection<SystemDefinition> getSystemDefinitions() {
+            return Collections.<SystemDefinition>singleton(new ChildDefinition());
+        }
+    }
+
+    private static final class ChildDefinition extends LinuxX8664 {
+    }
+
+    /**
+     * Only listed in the services file of the child class loader.
+     */
+    public static final class ChildListener extends AbstractLibLoaderListener {
+    }
+}
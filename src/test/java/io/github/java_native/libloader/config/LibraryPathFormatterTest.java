@@ -18,8 +18,11 @@
 package io.github.java_native.libloader.config;
 
 import io.github.java_native.libloader.systems.SystemDefinition;
+import io.github.java_native.libloader.systems.linux.LinuxArm32HardFloat;
 import io.github.java_native.libloader.systems.linux.LinuxX8664;
 import io.github.java_native.libloader.systems.osx.MacOsxX8664;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.junit.Assert;
 import org.junit.Rule;
@@ -66,4 +69,41 @@ public class LibraryPathFormatterTest {
         Assert.assertTrue("dylib should be before jnilib.", searchPaths.get(0).endsWith(".dylib"));
         Assert.assertTrue(searchPaths.get(1).endsWith(".jnilib"));
     }
+
+    @Test
+    public void testGetVariantPaths_variantsAppendedToQualifier() {
+        final List<String> variantPaths = DefaultLibraryPathFormatter.getVariantPaths(
+                new LinuxX8664(), "abc", null, Arrays.asList("glibc2.28", "glibc2.27"));
+
+        Assert.assertEquals(Arrays.asList(
+                "natives/linux-x86_64-64-glibc2.28/libabc.so",
+                "natives/linux-x86_64-64-glibc2.27/libabc.so"), variantPaths);
+
+        final List<String> hardFloatPaths = DefaultLibraryPathFormatter.getVariantPaths(
+                new LinuxArm32HardFloat(), "abc", "1.2", Collections.singletonList("musl"));
+
+        Assert.assertEquals(Collections.singletonList("natives/linux-arm_32-32-hf-musl/libabc-1.2.so"), hardFloatPaths);
+    }
+
+    @Test
+    public void testGetOverriddenPaths_firstFormattedPaths() {
+        final DefaultLibraryPathFormatter formatter = new DefaultLibraryPathFormatter("natives/custom");
+        final List<String> overriddenPaths = formatter.getOverriddenPaths(new LinuxX8664(), "abc");
+
+        Assert.assertEquals(Collections.singletonList("natives/custom/libabc.so"), overriddenPaths);
+        Assert.assertEquals(overriddenPaths.get(0), formatter.getFormattedPaths(new LinuxX8664(), "abc").get(0));
+        Assert.assertTrue(new DefaultLibraryPathFormatter(null).getOverriddenPaths(new LinuxX8664(), "abc").isEmpty());
+    }
+
+    @Test
+    public void testWithCompressedPaths_compressedAfterEachPath() {
+        final List<String> searchPaths = DefaultLibraryPathFormatter.withCompressedPaths(
+                new DefaultLibraryPathFormatter().getFormattedPaths(new MacOsxX8664(), "abc"));
+
+        Assert.assertEquals(4, searchPaths.size());
+        Assert.assertTrue(searchPaths.get(0).endsWith(".dylib"));
+        Assert.assertEquals(searchPaths.get(0) + ".gz", searchPaths.get(1));
+        Assert.assertTrue(searchPaths.get(2).endsWith(".jnilib"));
+        Assert.assertEquals(searchPaths.get(2) + ".gz", searchPaths.get(3));
+    }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.config;
+
+import io.github.java_native.libloader.systems.SystemDefinition;
+import io.github.java_native.libloader.systems.linux.LinuxArm32HardFloat;
+import io.github.java_native.libloader.systems.linux.LinuxX8664;
+import java.util.Locale;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PathTemplateTest {
+
+    private static final String[] PATTERNS = {
+            "natives/%1$s-%2$s-%3$s/%5$s%6$s%7$s",
+            "natives/%1$s-%2$s-%3$s-%4$s/%5$s%6$s-%8$s%7$s",
+            "libs/100%%/%6$s%7$s",
+            "%6$s",
+            "plain",
+            "natives/%1$s-%4$s/%6$s%7$s",
+            "natives/%3$04d/%6$s%7$s",
+            "natives/%s/%6$s%7$s",
+    };
+
+    @Test
+    public void testFormat_sameAsStringFormat() {
+        final SystemDefinition[] systems = {new LinuxX8664(), new LinuxArm32HardFloat()};
+
+        for (final String pattern : PATTERNS) {
+            final PathTemplate template = PathTemplate.compile(pattern);
+
+            for (final SystemDefinition system : systems) {
+                final PathTemplate.Bound bound = template.bind(system);
+
+                Assert.assertEquals(pattern,
+                        format(pattern, system, "jssc", ".so", "1.0.0"),
+                        bound.format("jssc", ".so", "1.0.0"));
+                Assert.assertEquals(pattern,
+                        format(pattern, system, "jssc", ".so", null),
+                        bound.format("jssc", ".so", null));
+            }
+        }
+    }
+
+    private static String format(final String pattern,
+                                 final SystemDefinition system,
+                                 final String libName,
+                                 final String suffix,
+                                 final String version) {
+        return String.format(Locale.ENGLISH, pattern,
+                system.getNormalizedOsName(),
+                system.getArchitecture(),
+                system.getBitness().getBitness(),
+                system.getQualifier(),
+                system.getLibraryPrefix(),
+                libName,
+                suffix,
+                version);
+    }
+}
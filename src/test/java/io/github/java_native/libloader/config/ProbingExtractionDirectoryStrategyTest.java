@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProbingExtractionDirectoryStrategyTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testGetExtractionDirectory_skipsUnusableCandidates() throws IOException {
+        // a file where a directory should be created.
+        final File blocked = this.temporaryFolder.newFile("blocked");
+        final File usable = new File(this.temporaryFolder.getRoot(), "usable");
+
+        final ProbingExtractionDirectoryStrategy strategy = new ProbingExtractionDirectoryStrategy(Arrays.asList(blocked, usable), null);
+
+        Assert.assertEquals(usable, strategy.getExtractionDirectory());
+        Assert.assertTrue(usable.isDirectory());
+    }
+
+    @Test
+    public void testGetExtractionDirectory_choiceIsRecorded() throws IOException {
+        final File preferred = new File(this.temporaryFolder.getRoot(), "preferred");
+        final File fallback = new File(this.temporaryFolder.getRoot(), "fallback");
+        final File recordFile = new File(this.temporaryFolder.getRoot(), "record.properties");
+
+        // block the preferred directory for the first start.
+        Assert.assertTrue(preferred.createNewFile());
+        Assert.assertEquals(fallback, new ProbingExtractionDirectoryStrategy(Arrays.asList(preferred, fallback), recordFile)
+                .getExtractionDirectory());
+        Assert.assertTrue(recordFile.isFile());
+
+        // the recorded choice is used without probing again.
+        Assert.assertTrue(preferred.delete());
+        Assert.assertEquals(fallback, new ProbingExtractionDirectoryStrategy(Arrays.asList(preferred, fallback), recordFile)
+                .getExtractionDirectory());
+
+        // other candidates ignore the record.
+        Assert.assertEquals(preferred, new ProbingExtractionDirectoryStrategy(Collections.singletonList(preferred), recordFile)
+                .getExtractionDirectory());
+    }
+
+    @Test
+    public void testGetExtractionDirectory_lastCandidateIfNoneIsUsable() throws IOException {
+        final File blocked = this.temporaryFolder.newFile("blocked");
+
+        Assert.assertEquals(blocked, new ProbingExtractionDirectoryStrategy(Collections.singletonList(blocked), null)
+                .getExtractionDirectory());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreate_noCandidates() {
+        new ProbingExtractionDirectoryStrategy(Collections.<File>emptyList(), null);
+    }
+}
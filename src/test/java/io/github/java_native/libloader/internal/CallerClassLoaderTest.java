@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CallerClassLoaderTest {
+
+    @Test
+    public void testGet_skipsLibLoaderClasses() {
+        // this test is part of the libloader package, so the first caller is the test framework.
+        Assert.assertSame(Test.class.getClassLoader(), CallerClassLoader.get());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class ElfFileTest {
+
+    private static final long BASE_ADDRESS = 0x400000L;
+
+    private static final int INTERPRETER_OFFSET = 256;
+    private static final int STRING_TABLE_OFFSET = 320;
+    private static final int DYNAMIC_OFFSET = 512;
+    private static final int VERDEF_OFFSET = 640;
+    private static final int VERNEED_OFFSET = 768;
+
+    @Test
+    public void testParse_interpreterAndVersions() throws IOException {
+        final ElfFile elfFile = new ElfFile(createElf("/lib/ld-musl-x86_64.so.1"));
+
+        Assert.assertEquals("/lib/ld-musl-x86_64.so.1", elfFile.getInterpreter());
+        Assert.assertEquals(Arrays.asList("libc.so.6", "GLIBC_2.28"), elfFile.getDefinedVersions());
+        Assert.assertEquals(Arrays.asList("GLIBC_2.2.5", "GLIBC_2.28"), elfFile.getNeededVersions());
+    }
+
+    @Test(expected = IOException.class)
+    public void testParse_notAnElfFile() throws IOException {
+        new ElfFile(ByteBuffer.wrap(new byte[64]));
+    }
+
+    @Test(expected = IOException.class)
+    public void testParse_truncated() throws IOException {
+        final ByteBuffer elf = createElf("/lib64/ld-linux-x86-64.so.2");
+        elf.limit(DYNAMIC_OFFSET + 8);
+
+        new ElfFile(elf.slice());
+    }
+
+    @Test
+    public void testRead_runningJvm() throws IOException {
+        final File executable = new File("/proc/self/exe");
+        Assume.assumeTrue(executable.exists());
+
+        final ElfFile elfFile = ElfFile.read(executable);
+
+        Assert.assertNotNull("the java launcher is linked dynamically.", elfFile.getInterpreter());
+    }
+
+    private static ByteBuffer createElf(final String interpreter) throws IOException {
+        final ByteBuffer elf = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        // ELF header: 64 bit, little endian, three program headers right after it.
+        elf.put(0, (byte) 0x7F).put(1, (byte) 'E').put(2, (byte) 'L').put(3, (byte) 'F');
+        elf.put(4, (byte) 2).put(5, (byte) 1).put(6, (byte) 1);
+        elf.putLong(32, 64L);
+        elf.putShort(54, (short) 56);
+        elf.putShort(56, (short) 3);
+
+        final byte[] interpreterBytes = (interpreter + '\0').getBytes("UTF-8");
+        putProgramHeader(elf, 64, 3, INTERPRETER_OFFSET, interpreterBytes.length);
+        putProgramHeader(elf, 120, 1, 0, elf.capacity());
+        putProgramHeader(elf, 176, 2, DYNAMIC_OFFSET, 6 * 16);
+
+        put(elf, INTERPRETER_OFFSET, interpreterBytes);
+        // 1: GLIBC_2.2.5, 13: GLIBC_2.28, 24: libc.so.6
+        put(elf, STRING_TABLE_OFFSET, "\0GLIBC_2.2.5\0GLIBC_2.28\0libc.so.6\0".getBytes("UTF-8"));
+
+        putDynamicEntry(elf, 0, 5L, BASE_ADDRESS + STRING_TABLE_OFFSET);
+        putDynamicEntry(elf, 1, 0x6ffffffcL, BASE_ADDRESS + VERDEF_OFFSET);
+        putDynamicEntry(elf, 2, 0x6ffffffdL, 2L);
+        putDynamicEntry(elf, 3, 0x6ffffffeL, BASE_ADDRESS + VERNEED_OFFSET);
+        putDynamicEntry(elf, 4, 0x6fffffffL, 1L);
+        putDynamicEntry(elf, 5, 0L, 0L);
+
+        // two version definitions, each followed by its name.
+        elf.putInt(VERDEF_OFFSET + 12, 20).putInt(VERDEF_OFFSET + 16, 28);
+        elf.putInt(VERDEF_OFFSET + 20, 24);
+        elf.putInt(VERDEF_OFFSET + 28 + 12, 20);
+        elf.putInt(VERDEF_OFFSET + 28 + 20, 13);
+
+        // one needed file with two versions.
+        elf.putShort(VERNEED_OFFSET + 2, (short) 2).putInt(VERNEED_OFFSET + 4, 24).putInt(VERNEED_OFFSET + 8, 16);
+        elf.putInt(VERNEED_OFFSET + 16 + 8, 1).putInt(VERNEED_OFFSET + 16 + 12, 16);
+        elf.putInt(VERNEED_OFFSET + 32 + 8, 13);
+
+        return elf;
+    }
+
+    private static void putProgramHeader(final ByteBuffer elf, final int position, final int type, final long offset, final long size) {
+        elf.putInt(position, type);
+        elf.putLong(position + 8, offset);
+        elf.putLong(position + 16, BASE_ADDRESS + offset);
+        elf.putLong(position + 32, size);
+    }
+
+    private static void putDynamicEntry(final ByteBuffer elf, final int index, final long tag, final long value) {
+        elf.putLong(DYNAMIC_OFFSET + index * 16, tag);
+        elf.putLong(DYNAMIC_OFFSET + index * 16 + 8, value);
+    }
+
+    private static void put(final ByteBuffer elf, final int position, final byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            elf.put(position + i, bytes[i]);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExtractionCacheEvictorTest {
+
+    private static final long HOUR_MILLIS = 60L * 60L * 1000L;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File rootDirectory;
+
+    private File libraryDirectory;
+
+    private File systemDirectory;
+
+    private File procDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        this.rootDirectory = this.temporaryFolder.newFolder("cache");
+        this.libraryDirectory = new File(this.rootDirectory, "foo");
+        this.systemDirectory = new File(this.libraryDirectory, "linux-x86_64-64");
+        this.procDirectory = this.temporaryFolder.newFolder("proc");
+    }
+
+    @Test
+    public void testEvict_leastRecentlyUsedFirst() throws IOException {
+        final File oldest = createVersion("1-100", 100, 3L * HOUR_MILLIS);
+        final File older = createVersion("2-100", 100, 2L * HOUR_MILLIS);
+        final File recent = createVersion("3-100", 100, HOUR_MILLIS);
+
+        final long freed = new ExtractionCacheEvictor(this.rootDirectory, 250L, 0L, this.procDirectory).evict(null);
+
+        Assert.assertEquals(100L, freed);
+        Assert.assertFalse(oldest.exists());
+        Assert.assertTrue(older.exists());
+        Assert.assertTrue(recent.exists());
+    }
+
+    @Test
+    public void testEvict_downToTargetSize() throws IOException {
+        final File oldest = createVersion("1-100", 100, 3L * HOUR_MILLIS);
+        final File older = createVersion("2-100", 100, 2L * HOUR_MILLIS);
+        final File recent = createVersion("3-100", 100, HOUR_MILLIS);
+
+        // evicting one version would fit the budget, but the next extraction would exceed it again.
+        final long freed = new ExtractionCacheEvictor(this.rootDirectory, 205L, 0L, this.procDirectory).evict(null);
+
+        Assert.assertEquals(200L, freed);
+        Assert.assertFalse(oldest.exists());
+        Assert.assertFalse(older.exists());
+        Assert.assertTrue(recent.exists());
+    }
+
+    @Test
+    public void testEvictInBackground_notListedWithinKnownSize() throws IOException {
+        final File oldest = createVersion("1-100", 100, 3L * HOUR_MILLIS);
+        final ExtractionCacheEvictor evictor = new ExtractionCacheEvictor(this.rootDirectory, 150L, 0L, this.procDirectory);
+        Assert.assertEquals(0L, evictor.evict(null));
+
+        // exceeds the budget on disk, but this JVM only knows about 140 bytes.
+        createVersion("2-100", 100, 2L * HOUR_MILLIS);
+        Assert.assertFalse(evictor.evictInBackground(null, 40L));
+        Assert.assertTrue(oldest.exists());
+
+        Assert.assertTrue(evictor.evictInBackground(null, 20L));
+        final long deadline = System.currentTimeMillis() + 10000L;
+
+        while (oldest.exists() || ExtractionCacheEvictor.isEvicting(this.rootDirectory)) {
+            Assert.assertTrue("the eviction did not finish.", System.currentTimeMillis() < deadline);
+            Thread.yield();
+        }
+    }
+
+    @Test
+    public void testEvict_linkedFilesCountedOnce() throws IOException {
+        final File oldest = createVersion("1-100", 100, 3L * HOUR_MILLIS);
+        final File linked = new File(new File(new File(this.rootDirectory, "bar"), "linux-x86_64-64"), "1-100");
+        Assert.assertTrue(linked.mkdirs());
+        Assume.assumeTrue("hard links need the java 9 classes.",
+                FileSupport.createLink(new File(linked, "libbar.so"), new File(oldest, "libfoo.so")));
+        final File marker = new File(linked, ExtractionCacheEvictor.ACCESS_MARKER);
+        Assert.assertTrue(marker.createNewFile());
+        Assert.assertTrue(marker.setLastModified(System.currentTimeMillis() - 2L * HOUR_MILLIS));
+        final File recent = createVersion("2-100", 100, HOUR_MILLIS);
+
+        Assert.assertEquals("200 bytes on disk.", 0L, new ExtractionCacheEvictor(this.rootDirectory, 200L, 0L, this.procDirectory).evict(null));
+
+        // the oldest version frees nothing while its content is still linked.
+        final long freed = new ExtractionCacheEvictor(this.rootDirectory, 150L, 0L, this.procDirectory).evict(null);
+
+        Assert.assertEquals(100L, freed);
+        Assert.assertFalse(oldest.exists());
+        Assert.assertFalse(linked.exists());
+        Assert.assertTrue(recent.exists());
+    }
+
+    @Test
+    public void testEvict_withinBudget() throws IOException {
+        final File version = createVersion("1-100", 100, HOUR_MILLIS);
+
+        Assert.assertEquals(0L, new ExtractionCacheEvictor(this.rootDirectory, 100L, 0L, this.procDirectory).evict(null));
+        Assert.assertTrue(version.exists());
+    }
+
+    @Test
+    public void testEvict_keepsRecentlyUsedAndKeptVersions() throws IOException {
+        final File kept = createVersion("1-100", 100, 3L * HOUR_MILLIS);
+        final File recent = createVersion("2-100", 100, 0L);
+
+        final long freed = new ExtractionCacheEvictor(this.rootDirectory, 0L, HOUR_MILLIS, this.procDirectory).evict(kept);
+
+        Assert.assertEquals(0L, freed);
+        Assert.assertTrue(kept.exists());
+        Assert.assertTrue("might be about to be loaded.", recent.exists());
+    }
+
+    @Test
+    public void testEvict_keepsMappedVersions() throws IOException {
+        final File mapped = createVersion("1-100", 100, 2L * HOUR_MILLIS);
+        final File unused = createVersion("2-100", 100, HOUR_MILLIS);
+
+        final File processDirectory = new File(this.procDirectory, "1234");
+        Assert.assertTrue(processDirectory.mkdir());
+        write(new File(processDirectory, "maps"), "7f0000000000-7f0000001000 r-xp 00000000 08:01 4711       "
+                + new File(mapped, "libfoo.so").getCanonicalPath() + "\n");
+
+        final long freed = new ExtractionCacheEvictor(this.rootDirectory, 0L, 0L, this.procDirectory).evict(null);
+
+        Assert.assertEquals(100L, freed);
+        Assert.assertTrue("a live process uses it.", mapped.exists());
+        Assert.assertFalse(unused.exists());
+    }
+
+    @Test
+    public void testEvict_skipsLockedSystemDirectories() throws IOException {
+        final File version = createVersion("1-100", 100, HOUR_MILLIS);
+        final ExtractionLock lock = ExtractionLock.acquire(new File(this.libraryDirectory, "linux-x86_64-64.lock"));
+
+        try {
+            Assert.assertEquals(0L, new ExtractionCacheEvictor(this.rootDirectory, 0L, 0L, this.procDirectory).evict(null));
+        } finally {
+            lock.release();
+        }
+
+        Assert.assertTrue("an extraction is in progress.", version.exists());
+    }
+
+    @Test
+    public void testMarkAccessed_createsAndRefreshesMarker() throws IOException {
+        final File version = createVersion("1-100", 100, HOUR_MILLIS);
+        final File marker = new File(version, ExtractionCacheEvictor.ACCESS_MARKER);
+
+        ExtractionCacheEvictor.markAccessed(version);
+        final long marked = marker.lastModified();
+
+        Assert.assertTrue(System.currentTimeMillis() - marked < ExtractionCacheEvictor.ACCESS_RESOLUTION_MILLIS);
+
+        Assert.assertTrue(marker.delete());
+        ExtractionCacheEvictor.markAccessed(version);
+        Assert.assertTrue("missing markers are created.", marker.exists());
+    }
+
+    @Test
+    public void testReadMappedFiles_onlyFilesBelowPrefix() throws IOException {
+        final File processDirectory = new File(this.procDirectory, "42");
+        Assert.assertTrue(processDirectory.mkdir());
+        Assert.assertTrue(new File(this.procDirectory, "self").mkdir());
+        write(new File(processDirectory, "maps"), "00400000-00452000 r-xp 00000000 08:02 173521      /usr/bin/java\n"
+                + "7f0000000000-7f0000001000 r-xp 00000000 08:01 4711       /cache/foo/linux-x86_64-64/1-100/lib foo.so\n"
+                + "7ffd0000-7ffd1000 rw-p 00000000 00:00 0          [stack]\n"
+                + "7ffd2000-7ffd3000 rw-p 00000000 00:00 0\n");
+
+        final Set<String> mappedFiles = ExtractionCacheEvictor.readMappedFiles(this.procDirectory, "/cache/");
+
+        Assert.assertEquals(1, mappedFiles.size());
+        Assert.assertTrue(mappedFiles.contains("/cache/foo/linux-x86_64-64/1-100/lib foo.so"));
+    }
+
+    private File createVersion(final String name, final int size, final long ageMillis) throws IOException {
+        final File digestDirectory = new File(this.systemDirectory, name);
+        Assert.assertTrue(digestDirectory.mkdirs());
+
+        write(new File(digestDirectory, "libfoo.so"), new String(new char[size]));
+
+        final File marker = new File(digestDirectory, ExtractionCacheEvictor.ACCESS_MARKER);
+        Assert.assertTrue(marker.createNewFile());
+        Assert.assertTrue(marker.setLastModified(System.currentTimeMillis() - ageMillis));
+
+        return digestDirectory;
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        final FileOutputStream outputStream = new FileOutputStream(file);
+
+        try {
+            outputStream.write(content.getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import io.github.java_native.libloader.systems.linux.LinuxX8664;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExtractionCacheTest {
+
+    private static final String LIBRARY_PATH = "natives/linux-x86_64-64/libfoo.so";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testExtract_jarEntryIsReused() throws IOException {
+        final URL url = createJar(new byte[] {1, 2, 3, 4});
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+
+        final NativeResource resource = NativeResource.fromUrl(LIBRARY_PATH, url);
+        Assert.assertTrue("size and crc should be read from the jar.", resource.hasMetadata());
+        Assert.assertEquals(4L, resource.getSize());
+
+        final ExtractedLibrary first = cache.extract("foo", new LinuxX8664(), resource);
+        final ExtractedLibrary second = cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(LIBRARY_PATH, url));
+
+        Assert.assertFalse(first.isCached());
+        Assert.assertTrue(second.isCached());
+        Assert.assertEquals(first.getFile(), second.getFile());
+        Assert.assertEquals("libfoo.so", second.getFile().getName());
+        Assert.assertEquals(4L, second.getFile().length());
+    }
+
+    @Test
+    public void testExtract_changedContentIsExtractedAgain() throws IOException {
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+
+        final URL oldUrl = createJar(new byte[] {1, 2, 3, 4});
+        final ExtractedLibrary first = cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(LIBRARY_PATH, oldUrl));
+
+        final URL newUrl = createJar(new byte[] {4, 3, 2, 1});
+        final ExtractedLibrary second = cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(LIBRARY_PATH, newUrl));
+
+        Assert.assertFalse(second.isCached());
+        Assert.assertFalse(first.getFile().equals(second.getFile()));
+    }
+
+    @Test
+    public void testExtract_evictsLeastRecentlyUsedVersionOverBudget() throws IOException {
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"), false, 6L);
+
+        final URL oldUrl = createJar(new byte[] {1, 2, 3, 4});
+        final ExtractedLibrary first = cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(LIBRARY_PATH, oldUrl));
+        awaitEviction(cache.getRootDirectory());
+        final File marker = new File(first.getFile().getParentFile(), ExtractionCacheEvictor.ACCESS_MARKER);
+        Assert.assertTrue("extraction marks the version as accessed.", marker.isFile());
+        Assert.assertTrue(marker.setLastModified(System.currentTimeMillis() - 60L * 60L * 1000L));
+
+        final URL newUrl = createJar(new byte[] {4, 3, 2, 1});
+        final ExtractedLibrary second = cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(LIBRARY_PATH, newUrl));
+        awaitEviction(cache.getRootDirectory());
+
+        Assert.assertFalse("the old version exceeds the budget.", first.getFile().getParentFile().exists());
+        Assert.assertTrue(second.getFile().isFile());
+    }
+
+    @Test
+    public void testExtract_identicalContentIsSharedAcrossLibraries() throws IOException {
+        final byte[] content = new byte[] {1, 2, 3, 4};
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+        final ExtractedLibrary first = cache.extract("foo", new LinuxX8664(),
+                NativeResource.fromUrl(LIBRARY_PATH, createJar(content)).withSha256(sha256(content)));
+
+        // the resource cannot be read, so the content must come from the first library.
+        final ExtractedLibrary second = cache.extract("foo-shaded", new LinuxX8664(),
+                createMissingResource(content).withSha256(sha256(content)));
+
+        Assert.assertFalse(second.isCached());
+        Assert.assertEquals("libfoo.so.1", second.getFile().getName());
+        Assert.assertFalse(first.getFile().getParentFile().getParentFile().equals(second.getFile().getParentFile().getParentFile()));
+        Assert.assertArrayEquals(content, readFully(second.getFile()));
+    }
+
+    @Test
+    public void testExtract_indexedContentIsSharedWithoutVerification() throws IOException {
+        final byte[] content = new byte[] {1, 2, 3, 4};
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+        final ExtractedLibrary first = cache.extract("foo", new LinuxX8664(),
+                NativeResource.fromUrl(LIBRARY_PATH, createJar(content)).withContentSha256(sha256(content)));
+
+        // the resource cannot be read, so the second library must be a link to or a copy of the first.
+        final ExtractedLibrary second = cache.extract("foo-shaded", new LinuxX8664(),
+                createMissingResource(content).withContentSha256(sha256(content)));
+
+        Assert.assertFalse(second.isCached());
+        Assert.assertFalse(first.getFile().equals(second.getFile()));
+        Assert.assertArrayEquals(content, readFully(second.getFile()));
+    }
+
+    @Test
+    public void testExtract_sameChecksumWithoutDigestIsNotShared() throws IOException {
+        final byte[] content = new byte[] {1, 2, 3, 4};
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+        cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(LIBRARY_PATH, createJar(content)).withSha256(sha256(content)));
+
+        try {
+            cache.extract("foo-shaded", new LinuxX8664(), createMissingResource(content));
+            Assert.fail("a checksum does not prove the content is the same.");
+        } catch (final IOException expected) {
+            // the resource was read.
+        }
+    }
+
+    @Test
+    public void testExtract_interruptedWhileLockingIsNotExtracted() throws IOException {
+        final URL url = createJar(new byte[] {1, 2, 3, 4});
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+
+        Thread.currentThread().interrupt();
+
+        try {
+            cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(LIBRARY_PATH, url));
+            Assert.fail("must not extract without the cross-process lock.");
+        } catch (final InterruptedIOException expected) {
+            Assert.assertTrue("the interrupt flag is kept.", Thread.interrupted());
+        } finally {
+            Thread.interrupted();
+        }
+
+        final ExtractedLibrary extracted = cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(LIBRARY_PATH, url));
+        Assert.assertFalse("the lock was released.", extracted.isCached());
+    }
+
+    @Test
+    public void testExtract_storedJarEntry() throws IOException {
+        final byte[] content = new byte[200 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 251);
+        }
+
+        final URL url = createJar(content, ZipEntry.STORED);
+        final NativeResource resource = NativeResource.fromUrl(LIBRARY_PATH, url);
+        Assert.assertTrue(resource.isStoredInLocalJar());
+
+        final FileInputStream jarInputStream = new FileInputStream(resource.getJarFile());
+        try {
+            Assert.assertTrue(ZipEntryDataLocator.findDataOffset(jarInputStream.getChannel(), LIBRARY_PATH) > 0L);
+        } finally {
+            jarInputStream.close();
+        }
+
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+        final ExtractedLibrary extracted = cache.extract("foo", new LinuxX8664(), resource);
+
+        Assert.assertFalse(extracted.isCached());
+        Assert.assertArrayEquals(content, readFully(extracted.getFile()));
+    }
+
+    @Test
+    public void testExtract_plainFile() throws IOException {
+        final File library = this.temporaryFolder.newFile("libfoo.so");
+        final FileOutputStream outputStream = new FileOutputStream(library);
+        outputStream.write(new byte[] {1, 2, 3});
+        outputStream.close();
+
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+        final NativeResource resource = NativeResource.fromUrl(LIBRARY_PATH, library.toURI().toURL());
+        Assert.assertFalse(resource.hasMetadata());
+
+        final ExtractedLibrary first = cache.extract("foo", new LinuxX8664(), resource);
+        final ExtractedLibrary second = cache.extract("foo", new LinuxX8664(), resource);
+
+        Assert.assertFalse(first.isCached());
+        Assert.assertTrue(second.isCached());
+        Assert.assertEquals(first.getFile(), second.getFile());
+        Assert.assertEquals("only the published file should remain.",
+                1, second.getFile().getParentFile().getParentFile().listFiles().length);
+    }
+
+    @Test
+    public void testExtract_concurrentExtractionHappensOnce() throws IOException, InterruptedException, ExecutionException {
+        final URL url = createJar(new byte[64 * 1024]);
+        final File cacheDirectory = this.temporaryFolder.newFolder("cache");
+        final int threads = 8;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+
+        try {
+            final List<Future<ExtractedLibrary>> futures = new ArrayList<Future<ExtractedLibrary>>();
+
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(new Callable<ExtractedLibrary>() {
+                    @Override
+                    public ExtractedLibrary call() throws IOException {
+                        // separate instances, as separate processes would use.
+                        final ExtractionCache cache = new ExtractionCache(cacheDirectory, false);
+
+                        return cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(LIBRARY_PATH, url));
+                    }
+                }));
+            }
+
+            int extracted = 0;
+            for (final Future<ExtractedLibrary> future : futures) {
+                final ExtractedLibrary library = future.get();
+                Assert.assertEquals(futures.get(0).get().getFile(), library.getFile());
+
+                if (!library.isCached()) {
+                    extracted++;
+                }
+            }
+
+            Assert.assertEquals("the library should be extracted only once.", 1, extracted);
+            Assert.assertEquals("no temporary files should remain.",
+                    1, futures.get(0).get().getFile().getParentFile().getParentFile().listFiles().length);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExtract_compressedJarEntry() throws IOException {
+        final byte[] content = new byte[100 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 13);
+        }
+
+        final String compressedPath = LIBRARY_PATH + ".gz";
+        final URL url = createJar(gzip(content), ZipEntry.STORED, compressedPath);
+        final NativeResource resource = NativeResource.fromUrl(compressedPath, url);
+        Assert.assertTrue(resource.isCompressed());
+        Assert.assertFalse("compressed entries must not be copied as they are.", resource.isStoredInLocalJar());
+
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+        final ExtractedLibrary first = cache.extract("foo", new LinuxX8664(), resource);
+        final ExtractedLibrary second = cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(compressedPath, url));
+
+        Assert.assertFalse(first.isCached());
+        Assert.assertEquals(content.length, first.getExtractedBytes());
+        Assert.assertEquals("libfoo.so", first.getFile().getName());
+        Assert.assertArrayEquals(content, readFully(first.getFile()));
+        Assert.assertTrue(second.isCached());
+        Assert.assertEquals(first.getFile(), second.getFile());
+    }
+
+    @Test
+    public void testExtract_verifiedDigestIsRecorded() throws IOException {
+        final byte[] content = new byte[] {1, 2, 3, 4};
+        final URL url = createJar(content, ZipEntry.STORED);
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+
+        final NativeResource resource = NativeResource.fromUrl(LIBRARY_PATH, url).withSha256(sha256(content));
+        final ExtractedLibrary first = cache.extract("foo", new LinuxX8664(), resource);
+        final ExtractedLibrary second = cache.extract("foo", new LinuxX8664(), resource);
+
+        Assert.assertFalse(first.isCached());
+        Assert.assertArrayEquals(content, readFully(first.getFile()));
+        Assert.assertTrue("the verification record should be trusted.", second.isCached());
+        Assert.assertTrue(new File(first.getFile().getParentFile(), "libfoo.so.sha256").isFile());
+    }
+
+    @Test
+    public void testExtract_digestMismatchIsNotPublished() throws IOException {
+        final URL url = createJar(new byte[] {1, 2, 3, 4});
+        final File cacheDirectory = this.temporaryFolder.newFolder("cache");
+        final ExtractionCache cache = new ExtractionCache(cacheDirectory);
+
+        final NativeResource resource = NativeResource.fromUrl(LIBRARY_PATH, url).withSha256(sha256(new byte[] {4, 3, 2, 1}));
+
+        try {
+            cache.extract("foo", new LinuxX8664(), resource);
+            Assert.fail("the digest does not match.");
+        } catch (final IOException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("SHA-256 mismatch"));
+        }
+
+        final File systemDirectory = new File(new File(cacheDirectory, "foo"), "linux-x86_64-64");
+        Assert.assertEquals("neither the library nor a temporary file should remain.", 0, systemDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testExtract_unverifiedFileIsReplaced() throws IOException {
+        final byte[] content = new byte[] {1, 2, 3, 4};
+        final URL url = createJar(content);
+        final ExtractionCache cache = new ExtractionCache(this.temporaryFolder.newFolder("cache"));
+
+        final ExtractedLibrary unverified = cache.extract("foo", new LinuxX8664(), NativeResource.fromUrl(LIBRARY_PATH, url));
+        final ExtractedLibrary verified = cache.extract("foo", new LinuxX8664(),
+                NativeResource.fromUrl(LIBRARY_PATH, url).withSha256(sha256(content)));
+
+        Assert.assertFalse("a file without verification record must be extracted again.", verified.isCached());
+        Assert.assertEquals(unverified.getFile(), verified.getFile());
+        Assert.assertArrayEquals(content, readFully(verified.getFile()));
+    }
+
+    @Test
+    public void testParseDeclaredSha256_sha256sumOutput() throws IOException {
+        final String digest = sha256(new byte[] {1, 2, 3});
+        final String declaration = digest.toUpperCase(Locale.ROOT) + "  libfoo.so\n";
+
+        Assert.assertEquals(digest, Digests.parseDeclaredSha256(new ByteArrayInputStream(declaration.getBytes("US-ASCII")), "test"));
+    }
+
+    private NativeResource createMissingResource(final byte[] content) throws IOException {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        final URL missingUrl = new File(this.temporaryFolder.getRoot(), "missing.jar").toURI().toURL();
+
+        return new NativeResource("natives/linux-x86_64-64/libfoo.so.1", missingUrl, content.length, crc32.getValue());
+    }
+
+    private static void awaitEviction(final File rootDirectory) {
+        final long deadline = System.currentTimeMillis() + 10000L;
+
+        while (ExtractionCacheEvictor.isEvicting(rootDirectory)) {
+            Assert.assertTrue("the eviction did not finish.", System.currentTimeMillis() < deadline);
+            Thread.yield();
+        }
+    }
+
+    private URL createJar(final byte[] content) throws IOException {
+        return createJar(content, ZipEntry.DEFLATED);
+    }
+
+    private URL createJar(final byte[] content, final int method) throws IOException {
+        return createJar(content, method, LIBRARY_PATH);
+    }
+
+    private URL createJar(final byte[] content, final int method, final String path) throws IOException {
+        final File jarFile = this.temporaryFolder.newFile();
+        final JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jarFile));
+
+        try {
+            // an entry in front, so the native's data does not start at a fixed offset.
+            jarOutputStream.putNextEntry(new JarEntry("META-INF/some.txt"));
+            jarOutputStream.write(new byte[] {'a', 'b', 'c'});
+            jarOutputStream.closeEntry();
+
+            final JarEntry jarEntry = new JarEntry(path);
+            jarEntry.setMethod(method);
+
+            if (method == ZipEntry.STORED) {
+                final CRC32 crc32 = new CRC32();
+                crc32.update(content);
+                jarEntry.setSize(content.length);
+                jarEntry.setCompressedSize(content.length);
+                jarEntry.setCrc(crc32.getValue());
+            }
+
+            jarOutputStream.putNextEntry(jarEntry);
+            jarOutputStream.write(content);
+            jarOutputStream.closeEntry();
+        } finally {
+            jarOutputStream.close();
+        }
+
+        return new URL("jar:" + jarFile.toURI().toURL() + "!/" + path);
+    }
+
+    private static byte[] gzip(final byte[] content) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream);
+
+        try {
+            gzipOutputStream.write(content);
+        } finally {
+            gzipOutputStream.close();
+        }
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static String sha256(final byte[] content) {
+        return Digests.toHex(Digests.createSha256().digest(content));
+    }
+
+    private static byte[] readFully(final File file) throws IOException {
+        final byte[] content = new byte[(int) file.length()];
+        final FileInputStream inputStream = new FileInputStream(file);
+
+        try {
+            int offset = 0;
+            while (offset < content.length) {
+                offset += inputStream.read(content, offset, content.length - offset);
+            }
+        } finally {
+            inputStream.close();
+        }
+
+        return content;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExtractionLockTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testRelease_removesLocalLock() throws IOException {
+        final int localLocks = ExtractionLock.getLocalLockCount();
+
+        for (int ii = 0; ii < 100; ii++) {
+            final ExtractionLock lock = ExtractionLock.acquire(this.temporaryFolder.newFile("library" + ii + ".lock"));
+            Assert.assertEquals(localLocks + 1, ExtractionLock.getLocalLockCount());
+            lock.release();
+        }
+
+        final File lockFile = this.temporaryFolder.newFile("tried.lock");
+        final ExtractionLock lock = ExtractionLock.tryAcquire(lockFile);
+        Assert.assertNotNull(lock);
+        Assert.assertNull("held by the current thread.", ExtractionLock.tryAcquire(lockFile));
+        Assert.assertEquals(localLocks + 1, ExtractionLock.getLocalLockCount());
+        lock.release();
+
+        Assert.assertEquals(localLocks, ExtractionLock.getLocalLockCount());
+    }
+
+    @Test
+    public void testRelease_waitingThreadKeepsLocalLock() throws IOException, InterruptedException, ExecutionException {
+        final int localLocks = ExtractionLock.getLocalLockCount();
+        final File lockFile = this.temporaryFolder.newFile("library.lock");
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try {
+            final ExtractionLock lock = ExtractionLock.acquire(lockFile);
+            final Future<Void> waiter = executorService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException, InterruptedException {
+                    final ExtractionLock waiterLock = ExtractionLock.acquire(lockFile);
+
+                    try {
+                        acquired.countDown();
+                        done.await();
+                    } finally {
+                        waiterLock.release();
+                    }
+
+                    return null;
+                }
+            });
+
+            Thread.sleep(50L);
+            lock.release();
+            Assert.assertTrue(acquired.await(10L, TimeUnit.SECONDS));
+
+            // the waiter holds the lock it waited for, not one created after the release.
+            Assert.assertNull(ExtractionLock.tryAcquire(lockFile));
+            Assert.assertEquals(localLocks + 1, ExtractionLock.getLocalLockCount());
+
+            done.countDown();
+            waiter.get();
+        } finally {
+            executorService.shutdown();
+        }
+
+        Assert.assertEquals(localLocks, ExtractionLock.getLocalLockCount());
+    }
+}
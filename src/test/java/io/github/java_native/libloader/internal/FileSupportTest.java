@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileSupportTest {
+
+    /**
+     * Set by the {@code test-java9} execution, which puts the classes of {@code META-INF/versions/9} first.
+     */
+    private static final boolean VERSIONED_CLASSES = Boolean.getBoolean("native.libloader.test.versioned");
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMoveAtomically_replacesTarget() throws IOException {
+        final File source = write("source", 3);
+        final File target = write("target", 5);
+
+        Assert.assertTrue(FileSupport.moveAtomically(source, target));
+        Assert.assertFalse(source.exists());
+        Assert.assertEquals(3L, target.length());
+    }
+
+    @Test
+    public void testCreateLink_linksOrReportsUnsupported() throws IOException {
+        final File existing = write("libfoo.so", 3);
+        final File link = new File(this.temporaryFolder.getRoot(), "libfoo.so.1");
+        final boolean linked = FileSupport.createLink(link, existing);
+
+        if (!VERSIONED_CLASSES && !linked) {
+            Assert.assertFalse("nothing should be left behind.", link.exists());
+            return;
+        }
+
+        Assert.assertTrue("the java 9 classes link on every file system the tests run on.", linked);
+
+        // a hard link shares the content, a copy would keep the old length.
+        append(existing, 1);
+        Assert.assertEquals(4L, link.length());
+    }
+
+    @Test
+    public void testSetExecutable() throws IOException {
+        final File file = write("libfoo.so", 1);
+
+        FileSupport.setExecutable(file);
+
+        Assert.assertTrue(file.canExecute());
+    }
+
+    private File write(final String name, final int size) throws IOException {
+        final File file = this.temporaryFolder.newFile(name);
+        append(file, size);
+
+        return file;
+    }
+
+    private static void append(final File file, final int size) throws IOException {
+        final FileOutputStream outputStream = new FileOutputStream(file, true);
+
+        try {
+            outputStream.write(new byte[size]);
+        } finally {
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MountTableTest {
+
+    private static final List<String> MOUNTS = Arrays.asList(
+            "/dev/sda1 / ext4 rw,relatime 0 0",
+            "tmpfs /tmp tmpfs rw,nosuid,nodev 0 0",
+            "tmpfs /tmp tmpfs rw,nosuid,nodev,noexec 0 0",
+            "tmpfs /dev/shm tmpfs rw,nosuid,nodev 0 0",
+            "/dev/sdb1 /mnt/my\\040disk ext4 rw,noexec 0 0"
+    );
+
+    @Test
+    public void testFindMountOptions_longestMountPoint() {
+        Assert.assertFalse(MountTable.findMountOptions(MOUNTS, "/dev/shm/native-libloader").contains("noexec"));
+        Assert.assertFalse(MountTable.findMountOptions(MOUNTS, "/var/tmp").contains("noexec"));
+    }
+
+    @Test
+    public void testFindMountOptions_lastMountWins() {
+        Assert.assertTrue(MountTable.findMountOptions(MOUNTS, "/tmp/native-libloader").contains("noexec"));
+        Assert.assertFalse("only a prefix of the path segment.", MountTable.findMountOptions(MOUNTS, "/tmpfoo").contains("noexec"));
+    }
+
+    @Test
+    public void testFindMountOptions_escapedMountPoint() {
+        Assert.assertTrue(MountTable.findMountOptions(MOUNTS, "/mnt/my disk/libs").contains("noexec"));
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NativesIndexTest {
+
+    private static final String LIBRARY_PATH = "natives/linux-x86_64-64/libfoo.so";
+
+    private static final byte[] CONTENT = {1, 2, 3, 4, 5};
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testIndex_directory() throws IOException {
+        final File rootDirectory = createNativesDirectory();
+
+        Assert.assertEquals(2, NativesIndexWriter.writeIndex(rootDirectory, NativesIndexWriter.DEFAULT_PREFIX));
+
+        final NativesIndex index = NativesIndex.load(new URLClassLoader(new URL[] {rootDirectory.toURI().toURL()}, null));
+        final NativesIndex.IndexEntry entry = index.find(LIBRARY_PATH);
+
+        Assert.assertEquals(2, index.size());
+        Assert.assertNull(index.find("natives/linux-x86_64-64/libbar.so"));
+        assertEntry(entry);
+
+        final NativeResource resource = entry.toNativeResource();
+        Assert.assertTrue("metadata should be taken from the index.", resource.hasMetadata());
+        Assert.assertEquals(CONTENT.length, resource.getSize());
+    }
+
+    @Test
+    public void testIndex_jar() throws IOException {
+        final File rootDirectory = createNativesDirectory();
+        NativesIndexWriter.writeIndex(rootDirectory, NativesIndexWriter.DEFAULT_PREFIX);
+        final File jarFile = createJar(rootDirectory, LIBRARY_PATH, NativesIndex.INDEX_PATH);
+
+        final NativesIndex index = NativesIndex.load(new URLClassLoader(new URL[] {jarFile.toURI().toURL()}, null));
+
+        assertEntry(index.find(LIBRARY_PATH));
+        Assert.assertEquals("jar", index.find(LIBRARY_PATH).getUrl().getProtocol());
+    }
+
+    @Test
+    public void testIndex_coverage() throws IOException {
+        final File rootDirectory = createNativesDirectory();
+        NativesIndexWriter.writeIndex(rootDirectory, NativesIndexWriter.DEFAULT_PREFIX);
+        final URL indexedJar = createJar(rootDirectory, LIBRARY_PATH, NativesIndex.INDEX_PATH).toURI().toURL();
+        final File plainDirectory = this.temporaryFolder.newFolder("plain");
+        write(new File(plainDirectory, "natives/linux-x86_64-64/libbar.so"), CONTENT);
+
+        final NativesIndex complete = NativesIndex.load(new URLClassLoader(new URL[] {indexedJar}, null));
+        Assert.assertTrue(complete.isComplete());
+        Assert.assertNull(complete.findUnindexed(LIBRARY_PATH));
+
+        final URLClassLoader parent = new URLClassLoader(new URL[] {plainDirectory.toURI().toURL()}, null);
+        final NativesIndex partial = NativesIndex.load(new URLClassLoader(new URL[] {indexedJar}, parent));
+        Assert.assertTrue(partial.isCoverageKnown());
+        Assert.assertFalse(partial.isComplete());
+        Assert.assertNotNull("only the directory without an index is probed.", partial.findUnindexed("natives/linux-x86_64-64/libbar.so"));
+        Assert.assertNull(partial.findUnindexed(LIBRARY_PATH));
+    }
+
+    @Test
+    public void testIndex_none() {
+        Assert.assertTrue(NativesIndex.load(new URLClassLoader(new URL[0], null)).isEmpty());
+    }
+
+    private static void assertEntry(final NativesIndex.IndexEntry entry) throws IOException {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(CONTENT);
+
+        Assert.assertEquals(LIBRARY_PATH, entry.getPath());
+        Assert.assertEquals(CONTENT.length, entry.getSize());
+        Assert.assertEquals(crc32.getValue(), entry.getCrc());
+        Assert.assertEquals("74f81fe167d99b4cb41d6d0ccda82278caee9f3e2f25d5e5a3936ff3dcec60d0", entry.getSha256());
+
+        final InputStream inputStream = entry.getUrl().openStream();
+        try {
+            Assert.assertEquals(CONTENT.length, inputStream.read(new byte[16]));
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private File createNativesDirectory() throws IOException {
+        final File rootDirectory = this.temporaryFolder.newFolder("classes");
+        write(new File(rootDirectory, LIBRARY_PATH), CONTENT);
+        write(new File(rootDirectory, "natives/windows-x86_64-64/foo.dll"), new byte[] {9});
+        write(new File(rootDirectory, "other/readme.txt"), new byte[] {'a'});
+
+        return rootDirectory;
+    }
+
+    private static void write(final File file, final byte[] content) throws IOException {
+        file.getParentFile().mkdirs();
+        final FileOutputStream outputStream = new FileOutputStream(file);
+
+        try {
+            outputStream.write(content);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private File createJar(final File rootDirectory, final String... paths) throws IOException {
+        final File jarFile = this.temporaryFolder.newFile("natives.jar");
+        final JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jarFile));
+
+        try {
+            for (final String path : paths) {
+                jarOutputStream.putNextEntry(new JarEntry(path));
+                final InputStream inputStream = new FileInputStream(new File(rootDirectory, path));
+
+                try {
+                    final byte[] buffer = new byte[1024];
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        jarOutputStream.write(buffer, 0, read);
+                    }
+                } finally {
+                    inputStream.close();
+                }
+
+                jarOutputStream.closeEntry();
+            }
+        } finally {
+            jarOutputStream.close();
+        }
+
+        return jarFile;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StaleExtractionSweeperTest {
+
+    private static final long HOUR_MILLIS = 60L * 60L * 1000L;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File rootDirectory;
+
+    private File libraryDirectory;
+
+    private File systemDirectory;
+
+    private File digestDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        this.rootDirectory = this.temporaryFolder.newFolder("cache");
+        this.libraryDirectory = new File(this.rootDirectory, "foo");
+        this.systemDirectory = new File(this.libraryDirectory, "linux-x86_64-64");
+        this.digestDirectory = new File(this.systemDirectory, "1234-4");
+        Assert.assertTrue(this.digestDirectory.mkdirs());
+    }
+
+    @Test
+    public void testSweep_deletesStaleTemporaryFiles() throws IOException {
+        final File staleCopy = createFile(this.systemDirectory, "libfoo.so123.tmp", HOUR_MILLIS);
+        final File staleRecord = createFile(this.digestDirectory, "libfoo.so.sha256456.tmp", HOUR_MILLIS);
+        final File recentCopy = createFile(this.systemDirectory, "libfoo.so789.tmp", 0L);
+        final File library = createFile(this.digestDirectory, "libfoo.so", HOUR_MILLIS);
+
+        final int deleted = new StaleExtractionSweeper(this.rootDirectory, 10000L, 1000, 60L * 1000L).sweep();
+
+        Assert.assertEquals(2, deleted);
+        Assert.assertFalse(staleCopy.exists());
+        Assert.assertFalse(staleRecord.exists());
+        Assert.assertTrue("might still be written.", recentCopy.exists());
+        Assert.assertTrue("published libraries are kept.", library.exists());
+    }
+
+    @Test
+    public void testSweep_skipsLockedDirectories() throws IOException, InterruptedException, ExecutionException {
+        final File staleCopy = createFile(this.systemDirectory, "libfoo.so123.tmp", HOUR_MILLIS);
+        final ExtractionLock lock = ExtractionLock.acquire(new File(this.libraryDirectory, "linux-x86_64-64.lock"));
+
+        try {
+            final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+            try {
+                final int deleted = executorService.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return new StaleExtractionSweeper(StaleExtractionSweeperTest.this.rootDirectory, 10000L, 1000, 0L).sweep();
+                    }
+                }).get();
+
+                Assert.assertEquals(0, deleted);
+            } finally {
+                executorService.shutdownNow();
+            }
+        } finally {
+            lock.release();
+        }
+
+        Assert.assertTrue("an extraction is in progress.", staleCopy.exists());
+    }
+
+    @Test
+    public void testSweep_stopsWhenBudgetIsExhausted() throws IOException {
+        final File staleCopy = createFile(this.systemDirectory, "libfoo.so123.tmp", HOUR_MILLIS);
+
+        // the library directory alone uses up the budget.
+        Assert.assertEquals(0, new StaleExtractionSweeper(this.rootDirectory, 10000L, 1, 0L).sweep());
+        Assert.assertTrue(staleCopy.exists());
+    }
+
+    @Test
+    public void testSweep_continuesWhereThePreviousSweepStopped() throws IOException {
+        final File root = this.temporaryFolder.newFolder("resumed");
+        final File[] staleCopies = new File[3];
+
+        for (int ii = 0; ii < staleCopies.length; ii++) {
+            final File systemDirectory = new File(new File(root, "lib" + ii), "linux-x86_64-64");
+            Assert.assertTrue(systemDirectory.mkdirs());
+            staleCopies[ii] = createFile(systemDirectory, "liblib" + ii + ".so123.tmp", HOUR_MILLIS);
+        }
+
+        // the budget is used up in the second library directory of each sweep.
+        Assert.assertEquals(1, new StaleExtractionSweeper(root, 10000L, 4, 0L).sweep());
+        Assert.assertFalse(staleCopies[0].exists());
+        Assert.assertTrue(staleCopies[1].exists());
+        Assert.assertTrue(new File(root, StaleExtractionSweeper.CURSOR_FILE_NAME).isFile());
+
+        Assert.assertEquals(1, new StaleExtractionSweeper(root, 10000L, 4, 0L).sweep());
+        Assert.assertFalse("the second sweep continues in the unfinished directory.", staleCopies[1].exists());
+        Assert.assertTrue(staleCopies[2].exists());
+
+        Assert.assertEquals(1, new StaleExtractionSweeper(root, 10000L, 4, 0L).sweep());
+        Assert.assertFalse(staleCopies[2].exists());
+    }
+
+    private static File createFile(final File directory, final String name, final long ageMillis) throws IOException {
+        final File file = new File(directory, name);
+        Assert.assertTrue(file.createNewFile());
+        Assert.assertTrue(file.setLastModified(System.currentTimeMillis() - ageMillis));
+
+        return file;
+    }
+}
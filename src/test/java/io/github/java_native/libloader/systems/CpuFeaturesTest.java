@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.systems;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CpuFeaturesTest {
+
+    @Test
+    public void testParseCpuInfo_x86() throws IOException {
+        final BufferedReader reader = createReader(
+                "processor\t: 0",
+                "vendor_id\t: GenuineIntel",
+                "flags\t\t: fpu sse2 sse4_1 sse4_2 avx avx2 avx512f",
+                "",
+                "processor\t: 1",
+                "flags\t\t: fpu sse2");
+        final Set<String> flags = CpuFeatures.parseCpuInfo(reader);
+
+        Assert.assertEquals("stops after the first processor's flags.", "", reader.readLine());
+        Assert.assertNotNull(flags);
+        Assert.assertTrue(flags.contains(CpuFeatures.AVX512F));
+        Assert.assertTrue("alias of sse4_2.", flags.contains(CpuFeatures.SSE4_2));
+        Assert.assertEquals(Arrays.asList("avx512", "avx2"), new CpuFeatures(flags).getTiers());
+    }
+
+    @Test
+    public void testParseCpuInfo_aarch64() throws IOException {
+        final Set<String> flags = CpuFeatures.parseCpuInfo(createReader(
+                "processor\t: 0",
+                "Features\t: fp asimd evtstrm aes sve",
+                "CPU implementer\t: 0x41"));
+
+        Assert.assertNotNull(flags);
+        Assert.assertTrue("alias of asimd.", flags.contains(CpuFeatures.NEON));
+        Assert.assertEquals(Arrays.asList("sve", "neon"), new CpuFeatures(flags).getTiers());
+    }
+
+    @Test
+    public void testParseCpuInfo_noFlags() throws IOException {
+        Assert.assertNull(CpuFeatures.parseCpuInfo(createReader("processor\t: 0", "model name\t: unknown")));
+    }
+
+    @Test
+    public void testParseAuxv_aarch64() {
+        final ByteBuffer auxv = ByteBuffer.allocate(48).order(ByteOrder.nativeOrder());
+        auxv.putLong(6L).putLong(4096L);
+        // AT_HWCAP with HWCAP_ASIMD and HWCAP_SVE.
+        auxv.putLong(16L).putLong((1L << 1) | (1L << 22));
+        auxv.putLong(0L).putLong(0L);
+
+        Assert.assertEquals(new HashSet<String>(Arrays.asList(CpuFeatures.NEON, CpuFeatures.SVE)),
+                CpuFeatures.parseAuxv(auxv.array(), "aarch64"));
+        Assert.assertTrue("not read on x86.", CpuFeatures.parseAuxv(auxv.array(), "amd64").isEmpty());
+    }
+
+    @Test
+    public void testTiers_baselineOnly() {
+        final CpuFeatures features = new CpuFeatures(new HashSet<String>(Arrays.asList("sse2", "sse4.2")));
+
+        Assert.assertTrue(features.has(CpuFeatures.SSE4_2));
+        Assert.assertTrue(features.getTiers().isEmpty());
+        Assert.assertTrue(CpuFeatures.NONE.getTiers().isEmpty());
+        Assert.assertEquals(Collections.<String>emptySet(), CpuFeatures.NONE.getFlags());
+    }
+
+    @Test
+    public void testCurrentSystem_isCached() {
+        final CpuFeatures features = CurrentSystemProperties.INSTANCE.getCpuFeatures();
+
+        Assert.assertSame(features, CurrentSystemProperties.INSTANCE.getCpuFeatures());
+    }
+
+    private static BufferedReader createReader(final String... lines) {
+        final StringBuilder content = new StringBuilder();
+
+        for (final String line : lines) {
+            content.append(line).append('\n');
+        }
+
+        return new BufferedReader(new StringReader(content.toString()));
+    }
+}
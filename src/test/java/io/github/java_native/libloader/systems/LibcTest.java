@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.systems;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LibcTest {
+
+    @Test
+    public void testGetNewestGlibcMinorVersion() {
+        Assert.assertEquals(28, Libc.getNewestGlibcMinorVersion(
+                Arrays.asList("libc.so.6", "GLIBC_2.2.5", "GLIBC_2.28", "GLIBC_2.3.4", "GLIBC_PRIVATE")));
+        Assert.assertEquals(-1, Libc.getNewestGlibcMinorVersion(Collections.singletonList("GLIBC_PRIVATE")));
+    }
+
+    @Test
+    public void testQualifiers_glibcDownToMinimum() {
+        final Libc libc = new Libc(Libc.Flavour.GLIBC, 19);
+
+        Assert.assertEquals("2.19", libc.getVersion());
+        Assert.assertEquals(Arrays.asList("glibc2.19", "glibc2.18", "glibc2.17"), libc.getQualifiers());
+    }
+
+    @Test
+    public void testQualifiers_olderThanMinimum() {
+        Assert.assertEquals(Collections.singletonList("glibc2.12"), new Libc(Libc.Flavour.GLIBC, 12).getQualifiers());
+    }
+
+    @Test
+    public void testQualifiers_unknownGlibcVersion() {
+        Assert.assertTrue(new Libc(Libc.Flavour.GLIBC, -1).getQualifiers().isEmpty());
+    }
+
+    @Test
+    public void testQualifiers_musl() {
+        final Libc libc = new Libc(Libc.Flavour.MUSL, -1);
+
+        Assert.assertNull(libc.getVersion());
+        Assert.assertEquals(Collections.singletonList("musl"), libc.getQualifiers());
+    }
+}
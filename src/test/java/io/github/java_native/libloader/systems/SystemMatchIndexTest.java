@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020 the 'java-native' development team
+ *         https://github.com/java-native/
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.java_native.libloader.systems;
+
+import io.github.java_native.libloader.config.DefaultLibLoaderConfig;
+import io.github.java_native.libloader.internal.Nullable;
+import io.github.java_native.libloader.systems.linux.LinuxArm32HardFloat;
+import io.github.java_native.libloader.systems.linux.LinuxArm32SoftFloat;
+import io.github.java_native.libloader.systems.linux.LinuxX8664;
+import io.github.java_native.libloader.systems.windows.WindowsX8632;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SystemMatchIndexTest {
+
+    @Test
+    public void testFindMatch_defaultSystems() {
+        final SystemMatchIndex index = SystemMatchIndex.build(new DefaultLibLoaderConfig().getSystemDefinitions());
+
+        Assert.assertTrue(index.findMatch(properties("linux", "amd64", Bitness._64, null)) instanceof LinuxX8664);
+        Assert.assertTrue(index.findMatch(properties("windows", "x86", Bitness._32, null)) instanceof WindowsX8632);
+        Assert.assertTrue(index.findMatch(properties("linux", "arm", Bitness._32, "hf")) instanceof LinuxArm32HardFloat);
+        Assert.assertTrue(index.findMatch(properties("linux", "arm", Bitness._32, null)) instanceof LinuxArm32SoftFloat);
+        Assert.assertNull(index.findMatch(properties("linux", "amd64", Bitness._32, null)));
+        Assert.assertNull(index.findMatch(properties("linux", "sparc", Bitness._64, null)));
+    }
+
+    @Test
+    public void testFindMatch_declarationOrder() {
+        final LinuxX8664 custom = new LinuxX8664() {
+            @Override
+            public boolean matches(final SystemProperties currentSystemProperties) {
+                return "linux".equals(currentSystemProperties.getNormalizedOsName());
+            }
+        };
+        final LinuxX8664 first = new LinuxX8664();
+        final LinuxX8664 second = new LinuxX8664();
+
+        final List<SystemDefinition> definitions = new ArrayList<SystemDefinition>();
+        definitions.add(first);
+        definitions.add(custom);
+        definitions.add(second);
+
+        final SystemMatchIndex index = SystemMatchIndex.build(definitions);
+        Assert.assertSame(first, index.findMatch(properties("linux", "x86_64", Bitness._64, null)));
+        Assert.assertSame("custom matching logic must still be consulted.",
+                custom, index.findMatch(properties("linux", "sparc", Bitness._64, null)));
+
+        definitions.remove(first);
+        Assert.assertSame(custom, SystemMatchIndex.build(definitions).findMatch(properties("linux", "x86_64", Bitness._64, null)));
+    }
+
+    private static SystemProperties properties(final String osName,
+                                               final String architecture,
+                                               final Bitness bitness,
+                                               final @Nullable String qualifier) {
+        return new SystemProperties() {
+            @Override
+            public String getNormalizedOsName() {
+                return osName;
+            }
+
+            @Override
+            public String getArchitecture() {
+                return architecture;
+            }
+
+            @Override
+            public Bitness getBitness() {
+                return bitness;
+            }
+
+            @Override
+            public Endianess getEndianess() {
+                return Endianess.LITTLE;
+            }
+
+            @Override
+            public @Nullable String getQualifier() {
+                return qualifier;
+            }
+        };
+    }
+}